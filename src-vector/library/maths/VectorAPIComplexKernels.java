@@ -0,0 +1,167 @@
+/* */
+
+
+package library.maths;
+
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+
+// SIMD versions of the complex products in ComplexKernels, written with the (incubating)
+// Java Vector API.
+// This file is kept in a source folder of its own, as it needs the jdk.incubator.vector
+// module (Java 16 or later), both to compile it,
+//   javac --add-modules jdk.incubator.vector -cp <main classes> -d <main classes> src-vector/library/maths/*.java
+// and to run it,
+//   java --add-modules jdk.incubator.vector ...
+// ComplexKernels uses it only if it is there and works; otherwise it uses its own scalar loops.
+//
+// A vector holds an even number of doubles, i.e. a whole number of complex numbers
+// (re, im).  The product of two vectors of complex numbers a and b is
+//   a * (b_re, b_re) + swap(a) * (b_im, b_im) * (-1, 1),
+// where (b_re, b_re) has the real part of each of b's elements in both lanes of that
+// element, and swap(a) has the real and imaginary parts of each of a's elements swapped.
+
+public class VectorAPIComplexKernels
+implements ComplexKernels.Vectorised
+{
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	
+	private static final VectorShuffle<Double>
+		SWAP = VectorShuffle.fromArray(SPECIES, shuffleIndices(1, 0), 0),
+		EVEN = VectorShuffle.fromArray(SPECIES, shuffleIndices(0, 0), 0),
+		ODD = VectorShuffle.fromArray(SPECIES, shuffleIndices(1, 1), 0);
+	
+	// (-1, 1, -1, 1, ...)
+	private static final DoubleVector SIGNS = DoubleVector.fromArray(SPECIES, signs(), 0);
+	
+	// indices that take lane first (second) of each pair of lanes from the first (second) lane of the pair plus the given offset
+	private static int[] shuffleIndices(int first, int second)
+	{
+		int indices[] = new int[SPECIES.length()];
+		for(int k=0; k<indices.length; k+=2)
+		{
+			indices[k] = k + first;
+			indices[k+1] = k + second;
+		}
+		return indices;
+	}
+	
+	private static double[] signs()
+	{
+		double signs[] = new double[SPECIES.length()];
+		for(int k=0; k<signs.length; k++) signs[k] = ((k % 2) == 0)?-1:1;
+		return signs;
+	}
+	
+	public VectorAPIComplexKernels()
+	{
+		if((SPECIES.length() < 2) || ((SPECIES.length() % 2) != 0))
+			throw new UnsupportedOperationException("Vectors of " + SPECIES.length() + " doubles don't hold whole complex numbers.");
+	}
+	
+	// the product of the complex numbers in va and vb (see above)
+	private static DoubleVector product(DoubleVector va, DoubleVector vb)
+	{
+		return va.mul(vb.rearrange(EVEN)).add(va.rearrange(SWAP).mul(vb.rearrange(ODD)).mul(SIGNS));
+	}
+	
+	@Override
+	public int multiply(double a[], double fRe, double fIm)
+	{
+		DoubleVector
+			vfRe = DoubleVector.broadcast(SPECIES, fRe),
+			vfImSigned = DoubleVector.broadcast(SPECIES, fIm).mul(SIGNS);
+		
+		int upperBound = SPECIES.loopBound(a.length);
+		for(int k=0; k<upperBound; k+=SPECIES.length())
+		{
+			DoubleVector va = DoubleVector.fromArray(SPECIES, a, k);
+			va.mul(vfRe).add(va.rearrange(SWAP).mul(vfImSigned)).intoArray(a, k);
+		}
+		return upperBound;
+	}
+	
+	@Override
+	public int multiply(double a[], double b[])
+	{
+		int upperBound = SPECIES.loopBound(a.length);
+		for(int k=0; k<upperBound; k+=SPECIES.length())
+		{
+			product(DoubleVector.fromArray(SPECIES, a, k), DoubleVector.fromArray(SPECIES, b, k)).intoArray(a, k);
+		}
+		return upperBound;
+	}
+	
+	@Override
+	public int multiply(double a[], double b[], double f)
+	{
+		int upperBound = SPECIES.loopBound(a.length);
+		for(int k=0; k<upperBound; k+=SPECIES.length())
+		{
+			product(DoubleVector.fromArray(SPECIES, a, k), DoubleVector.fromArray(SPECIES, b, k)).mul(f).intoArray(a, k);
+		}
+		return upperBound;
+	}
+	
+	@Override
+	public int product(double a[], double b[], double c[])
+	{
+		int upperBound = SPECIES.loopBound(a.length);
+		for(int k=0; k<upperBound; k+=SPECIES.length())
+		{
+			product(DoubleVector.fromArray(SPECIES, a, k), DoubleVector.fromArray(SPECIES, b, k)).intoArray(c, k);
+		}
+		return upperBound;
+	}
+	
+	@Override
+	public int multiplyAccumulate(double c[], double a[], double fRe, double fIm)
+	{
+		DoubleVector
+			vfRe = DoubleVector.broadcast(SPECIES, fRe),
+			vfImSigned = DoubleVector.broadcast(SPECIES, fIm).mul(SIGNS);
+		
+		int upperBound = SPECIES.loopBound(a.length);
+		for(int k=0; k<upperBound; k+=SPECIES.length())
+		{
+			DoubleVector va = DoubleVector.fromArray(SPECIES, a, k);
+			DoubleVector.fromArray(SPECIES, c, k).add(va.mul(vfRe).add(va.rearrange(SWAP).mul(vfImSigned))).intoArray(c, k);
+		}
+		return upperBound;
+	}
+	
+	@Override
+	public int multiplyAccumulate(double c[], double a[], double b[])
+	{
+		int upperBound = SPECIES.loopBound(a.length);
+		for(int k=0; k<upperBound; k+=SPECIES.length())
+		{
+			DoubleVector.fromArray(SPECIES, c, k).add(product(DoubleVector.fromArray(SPECIES, a, k), DoubleVector.fromArray(SPECIES, b, k))).intoArray(c, k);
+		}
+		return upperBound;
+	}
+	
+	@Override
+	public double maxAbsSqr(double a[])
+	{
+		DoubleVector max = DoubleVector.zero(SPECIES);
+		
+		int upperBound = SPECIES.loopBound(a.length);
+		for(int k=0; k<upperBound; k+=SPECIES.length())
+		{
+			DoubleVector va = DoubleVector.fromArray(SPECIES, a, k);
+			
+			// |a_k|^2 in both lanes of each element
+			DoubleVector sqr = va.mul(va);
+			max = max.max(sqr.add(sqr.rearrange(SWAP)));
+		}
+		
+		double m = max.reduceLanes(VectorOperators.MAX);
+		for(int k=upperBound; k<a.length; k+=2) m = Math.max(m, a[k]*a[k] + a[k+1]*a[k+1]);
+		return m;
+	}
+}
@@ -3,7 +3,10 @@ package javawaveoptics.optics;
 import java.io.Serializable;
 
 import library.field.ComplexField2D;
+import library.optics.GaussianModeExpansion;
 import library.optics.LightBeamCrossSection2D;
+import library.optics.RadialLightBeam;
+import library.optics.SeparableLightBeam;
 
 /**
  * Represents a beam of light. This is a wrapper class for LightBeamCrossSection2D.
@@ -17,6 +20,21 @@ public class BeamCrossSection extends LightBeamCrossSection2D implements Seriali
 	/*
 	 * Fields
 	 */
+	
+	// If the beam is still exactly the Gaussian, Hermite-Gaussian or Laguerre-Gaussian beam created by its light source,
+	// that beam; it allows the beam to be followed analytically through first-order components (see AnalyticBeamTracker).
+	// Not copied by the copy constructors, and cleared as soon as a component starts to change the beam.
+	private transient GaussianModeExpansion gaussianModeExpansion = null;
+	
+	// If the beam is still rotationally symmetric about the optical axis, its radial profile; it allows the beam to be
+	// simulated in 1D through rotationally symmetric components (see RadialSection).
+	// Not copied by the copy constructors, and cleared as soon as a component starts to change the beam.
+	private transient RadialLightBeam radialBeam = null;
+	
+	// If the beam is still of the form X(x) Y(y), its two factors; they allow the beam to be simulated in 1D through
+	// separable components (see SeparableSection).
+	// Not copied by the copy constructors, and cleared as soon as a component starts to change the beam.
+	private transient SeparableLightBeam separableBeam = null;
 
 	public BeamCrossSection(int width, int height, double physicalWidth, double physicalHeight, double wavelength)
 	{
@@ -43,4 +61,93 @@ public class BeamCrossSection extends LightBeamCrossSection2D implements Seriali
 	{
 		this(256, 256, 1e-2, 1e-2, 632.8e-9);
 	}
+	
+	/**
+	 * @return	the Gaussian, Hermite-Gaussian or Laguerre-Gaussian beam this beam still is, or null
+	 */
+	public GaussianModeExpansion getGaussianModeExpansion()
+	{
+		return gaussianModeExpansion;
+	}
+
+	/**
+	 * Records that the beam is (still) the given Gaussian, Hermite-Gaussian or Laguerre-Gaussian beam;
+	 * null if it is not (any longer).
+	 * 
+	 * @param gaussianModeExpansion
+	 */
+	public void setGaussianModeExpansion(GaussianModeExpansion gaussianModeExpansion)
+	{
+		this.gaussianModeExpansion = gaussianModeExpansion;
+	}
+	
+	/**
+	 * @return	the radial profile of this beam if it is (still) rotationally symmetric, or null
+	 */
+	public RadialLightBeam getRadialBeam()
+	{
+		return radialBeam;
+	}
+
+	/**
+	 * Records that the beam is (still) the rotationally symmetric beam with the given radial profile;
+	 * null if it is not (any longer).
+	 * 
+	 * @param radialBeam
+	 */
+	public void setRadialBeam(RadialLightBeam radialBeam)
+	{
+		this.radialBeam = radialBeam;
+	}
+	
+	/**
+	 * @return	the factors X(x) and Y(y) of this beam if it is (still) separable, or null
+	 */
+	public SeparableLightBeam getSeparableBeam()
+	{
+		return separableBeam;
+	}
+
+	/**
+	 * Records that the beam is (still) the separable beam with the given factors;
+	 * null if it is not (any longer).
+	 * 
+	 * @param separableBeam
+	 */
+	public void setSeparableBeam(SeparableLightBeam separableBeam)
+	{
+		this.separableBeam = separableBeam;
+	}
+	
+	/**
+	 * Forgets the analytic, radial and separable descriptions of the beam (see above), which are no longer valid once the beam has been changed.
+	 */
+	public void clearAlternativeDescriptions()
+	{
+		gaussianModeExpansion = null;
+		radialBeam = null;
+		separableBeam = null;
+	}
+	
+	/**
+	 * Phase conjugates all the pixels in the given set.
+	 * 
+	 * @param spans		The set of pixels, which has to have the dimensions of the beam
+	 */
+	public void phaseConjugatePixelSpans(PixelSpans spans)
+	{
+		dataChanged();
+		
+		for(int j = 0; j < spans.getHeight(); j++)
+		{
+			for(int k = spans.getFirstSpanInRow(j); k < spans.getFirstSpanInRow(j+1); k++)
+			{
+				int end = getIndexIm(spans.getSpanEnd(k), j);
+				for(int index = getIndexIm(spans.getSpanStart(k), j); index < end; index += 2)
+				{
+					data[index] = -data[index];
+				}
+			}
+		}
+	}
 }
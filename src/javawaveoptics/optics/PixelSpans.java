@@ -0,0 +1,156 @@
+package javawaveoptics.optics;
+
+/**
+ * A set of pixels in a beam cross-section, stored row by row as runs ("spans") of consecutive pixels.
+ * Span k covers pixels i = getSpanStart(k), ..., getSpanEnd(k)-1; the spans in row j are
+ * k = getFirstSpanInRow(j), ..., getFirstSpanInRow(j+1)-1.
+ * 
+ * Pixel-wise components use this to change a set of pixels in tight loops along the rows, which is how
+ * the amplitudes are stored.
+ */
+public class PixelSpans
+{
+	private int width, height;
+	
+	// index of the first span in each row; rowStarts[height] is the total number of spans
+	private int[] rowStarts;
+	
+	// start (inclusive) and end (exclusive) pixel index of each span
+	private int[] spanStarts, spanEnds;
+	
+	private PixelSpans(int width, int height, int[] rowStarts, int[] spanStarts, int[] spanEnds)
+	{
+		this.width = width;
+		this.height = height;
+		this.rowStarts = rowStarts;
+		this.spanStarts = spanStarts;
+		this.spanEnds = spanEnds;
+	}
+	
+	/**
+	 * Returns the set of pixels (i, j) for which values[j * width + i] > threshold.
+	 * 
+	 * @param values	width * height values, row by row
+	 * @param width
+	 * @param height
+	 * @param threshold
+	 * @return
+	 */
+	public static PixelSpans createFromThreshold(double[] values, int width, int height, double threshold)
+	{
+		int[] rowStarts = new int[height + 1];
+		
+		// count the spans...
+		int numberOfSpans = 0;
+		for(int j = 0; j < height; j++)
+		{
+			rowStarts[j] = numberOfSpans;
+			boolean inside = false;
+			for(int i = 0, index = j * width; i < width; i++, index++)
+			{
+				boolean selected = (values[index] > threshold);
+				if(selected && !inside) numberOfSpans++;
+				inside = selected;
+			}
+		}
+		rowStarts[height] = numberOfSpans;
+		
+		// ... and then record them
+		int[] spanStarts = new int[numberOfSpans];
+		int[] spanEnds = new int[numberOfSpans];
+		int k = 0;
+		for(int j = 0; j < height; j++)
+		{
+			boolean inside = false;
+			for(int i = 0, index = j * width; i < width; i++, index++)
+			{
+				boolean selected = (values[index] > threshold);
+				if(selected && !inside) spanStarts[k] = i;
+				if(!selected && inside) spanEnds[k++] = i;
+				inside = selected;
+			}
+			if(inside) spanEnds[k++] = width;
+		}
+		
+		return new PixelSpans(width, height, rowStarts, spanStarts, spanEnds);
+	}
+	
+	/**
+	 * @return	the set of all the pixels that are not in this set
+	 */
+	public PixelSpans getComplement()
+	{
+		int[] complementRowStarts = new int[height + 1];
+		
+		// each row of the complement has between one span fewer and one span more than the corresponding row of this set
+		int[] complementSpanStarts = new int[getNumberOfSpans() + height];
+		int[] complementSpanEnds = new int[getNumberOfSpans() + height];
+		int n = 0;
+		for(int j = 0; j < height; j++)
+		{
+			complementRowStarts[j] = n;
+			int i = 0;
+			for(int k = rowStarts[j]; k < rowStarts[j+1]; k++)
+			{
+				if(spanStarts[k] > i)
+				{
+					complementSpanStarts[n] = i;
+					complementSpanEnds[n++] = spanStarts[k];
+				}
+				i = spanEnds[k];
+			}
+			if(i < width)
+			{
+				complementSpanStarts[n] = i;
+				complementSpanEnds[n++] = width;
+			}
+		}
+		complementRowStarts[height] = n;
+		
+		int[] s = new int[n], e = new int[n];
+		System.arraycopy(complementSpanStarts, 0, s, 0, n);
+		System.arraycopy(complementSpanEnds, 0, e, 0, n);
+		
+		return new PixelSpans(width, height, complementRowStarts, s, e);
+	}
+	
+	public int getWidth()
+	{
+		return width;
+	}
+	
+	public int getHeight()
+	{
+		return height;
+	}
+	
+	public int getNumberOfSpans()
+	{
+		return rowStarts[height];
+	}
+	
+	public int getFirstSpanInRow(int j)
+	{
+		return rowStarts[j];
+	}
+	
+	public int getSpanStart(int k)
+	{
+		return spanStarts[k];
+	}
+	
+	public int getSpanEnd(int k)
+	{
+		return spanEnds[k];
+	}
+	
+	/**
+	 * @return	the number of pixels in the set
+	 */
+	public int getNumberOfPixels()
+	{
+		int n = 0;
+		for(int k = 0; k < getNumberOfSpans(); k++) n += spanEnds[k] - spanStarts[k];
+		return n;
+	}
+}
@@ -161,6 +161,14 @@ public abstract class AbstractOpticalComponent implements Serializable
 			}
 		}
 		
+		// the component is about to change the beams numerically, after which they are no longer
+		// the beams created by a light source (see AnalyticBeamTracker), rotationally symmetric (see RadialSection)
+		// or separable (see SeparableSection)
+		for(BeamCrossSection beam : inputs)
+		{
+			if(beam != null) beam.clearAlternativeDescriptions();
+		}
+		
 		return inputs;
 	}
 	
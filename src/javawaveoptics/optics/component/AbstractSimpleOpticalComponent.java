@@ -16,6 +16,10 @@ import javawaveoptics.utility.RotatableInterface;
  * removes the need for ArrayList objects to be passed in or out, as we only require one input and one
  * output.
  * 
+ * Components that change every pixel of the beam independently should not loop over the pixels
+ * themselves, but pass a PixelKernel (or a precomputed mask) to the beam, e.g.
+ * inputBeam.applyPixelKernel(kernel); the kernel is then applied row by row, split across all processors.
+ * 
  * @author Sean
  */
 public abstract class AbstractSimpleOpticalComponent extends AbstractOpticalComponent implements Serializable
@@ -99,6 +103,25 @@ public abstract class AbstractSimpleOpticalComponent extends AbstractOpticalComp
 		return output;
 	}
 	
+	/**
+	 * Deals with the input beam. If it is switched on, a Gaussian, Hermite-Gaussian or Laguerre-Gaussian beam
+	 * straight from its light source is followed analytically through first-order components (see AnalyticBeamTracker),
+	 * a rotationally symmetric beam is simulated in 1D through rotationally symmetric components (see RadialSection),
+	 * a separable beam is simulated in 1D through separable components (see SeparableSection),
+	 * and, if this component is the first of a chain of first-order components (lenses, distances etc.), the whole chain
+	 * is simulated in one go (see FirstOrderSection).
+	 */
+	@Override
+	public void dealWithInput(int inputNumber, BeamCrossSection inputBeam)
+	{
+		if(AnalyticBeamTracker.dealWithInput(this, inputBeam)) return;
+		if(RadialSection.dealWithInput(this, inputBeam)) return;
+		if(SeparableSection.dealWithInput(this, inputBeam)) return;
+		if(FirstOrderSection.dealWithInput(this, inputBeam)) return;
+		
+		super.dealWithInput(inputNumber, inputBeam);
+	}
+	
 	/**
 	 * Abstract class that takes an input beam and provides the corresponding output beam. For example,
 	 * a lens optical component subclass would pass the input beam through a virtual lens in order to
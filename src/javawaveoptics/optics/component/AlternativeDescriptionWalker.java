@@ -0,0 +1,115 @@
+package javawaveoptics.optics.component;
+
+import java.util.ArrayList;
+
+import javawaveoptics.optics.BeamCrossSection;
+
+/**
+ * Passes one of the beam's alternative descriptions (see BeamCrossSection), e.g. its radial profile, through the
+ * components that can deal with it, starting with the component the beam enters (see AnalyticBeamTracker,
+ * RadialSection and SeparableSection).
+ *
+ * The beam's field is calculated from the description only where it is needed, i.e. in planes, which are shown
+ * the beam (planes don't change it), and at the end of the walk, where the beam is passed on as usual.
+ */
+abstract class AlternativeDescriptionWalker extends ComponentChainWalker
+{
+	// the beam
+	protected BeamCrossSection beam;
+	
+	// does the beam's field correspond to the description?
+	private boolean fieldCalculated = true;
+	
+	public AlternativeDescriptionWalker(BeamCrossSection beam)
+	{
+		this.beam = beam;
+	}
+	
+	/**
+	 * @param component	an enabled component
+	 * @return	true if the description can be passed through the component
+	 */
+	protected abstract boolean canPass(AbstractSimpleOpticalComponent component);
+	
+	/**
+	 * Passes the description through the component; if this throws an exception, it must not have changed the
+	 * description (see ComponentChainWalker).
+	 *
+	 * @param component	an enabled component the description can be passed through
+	 * @return	true if the description has changed
+	 */
+	protected abstract boolean pass(AbstractSimpleOpticalComponent component);
+	
+	/**
+	 * Calculates the beam's field from the description.
+	 */
+	protected abstract void makeField();
+	
+	@Override
+	protected boolean isEligible(AbstractSimpleOpticalComponent component)
+	{
+		return canPass(component) || (component instanceof Plane);
+	}
+	
+	@Override
+	protected void step(AbstractSimpleOpticalComponent component)
+	{
+		// the beam's other descriptions (see BeamCrossSection) are no longer up to date
+		beam.clearAlternativeDescriptions();
+		
+		if(canPass(component))
+		{
+			if(pass(component)) fieldCalculated = false;
+			return;
+		}
+		
+		// let the plane show the beam
+		calculateField();
+		component.setWarning(false, "");
+		try
+		{
+			ArrayList<BeamCrossSection> inputs = new ArrayList<BeamCrossSection>();
+			inputs.add(beam);
+			component.simulate(inputs);
+		}
+		catch(Exception e)
+		{
+			component.setWarning(true, e.getMessage());
+			e.printStackTrace();
+		}
+	}
+	
+	private void calculateField()
+	{
+		if(!fieldCalculated)
+		{
+			makeField();
+			fieldCalculated = true;
+		}
+	}
+	
+	/**
+	 * Passes the description through the components starting with the given component, and passes the beam on to
+	 * whatever follows them.
+	 *
+	 * @param firstComponent	the component the beam enters
+	 * @return	true if the beam has been dealt with; false if the first component has to deal with it as usual
+	 */
+	public boolean dealWithInput(AbstractSimpleOpticalComponent firstComponent)
+	{
+		ArrayList<AbstractSimpleOpticalComponent> passedComponents = walk(firstComponent);
+		if(passedComponents.isEmpty()) return false;
+		
+		beam.clearAlternativeDescriptions();
+		for(AbstractSimpleOpticalComponent component : passedComponents)
+		{
+			// planes have been given their warnings when they were shown the beam
+			if(!(component instanceof Plane)) component.setWarning(false, "");
+		}
+		
+		calculateField();
+		passOn(beam);
+		
+		return true;
+	}
+}
@@ -0,0 +1,137 @@
+package javawaveoptics.optics.component;
+
+import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.aperture.AbstractAperture;
+import javawaveoptics.optics.aperture.AnnularAperture;
+import library.optics.ABCDMatrix;
+import library.optics.GaussianModeExpansion;
+
+/**
+ * Follows Gaussian, Hermite-Gaussian and Laguerre-Gaussian beams analytically through first-order components.
+ * 
+ * Light sources of these beams record them in the beam (see BeamCrossSection.getGaussianModeExpansion).
+ * Starting with the component the beam enters, this tracks the ABCD matrices of all first-order components
+ * (see FirstOrderComponent), and of circular apertures that are so large that they don't affect the beam,
+ * and calculates the beam directly in every plane it passes, without any FFTs.
+ * The first component that is neither first-order nor a plane receives the calculated beam and simulates
+ * it as usual.
+ */
+public class AnalyticBeamTracker
+{
+	// circular apertures are considered negligible if their radius is at least this many beam radii
+	// (multiplied by sqrt(order + 1) for higher-order modes) larger than the distance between their centre and
+	// the beam centre; the power outside 3 beam radii is e^(-18) times that of a Gaussian beam
+	public static final double NEGLIGIBLE_APERTURE_RADIUS_IN_BEAM_RADII = 3;
+	
+	// are beams tracked analytically (in the current thread, so that each simulation can have its own setting, see GUI)?
+	private static final ThreadLocal<Boolean> enabled = new ThreadLocal<Boolean>()
+	{
+		@Override
+		protected Boolean initialValue()
+		{
+			return false;
+		}
+	};
+	
+	/**
+	 * If the beam is still the beam created by its light source, follows it analytically through the first-order
+	 * components and planes starting with the given component, and lets the first other component deal with it.
+	 * 
+	 * @param firstComponent	the component the beam enters
+	 * @param inputBeam	the beam
+	 * @return	true if the beam has been dealt with; false if the first component has to deal with it as usual
+	 */
+	public static boolean dealWithInput(AbstractSimpleOpticalComponent firstComponent, BeamCrossSection inputBeam)
+	{
+		if((inputBeam == null) || (inputBeam.getGaussianModeExpansion() == null)) return false;
+		
+		final GaussianModeExpansion gaussianModeExpansion = inputBeam.getGaussianModeExpansion();
+		
+		// whatever happens, the beam is about to be changed
+		inputBeam.setGaussianModeExpansion(null);
+		
+		if(!isEnabled()) return false;
+		
+		return new AlternativeDescriptionWalker(inputBeam)
+		{
+			private ABCDMatrix
+				mX = ABCDMatrix.identity(),
+				mY = ABCDMatrix.identity();
+			private double
+				opticalPathLength = 0,
+				physicalWidth = beam.getPhysicalWidth(),
+				physicalHeight = beam.getPhysicalHeight();
+			
+			@Override
+			protected boolean canPass(AbstractSimpleOpticalComponent component)
+			{
+				return FirstOrderSection.isFirstOrder(component) || isNegligibleAperture(component, gaussianModeExpansion, mX, mY, beam.getWavelength());
+			}
+			
+			@Override
+			protected boolean pass(AbstractSimpleOpticalComponent component)
+			{
+				// negligible apertures don't change the beam
+				if(!FirstOrderSection.isFirstOrder(component)) return false;
+				
+				FirstOrderComponent firstOrderComponent = (FirstOrderComponent)component;
+				
+				// ask the component for everything before changing anything, in case it fails
+				ABCDMatrix componentMX = firstOrderComponent.getABCDMatrixX(), componentMY = firstOrderComponent.getABCDMatrixY();
+				double componentOpticalPathLength = firstOrderComponent.getOpticalPathLength();
+				
+				// sample the beam like the component would if it was simulated numerically
+				double scaleFactors[] = firstOrderComponent.getElementSizeScaleFactors(
+						beam.getWidth(), beam.getHeight(),
+						physicalWidth, physicalHeight,
+						beam.getWavelength()
+					);
+				
+				mX = mX.followedBy(componentMX);
+				mY = mY.followedBy(componentMY);
+				opticalPathLength += componentOpticalPathLength;
+				physicalWidth *= Math.abs(scaleFactors[0]);
+				physicalHeight *= Math.abs(scaleFactors[1]);
+				
+				return true;
+			}
+			
+			@Override
+			protected void makeField()
+			{
+				beam.setPhysicalWidth(physicalWidth);
+				beam.setPhysicalHeight(physicalHeight);
+				gaussianModeExpansion.makeField(beam, mX, mY, opticalPathLength);
+			}
+		}.dealWithInput(firstComponent);
+	}
+	
+	// is the component a circular aperture that is so large that it doesn't affect the beam?
+	private static boolean isNegligibleAperture(AbstractSimpleOpticalComponent component, GaussianModeExpansion gaussianModeExpansion, ABCDMatrix mX, ABCDMatrix mY, double wavelength)
+	{
+		if(!(component instanceof Aperture)) return false;
+		
+		AbstractAperture aperture = ((Aperture)component).getSelectedAperture();
+		if(!(aperture instanceof AnnularAperture)) return false;
+		
+		AnnularAperture annularAperture = (AnnularAperture)aperture;
+		if(annularAperture.getInnerRadius() > 0) return false;
+		
+		double
+			beamRadius = Math.max(gaussianModeExpansion.getBeamRadiusX(mX, wavelength), gaussianModeExpansion.getBeamRadiusY(mY, wavelength)),
+			distanceFromBeamCentre = Math.hypot(
+					annularAperture.getxCentre() - gaussianModeExpansion.getXCentre(mX),
+					annularAperture.getyCentre() - gaussianModeExpansion.getYCentre(mY)
+				);
+		
+		return annularAperture.getOuterRadius() >= distanceFromBeamCentre + NEGLIGIBLE_APERTURE_RADIUS_IN_BEAM_RADII * beamRadius * Math.sqrt(gaussianModeExpansion.getMaxOrder() + 1);
+	}
+
+	public static boolean isEnabled() {
+		return enabled.get();
+	}
+
+	public static void setEnabled(boolean enabled) {
+		AnalyticBeamTracker.enabled.set(enabled);
+	}
+}
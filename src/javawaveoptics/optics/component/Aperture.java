@@ -9,8 +9,13 @@ import javax.swing.JPanel;
 
 import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.optics.aperture.AbstractAperture;
+import javawaveoptics.optics.aperture.AnnularAperture;
 import javawaveoptics.optics.aperture.ApertureType;
+import javawaveoptics.optics.aperture.GaussianAperture;
+import javawaveoptics.optics.aperture.Slit;
 import javawaveoptics.ui.UIBitsAndBobs;
+import library.optics.RadialLightBeam;
+import library.optics.SeparableLightBeam;
 
 /**
  * An aperture that can be one of a number of different types.
@@ -19,7 +24,7 @@ import javawaveoptics.ui.UIBitsAndBobs;
  * @author johannes
  *
  */
-public class Aperture extends AbstractSimpleOpticalComponent implements Serializable, ActionListener
+public class Aperture extends AbstractSimpleOpticalComponent implements RadiallySymmetricComponent, SeparableComponent, Serializable, ActionListener
 {
 	private static final long serialVersionUID = -8748873004884984777L;
 	
@@ -191,6 +196,61 @@ public class Aperture extends AbstractSimpleOpticalComponent implements Serializ
 		
 		return inputBeam;
 	}
+	
+	// RadiallySymmetricComponent methods
+	
+	/**
+	 * Circular and annular apertures centred on the optical axis are rotationally symmetric.
+	 */
+	@Override
+	public boolean isRadiallySymmetric()
+	{
+		if(!(aperture instanceof AnnularAperture)) return false;
+		
+		AnnularAperture annularAperture = (AnnularAperture)aperture;
+		return (annularAperture.getxCentre() == 0) && (annularAperture.getyCentre() == 0);
+	}
+	
+	@Override
+	public RadialLightBeam fromInputRadialBeamCalculateOutputRadialBeam(RadialLightBeam inputBeam)
+	{
+		AnnularAperture annularAperture = (AnnularAperture)aperture;
+		inputBeam.passThroughAnnularAperture(annularAperture.getOuterRadius(), annularAperture.getInnerRadius());
+		
+		return inputBeam;
+	}
+	
+	// SeparableComponent methods
+	
+	/**
+	 * Gaussian apertures, and slits aligned with the x or y direction, are separable.
+	 */
+	@Override
+	public boolean isSeparable()
+	{
+		if(aperture instanceof GaussianAperture) return true;
+		
+		return (aperture instanceof Slit) && (((Slit)aperture).getRotationAngle() % 90.0 == 0.0);
+	}
+	
+	@Override
+	public SeparableLightBeam fromInputSeparableBeamCalculateOutputSeparableBeam(SeparableLightBeam inputBeam)
+	{
+		if(aperture instanceof GaussianAperture)
+		{
+			GaussianAperture gaussianAperture = (GaussianAperture)aperture;
+			inputBeam.passThroughGaussianAperture(gaussianAperture.getSigma(), gaussianAperture.getxCentre(), gaussianAperture.getyCentre());
+		}
+		else
+		{
+			// the slit limits the beam in x if its rotation angle is 0 (see BeamCrossSection.passThroughSlitAperture)
+			Slit slit = (Slit)aperture;
+			boolean limitingX = (slit.getRotationAngle() % 180.0 == 0.0);
+			inputBeam.passThroughSlitAperture(slit.getSlitWidth(), limitingX, limitingX?slit.getxCentre():slit.getyCentre());
+		}
+		
+		return inputBeam;
+	}
 
 	private void drawApertureEditControls()
 	{
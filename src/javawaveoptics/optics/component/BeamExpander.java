@@ -8,8 +8,10 @@ import javax.swing.JFormattedTextField;
 
 import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.ui.UIBitsAndBobs;
+import library.optics.ABCDMatrix;
+import library.optics.SeparableLightBeam;
 
-public class BeamExpander extends AbstractSimpleOpticalComponent implements Serializable, PropertyChangeListener
+public class BeamExpander extends AbstractSimpleOpticalComponent implements FirstOrderComponent, SeparableComponent, Serializable, PropertyChangeListener
 {	
 	private static final long serialVersionUID = -1223767508311702105L;
 
@@ -62,6 +64,58 @@ public class BeamExpander extends AbstractSimpleOpticalComponent implements Seri
 		
 		return inputBeam;
 	}
+	
+	// FirstOrderComponent methods
+	
+	@Override
+	public boolean isFirstOrder()
+	{
+		return magnificationFactor != 0;
+	}
+	
+	/**
+	 * For negative magnifications, the beam is simply flipped, without the phase factor the ABCD matrix would
+	 * otherwise imply; ABCDMatrix.magnification takes care of that.
+	 */
+	@Override
+	public ABCDMatrix getABCDMatrixX()
+	{
+		return ABCDMatrix.magnification(magnificationFactor);
+	}
+	
+	@Override
+	public ABCDMatrix getABCDMatrixY()
+	{
+		return ABCDMatrix.magnification(magnificationFactor);
+	}
+	
+	@Override
+	public double getOpticalPathLength()
+	{
+		return 0;
+	}
+	
+	@Override
+	public double[] getElementSizeScaleFactors(int width, int height, double physicalWidth, double physicalHeight, double wavelength)
+	{
+		return new double[] {magnificationFactor, magnificationFactor};
+	}
+	
+	// SeparableComponent methods
+	
+	@Override
+	public boolean isSeparable()
+	{
+		return magnificationFactor != 0;
+	}
+	
+	@Override
+	public SeparableLightBeam fromInputSeparableBeamCalculateOutputSeparableBeam(SeparableLightBeam inputBeam)
+	{
+		inputBeam.magnify(magnificationFactor);
+		
+		return inputBeam;
+	}
 
 	@Override
 	protected void createEditPanel()
@@ -0,0 +1,122 @@
+package javawaveoptics.optics.component;
+
+import java.util.ArrayList;
+
+import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.ComponentInput;
+
+/**
+ * Walks along the chain of simple optical components that starts with a given component; this is how the classes
+ * that simulate several components in one go (see FirstOrderSection and AlternativeDescriptionWalker) find the
+ * components they can deal with.
+ *
+ * Enabled components are passed if they are eligible (see isEligible), and each of them is handed to step as it is
+ * passed; disabled components do nothing, so they are always passed.
+ * The walk stops at the first enabled component that is not eligible, at an output that is not connected to a simple
+ * component, and where the chain closes on itself.
+ * If reading a component's widgets, checking its eligibility or dealing with it throws an exception, the exception is
+ * reported, and the walk stops at that component, which then simulates the beam as usual (see passOn).
+ */
+abstract class ComponentChainWalker
+{
+	// the components passed so far, in order
+	private ArrayList<AbstractSimpleOpticalComponent> passedComponents = new ArrayList<AbstractSimpleOpticalComponent>();
+	
+	// the component at which the walk stopped because it is not eligible or failed; null if it stopped for another reason
+	private AbstractSimpleOpticalComponent stopComponent = null;
+	
+	/**
+	 * @param component	an enabled component
+	 * @return	true if the walk can pass the component
+	 */
+	protected abstract boolean isEligible(AbstractSimpleOpticalComponent component);
+	
+	/**
+	 * Deals with an enabled, eligible component as the walk passes it; if this throws an exception, it must not
+	 * have changed anything.
+	 *
+	 * @param component
+	 */
+	protected abstract void step(AbstractSimpleOpticalComponent component);
+	
+	/**
+	 * Walks along the chain of components starting with the given component.
+	 *
+	 * @param firstComponent
+	 * @return	the components passed, in order
+	 */
+	public ArrayList<AbstractSimpleOpticalComponent> walk(AbstractSimpleOpticalComponent firstComponent)
+	{
+		AbstractSimpleOpticalComponent component = firstComponent;
+		while(component != null)
+		{
+			if(!tryToPass(component))
+			{
+				stopComponent = component;
+				break;
+			}
+			
+			passedComponents.add(component);
+			
+			// the chain continues only through simple components
+			ComponentInput output = component.getOutput();
+			component = ((output != null) && (output.getComponent() instanceof AbstractSimpleOpticalComponent) && !passedComponents.contains(output.getComponent()))?(AbstractSimpleOpticalComponent)output.getComponent():null;
+		}
+		
+		return passedComponents;
+	}
+	
+	// returns true if the walk has passed the component
+	private boolean tryToPass(AbstractSimpleOpticalComponent component)
+	{
+		try
+		{
+			component.readWidgets();
+			
+			// disabled components do nothing
+			if(!component.isComponentEnabled()) return true;
+			
+			if(!isEligible(component)) return false;
+			
+			step(component);
+			return true;
+		}
+		catch(Exception e)
+		{
+			// report the problem like AbstractOpticalComponent.dealWithInput, and let the component simulate the beam as usual
+			System.err.println("Error during simulation of \"" + component.getName() + "\" in one go, simulating it on its own: " + e.getMessage());
+			e.printStackTrace();
+			return false;
+		}
+	}
+	
+	/**
+	 * Passes the beam on to whatever follows the components passed, i.e. to the component at which the walk stopped or,
+	 * if it stopped for another reason, to whatever is connected to the output of the last component passed.
+	 *
+	 * @param beam
+	 */
+	public void passOn(BeamCrossSection beam)
+	{
+		if(stopComponent != null)
+		{
+			stopComponent.dealWithInput(0, beam);
+			return;
+		}
+		
+		AbstractSimpleOpticalComponent lastComponent = passedComponents.get(passedComponents.size()-1);
+		if(lastComponent.getOutput() != null)
+		{
+			lastComponent.getOutput().dealWithInput(beam);
+		}
+		else
+		{
+			System.out.println("Output 1 of \"" + lastComponent.getName() + "\" is not connected to anything.");
+		}
+	}
+	
+	public AbstractSimpleOpticalComponent getStopComponent()
+	{
+		return stopComponent;
+	}
+}
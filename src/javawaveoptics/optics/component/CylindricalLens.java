@@ -7,10 +7,13 @@ import java.io.Serializable;
 import javax.swing.JFormattedTextField;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.PixelSpans;
 import javawaveoptics.ui.LengthField;
 import javawaveoptics.ui.UIBitsAndBobs;
 import library.maths.Complex;
 import library.maths.MyMath;
+import library.optics.ABCDMatrix;
+import library.optics.SeparableLightBeam;
 
 /**
  * Defines a thin cylindrical lens.
@@ -18,7 +21,7 @@ import library.maths.MyMath;
  * 
  * @author Johannes
  */
-public class CylindricalLens extends AbstractSimpleOpticalComponent implements SimplePixelWiseOpticalComponentInterface, Serializable, PropertyChangeListener
+public class CylindricalLens extends AbstractSimpleOpticalComponent implements SimplePixelWiseOpticalComponentInterface, FirstOrderComponent, SeparableComponent, Serializable, PropertyChangeListener
 {
 	private static final long serialVersionUID = -6127995421406431186L;
 
@@ -74,6 +77,66 @@ public class CylindricalLens extends AbstractSimpleOpticalComponent implements S
 		return inputBeam;
 	}
 	
+	// FirstOrderComponent methods
+	
+	/**
+	 * Only cylindrical lenses whose axis is aligned with the x or y direction are first-order systems in x and y.
+	 */
+	@Override
+	public boolean isFirstOrder()
+	{
+		return (focalLength != 0) && (angleOfModulationWithXDirection % 90.0 == 0.0);
+	}
+	
+	// the lens focusses in x if its axis is the y axis, i.e. if the angle is 0 (see BeamCrossSection.passThroughCylindricalLens)
+	private boolean isFocussingInX()
+	{
+		return angleOfModulationWithXDirection % 180.0 == 0.0;
+	}
+	
+	@Override
+	public ABCDMatrix getABCDMatrixX()
+	{
+		return isFocussingInX()?ABCDMatrix.thinLens(focalLength):ABCDMatrix.identity();
+	}
+	
+	@Override
+	public ABCDMatrix getABCDMatrixY()
+	{
+		return isFocussingInX()?ABCDMatrix.identity():ABCDMatrix.thinLens(focalLength);
+	}
+	
+	@Override
+	public double getOpticalPathLength()
+	{
+		return 0;
+	}
+	
+	@Override
+	public double[] getElementSizeScaleFactors(int width, int height, double physicalWidth, double physicalHeight, double wavelength)
+	{
+		return new double[] {1, 1};
+	}
+	
+	// SeparableComponent methods
+	
+	/**
+	 * Cylindrical lenses whose axis is aligned with the x or y direction act on that direction only.
+	 */
+	@Override
+	public boolean isSeparable()
+	{
+		return isFirstOrder();
+	}
+	
+	@Override
+	public SeparableLightBeam fromInputSeparableBeamCalculateOutputSeparableBeam(SeparableLightBeam inputBeam)
+	{
+		inputBeam.passThroughCylindricalLens(focalLength, isFocussingInX(), 0);
+		
+		return inputBeam;
+	}
+	
 	@Override
 	public BeamCrossSection changePixelInInputBeam(int i, int j, BeamCrossSection inputBeam)
 	{
@@ -100,6 +163,37 @@ public class CylindricalLens extends AbstractSimpleOpticalComponent implements S
 
 		return inputBeam;
 	}
+	
+	@Override
+	public BeamCrossSection changePixelSpans(PixelSpans spans, BeamCrossSection inputBeam)
+	{
+		double sinAxisAngleWithXAxis = Math.sin(MyMath.deg2rad(-angleOfModulationWithXDirection));
+		double cosAxisAngleWithXAxis = Math.cos(MyMath.deg2rad(-angleOfModulationWithXDirection));
+		
+		for(int j = 0; j < spans.getHeight(); j++)
+		{
+			double ySin = inputBeam.getY(j) * sinAxisAngleWithXAxis;
+			
+			for(int k = spans.getFirstSpanInRow(j); k < spans.getFirstSpanInRow(j+1); k++)
+			{
+				for(int i = spans.getSpanStart(k); i < spans.getSpanEnd(k); i++)
+				{
+					double r = inputBeam.getX(i) * cosAxisAngleWithXAxis - ySin;	// distance from axis
+					
+					// locally shift the phase of the amplitude cross-section
+					double phaseShift = inputBeam.getLensPhase(focalLength, r*r);
+					double cosPhaseShift = Math.cos(phaseShift);
+					double sinPhaseShift = Math.sin(phaseShift);
+					double re = inputBeam.getElementRe(i,j);
+					double im = inputBeam.getElementIm(i,j);
+					
+					inputBeam.setElement(i, j, re * cosPhaseShift - im * sinPhaseShift, re * sinPhaseShift + im * cosPhaseShift);
+				}
+			}
+		}
+		
+		return inputBeam;
+	}
 
 
 	@Override
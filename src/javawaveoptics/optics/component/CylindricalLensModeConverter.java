@@ -13,6 +13,8 @@ import javawaveoptics.ui.workbench.ExtensiveWorkbench;
 import javawaveoptics.ui.workbench.ExtensiveWorkbenchOpticalComponent;
 import javawaveoptics.utility.MathsUtilities;
 import library.maths.MyMath;
+import library.optics.ABCDMatrix;
+import library.optics.SeparableLightBeam;
 
 /**
  * Defines a cylindrical-lens pi/2 mode converter [1].
@@ -22,7 +24,7 @@ import library.maths.MyMath;
  * 
  * @author Johannes
  */
-public class CylindricalLensModeConverter extends AbstractSimpleOpticalComponent implements ConvertableComponent, Serializable, PropertyChangeListener
+public class CylindricalLensModeConverter extends AbstractSimpleOpticalComponent implements ConvertableComponent, FirstOrderComponent, SeparableComponent, Serializable, PropertyChangeListener
 {
 	private static final long serialVersionUID = -6845578248735181549L;
 
@@ -74,6 +76,10 @@ public class CylindricalLensModeConverter extends AbstractSimpleOpticalComponent
 	{
 		if(inputBeam != null)
 		{
+			// if the converter is aligned with x or y and chains of first-order components are simulated in one go
+			// (see FirstOrderSection), simulate it in one go, provided that this keeps the sampling
+			if(FirstOrderSection.isEnabled() && isFirstOrder() && inputBeam.passThroughFirstOrderSystem(getABCDMatrixX(), getABCDMatrixY(), 0)) return inputBeam;
+			
 			double wavelength = designWavelength;	// inputBeam.getWavelength()
 			
 			// focal length of the cylindrical lenses
@@ -92,6 +98,101 @@ public class CylindricalLensModeConverter extends AbstractSimpleOpticalComponent
 		return inputBeam;
 	}
 
+	// FirstOrderComponent methods
+	
+	/**
+	 * Only converters whose cylindrical lenses are aligned with the x or y direction are first-order systems in x and y.
+	 */
+	@Override
+	public boolean isFirstOrder()
+	{
+		return axisAngleWithXAxis % 90.0 == 0.0;
+	}
+	
+	// the cylindrical lenses focus in x if their axis is the y axis, i.e. if the angle is 0 (see BeamCrossSection.passThroughCylindricalLens)
+	private boolean isFocussingInX()
+	{
+		return axisAngleWithXAxis % 180.0 == 0.0;
+	}
+	
+	// the ABCD matrix in the direction in which the cylindrical lenses focus
+	private ABCDMatrix getABCDMatrixInFocussingDirection()
+	{
+		double wavelength = designWavelength;
+		
+		// focal length of the cylindrical lenses
+		double f = Math.PI * designWaistSize*designWaistSize / wavelength / (1 + 1./MathsUtilities.SQRT2);
+		
+		// separation between the cylindrical lenses
+		double d = MathsUtilities.SQRT2 * f;
+		
+		return
+			ABCDMatrix.freeSpace(-d/2).
+			followedBy(ABCDMatrix.thinLens(f)).
+			followedBy(ABCDMatrix.freeSpace(d)).
+			followedBy(ABCDMatrix.thinLens(f)).
+			followedBy(ABCDMatrix.freeSpace(-d/2));
+	}
+	
+	@Override
+	public ABCDMatrix getABCDMatrixX()
+	{
+		return isFocussingInX()?getABCDMatrixInFocussingDirection():ABCDMatrix.identity();
+	}
+	
+	@Override
+	public ABCDMatrix getABCDMatrixY()
+	{
+		return isFocussingInX()?ABCDMatrix.identity():getABCDMatrixInFocussingDirection();
+	}
+	
+	@Override
+	public double getOpticalPathLength()
+	{
+		// the propagation distances add up to 0
+		return 0;
+	}
+	
+	@Override
+	public double[] getElementSizeScaleFactors(int width, int height, double physicalWidth, double physicalHeight, double wavelength)
+	{
+		return new double[] {1, 1};
+	}
+	
+	// SeparableComponent methods
+	
+	/**
+	 * Converters whose cylindrical lenses are aligned with the x or y direction act on that direction only.
+	 */
+	@Override
+	public boolean isSeparable()
+	{
+		return isFirstOrder();
+	}
+	
+	@Override
+	public SeparableLightBeam fromInputSeparableBeamCalculateOutputSeparableBeam(SeparableLightBeam inputBeam)
+	{
+		double wavelength = designWavelength;
+		
+		// focal length of the cylindrical lenses
+		double f = Math.PI * designWaistSize*designWaistSize / wavelength / (1 + 1./MathsUtilities.SQRT2);
+		
+		// separation between the cylindrical lenses
+		double d = MathsUtilities.SQRT2 * f;
+		
+		// the same steps as in fromInputBeamCalculateOutputBeam, in the direction in which the lenses focus only;
+		// in the other direction, the propagation distances add up to 0
+		boolean focussingInX = isFocussingInX();
+		inputBeam.propagateParaxially(focussingInX?-d/2:0, focussingInX?0:-d/2);
+		inputBeam.passThroughCylindricalLens(f, focussingInX, 0);
+		inputBeam.propagateParaxially(focussingInX?d:0, focussingInX?0:d);
+		inputBeam.passThroughCylindricalLens(f, focussingInX, 0);
+		inputBeam.propagateParaxially(focussingInX?-d/2:0, focussingInX?0:-d/2);
+		
+		return inputBeam;
+	}
+	
 	// ConvertableComponent methods
 	
 	@Override
@@ -12,10 +12,12 @@ import javax.swing.JComboBox;
 import javax.swing.JFormattedTextField;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.PixelSpans;
 import javawaveoptics.ui.LengthField;
 import javawaveoptics.ui.UIBitsAndBobs;
-import library.maths.Complex;
+import library.field.PixelKernel;
 import library.maths.MyMath;
+import library.optics.LightBeamCrossSection2D;
 
 /**
  * A phase hologram of a cylindrical-lens spiral.
@@ -223,7 +225,13 @@ implements SimplePixelWiseOpticalComponentInterface, Serializable, PropertyChang
 		}
 	}
 
-	private Complex calculateAlteredPixelValue(BeamCrossSection inputBeam, int i, int j, double x, double y)
+	/**
+	 * @param inputBeam
+	 * @param x
+	 * @param y
+	 * @return	the phase shift the spiral introduces at position (x, y)
+	 */
+	private double calculatePhaseShift(BeamCrossSection inputBeam, double x, double y)
 	{
 		// calculate polar coordinates
 		double r = Math.sqrt(x*x + y*y);
@@ -302,6 +310,15 @@ implements SimplePixelWiseOpticalComponentInterface, Serializable, PropertyChang
 			}
 		}
 		
+		return phaseShift;
+	}
+	
+	/**
+	 * Multiplies pixel (i, j), which is at position (x, y), by exp(i phaseShift(x, y)).
+	 */
+	private void changePixel(BeamCrossSection inputBeam, int i, int j, double x, double y)
+	{
+		double phaseShift = calculatePhaseShift(inputBeam, x, y);
 		double cosPhaseShift = Math.cos(phaseShift);
 		double sinPhaseShift = Math.sin(phaseShift);
 		double re = inputBeam.getElementRe(i,j);
@@ -309,25 +326,21 @@ implements SimplePixelWiseOpticalComponentInterface, Serializable, PropertyChang
 	  
 		// real part of (re + i im) exp(i phaseShift)
 		// imaginary part of (re + i im) exp(i phaseShift)
-		return new Complex(re * cosPhaseShift - im * sinPhaseShift, re * sinPhaseShift + im * cosPhaseShift);
+		inputBeam.setElement(i, j, re * cosPhaseShift - im * sinPhaseShift, re * sinPhaseShift + im * cosPhaseShift);
 	}
 
 	@Override
-	public BeamCrossSection fromInputBeamCalculateOutputBeam(BeamCrossSection inputBeam)
+	public BeamCrossSection fromInputBeamCalculateOutputBeam(final BeamCrossSection inputBeam)
 	{
 		if(inputBeam != null)
 		{
-			for(int j = 0; j < inputBeam.getHeight(); j++)
+			inputBeam.applyPixelKernel(new PixelKernel()
 			{
-				double y = inputBeam.getY(j);
-				
-				for(int i = 0; i < inputBeam.getWidth(); i++)
+				public void apply(double x, double y, double re, double im, double out[])
 				{
-					double x = inputBeam.getX(i);
-
-					inputBeam.setElement(i, j, calculateAlteredPixelValue(inputBeam, i, j, x, y));					
+					LightBeamCrossSection2D.multiplyByExpI(re, im, calculatePhaseShift(inputBeam, x, y), out);
 				}
-			}
+			});
 		}
 		
 		return inputBeam;
@@ -340,10 +353,29 @@ implements SimplePixelWiseOpticalComponentInterface, Serializable, PropertyChang
 		double x = inputBeam.getX(i);
 		double y = inputBeam.getY(j);
 		
-		inputBeam.setElement(i, j, calculateAlteredPixelValue(inputBeam, i, j, x, y));
+		changePixel(inputBeam, i, j, x, y);
 
 		return inputBeam;
 	}
+	
+	@Override
+	public BeamCrossSection changePixelSpans(PixelSpans spans, BeamCrossSection inputBeam)
+	{
+		for(int j = 0; j < spans.getHeight(); j++)
+		{
+			double y = inputBeam.getY(j);
+			
+			for(int k = spans.getFirstSpanInRow(j); k < spans.getFirstSpanInRow(j+1); k++)
+			{
+				for(int i = spans.getSpanStart(k); i < spans.getSpanEnd(k); i++)
+				{
+					changePixel(inputBeam, i, j, inputBeam.getX(i), y);
+				}
+			}
+		}
+		
+		return inputBeam;
+	}
 
 
 	@Override
@@ -7,6 +7,7 @@ import java.io.Serializable;
 import javax.swing.JFormattedTextField;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.PixelSpans;
 import javawaveoptics.ui.LengthField;
 import javawaveoptics.ui.UIBitsAndBobs;
 import library.maths.Complex;
@@ -176,6 +177,23 @@ public class CylindricalLensSpiral_old extends AbstractSimpleOpticalComponent im
 
 		return inputBeam;
 	}
+	
+	@Override
+	public BeamCrossSection changePixelSpans(PixelSpans spans, BeamCrossSection inputBeam)
+	{
+		for(int j = 0; j < spans.getHeight(); j++)
+		{
+			for(int k = spans.getFirstSpanInRow(j); k < spans.getFirstSpanInRow(j+1); k++)
+			{
+				for(int i = spans.getSpanStart(k); i < spans.getSpanEnd(k); i++)
+				{
+					changePixelInInputBeam(i, j, inputBeam);
+				}
+			}
+		}
+		
+		return inputBeam;
+	}
 
 
 	@Override
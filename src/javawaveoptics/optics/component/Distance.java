@@ -1,6 +1,5 @@
 package javawaveoptics.optics.component;
 
-import java.awt.Component;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.beans.PropertyChangeEvent;
@@ -8,7 +7,7 @@ import java.beans.PropertyChangeListener;
 import java.io.Serializable;
 
 import javax.swing.BoxLayout;
-import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JFormattedTextField;
 import javax.swing.JPanel;
 
@@ -16,19 +15,40 @@ import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.ui.JCProgressBar;
 import javawaveoptics.ui.LengthField;
 import javawaveoptics.ui.UIBitsAndBobs;
+import library.optics.ABCDMatrix;
+import library.optics.RadialLightBeam;
+import library.optics.SeparableLightBeam;
 
 /**
  * Defines a propagation distance. The user specifies the distance to propagate the light beam cross
  * section, and the class then works out the effect this has on the light beam (such as dispersion, phase,
  * etc.)
  * 
+ * The angular-spectrum method and the beam-propagation method keep the sampling of the beam; the
+ * Fresnel methods change it, so that the beam can be propagated over long distances, and into the
+ * far field, without a huge grid.
+ * 
  * @author Sean
  * @author Johannes
  */
-public class Distance extends AbstractSimpleOpticalComponent implements Serializable, PropertyChangeListener, ItemListener
+public class Distance extends AbstractSimpleOpticalComponent implements FirstOrderComponent, RadiallySymmetricComponent, SeparableComponent, Serializable, PropertyChangeListener, ItemListener
 {
 	private static final long serialVersionUID = 151323036937115173L;
 
+	public enum PropagationMethodType
+	{
+		ANGULAR_SPECTRUM("Angular spectrum"),
+		BPM("Beam-propagation method"),
+		FRESNEL("Single-FFT Fresnel"),
+		SCALED_FRESNEL("Two-step scaled Fresnel"),
+		AUTOMATIC("Automatic");
+		
+		private String description;
+		private PropagationMethodType(String description) {this.description = description;}	
+		@Override
+		public String toString() {return description;}
+	}
+
 	/*
 	 * Fields
 	 */
@@ -36,27 +56,42 @@ public class Distance extends AbstractSimpleOpticalComponent implements Serializ
 	// Distance to propagate
 	private double distance, stepSize;
 	private int widthOfAbsorbingBoundary;
+	
+	// Whether or not to use the beam-propagation method; only read from distances saved
+	// before the propagation method could be chosen, which don't have a propagationMethod yet
 	private boolean BPM;
 	
+	private PropagationMethodType propagationMethod;
+	
+	// Physical width of the beam after propagation with the two-step scaled Fresnel method;
+	// 0 keeps the physical width of the incident beam
+	private double outputPhysicalWidth;
+	
 	/*
 	 * GUI edit controls
 	 */
 	
-	private transient LengthField distanceLengthField, stepSizeLengthField;
+	private transient LengthField distanceLengthField, stepSizeLengthField, outputPhysicalWidthLengthField;
 	private transient JFormattedTextField widthOfAbsorbingBoundaryTextField;
-	private transient JCheckBox BPMCheckBox;
-	private transient JPanel BPMPanel;
+	private transient JComboBox<PropagationMethodType> propagationMethodComboBox;
+	private transient JPanel BPMPanel, scaledFresnelPanel;
 	private transient JCProgressBar progressBar;
 	
 	
-	public Distance(String name, double distance, double stepSize, int widthOfAbsorbingBoundary, boolean BPM)
+	public Distance(String name, double distance, double stepSize, int widthOfAbsorbingBoundary, PropagationMethodType propagationMethod, double outputPhysicalWidth)
 	{
 		super(name);
 	
 		this.distance = distance;
 		this.stepSize = stepSize;
 		this.widthOfAbsorbingBoundary = widthOfAbsorbingBoundary;
-		this.BPM = BPM;
+		setPropagationMethod(propagationMethod);
+		this.outputPhysicalWidth = outputPhysicalWidth;
+	}
+	
+	public Distance(String name, double distance, double stepSize, int widthOfAbsorbingBoundary, boolean BPM)
+	{
+		this(name, distance, stepSize, widthOfAbsorbingBoundary, BPM?PropagationMethodType.BPM:PropagationMethodType.ANGULAR_SPECTRUM, 0);
 	}
 	
 	public Distance(String name, double distance)
@@ -84,8 +119,9 @@ public class Distance extends AbstractSimpleOpticalComponent implements Serializ
 	{
 		if(inputBeam != null)
 		{
-			if(BPM)
+			switch(getPropagationMethod())
 			{
+			case BPM:
 				if(progressBar == null)
 				{
 					// make a progress bar if there isn't one already
@@ -96,14 +132,124 @@ public class Distance extends AbstractSimpleOpticalComponent implements Serializ
 				progressBar.setVisible(true);
 				inputBeam.propagateBPM(distance, stepSize, widthOfAbsorbingBoundary, progressBar, this);
 				progressBar.setVisible(false);
-			}
-			else
+				break;
+			case FRESNEL:
+				inputBeam.propagateFresnel(distance);
+				break;
+			case SCALED_FRESNEL:
+				inputBeam.propagateScaledFresnel(distance, (outputPhysicalWidth > 0)?outputPhysicalWidth:inputBeam.getPhysicalWidth());
+				break;
+			case AUTOMATIC:
+				inputBeam.propagateAutomatically(distance);
+				break;
+			case ANGULAR_SPECTRUM:
+			default:
 				inputBeam.propagate(distance);
+			}
 		}
 		
 		return inputBeam;
 	}
 	
+	// FirstOrderComponent methods
+	
+	/**
+	 * The beam-propagation method can include absorbing boundaries, so only the other methods are first-order.
+	 */
+	@Override
+	public boolean isFirstOrder()
+	{
+		return getPropagationMethod() != PropagationMethodType.BPM;
+	}
+	
+	@Override
+	public ABCDMatrix getABCDMatrixX()
+	{
+		return ABCDMatrix.freeSpace(distance);
+	}
+	
+	@Override
+	public ABCDMatrix getABCDMatrixY()
+	{
+		return ABCDMatrix.freeSpace(distance);
+	}
+	
+	@Override
+	public double getOpticalPathLength()
+	{
+		return distance;
+	}
+	
+	/**
+	 * The Fresnel methods change the sampling; see BeamCrossSection.propagateFresnel etc.
+	 */
+	@Override
+	public double[] getElementSizeScaleFactors(int width, int height, double physicalWidth, double physicalHeight, double wavelength)
+	{
+		double
+			// the scale factors of single-FFT Fresnel propagation, lambda |distance| / (width deltaX^2) etc.
+			fresnelScaleFactorX = wavelength * Math.abs(distance) * width / (physicalWidth * physicalWidth),
+			fresnelScaleFactorY = wavelength * Math.abs(distance) * height / (physicalHeight * physicalHeight);
+		
+		if(distance != 0)
+		{
+			switch(getPropagationMethod())
+			{
+			case FRESNEL:
+				return new double[] {fresnelScaleFactorX, fresnelScaleFactorY};
+			case SCALED_FRESNEL:
+				double magnification = (outputPhysicalWidth > 0)?(outputPhysicalWidth / physicalWidth):1;
+				return new double[] {magnification, magnification};
+			case AUTOMATIC:
+				// Fresnel beyond the critical distance (see BeamCrossSection.propagateAutomatically)
+				if((fresnelScaleFactorX > 1) || (fresnelScaleFactorY > 1)) return new double[] {fresnelScaleFactorX, fresnelScaleFactorY};
+				break;
+			default:
+				break;
+			}
+		}
+		
+		return new double[] {1, 1};
+	}
+	
+	// RadiallySymmetricComponent methods
+	
+	/**
+	 * Only the angular-spectrum method has a radial equivalent that keeps the sampling of the beam.
+	 */
+	@Override
+	public boolean isRadiallySymmetric()
+	{
+		return getPropagationMethod() == PropagationMethodType.ANGULAR_SPECTRUM;
+	}
+	
+	@Override
+	public RadialLightBeam fromInputRadialBeamCalculateOutputRadialBeam(RadialLightBeam inputBeam)
+	{
+		inputBeam.propagate(distance);
+		
+		return inputBeam;
+	}
+	
+	// SeparableComponent methods
+	
+	/**
+	 * The separable equivalent of the angular-spectrum method is paraxial propagation (see SeparableLightBeam.propagate).
+	 */
+	@Override
+	public boolean isSeparable()
+	{
+		return getPropagationMethod() == PropagationMethodType.ANGULAR_SPECTRUM;
+	}
+	
+	@Override
+	public SeparableLightBeam fromInputSeparableBeamCalculateOutputSeparableBeam(SeparableLightBeam inputBeam)
+	{
+		inputBeam.propagate(distance);
+		
+		return inputBeam;
+	}
+	
 	@Override
 	protected void createEditPanel()
 	{
@@ -117,11 +263,15 @@ public class Distance extends AbstractSimpleOpticalComponent implements Serializ
 		distanceLengthField.setToolTipText("<html>Edit the propagation distance, <i>\u0394z</i>;<br><i>\u0394z</i> can be positive (forward propagation) or negative (backward propagation)</html>");
 		
 		/*
-		 * BPM stuff
+		 * Propagation method
 		 */
 		
-		BPMCheckBox.setAlignmentX(Component.CENTER_ALIGNMENT);
-		editPanel.add(BPMCheckBox);
+		editPanel.add(UIBitsAndBobs.makeRow("Method", propagationMethodComboBox, true));
+		propagationMethodComboBox.setToolTipText("<html>Angular spectrum and BPM keep the sampling of the beam;<br>the Fresnel methods change it, which suits long distances and the far field;<br>automatic uses the angular-spectrum method up to the distance where it becomes undersampled, and single-FFT Fresnel beyond</html>");
+		
+		/*
+		 * BPM stuff
+		 */
 
 		BPMPanel = new JPanel();
 		BPMPanel.setLayout(new BoxLayout(BPMPanel, BoxLayout.Y_AXIS));
@@ -132,8 +282,22 @@ public class Distance extends AbstractSimpleOpticalComponent implements Serializ
 
 		BPMPanel.add(progressBar);
 
-		BPMPanel.setVisible(BPM);
+		BPMPanel.setVisible(getPropagationMethod() == PropagationMethodType.BPM);
 		editPanel.add(BPMPanel);
+		
+		/*
+		 * Scaled-Fresnel stuff
+		 */
+		
+		scaledFresnelPanel = new JPanel();
+		scaledFresnelPanel.setLayout(new BoxLayout(scaledFresnelPanel, BoxLayout.Y_AXIS));
+		scaledFresnelPanel.setBorder(UIBitsAndBobs.getTitledBorder("Scaled-Fresnel parameters"));
+		
+		scaledFresnelPanel.add(UIBitsAndBobs.makeRow("Output width", outputPhysicalWidthLengthField, true));
+		outputPhysicalWidthLengthField.setToolTipText("Physical width of the beam after propagation; 0 keeps the width of the incident beam");
+		
+		scaledFresnelPanel.setVisible(getPropagationMethod() == PropagationMethodType.SCALED_FRESNEL);
+		editPanel.add(scaledFresnelPanel);
 	}
 	
 	@Override
@@ -144,9 +308,9 @@ public class Distance extends AbstractSimpleOpticalComponent implements Serializ
 		distanceLengthField = new LengthField(this);
 		distanceLengthField.setLengthInMetres(distance);
 		
-		BPMCheckBox = new JCheckBox("Beam-propagation method");
-		BPMCheckBox.setSelected(BPM);
-		BPMCheckBox.addItemListener(this);
+		propagationMethodComboBox = new JComboBox<PropagationMethodType>(PropagationMethodType.values());
+		propagationMethodComboBox.setSelectedItem(getPropagationMethod());
+		propagationMethodComboBox.addItemListener(this);
 
 		stepSizeLengthField = new LengthField(this);
 		stepSizeLengthField.setLengthInMetres(stepSize);
@@ -154,6 +318,9 @@ public class Distance extends AbstractSimpleOpticalComponent implements Serializ
 		widthOfAbsorbingBoundaryTextField = UIBitsAndBobs.makeIntFormattedTextField(this);
 		widthOfAbsorbingBoundaryTextField.setValue(Integer.valueOf(widthOfAbsorbingBoundary));
 
+		outputPhysicalWidthLengthField = new LengthField(this);
+		outputPhysicalWidthLengthField.setLengthInMetres(outputPhysicalWidth);
+
 		// see http://docs.oracle.com/javase/tutorial/uiswing/components/progress.html
 		if(progressBar == null)
 		{
@@ -168,9 +335,10 @@ public class Distance extends AbstractSimpleOpticalComponent implements Serializ
 		super.readWidgets();
 
         if(distanceLengthField != null) distance = distanceLengthField.getLengthInMetres();
-		if(BPMCheckBox != null) BPM = BPMCheckBox.isSelected();
+		if(propagationMethodComboBox != null) setPropagationMethod((PropagationMethodType)(propagationMethodComboBox.getSelectedItem()));
         if(stepSizeLengthField != null) stepSize = stepSizeLengthField.getLengthInMetres();
         if(widthOfAbsorbingBoundaryTextField != null) widthOfAbsorbingBoundary = ((Number)widthOfAbsorbingBoundaryTextField.getValue()).intValue();
+        if(outputPhysicalWidthLengthField != null) outputPhysicalWidth = outputPhysicalWidthLengthField.getLengthInMetres();
 	}
 	
 	@Override
@@ -178,12 +346,11 @@ public class Distance extends AbstractSimpleOpticalComponent implements Serializ
 	{
 		Object source = e.getItemSelectable();
 
-		if (source == BPMCheckBox)
+		if ((source == propagationMethodComboBox) && (e.getStateChange() == ItemEvent.SELECTED))
 	    {
-			BPM = BPMCheckBox.isSelected();
-			BPMPanel.setVisible(BPM);
-			// stepSizeLengthField.setEnabled(BPM);
-			// widthOfAbsorbingBoundaryTextField.setEnabled(BPM);
+			setPropagationMethod((PropagationMethodType)(propagationMethodComboBox.getSelectedItem()));
+			BPMPanel.setVisible(propagationMethod == PropagationMethodType.BPM);
+			scaledFresnelPanel.setVisible(propagationMethod == PropagationMethodType.SCALED_FRESNEL);
 	    }
 	}
 
@@ -204,6 +371,10 @@ public class Distance extends AbstractSimpleOpticalComponent implements Serializ
 	    {
 	        widthOfAbsorbingBoundary = ((Number)widthOfAbsorbingBoundaryTextField.getValue()).intValue();
 	    }
+	    else if (source == outputPhysicalWidthLengthField)
+	    {
+	        outputPhysicalWidth = outputPhysicalWidthLengthField.getLengthInMetres();
+	    }
 
 	    
 		// Fire an edit panel event
@@ -251,10 +422,32 @@ public class Distance extends AbstractSimpleOpticalComponent implements Serializ
 	}
 
 	public boolean isBPM() {
-		return BPM;
+		return getPropagationMethod() == PropagationMethodType.BPM;
 	}
 
 	public void setBPM(boolean bPM) {
-		BPM = bPM;
+		setPropagationMethod(bPM?PropagationMethodType.BPM:PropagationMethodType.ANGULAR_SPECTRUM);
+	}
+
+	public PropagationMethodType getPropagationMethod() {
+		if(propagationMethod == null)
+		{
+			// saved before the propagation method could be chosen
+			propagationMethod = BPM?PropagationMethodType.BPM:PropagationMethodType.ANGULAR_SPECTRUM;
+		}
+		return propagationMethod;
+	}
+
+	public void setPropagationMethod(PropagationMethodType propagationMethod) {
+		this.propagationMethod = propagationMethod;
+		BPM = (propagationMethod == PropagationMethodType.BPM);
+	}
+
+	public double getOutputPhysicalWidth() {
+		return outputPhysicalWidth;
+	}
+
+	public void setOutputPhysicalWidth(double outputPhysicalWidth) {
+		this.outputPhysicalWidth = outputPhysicalWidth;
 	}
 }
\ No newline at end of file
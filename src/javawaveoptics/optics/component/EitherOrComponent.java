@@ -20,8 +20,10 @@ import javax.swing.JPanel;
 import javax.swing.JTextField;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.PixelSpans;
 import javawaveoptics.ui.BitmapFileChooser;
 import javawaveoptics.ui.UIBitsAndBobs;
+import javawaveoptics.utility.BitmapCache;
 
 
 /**
@@ -47,6 +49,13 @@ public class EitherOrComponent extends AbstractSimpleOpticalComponent implements
 	// The either component is used as a phase conjugator, and the or component is used as a transparent component
 	SimplePixelWiseOpticalComponentInterface eitherComponent = new PhaseConjugator(), orComponent = new TransparentComponent();
 	
+	// pixels brighter than this belong to the either component, all others to the or component
+	private static final double BRIGHTNESS_THRESHOLD = 0.5;
+	
+	// the pixels that belong to the either and or components, and the (cached) brightness array they were calculated from
+	private transient double[] maskBrightness;
+	private transient PixelSpans eitherPixels, orPixels;
+	
 	/*
 	 * GUI variables
 	 */
@@ -81,54 +90,36 @@ public class EitherOrComponent extends AbstractSimpleOpticalComponent implements
 		
 		try
 		{
-			// Load the image file from disk
-			BufferedImage image = ImageIO.read(imageFile);
-			// BufferedImage scaledImage;
-			
 			// Detect the image dimensions
 			int width = inputBeam.getWidth();
 			int height = inputBeam.getHeight();
 			
-			if((inputBeam.getWidth() != image.getWidth()) || (inputBeam.getHeight() != image.getHeight()))
-			{
-				// scaledImage = new BufferedImage(image.getScaledInstance(width, height, Image.SCALE_SMOOTH));
-				System.err.println("EitherOrComponent::fromInputBeamCalculateOutputBeam: wrong image dimensions; leaving beam unchanged");
-				return inputBeam;
-			}
+			// Load the brightness of the image pixels (the file is only read the first time, or when it has changed)
+			double[] brightness = BitmapCache.getBrightnessArray(imageFile, width, height);
 			
-			// Load data from the image
-//			double[] phaseConjugateData = ImageUtilities.loadImageIntoArray(image);
-			
-			// Calculate the effect the phase conjugation has on each pixel
-			for(int i = 0; i < width; i++)
+			// work out which pixels belong to which component, unless this has already been done for this image
+			if(brightness != maskBrightness)
 			{
-				for(int j = 0; j < height; j++)
-				{
-					// Fetch the RGB components of the pixel
-					Color colour = new Color(image.getRGB(i, j));
-					
-					// Convert RGB to HSB
-					float[] hsb = Color.RGBtoHSB(colour.getRed(), colour.getGreen(), colour.getBlue(), null);
-							
-					// Phase conjugates for pixels where some hsb parameter is over a threshold
-					// and leaves pixels under the threshold unchanged.
-					// Then returns the modified light field.
-					if(hsb[2] > 0.5)
-					{
-						eitherComponent.changePixelInInputBeam(i, j, inputBeam);
-					}
-					else
-					{
-						orComponent.changePixelInInputBeam(i, j, inputBeam);
-					}					
-				}				
+				eitherPixels = PixelSpans.createFromThreshold(brightness, width, height, BRIGHTNESS_THRESHOLD);
+				orPixels = eitherPixels.getComplement();
+				maskBrightness = brightness;
 			}
+			
+			// Pixels over the brightness threshold get changed by the either component,
+			// all others by the or component
+			eitherComponent.changePixelSpans(eitherPixels, inputBeam);
+			orComponent.changePixelSpans(orPixels, inputBeam);
 		}
 		catch(IOException e)
 		{
 			// Specified file doesn't exist.
 			System.err.println("Either-or surface::fromInputBeamCalculateOutputBeam: Specified image file doesn't exist: " + e.getMessage());
 		}
+		catch(IllegalArgumentException e)
+		{
+			// No file, not an image, or wrong image dimensions
+			System.err.println("EitherOrComponent::fromInputBeamCalculateOutputBeam: " + e.getMessage() + " Leaving beam unchanged.");
+		}
 		return inputBeam;
 	}
 	
@@ -20,8 +20,10 @@ import javax.swing.JPanel;
 import javax.swing.JTextField;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.PixelSpans;
 import javawaveoptics.ui.BitmapFileChooser;
 import javawaveoptics.ui.UIBitsAndBobs;
+import javawaveoptics.utility.BitmapCache;
 
 
 /**
@@ -44,6 +46,13 @@ public class EitherOrPhaseConjugateSurface extends AbstractSimpleOpticalComponen
 	// phaseConjugate bitmap file location
 	File phaseConjugateImageFile = null;
 	
+	// pixels brighter than this get phase conjugated
+	private static final double BRIGHTNESS_THRESHOLD = 0.5;
+	
+	// the pixels that get phase conjugated, and the (cached) brightness array they were calculated from
+	private transient double[] maskBrightness;
+	private transient PixelSpans phaseConjugatedPixels;
+	
 	/*
 	 * GUI variables
 	 */
@@ -78,50 +87,34 @@ public class EitherOrPhaseConjugateSurface extends AbstractSimpleOpticalComponen
 		
 		try
 		{
-			// Load the image file from disk
-			BufferedImage image = ImageIO.read(phaseConjugateImageFile);
-			
 			// Detect the image dimensions
 			int width = inputBeam.getWidth();
 			int height = inputBeam.getHeight();
 
-			if((inputBeam.getWidth() != image.getWidth()) || (inputBeam.getHeight() != image.getHeight()))
-			{
-				// scaledImage = new BufferedImage(image.getScaledInstance(width, height, Image.SCALE_SMOOTH));
-				System.err.println("EitherOrPhaseConjugateSurface::fromInputBeamCalculateOutputBeam: wrong image dimensions; leaving beam unchanged");
-				return inputBeam;
-			}
-
-			// Load data from the image
-//			double[] phaseConjugateData = ImageUtilities.loadImageIntoArray(image);
+			// Load the brightness of the image pixels (the file is only read the first time, or when it has changed)
+			double[] brightness = BitmapCache.getBrightnessArray(phaseConjugateImageFile, width, height);
 			
-			// Calculate the effect the phase conjugation has on each pixel
-			for(int i = 0; i < width; i++)
+			// work out which pixels get phase conjugated, unless this has already been done for this image
+			if(brightness != maskBrightness)
 			{
-				for(int j = 0; j < height; j++)
-				{
-					// Fetch the RGB components of the pixel
-					Color colour = new Color(image.getRGB(i, j));
-					
-					// Convert RGB to HSB
-					float[] hsb = Color.RGBtoHSB(colour.getRed(), colour.getGreen(), colour.getBlue(), null);
-							
-					// Phase conjugates for pixels where some hsb parameter is over a threshold
-					// and leaves pixels under the threshold unchanged.
-					// Then returns the modified light field.
-					if(hsb[2] > 0.5) {
-						inputBeam.phaseConjugateElement(i,j);
-					}
-					else {
-					}					
-				}				
+				phaseConjugatedPixels = PixelSpans.createFromThreshold(brightness, width, height, BRIGHTNESS_THRESHOLD);
+				maskBrightness = brightness;
 			}
+			
+			// Phase conjugates pixels where the brightness is over the threshold
+			// and leaves pixels under the threshold unchanged.
+			inputBeam.phaseConjugatePixelSpans(phaseConjugatedPixels);
 		}
 		catch(IOException e)
 		{
 			// Specified file doesn't exist.
 			System.err.println("PhaseConjugateSurface::fromInputBeamCalculateOutputBeam: Specified image file doesn't exist: " + e.getMessage());
 		}
+		catch(IllegalArgumentException e)
+		{
+			// No file, not an image, or wrong image dimensions
+			System.err.println("EitherOrPhaseConjugateSurface::fromInputBeamCalculateOutputBeam: " + e.getMessage() + " Leaving beam unchanged.");
+		}
 		return inputBeam;
 	}
 	
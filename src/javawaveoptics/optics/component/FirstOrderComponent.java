@@ -0,0 +1,36 @@
+package javawaveoptics.optics.component;
+
+import library.optics.ABCDMatrix;
+
+/**
+ * A component that acts on the beam like a paraxial first-order optical system, i.e. one that is described by a
+ * ray-transfer (ABCD) matrix in each of the x and y directions.
+ * Chains of such components can be simulated in one go (see FirstOrderSection).
+ */
+public interface FirstOrderComponent {
+	/**
+	 * @return true if the component, with its current parameters, is a first-order system
+	 */
+	public boolean isFirstOrder();
+	
+	/**
+	 * @return the ABCD matrix in the x direction
+	 */
+	public ABCDMatrix getABCDMatrixX();
+	
+	/**
+	 * @return the ABCD matrix in the y direction
+	 */
+	public ABCDMatrix getABCDMatrixY();
+	
+	/**
+	 * @return the optical path length along the optical axis, which determines the overall phase
+	 */
+	public double getOpticalPathLength();
+	
+	/**
+	 * @return the factors by which simulating the component on its own changes the element size in x and y of a
+	 * beam with the given sampling; a factor is negative if the component inverts the beam in that direction
+	 */
+	public double[] getElementSizeScaleFactors(int width, int height, double physicalWidth, double physicalHeight, double wavelength);
+}
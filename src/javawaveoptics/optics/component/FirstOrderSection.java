@@ -0,0 +1,134 @@
+package javawaveoptics.optics.component;
+
+import java.util.ArrayList;
+
+import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.utility.RotatableInterface;
+import library.optics.ABCDMatrix;
+
+/**
+ * Simulates chains of first-order components, e.g. lenses, distances and beam expanders, in one go.
+ * 
+ * The ABCD matrices of all components in the longest chain of first-order components that starts with a given
+ * component are multiplied, and the beam is passed through the resulting system with one or two FFTs
+ * (see BeamCrossSection.passThroughFirstOrderSystem), instead of (typically) two FFTs per component.
+ * The beam at the end of the chain is sampled like it would be if the components were simulated one by one
+ * wherever possible; as the intermediate beams are never calculated, the result can still differ slightly,
+ * so this has to be switched on (e.g. in the optical environment).
+ */
+public class FirstOrderSection
+{
+	// are chains simulated in one go (in the current thread, so that each simulation can have its own setting, see GUI)?
+	private static final ThreadLocal<Boolean> enabled = new ThreadLocal<Boolean>()
+	{
+		@Override
+		protected Boolean initialValue()
+		{
+			return false;
+		}
+	};
+	
+	/**
+	 * Passes the beam through the chain of first-order components starting with the given component and, if that
+	 * works, lets the component connected to the end of the chain deal with it.
+	 * 
+	 * @param firstComponent	the first component in the chain
+	 * @param inputBeam	the beam incident on the first component
+	 * @return	true if the chain has been simulated; false if the components have to be simulated one by one, e.g. because
+	 * the chain is shorter than two components or because the resulting system cannot be sampled; the beam is then unchanged
+	 */
+	public static boolean dealWithInput(AbstractSimpleOpticalComponent firstComponent, BeamCrossSection inputBeam)
+	{
+		if(!isEnabled() || (inputBeam == null)) return false;
+		
+		ChainWalker walker = new ChainWalker(inputBeam);
+		ArrayList<AbstractSimpleOpticalComponent> chain = walker.walk(firstComponent);
+		
+		// a single component is simulated just as quickly on its own
+		if(walker.numberOfFirstOrderComponents < 2) return false;
+		
+		if(AbstractOpticalComponent.DEBUG_MODE) System.out.println("Simulating " + chain.size() + " components, starting with \"" + firstComponent.getName() + "\", in one go.");
+		
+		if(!inputBeam.passThroughFirstOrderSystem(walker.mX, walker.mY, walker.opticalPathLength, walker.scaleFactorX, walker.scaleFactorY)) return false;
+		
+		for(AbstractSimpleOpticalComponent c : chain) c.setWarning(false, "");
+		
+		// pass the beam on to whatever is connected to the end of the chain
+		walker.passOn(inputBeam);
+		
+		return true;
+	}
+	
+	// walks along the chain, multiplying the ABCD matrices of its components
+	private static class ChainWalker extends ComponentChainWalker
+	{
+		private int width, height;
+		private double wavelength;
+		
+		ABCDMatrix
+			mX = ABCDMatrix.identity(),
+			mY = ABCDMatrix.identity();
+		double
+			opticalPathLength = 0,
+			physicalWidth,
+			physicalHeight,
+			scaleFactorX = 1,
+			scaleFactorY = 1;
+		int numberOfFirstOrderComponents = 0;
+		
+		public ChainWalker(BeamCrossSection inputBeam)
+		{
+			width = inputBeam.getWidth();
+			height = inputBeam.getHeight();
+			wavelength = inputBeam.getWavelength();
+			physicalWidth = inputBeam.getPhysicalWidth();
+			physicalHeight = inputBeam.getPhysicalHeight();
+		}
+		
+		@Override
+		protected boolean isEligible(AbstractSimpleOpticalComponent component)
+		{
+			return isFirstOrder(component);
+		}
+		
+		@Override
+		protected void step(AbstractSimpleOpticalComponent component)
+		{
+			FirstOrderComponent firstOrderComponent = (FirstOrderComponent)component;
+			
+			// ask the component for everything before changing anything, in case it fails
+			ABCDMatrix componentMX = firstOrderComponent.getABCDMatrixX(), componentMY = firstOrderComponent.getABCDMatrixY();
+			double componentOpticalPathLength = firstOrderComponent.getOpticalPathLength();
+			double scaleFactors[] = firstOrderComponent.getElementSizeScaleFactors(width, height, physicalWidth, physicalHeight, wavelength);
+			
+			mX = mX.followedBy(componentMX);
+			mY = mY.followedBy(componentMY);
+			opticalPathLength += componentOpticalPathLength;
+			scaleFactorX *= scaleFactors[0];
+			scaleFactorY *= scaleFactors[1];
+			physicalWidth *= Math.abs(scaleFactors[0]);
+			physicalHeight *= Math.abs(scaleFactors[1]);
+			
+			numberOfFirstOrderComponents++;
+		}
+	}
+	
+	// can the component be part of a chain?
+	static boolean isFirstOrder(AbstractSimpleOpticalComponent component)
+	{
+		if(!(component instanceof FirstOrderComponent) || !((FirstOrderComponent)component).isFirstOrder()) return false;
+		
+		// rotated components are simulated in a rotated frame (see AbstractSimpleOpticalComponent.simulate)
+		if((component instanceof RotatableInterface) && ((((RotatableInterface)component).getRotateAngle() % 360.0) != 0.0)) return false;
+		
+		return true;
+	}
+
+	public static boolean isEnabled() {
+		return enabled.get();
+	}
+
+	public static void setEnabled(boolean enabled) {
+		FirstOrderSection.enabled.set(enabled);
+	}
+}
@@ -92,6 +92,31 @@ public class FourierLens extends Lens implements Serializable, ActionListener
 		return inputBeam;
 	}
 	
+	/**
+	 * The Fourier transform above leaves out the constant phase factors of the wave-optical operator of a lens
+	 * between its focal planes, so a Fourier lens cannot be part of a chain of first-order components.
+	 */
+	@Override
+	public boolean isFirstOrder()
+	{
+		return false;
+	}
+	
+	/**
+	 * The Fourier transform also changes the sampling of the beam.
+	 */
+	@Override
+	public boolean isRadiallySymmetric()
+	{
+		return false;
+	}
+	
+	@Override
+	public boolean isSeparable()
+	{
+		return false;
+	}
+	
 	@Override
 	protected void createEditPanel()
 	{
@@ -22,9 +22,8 @@ import javax.swing.JTextField;
 import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.ui.BitmapFileChooser;
 import javawaveoptics.ui.UIBitsAndBobs;
-import javawaveoptics.utility.ImageUtilities;
+import javawaveoptics.utility.BitmapCache;
 import javawaveoptics.utility.SimulationException;
-import library.maths.Complex;
 
 /**
  * Defines a hologram component. A light beam incident on this component will be altered using the
@@ -79,35 +78,13 @@ public class HologramFromBitmap extends AbstractSimpleOpticalComponent implement
 	{
 		try
 		{
-			// Load the image from disk
-			BufferedImage image = ImageIO.read(hologramImageBitmap);
+			// Load data from the image (which is only read from disk the first time, or when it has changed);
+			// this checks that the image is of the same size as the beam
+			double[] hologramData = BitmapCache.getHologramTypeArray(hologramImageBitmap, inputBeam.getWidth(), inputBeam.getHeight());
 			
-			// Detect the image dimensions
-			int width = image.getWidth();
-			int height = image.getHeight();
-			
-			// Check width and height are powers of two
-			if(width != inputBeam.getWidth())
-			{
-				throw new SimulationException("HologramFromBitmap::fromInputBeamCalculateOutputBeam", "The specified hologram's width ("+width+") does not match the input beam's width ("+inputBeam.getWidth()+").");
-			}
-			
-			if(height != inputBeam.getHeight())
-			{
-				throw new SimulationException("HologramFromBitmap::fromInputBeamCalculateOutputBeam", "The specified hologram's height ("+height+") does not match the input beam's height ("+inputBeam.getHeight()+").");
-			}
-			
-			// Load data from the image
-			double[] hologramData = ImageUtilities.image2HologramTypeArray(image);
-			
-			// Calculate the effect the hologram has on each pixel
-			for(int i = 0; i < width; i++)
-			{
-				for(int j = 0; j < height; j++)
-				{
-					inputBeam.multiplyElement(i, j, new Complex(hologramData[2 * (width * j + i)], hologramData[2 * (width * j + i) + 1]));
-				}
-			}
+			// The hologram data are laid out like the beam's amplitude matrix, so they can be applied
+			// as a precomputed mask
+			inputBeam.multiplyByComplexMask(hologramData);
 		}
 		catch(IOException e)
 		{
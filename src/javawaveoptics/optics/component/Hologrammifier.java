@@ -12,7 +12,7 @@ import javax.swing.JFormattedTextField;
 import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.ui.JCPanel;
 import javawaveoptics.ui.UIBitsAndBobs;
-import library.maths.Complex;
+import library.field.PixelKernel;
 
 /**
  * Turns a light beam into a hologram.
@@ -87,28 +87,31 @@ public class Hologrammifier extends AbstractSimpleOpticalComponent implements Se
 	{
 		if(inputBeam != null)
 		{
-			int
-				width = inputBeam.getWidth(),
-				height = inputBeam.getHeight();
-
 			switch(hologrammifierType)
 			{
 			case INTENSITY:
-				for(int i=0; i<width; i++)
-					for(int j=0; j<height; j++)
+				inputBeam.applyPixelKernel(new PixelKernel()
+				{
+					public void apply(double x, double y, double re, double im, double out[])
 					{
 						// set the amplitude to the intensity
-						inputBeam.setElement(i, j, inputBeam.getElement(i, j).getAbsSqr());
+						out[0] = re*re + im*im;
+						out[1] = 0.0;
 					}
+				});
 				break;
 			case PHASE:
 			default:
-				for(int i=0; i<width; i++)
-					for(int j=0; j<height; j++)
+				inputBeam.applyPixelKernel(new PixelKernel()
+				{
+					public void apply(double x, double y, double re, double im, double out[])
 					{
 						// set the amplitude to exp(I phase*stepHeightFactor)
-						inputBeam.setElement(i, j, Complex.expI(inputBeam.getElement(i, j).getArg()*phaseStepHeightFactor));
+						double phase = Math.atan2(im, re)*phaseStepHeightFactor;
+						out[0] = Math.cos(phase);
+						out[1] = Math.sin(phase);
 					}
+				});
 				break;
 			}
 		}
@@ -6,6 +6,9 @@ import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.ui.JCPanel;
 import javawaveoptics.ui.LengthField;
 import javawaveoptics.ui.UIBitsAndBobs;
+import library.optics.ABCDMatrix;
+import library.optics.RadialLightBeam;
+import library.optics.SeparableLightBeam;
 
 /**
  * Defines a thin lens. Light incident on this component will undergo a phase shift as a function of the
@@ -14,7 +17,7 @@ import javawaveoptics.ui.UIBitsAndBobs;
  * 
  * @author Sean
  */
-public class Lens extends AbstractSimpleOpticalComponent implements Serializable //, PropertyChangeListener
+public class Lens extends AbstractSimpleOpticalComponent implements FirstOrderComponent, RadiallySymmetricComponent, SeparableComponent, Serializable //, PropertyChangeListener
 {
 	private static final long serialVersionUID = 3534911291321554049L;
 	
@@ -65,6 +68,70 @@ public class Lens extends AbstractSimpleOpticalComponent implements Serializable
 		
 		return inputBeam;
 	}
+	
+	// FirstOrderComponent methods
+	
+	@Override
+	public boolean isFirstOrder()
+	{
+		return focalLength != 0;
+	}
+	
+	@Override
+	public ABCDMatrix getABCDMatrixX()
+	{
+		return ABCDMatrix.thinLens(focalLength);
+	}
+	
+	@Override
+	public ABCDMatrix getABCDMatrixY()
+	{
+		return ABCDMatrix.thinLens(focalLength);
+	}
+	
+	@Override
+	public double getOpticalPathLength()
+	{
+		return 0;
+	}
+	
+	@Override
+	public double[] getElementSizeScaleFactors(int width, int height, double physicalWidth, double physicalHeight, double wavelength)
+	{
+		return new double[] {1, 1};
+	}
+	
+	// RadiallySymmetricComponent methods
+	
+	@Override
+	public boolean isRadiallySymmetric()
+	{
+		return focalLength != 0;
+	}
+	
+	@Override
+	public RadialLightBeam fromInputRadialBeamCalculateOutputRadialBeam(RadialLightBeam inputBeam)
+	{
+		inputBeam.passThroughLens(focalLength);
+		
+		return inputBeam;
+	}
+	
+	// SeparableComponent methods
+	
+	@Override
+	public boolean isSeparable()
+	{
+		return focalLength != 0;
+	}
+	
+	@Override
+	public SeparableLightBeam fromInputSeparableBeamCalculateOutputSeparableBeam(SeparableLightBeam inputBeam)
+	{
+		inputBeam.passThroughLens(focalLength, 0, 0);
+		
+		return inputBeam;
+	}
 
 	@Override
 	protected void createEditPanel()
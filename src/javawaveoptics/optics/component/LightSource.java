@@ -14,7 +14,7 @@ import javax.swing.JPanel;
 import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.optics.lightsource.*;
 import javawaveoptics.ui.LengthField;
-import javawaveoptics.ui.PowersOf2ComboBox;
+import javawaveoptics.ui.ArraySizeComboBox;
 import javawaveoptics.ui.UIBitsAndBobs;
 
 /**
@@ -40,7 +40,8 @@ public class LightSource extends AbstractLightSourceComponent implements Seriali
 		BEAM_LAGUERRE_GAUSSIAN = 2,
 		BEAM_BESSEL = 3,
 		BEAM_UNIFORM_PLANE_WAVE = 4,
-		BEAM_FROM_BITMAP = 5;
+		BEAM_FROM_BITMAP = 5,
+		BEAM_FROM_NPY_FILE = 6;
 
 	
 	/*
@@ -79,7 +80,7 @@ public class LightSource extends AbstractLightSourceComponent implements Seriali
 		physicalHeightLengthField,
 		waveLengthField;
 	
-	private transient PowersOf2ComboBox
+	private transient ArraySizeComboBox
 		amplitudeMatrixColumnsComboBox,
 		amplitudeMatrixRowsComboBox;
 	
@@ -172,11 +173,11 @@ public class LightSource extends AbstractLightSourceComponent implements Seriali
 //		amplitudeMatrixArraySizeComboBox.setValue(amplitudeMatrixColumns);
 //		amplitudeMatrixArraySizeComboBox.addActionListener(this);
 
-		amplitudeMatrixColumnsComboBox = new PowersOf2ComboBox();
+		amplitudeMatrixColumnsComboBox = new ArraySizeComboBox();
 		amplitudeMatrixColumnsComboBox.setValue(amplitudeMatrixColumns);
 		amplitudeMatrixColumnsComboBox.addActionListener(this);
 
-		amplitudeMatrixRowsComboBox = new PowersOf2ComboBox();
+		amplitudeMatrixRowsComboBox = new ArraySizeComboBox();
 		amplitudeMatrixRowsComboBox.setValue(amplitudeMatrixRows);
 		amplitudeMatrixRowsComboBox.addActionListener(this);
 
@@ -197,6 +198,9 @@ public class LightSource extends AbstractLightSourceComponent implements Seriali
 		beamEditPanel = new JPanel();		// The edit controls for the selected beam type
 		beamTypeComboBox = new JComboBox();	// The combo box for selecting a beam type
 		
+		// light sources saved before the .npy light source was introduced don't have it yet
+		if(lightSources.size() == BEAM_FROM_NPY_FILE) lightSources.add(new BeamFromNpyFile());
+		
 		// Set the combo box model from list of light sources
 		beamTypeComboBox.setModel(new DefaultComboBoxModel(lightSources.toArray()));
 		
@@ -329,6 +333,7 @@ public class LightSource extends AbstractLightSourceComponent implements Seriali
 		lightSources.add(new BesselBeam());
 		lightSources.add(new UniformPlaneWave());
 		lightSources.add(new BeamFromBitmap());
+		lightSources.add(new BeamFromNpyFile());
 		
 		// selectedLightSource = lightSources.get(beamType);
 	}
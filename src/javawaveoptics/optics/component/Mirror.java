@@ -228,16 +228,11 @@ public class Mirror extends AbstractOpticalComponent implements Serializable, Ac
 			output0.multiply(reflectionCoefficient);
 			output1.multiply(reflectionCoefficient);
 			
-			// multiply the transmitted beams by i*transmissionCoefficient...
-			BeamCrossSection transmitted0 = new BeamCrossSection(input0);
-			BeamCrossSection transmitted1 = new BeamCrossSection(input1);
-
-			transmitted0.multiply(new Complex(0, transmissionCoefficient));
-			transmitted1.multiply(new Complex(0, transmissionCoefficient));
-			
-			// ... and add them to the outputs, which already contain the reflected beams
-			output0.add(transmitted1);
-			output1.add(transmitted0);
+			// add the transmitted beams, multiplied by i*transmissionCoefficient, to the outputs,
+			// which already contain the reflected beams
+			Complex iT = new Complex(0, transmissionCoefficient);
+			output0.addMultiple(input1, iT);
+			output1.addMultiple(input0, iT);
 		}
 		
 		// add outputs to the list
@@ -67,10 +67,6 @@ public class NeutralDensityFilter extends AbstractSimpleOpticalComponent impleme
 	{
 		if(inputBeam != null)
 		{
-			int
-				width = inputBeam.getWidth(),
-				height = inputBeam.getHeight();
-	
 			String scalingType = scalingTypes[scalingTypeComboBox.getSelectedIndex()];
 			
 			double amplitudeFactor;
@@ -86,18 +82,7 @@ public class NeutralDensityFilter extends AbstractSimpleOpticalComponent impleme
 			}
 			else if(scalingType.equals("set maximum intensity to"))
 			{
-				// find the maximum intensity
-				double maxIntensity = 0;
-				
-				for(int i=0; i<width; i++)
-					for(int j=0; j<height; j++)
-					{
-						double intensity = inputBeam.getElement(i, j).getAbsSqr();
-						
-						if(intensity > maxIntensity) maxIntensity = intensity;
-					}
-				
-				amplitudeFactor = Math.sqrt(number / maxIntensity);
+				amplitudeFactor = Math.sqrt(number / inputBeam.getMaxIntensity());
 			}
 			else if(scalingType.equals("set power in beam to"))
 			{
@@ -114,11 +99,7 @@ public class NeutralDensityFilter extends AbstractSimpleOpticalComponent impleme
 			if(amplitudeFactor != 1.)
 			{
 				// actually scale the amplitude now
-				for(int i=0; i<width; i++)
-					for(int j=0; j<height; j++)
-					{
-						inputBeam.setElement(i, j, inputBeam.getElement(i, j).multiply(amplitudeFactor));
-					}
+				inputBeam.multiply(amplitudeFactor);
 			}
 		}
 		
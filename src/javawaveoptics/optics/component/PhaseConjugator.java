@@ -3,6 +3,7 @@ package javawaveoptics.optics.component;
 import java.io.Serializable;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.PixelSpans;
 
 
 /**
@@ -55,6 +56,14 @@ public class PhaseConjugator extends AbstractSimpleOpticalComponent implements S
 		return inputBeam;
 	}
 	
+	@Override
+	public BeamCrossSection changePixelSpans(PixelSpans spans, BeamCrossSection inputBeam)
+	{
+		inputBeam.phaseConjugatePixelSpans(spans);
+		
+		return inputBeam;
+	}
+	
 	
 	@Override
 	public void readWidgets()
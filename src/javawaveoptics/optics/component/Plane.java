@@ -1,17 +1,28 @@
 package javawaveoptics.optics.component;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
 
 import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.optics.plot.AbstractPlot;
 import javawaveoptics.optics.plot.AnaglyphPlot;
+import javawaveoptics.optics.plot.BeamQualityPlot;
 import javawaveoptics.optics.plot.FourierTransformPlot;
 import javawaveoptics.optics.plot.LinePlot;
 import javawaveoptics.optics.plot.PowerFractionVsDistancePlot;
@@ -19,9 +30,15 @@ import javawaveoptics.optics.plot.SelfSimilarityPlot;
 import javawaveoptics.optics.plot.XYPlanePlot;
 import javawaveoptics.optics.plot.ZPlanePlot;
 import javawaveoptics.ui.LengthUnitsComboBox;
+import javawaveoptics.ui.NpyFileChooser;
 import javawaveoptics.ui.OpticalComponentEditListener;
 import javawaveoptics.ui.PlotPanel;
 import javawaveoptics.utility.ImageableInterface;
+import javawaveoptics.utility.RenderScheduler;
+import library.util.ChunkFileReader;
+import library.util.ChunkObjectInputStream;
+import library.util.ChunkObjectOutputStream;
+import library.util.NpyFile;
 
 /**
  * Defines a plane on which the light beam cross section can be viewed in stasis. The user may choose
@@ -46,6 +63,11 @@ public class Plane extends AbstractSimpleOpticalComponent implements Serializabl
 	
 	// Local copy of the beam
 	private BeamCrossSection beamCopy = null;
+	
+	// If the plane was read from a chunk file (see library.util.ChunkFile), the beam is stored
+	// in a chunk of its own, which is only read when the beam is first needed
+	private transient ChunkFileReader beamCopyChunkFileReader;
+	private transient int beamCopyChunk;
 
 	/*
 	 * GUI edit controls
@@ -85,14 +107,20 @@ public class Plane extends AbstractSimpleOpticalComponent implements Serializabl
 	@Override
 	public BeamCrossSection fromInputBeamCalculateOutputBeam(BeamCrossSection inputBeam)
 	{		
-		if(inputBeam != null)
+		synchronized(this)
 		{
-			// Take a copy of the beam
-			beamCopy = new BeamCrossSection(inputBeam);
-		}
-		else
-		{
-			beamCopy = null;
+			if(inputBeam != null)
+			{
+				// Take a copy of the beam
+				beamCopy = new BeamCrossSection(inputBeam);
+			}
+			else
+			{
+				beamCopy = null;
+			}
+			
+			// any beam still in the file is now out of date
+			beamCopyChunkFileReader = null;
 		}
 		
 		plotBeam();
@@ -111,20 +139,46 @@ public class Plane extends AbstractSimpleOpticalComponent implements Serializabl
 	{
 		// Check if copy of beam is null, and if so, return null (instead of a Beam object, which breaks
 		// things!)
-		if(beamCopy == null)
+		BeamCrossSection beam = getBeamCopy();
+		if(beam == null)
 		{
 			return null;
 		}
 		else
 		{
-			return new BeamCrossSection(beamCopy);
+			return new BeamCrossSection(beam);
 		}
 	}
 	
 	@Override
-	public boolean isCopyOfBeamPresent()
+	public synchronized boolean isCopyOfBeamPresent()
 	{
-		return (beamCopy != null);
+		return (beamCopy != null) || (beamCopyChunkFileReader != null);
+	}
+	
+	/**
+	 * Returns the local copy of the beam, reading it from file first if it hasn't been read yet.
+	 * 
+	 * @return	the local copy of the beam, or null
+	 */
+	private synchronized BeamCrossSection getBeamCopy()
+	{
+		if(beamCopyChunkFileReader != null)
+		{
+			try
+			{
+				beamCopy = (BeamCrossSection)beamCopyChunkFileReader.readObjectChunk(beamCopyChunk);
+			}
+			catch(Exception e)
+			{
+				e.printStackTrace();
+				beamCopy = null;
+			}
+			
+			beamCopyChunkFileReader = null;
+		}
+		
+		return beamCopy;
 	}
 
 	
@@ -180,6 +234,7 @@ public class Plane extends AbstractSimpleOpticalComponent implements Serializabl
 		plotPanels.add(setUpPlotAndGetNewPlotPanel(new LinePlot()));
 		plotPanels.add(setUpPlotAndGetNewPlotPanel(new FourierTransformPlot()));
 		plotPanels.add(setUpPlotAndGetNewPlotPanel(new PowerFractionVsDistancePlot()));
+		plotPanels.add(setUpPlotAndGetNewPlotPanel(new BeamQualityPlot()));
 		plotPanels.add(setUpPlotAndGetNewPlotPanel(new AnaglyphPlot()));
 		plotPanels.add(setUpPlotAndGetNewPlotPanel(new SelfSimilarityPlot()));
 		
@@ -208,6 +263,8 @@ public class Plane extends AbstractSimpleOpticalComponent implements Serializabl
 	{
 		JPanel panel = new JPanel();
 		panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+		
+		BeamCrossSection beamCopy = getBeamCopy();
 					
 		if(beamCopy == null)
 		{
@@ -239,9 +296,33 @@ public class Plane extends AbstractSimpleOpticalComponent implements Serializabl
 
 			JLabel dataSizeLabel = new JLabel(
 					"Data size: " +
-					Double.toString((beamCopy.getData().length * 8) / (1024 * 1024)) + " MB"
+					Double.toString((2 * beamCopy.getWidth() * beamCopy.getHeight() * 8) / (1024 * 1024)) + " MB"
 				);
 			panel.add(dataSizeLabel);
+			
+			JButton exportButton = new JButton("Export as NumPy array (.npy)...");
+			exportButton.addActionListener(new ActionListener()
+			{
+				@Override
+				public void actionPerformed(ActionEvent e)
+				{
+					NpyFileChooser fileChooser = new NpyFileChooser("Export beam");
+					fileChooser.setSelectedFile(new File(getName() + ".npy"));
+					
+					if(fileChooser.showSaveDialog(plotTabbedPane) == JFileChooser.APPROVE_OPTION)
+					{
+						try
+						{
+							exportBeam(fileChooser.getSelectedFile());
+						}
+						catch(IOException ex)
+						{
+							ex.printStackTrace();
+						}
+					}
+				}
+			});
+			panel.add(exportButton);
 		}
 
 		return panel;
@@ -251,16 +332,33 @@ public class Plane extends AbstractSimpleOpticalComponent implements Serializabl
 	{
 		if(plotPanels != null)
 		{
+			BeamCrossSection beamCopy = getBeamCopy();
+			
 			for(int i = 0; i < plotPanels.size(); i++)
 			{
 				plotPanels.get(i).update(beamCopy);
 			}
-		
-			// Create beam details scroll panel
-			JScrollPane plotScrollPane = new JScrollPane(getDetailsPanel());
-		
-			// Set the beam details panel
-			plotTabbedPane.setComponentAt(plotPanels.size(), plotScrollPane);
+			
+			// Update the beam details panel, too (see RenderScheduler)
+			RenderScheduler.schedule(plotTabbedPane, Arrays.asList(beamCopy), new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					SwingUtilities.invokeLater(new Runnable()
+					{
+						@Override
+						public void run()
+						{
+							// Create beam details scroll panel
+							JScrollPane plotScrollPane = new JScrollPane(getDetailsPanel());
+						
+							// Set the beam details panel
+							plotTabbedPane.setComponentAt(plotPanels.size(), plotScrollPane);
+						}
+					});
+				}
+			});
 		}
 	}
 	
@@ -280,6 +378,23 @@ public class Plane extends AbstractSimpleOpticalComponent implements Serializabl
 		return plotTabbedPane;
 	}
 	
+	/**
+	 * Writes the complex amplitude of the beam into a NumPy array (.npy) file, with shape (height, width).
+	 * The physical size and the wavelength are not stored.
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public void exportBeam(File file) throws IOException
+	{
+		BeamCrossSection beam = getBeamCopy();
+		
+		if(beam != null)
+		{
+			NpyFile.writeComplexData(file, beam.getDataForReading(), beam.getWidth(), beam.getHeight());
+		}
+	}
+	
 	public void clearData()
 	{
 		// reset everything by letting the plane deal with a "null" input
@@ -301,10 +416,7 @@ public class Plane extends AbstractSimpleOpticalComponent implements Serializabl
 		@Override
 		public void editMade()
 		{
-			plotPanel.update(beamCopy);
-			
-			plotTabbedPane.revalidate();
-			plotTabbedPane.repaint();
+			plotPanel.redraw(getBeamCopy());
 		}
 
 		@Override
@@ -334,4 +446,43 @@ public class Plane extends AbstractSimpleOpticalComponent implements Serializabl
 			}
 		}
 	}
+	
+	/*
+	 * Serialisation
+	 */
+	
+	/**
+	 * When written to a chunk file, the beam goes into a chunk of its own, so that it
+	 * can be read lazily (see getBeamCopy).
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		BeamCrossSection beam = getBeamCopy();
+		
+		if(out instanceof ChunkObjectOutputStream)
+		{
+			ObjectOutputStream.PutField fields = out.putFields();
+			fields.put("beamCopy", null);
+			out.writeFields();
+			out.writeInt((beam == null)?-1:((ChunkObjectOutputStream)out).getChunkFileWriter().writeObjectChunk(beam));
+		}
+		else
+		{
+			out.defaultWriteObject();
+		}
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		
+		if(in instanceof ChunkObjectInputStream)
+		{
+			beamCopyChunk = in.readInt();
+			if(beamCopyChunk >= 0)
+			{
+				beamCopyChunkFileReader = ((ChunkObjectInputStream)in).getChunkFileReader();
+			}
+		}
+	}
 }
\ No newline at end of file
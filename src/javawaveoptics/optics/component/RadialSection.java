@@ -0,0 +1,89 @@
+package javawaveoptics.optics.component;
+
+import javawaveoptics.optics.BeamCrossSection;
+import library.optics.RadialLightBeam;
+
+/**
+ * Simulates rotationally symmetric beams through chains of rotationally symmetric components in 1D.
+ * 
+ * Light sources of beams of the form f(r) exp(i l phi), centred on the optical axis, record the radial profile in
+ * the beam (see BeamCrossSection.getRadialBeam).
+ * Starting with the component the beam enters, the radial profile is passed through all components that are
+ * rotationally symmetric (see RadiallySymmetricComponent) with the quasi-discrete Hankel transform, which takes
+ * O(N^2) operations for N sample points, instead of O(N^2 log N) operations for an N x N grid.
+ * The 2D beam is calculated from the radial profile only in planes and at the first component that is not
+ * rotationally symmetric, which then simulates it as usual.
+ * The radial profile is zero beyond the circle through the corners of the grid, whereas the 2D beam is
+ * periodic, so the results differ slightly for beams that reach the edge of the grid; this has to be
+ * switched on (e.g. in the optical environment).
+ */
+public class RadialSection
+{
+	// are rotationally symmetric beams simulated in 1D (in the current thread, so that each simulation can have its own setting, see GUI)?
+	private static final ThreadLocal<Boolean> enabled = new ThreadLocal<Boolean>()
+	{
+		@Override
+		protected Boolean initialValue()
+		{
+			return false;
+		}
+	};
+	
+	/**
+	 * If the beam is still rotationally symmetric, passes its radial profile through the rotationally symmetric
+	 * components and planes starting with the given component, and lets the first other component deal with it.
+	 * 
+	 * @param firstComponent	the component the beam enters
+	 * @param inputBeam	the beam
+	 * @return	true if the beam has been dealt with; false if the first component has to deal with it as usual
+	 */
+	public static boolean dealWithInput(AbstractSimpleOpticalComponent firstComponent, BeamCrossSection inputBeam)
+	{
+		if((inputBeam == null) || (inputBeam.getRadialBeam() == null)) return false;
+		
+		final RadialLightBeam inputRadialBeam = inputBeam.getRadialBeam();
+		
+		// whatever happens, the beam is about to be changed
+		inputBeam.setRadialBeam(null);
+		
+		if(!isEnabled()) return false;
+		
+		return new AlternativeDescriptionWalker(inputBeam)
+		{
+			private RadialLightBeam radialBeam = inputRadialBeam;
+			
+			@Override
+			protected boolean canPass(AbstractSimpleOpticalComponent component)
+			{
+				return isRadiallySymmetric(component);
+			}
+			
+			@Override
+			protected boolean pass(AbstractSimpleOpticalComponent component)
+			{
+				radialBeam = ((RadiallySymmetricComponent)component).fromInputRadialBeamCalculateOutputRadialBeam(radialBeam);
+				return true;
+			}
+			
+			@Override
+			protected void makeField()
+			{
+				radialBeam.makeField(beam);
+			}
+		}.dealWithInput(firstComponent);
+	}
+	
+	// can the radial profile be passed through the component?
+	private static boolean isRadiallySymmetric(AbstractSimpleOpticalComponent component)
+	{
+		return (component instanceof RadiallySymmetricComponent) && ((RadiallySymmetricComponent)component).isRadiallySymmetric();
+	}
+
+	public static boolean isEnabled() {
+		return enabled.get();
+	}
+
+	public static void setEnabled(boolean enabled) {
+		RadialSection.enabled.set(enabled);
+	}
+}
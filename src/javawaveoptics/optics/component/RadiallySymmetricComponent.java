@@ -0,0 +1,24 @@
+package javawaveoptics.optics.component;
+
+import library.optics.RadialLightBeam;
+
+/**
+ * A component that is rotationally symmetric about the optical axis, so that it can act on beams of the form
+ * f(r) exp(i l phi) in terms of their radial profile alone (see RadialLightBeam).
+ * Beams that are still of this form can be simulated through chains of such components in 1D (see RadialSection).
+ */
+public interface RadiallySymmetricComponent {
+	/**
+	 * @return true if the component, with its current parameters, is rotationally symmetric about the optical axis
+	 * and doesn't change the sampling of the beam
+	 */
+	public boolean isRadiallySymmetric();
+	
+	/**
+	 * The radial equivalent of AbstractSimpleOpticalComponent.fromInputBeamCalculateOutputBeam.
+	 * 
+	 * @param inputBeam	the input beam
+	 * @return	the output beam
+	 */
+	public RadialLightBeam fromInputRadialBeamCalculateOutputRadialBeam(RadialLightBeam inputBeam);
+}
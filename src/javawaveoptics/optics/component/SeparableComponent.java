@@ -0,0 +1,23 @@
+package javawaveoptics.optics.component;
+
+import library.optics.SeparableLightBeam;
+
+/**
+ * A component that acts on the x and y directions independently, so that it can act on beams of the form X(x) Y(y)
+ * in terms of the two factors alone (see SeparableLightBeam).
+ * Beams that are still of this form can be simulated through chains of such components in 1D (see SeparableSection).
+ */
+public interface SeparableComponent {
+	/**
+	 * @return true if the component, with its current parameters, acts on the x and y directions independently
+	 */
+	public boolean isSeparable();
+	
+	/**
+	 * The separable equivalent of AbstractSimpleOpticalComponent.fromInputBeamCalculateOutputBeam.
+	 * 
+	 * @param inputBeam	the input beam
+	 * @return	the output beam
+	 */
+	public SeparableLightBeam fromInputSeparableBeamCalculateOutputSeparableBeam(SeparableLightBeam inputBeam);
+}
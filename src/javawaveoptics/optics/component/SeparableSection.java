@@ -0,0 +1,88 @@
+package javawaveoptics.optics.component;
+
+import javawaveoptics.optics.BeamCrossSection;
+import library.optics.SeparableLightBeam;
+
+/**
+ * Simulates separable beams through chains of separable components in 1D.
+ * 
+ * Light sources of beams of the form X(x) Y(y), e.g. Gaussian and Hermite-Gaussian beams, record the two factors
+ * in the beam (see BeamCrossSection.getSeparableBeam).
+ * Starting with the component the beam enters, the factors are passed through all components that act on x and y
+ * independently (see SeparableComponent), e.g. lenses, cylindrical lenses aligned with x or y, and cylindrical-lens
+ * mode converters, which takes O(N log N) operations for N x N sample points, instead of O(N^2 log N) operations.
+ * The 2D beam is calculated from the factors only in planes and at the first component that is not separable,
+ * which then simulates it as usual.
+ * Distances are simulated paraxially, as the exact (angular-spectrum) propagation doesn't factorise, so the results
+ * differ slightly for beams with large angles; this has to be switched on (e.g. in the optical environment).
+ */
+public class SeparableSection
+{
+	// are separable beams simulated in 1D (in the current thread, so that each simulation can have its own setting, see GUI)?
+	private static final ThreadLocal<Boolean> enabled = new ThreadLocal<Boolean>()
+	{
+		@Override
+		protected Boolean initialValue()
+		{
+			return false;
+		}
+	};
+	
+	/**
+	 * If the beam is still separable, passes its factors through the separable
+	 * components and planes starting with the given component, and lets the first other component deal with it.
+	 * 
+	 * @param firstComponent	the component the beam enters
+	 * @param inputBeam	the beam
+	 * @return	true if the beam has been dealt with; false if the first component has to deal with it as usual
+	 */
+	public static boolean dealWithInput(AbstractSimpleOpticalComponent firstComponent, BeamCrossSection inputBeam)
+	{
+		if((inputBeam == null) || (inputBeam.getSeparableBeam() == null)) return false;
+		
+		final SeparableLightBeam inputSeparableBeam = inputBeam.getSeparableBeam();
+		
+		// whatever happens, the beam is about to be changed
+		inputBeam.setSeparableBeam(null);
+		
+		if(!isEnabled()) return false;
+		
+		return new AlternativeDescriptionWalker(inputBeam)
+		{
+			private SeparableLightBeam separableBeam = inputSeparableBeam;
+			
+			@Override
+			protected boolean canPass(AbstractSimpleOpticalComponent component)
+			{
+				return isSeparable(component);
+			}
+			
+			@Override
+			protected boolean pass(AbstractSimpleOpticalComponent component)
+			{
+				separableBeam = ((SeparableComponent)component).fromInputSeparableBeamCalculateOutputSeparableBeam(separableBeam);
+				return true;
+			}
+			
+			@Override
+			protected void makeField()
+			{
+				separableBeam.makeField(beam);
+			}
+		}.dealWithInput(firstComponent);
+	}
+	
+	// can the factors be passed through the component?
+	private static boolean isSeparable(AbstractSimpleOpticalComponent component)
+	{
+		return (component instanceof SeparableComponent) && ((SeparableComponent)component).isSeparable();
+	}
+
+	public static boolean isEnabled() {
+		return enabled.get();
+	}
+
+	public static void setEnabled(boolean enabled) {
+		SeparableSection.enabled.set(enabled);
+	}
+}
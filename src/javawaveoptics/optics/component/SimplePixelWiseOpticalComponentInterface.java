@@ -1,6 +1,7 @@
 package javawaveoptics.optics.component;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.PixelSpans;
 
 /**
  * Interface that defines a simple optical component that can manipulate a single pixel at a time.
@@ -23,4 +24,14 @@ public interface SimplePixelWiseOpticalComponentInterface
 	 * @return				The output beam
 	 */
 	public BeamCrossSection changePixelInInputBeam(int i, int j, BeamCrossSection inputBeam);
+	
+	/**
+	 * Changes all the pixels in the given set, which has the dimensions of the input beam,
+	 * in the same way as changePixelInInputBeam, but row by row.
+	 * 
+	 * @param spans			The set of pixels to be changed
+	 * @param inputBeam		The input beam
+	 * @return				The output beam
+	 */
+	public BeamCrossSection changePixelSpans(PixelSpans spans, BeamCrossSection inputBeam);
 }
\ No newline at end of file
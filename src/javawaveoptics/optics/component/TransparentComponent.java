@@ -3,6 +3,7 @@ package javawaveoptics.optics.component;
 import java.io.Serializable;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.PixelSpans;
 
 
 /**
@@ -53,6 +54,13 @@ public class TransparentComponent extends AbstractSimpleOpticalComponent impleme
 		return inputBeam;
 	}
 	
+	@Override
+	public BeamCrossSection changePixelSpans(PixelSpans spans, BeamCrossSection inputBeam)
+	{
+		// do nothing
+		return inputBeam;
+	}
+	
 	@Override
 	public void readWidgets()
 	{
@@ -8,8 +8,9 @@ import javax.swing.JFormattedTextField;
 
 import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.ui.UIBitsAndBobs;
-import library.maths.Complex;
+import library.field.PixelKernel;
 import library.maths.MyMath;
+import library.optics.LightBeamCrossSection2D;
 
 public class Wedge extends AbstractSimpleOpticalComponent implements Serializable, PropertyChangeListener
 {
@@ -58,27 +59,18 @@ public class Wedge extends AbstractSimpleOpticalComponent implements Serializabl
 	@Override
 	public BeamCrossSection fromInputBeamCalculateOutputBeam(BeamCrossSection inputBeam)
 	{
-		int width = inputBeam.getWidth();
-		int height = inputBeam.getHeight();
+		final double sinAlpha = Math.sin(MyMath.deg2rad(-deflectionAngleXZ));
+		final double sinBeta = Math.sin(MyMath.deg2rad(-deflectionAngleYZ));
+		final double k = 2.*Math.PI/inputBeam.getWavelength();
 		
-		double sinAlpha = Math.sin(MyMath.deg2rad(-deflectionAngleXZ));
-		double sinBeta = Math.sin(MyMath.deg2rad(-deflectionAngleYZ));
-		double k = 2.*Math.PI/inputBeam.getWavelength();
-		
-		// Calculate the effect the spiral has on each pixel
-		for(int i = 0; i < width; i++)
+		// Calculate the effect the wedge has on each pixel
+		inputBeam.applyPixelKernel(new PixelKernel()
 		{
-			double x = inputBeam.getX(i);
-			
-			for(int j = 0; j < height; j++)
+			public void apply(double x, double y, double re, double im, double out[])
 			{
-				double y = inputBeam.getY(j);
-				
-				double phase = -k*(x*sinAlpha + y*sinBeta);
-				
-				inputBeam.multiplyElement(i, j, Complex.expI(phase));
+				LightBeamCrossSection2D.multiplyByExpI(re, im, -k*(x*sinAlpha + y*sinBeta), out);
 			}
-		}
+		});
 		
 		return inputBeam;
 	}
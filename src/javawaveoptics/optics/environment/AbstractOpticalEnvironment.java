@@ -10,6 +10,7 @@ import javawaveoptics.optics.component.OpticalComponentFactory;
 import javawaveoptics.ui.OpticalEnvironmentChangeEvent;
 import javawaveoptics.utility.ImageableInterface;
 import javawaveoptics.utility.ImageableLightSourceInterface;
+import library.maths.FFTPrecision;
 
 /**
  * Defines an optical environment. This class contains all the information required
@@ -37,6 +38,27 @@ public abstract class AbstractOpticalEnvironment implements Serializable
 	// Workbench type to use
 	protected int workbenchType;
 	
+	// Precision of the Fourier transforms used when simulating this environment;
+	// null (as in environments saved before this setting existed) means double precision
+	protected FFTPrecision precision;
+	
+	// If true, chains of lenses, distances etc. are simulated in one go (see FirstOrderSection)
+	protected boolean fusingFirstOrderComponents = false;
+	
+	// If true, Gaussian, Hermite-Gaussian and Laguerre-Gaussian beams are calculated analytically where possible
+	// (see AnalyticBeamTracker)
+	protected boolean trackingGaussianBeamsAnalytically = false;
+	
+	// If true, rotationally symmetric beams are simulated in 1D where possible (see RadialSection)
+	protected boolean simulatingRadialBeams = false;
+	
+	// If true, separable beams are simulated in 1D where possible (see SeparableSection)
+	protected boolean simulatingSeparableBeams = false;
+	
+	// If true, beams that are even or odd about both central axes are propagated using only one quadrant
+	// (see LightBeamCrossSection2D.propagateSymmetrically)
+	protected boolean propagatingSymmetrically = false;
+	
 	// The bitset representing available optical components and light sources
 	private BitSet availableLightSourceComponentsBitField;
 	private BitSet availableNonLightSourceComponentsBitField;
@@ -456,6 +478,143 @@ public abstract class AbstractOpticalEnvironment implements Serializable
 		return false;
 	}
 	
+	/**
+	 * Returns the precision of the Fourier transforms used when simulating this environment
+	 * 
+	 * @return
+	 */
+	public FFTPrecision getPrecision()
+	{
+		return (precision == null)?FFTPrecision.DOUBLE:precision;
+	}
+	
+	/**
+	 * Sets the precision of the Fourier transforms used when simulating this environment; the
+	 * setting is saved with the environment, and applies only to the thread that simulates it.
+	 * SINGLE means float-rounded FFTs (see FFTPrecision): only the transforms are affected, not
+	 * the way beams are stored, so this saves time but not memory, and introduces rounding errors
+	 * of the order of 1e-7 relative to the field amplitude in every transform.
+	 * 
+	 * @param precision
+	 */
+	public void setPrecision(FFTPrecision precision)
+	{
+		this.precision = precision;
+	}
+	
+	/**
+	 * Returns whether chains of first-order components (lenses, distances, beam expanders etc.) are
+	 * simulated in one go
+	 * 
+	 * @return
+	 */
+	public boolean isFusingFirstOrderComponents()
+	{
+		return fusingFirstOrderComponents;
+	}
+	
+	/**
+	 * Sets whether chains of first-order components (lenses, distances, beam expanders etc.) are
+	 * simulated in one go, which is faster but can sample the beam differently at the end of the chain
+	 * (see FirstOrderSection).
+	 * 
+	 * @param fusingFirstOrderComponents
+	 */
+	public void setFusingFirstOrderComponents(boolean fusingFirstOrderComponents)
+	{
+		this.fusingFirstOrderComponents = fusingFirstOrderComponents;
+	}
+	
+	/**
+	 * Returns whether Gaussian, Hermite-Gaussian and Laguerre-Gaussian beams are followed analytically
+	 * through lenses, distances etc.
+	 * 
+	 * @return
+	 */
+	public boolean isTrackingGaussianBeamsAnalytically()
+	{
+		return trackingGaussianBeamsAnalytically;
+	}
+	
+	/**
+	 * Sets whether Gaussian, Hermite-Gaussian and Laguerre-Gaussian beams are followed analytically
+	 * through lenses, distances etc., which needs no FFTs but, unlike the numerical simulation,
+	 * ignores any aliasing caused by the sampling (see AnalyticBeamTracker).
+	 * 
+	 * @param trackingGaussianBeamsAnalytically
+	 */
+	public void setTrackingGaussianBeamsAnalytically(boolean trackingGaussianBeamsAnalytically)
+	{
+		this.trackingGaussianBeamsAnalytically = trackingGaussianBeamsAnalytically;
+	}
+	
+	/**
+	 * Returns whether rotationally symmetric beams are simulated in 1D through rotationally symmetric
+	 * components.
+	 * 
+	 * @return
+	 */
+	public boolean isSimulatingRadialBeams()
+	{
+		return simulatingRadialBeams;
+	}
+	
+	/**
+	 * Sets whether rotationally symmetric beams are simulated in 1D through lenses, distances and
+	 * circular apertures, which is much faster but, unlike the 2D simulation, treats the edge of the
+	 * grid as a circular hard wall (see RadialSection).
+	 * 
+	 * @param simulatingRadialBeams
+	 */
+	public void setSimulatingRadialBeams(boolean simulatingRadialBeams)
+	{
+		this.simulatingRadialBeams = simulatingRadialBeams;
+	}
+	
+	/**
+	 * Returns whether separable beams are simulated in 1D through separable components.
+	 * 
+	 * @return
+	 */
+	public boolean isSimulatingSeparableBeams()
+	{
+		return simulatingSeparableBeams;
+	}
+	
+	/**
+	 * Sets whether beams of the form X(x) Y(y) are simulated in 1D through lenses, cylindrical lenses,
+	 * mode converters, slits etc. aligned with x or y, which is much faster but propagates the beam
+	 * paraxially (see SeparableSection).
+	 * 
+	 * @param simulatingSeparableBeams
+	 */
+	public void setSimulatingSeparableBeams(boolean simulatingSeparableBeams)
+	{
+		this.simulatingSeparableBeams = simulatingSeparableBeams;
+	}
+	
+	/**
+	 * Returns whether mirror-symmetric beams are propagated using only one quadrant.
+	 * 
+	 * @return
+	 */
+	public boolean isPropagatingSymmetrically()
+	{
+		return propagatingSymmetrically;
+	}
+	
+	/**
+	 * Sets whether beams that are even or odd about both central axes are propagated through distances
+	 * using real-to-real transforms (DCTs and DSTs) of one quadrant of the beam, which is faster than
+	 * the FFT of the whole beam and gives the same result; other beams are propagated as usual.
+	 * 
+	 * @param propagatingSymmetrically
+	 */
+	public void setPropagatingSymmetrically(boolean propagatingSymmetrically)
+	{
+		this.propagatingSymmetrically = propagatingSymmetrically;
+	}
+	
 	public boolean isImageableLightSourcePresent()
 	{
 		return checkForImageableLightSourceRecursively(startComponent, null);
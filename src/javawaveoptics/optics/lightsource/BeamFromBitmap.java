@@ -23,8 +23,7 @@ import javax.swing.GroupLayout.SequentialGroup;
 
 import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.ui.BitmapFileChooser;
-import javawaveoptics.utility.ImageUtilities;
-import javawaveoptics.utility.MathsUtilities;
+import javawaveoptics.utility.BitmapCache;
 
 /**
  * Defines a bitmap light source, which is a light source derived from a bitmap file. The chosen bitmap
@@ -88,29 +87,12 @@ public class BeamFromBitmap extends AbstractLightSource implements Serializable,
 		
 		try
 		{
-			// Load the image from disk
-			BufferedImage image = ImageIO.read(imageFile);
+			// Load data from the image (which is only read from disk the first time, or when it has changed);
+			// this checks that the image is of the same size as the beam
+			double[] data = BitmapCache.getBeamTypeArray(imageFile, plotWidth, plotHeight);
 			
-			// Detect the image dimensions
-			int width = image.getWidth();
-			int height = image.getHeight();
-			
-			// Check width and height are powers of two
-			if(!MathsUtilities.isPowerOfTwo(width))
-			{
-				throw new NumberFormatException("[Bitmap Loader] The specified image's width is not a power of two.");
-			}
-			
-			if(!MathsUtilities.isPowerOfTwo(height))
-			{
-				throw new NumberFormatException("[Bitmap Loader] The specified image's height is not a power of two.");
-			}
-			
-			// Load data from the image
-			double[] data = ImageUtilities.image2BeamTypeArray(image);
-			
-			// Set the beam's data
-			beam.setData(data);
+			// Set the beam's data (copying it, as the cached array is shared)
+			System.arraycopy(data, 0, beam.getData(), 0, data.length);
 			
 			return beam;
 		}
@@ -121,7 +103,7 @@ public class BeamFromBitmap extends AbstractLightSource implements Serializable,
 		}
 		catch(IllegalArgumentException e)
 		{
-			// File or image is null OR the width or height is not a power of two.
+			// File or image is null OR the width or height is invalid.
 			// (NumberFormatException is caught by IllegalArgumentException)
 			System.err.println("[Bitmap Loader] Specified file is invalid: " + e.getMessage());
 		}
@@ -270,7 +252,8 @@ public class BeamFromBitmap extends AbstractLightSource implements Serializable,
 				imageWidthTextBox.setText(Integer.toString(width));
 				imageHeightTextBox.setText(Integer.toString(height));
 				
-				if(MathsUtilities.isPowerOfTwo(width))
+				// the image has to be of the same size as the light source's amplitude matrix
+				if((lightSource == null) || (width == lightSource.getAmplitudeMatrixColumns()))
 				{
 					imageWidthTextBox.setBackground(Color.white);
 				}
@@ -279,7 +262,7 @@ public class BeamFromBitmap extends AbstractLightSource implements Serializable,
 					imageWidthTextBox.setBackground(Color.red);
 				}
 				
-				if(MathsUtilities.isPowerOfTwo(height))
+				if((lightSource == null) || (height == lightSource.getAmplitudeMatrixRows()))
 				{
 					imageHeightTextBox.setBackground(Color.white);
 				}
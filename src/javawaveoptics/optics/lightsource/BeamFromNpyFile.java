@@ -0,0 +1,197 @@
+package javawaveoptics.optics.lightsource;
+
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JTextField;
+
+import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.ui.NpyFileChooser;
+import javawaveoptics.ui.UIBitsAndBobs;
+import library.util.NpyFile;
+
+/**
+ * Defines a light source whose complex amplitude is read from a NumPy array (.npy) file, e.g. one
+ * exported from a Plane, or one calculated elsewhere. The array has to have the same dimensions as
+ * the amplitude matrix; the file is memory mapped, so even very large arrays are read quickly.
+ */
+public class BeamFromNpyFile extends AbstractLightSource implements Serializable, ActionListener, KeyListener
+{
+	private static final long serialVersionUID = 2304873150265717420L;
+
+	/*
+	 * Fields
+	 */
+	
+	// .npy file location
+	private File npyFile = null;
+	
+	/*
+	 * GUI edit controls
+	 */
+	
+	private transient NpyFileChooser fileChooser;
+	private transient JTextField fileChooserTextField;
+	private transient JButton fileChooserButton;
+	
+	// Shows the dimensions and data type of the array in the file
+	private transient JLabel arrayInfoLabel;
+	
+	public BeamFromNpyFile()
+	{
+		super("Beam from NumPy array (.npy)");
+	}
+	
+	@Override
+	public String getLightSourceTypeName()
+	{
+		return "Beam from NumPy array (.npy)";
+	}
+	
+	public BeamCrossSection getBeamOutput(double physicalWidth, double physicalHeight, double wavelength, int plotWidth, int plotHeight)
+	{
+		try
+		{
+			NpyFile npy = new NpyFile(npyFile);
+			
+			if((npy.getWidth() != plotWidth) || (npy.getHeight() != plotHeight))
+			{
+				throw new IllegalArgumentException(
+						"The array is " + npy.getWidth() + " \u2a09 " + npy.getHeight() +
+						", but the amplitude matrix is " + plotWidth + " \u2a09 " + plotHeight + "."
+					);
+			}
+			
+			BeamCrossSection beam = new BeamCrossSection(plotWidth, plotHeight, physicalWidth, physicalHeight, wavelength);
+			beam.setData(npy.readComplexData());
+			
+			return beam;
+		}
+		catch(IOException e)
+		{
+			System.err.println("[NumPy Loader] Unable to read file: " + e.getMessage());
+		}
+		catch(IllegalArgumentException e)
+		{
+			System.err.println("[NumPy Loader] Specified file is invalid: " + e.getMessage());
+		}
+		catch(NullPointerException e)
+		{
+			System.err.println("[NumPy Loader] No file specified.");
+		}
+		
+		return null;
+	}
+	
+	@Override
+	protected void initialiseWidgets()
+	{
+		super.initialiseWidgets();
+		
+		fileChooser = new NpyFileChooser("Load .npy");
+		
+		fileChooserTextField = new JTextField(20);
+		if(npyFile != null) fileChooserTextField.setText(npyFile.getAbsolutePath());
+		fileChooserTextField.addKeyListener(this);
+		
+		fileChooserButton = new JButton("Browse...");
+		fileChooserButton.addActionListener(this);
+		fileChooserButton.setActionCommand("Choose File");
+		
+		arrayInfoLabel = new JLabel();
+	}
+	
+	@Override
+	protected void createEditPanel()
+	{
+		super.createEditPanel();
+		
+		editPanel.add(UIBitsAndBobs.makeRow("File", fileChooserTextField, fileChooserButton, true));
+		editPanel.add(UIBitsAndBobs.makeRow("Array", arrayInfoLabel, true));
+		
+		validateNpyFile();
+	}
+	
+	public void validateNpyFile()
+	{
+		if(fileChooserTextField.getText().equals(""))
+		{
+			npyFile = null;
+			fileChooserTextField.setBackground(Color.white);
+			arrayInfoLabel.setText("");
+			return;
+		}
+		
+		npyFile = new File(fileChooserTextField.getText());
+		
+		try
+		{
+			NpyFile npy = new NpyFile(npyFile);
+			
+			fileChooserTextField.setBackground(Color.white);
+			arrayInfoLabel.setText(npy.getWidth() + " \u2a09 " + npy.getHeight() + " (" + npy.getDataType() + ")");
+		}
+		catch(IOException e)
+		{
+			// Not a readable .npy file; set text field to red background
+			fileChooserTextField.setBackground(Color.red);
+			arrayInfoLabel.setText("");
+		}
+	}
+
+	@Override
+	public void actionPerformed(ActionEvent event)
+	{
+		if(event.getActionCommand().equals("Choose File"))
+		{
+			// Set the selected file to the currently specified file
+			fileChooser.setSelectedFile(npyFile);
+			
+			if(fileChooser.showDialog(editPanel, "Load") == JFileChooser.APPROVE_OPTION)
+			{
+				fileChooserTextField.setText(fileChooser.getSelectedFile().getAbsolutePath());
+				validateNpyFile();
+			}
+		}
+	}
+	
+	@Override
+	public void keyPressed(KeyEvent e)
+	{
+		
+	}
+
+	@Override
+	public void keyReleased(KeyEvent keyEvent)
+	{
+		if(keyEvent.getSource().equals(fileChooserTextField))
+		{
+			validateNpyFile();
+		}
+	}
+
+	@Override
+	public void keyTyped(KeyEvent e)
+	{
+		
+	}
+
+	public File getNpyFile()
+	{
+		return npyFile;
+	}
+
+	public void setNpyFile(File npyFile)
+	{
+		this.npyFile = npyFile;
+	}
+}
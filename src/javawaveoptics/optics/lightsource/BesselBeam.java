@@ -7,8 +7,10 @@ import java.io.Serializable;
 import javax.swing.JFormattedTextField;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.component.RadialSection;
 import javawaveoptics.ui.LengthField;
 import javawaveoptics.ui.UIBitsAndBobs;
+import library.optics.RadialLightBeam;
 
 
 /**
@@ -74,6 +76,15 @@ public class BesselBeam extends AbstractLightSource implements Serializable, Pro
 		
 		beam.makeBessel(topologicalCharge, radialWaveNumber, xCentre, yCentre);
 		
+		// beams with an integer topological charge are rotationally symmetric; the radial profile is only
+		// worth calculating if it is going to be used
+		if(RadialSection.isEnabled() && (topologicalCharge == Math.rint(topologicalCharge)) && (xCentre == 0) && (yCentre == 0))
+		{
+			RadialLightBeam radialBeam = new RadialLightBeam((int)topologicalCharge, beam);
+			radialBeam.makeBessel(radialWaveNumber);
+			beam.setRadialBeam(radialBeam);
+		}
+		
 		return beam;
 	}
 	
@@ -5,8 +5,13 @@ import java.beans.PropertyChangeListener;
 import java.io.Serializable;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.component.RadialSection;
+import javawaveoptics.optics.component.SeparableSection;
 import javawaveoptics.ui.LengthField;
 import javawaveoptics.ui.UIBitsAndBobs;
+import library.optics.GaussianModeExpansion;
+import library.optics.RadialLightBeam;
+import library.optics.SeparableLightBeam;
 
 
 /**
@@ -62,6 +67,22 @@ public class GaussianBeam extends AbstractLightSource implements Serializable, P
 		BeamCrossSection beam = new BeamCrossSection(plotWidth, plotHeight, physicalWidth, physicalHeight, wavelength);
 		
 		beam.makeGaussian(w0, xCentre, yCentre);
+		beam.setGaussianModeExpansion(GaussianModeExpansion.gaussian(w0, xCentre, yCentre));
+		
+		// the radial profile and the factors are only worth calculating if they are going to be used
+		if(RadialSection.isEnabled() && (xCentre == 0) && (yCentre == 0))
+		{
+			RadialLightBeam radialBeam = new RadialLightBeam(0, beam);
+			radialBeam.makeGaussian(w0);
+			beam.setRadialBeam(radialBeam);
+		}
+		
+		if(SeparableSection.isEnabled())
+		{
+			SeparableLightBeam separableBeam = new SeparableLightBeam(beam);
+			separableBeam.makeGaussian(w0, xCentre, yCentre);
+			beam.setSeparableBeam(separableBeam);
+		}
 		
 		return beam;
 	}
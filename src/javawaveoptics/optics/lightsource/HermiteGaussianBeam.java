@@ -6,7 +6,10 @@ import java.io.Serializable;
 import javax.swing.JFormattedTextField;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.component.SeparableSection;
 import javawaveoptics.ui.UIBitsAndBobs;
+import library.optics.GaussianModeExpansion;
+import library.optics.SeparableLightBeam;
 
 public class HermiteGaussianBeam extends GaussianBeam implements Serializable
 {
@@ -60,6 +63,15 @@ public class HermiteGaussianBeam extends GaussianBeam implements Serializable
 		BeamCrossSection beam = new BeamCrossSection(plotWidth, plotHeight, physicalWidth, physicalHeight, wavelength);
 		
 		beam.makeHermiteGaussian(mIndex, nIndex, w0, xCentre, yCentre);
+		beam.setGaussianModeExpansion(GaussianModeExpansion.hermiteGaussian(mIndex, nIndex, w0, xCentre, yCentre));
+		
+		// the factors are only worth calculating if they are going to be used
+		if(SeparableSection.isEnabled())
+		{
+			SeparableLightBeam separableBeam = new SeparableLightBeam(beam);
+			separableBeam.makeHermiteGaussian(mIndex, nIndex, w0, xCentre, yCentre);
+			beam.setSeparableBeam(separableBeam);
+		}
 		
 		return beam;
 	}
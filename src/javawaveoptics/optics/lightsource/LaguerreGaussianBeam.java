@@ -6,7 +6,10 @@ import java.io.Serializable;
 import javax.swing.JFormattedTextField;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.component.RadialSection;
 import javawaveoptics.ui.UIBitsAndBobs;
+import library.optics.GaussianModeExpansion;
+import library.optics.RadialLightBeam;
 
 public class LaguerreGaussianBeam extends GaussianBeam implements Serializable
 {
@@ -56,6 +59,15 @@ public class LaguerreGaussianBeam extends GaussianBeam implements Serializable
 		BeamCrossSection beam = new BeamCrossSection(plotWidth, plotHeight, physicalWidth, physicalHeight, wavelength);
 		
 		beam.makeLaguerreGaussian(lIndex, pIndex, w0, xCentre, yCentre);
+		beam.setGaussianModeExpansion(GaussianModeExpansion.laguerreGaussian(lIndex, pIndex, w0, xCentre, yCentre));
+		
+		// the radial profile is only worth calculating if it is going to be used
+		if(RadialSection.isEnabled() && (xCentre == 0) && (yCentre == 0))
+		{
+			RadialLightBeam radialBeam = new RadialLightBeam(lIndex, beam);
+			radialBeam.makeLaguerreGaussian(pIndex, w0);
+			beam.setRadialBeam(radialBeam);
+		}
 		
 		return beam;
 	}
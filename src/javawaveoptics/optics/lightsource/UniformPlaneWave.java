@@ -10,7 +10,9 @@ import javax.swing.JButton;
 import javax.swing.JFormattedTextField;
 
 import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.optics.component.SeparableSection;
 import javawaveoptics.ui.UIBitsAndBobs;
+import library.optics.SeparableLightBeam;
 
 /**
  * Provides a uniform beam output with corresponding edit functionality.
@@ -78,6 +80,14 @@ public class UniformPlaneWave extends AbstractLightSource implements Serializabl
 		
 		beam.makeUniformPlaneWave(xWaveNumber, yWaveNumber);
 		
+		// the factors are only worth calculating if they are going to be used
+		if(SeparableSection.isEnabled())
+		{
+			SeparableLightBeam separableBeam = new SeparableLightBeam(beam);
+			separableBeam.makeUniformPlaneWave(xWaveNumber, yWaveNumber);
+			beam.setSeparableBeam(separableBeam);
+		}
+		
 		return beam;
 	}
 
@@ -92,6 +92,10 @@ public abstract class AbstractPlot implements Serializable, ComponentListener
 	
 	protected transient ImagePanel plotImagePanel;
 	
+	// The size of the ImagePanel's viewport, captured on the event-dispatch thread (see captureViewportSize)
+	// so that getPlotImage can use it in another thread; 0 if not known
+	private transient volatile int viewportWidth = 0, viewportHeight = 0;
+	
 	/*
 	 * GUI edit controls
 	 */
@@ -188,39 +192,62 @@ public abstract class AbstractPlot implements Serializable, ComponentListener
 	 */
 	public ImagePanel getPlotImagePanel(BeamCrossSection beam)
 	{
-		if(beam != null)
+		captureViewportSize();
+		return showPlotImage((beam != null)?getPlotImage(beam):null);
+	}
+	
+	/**
+	 * Remembers the current size of the ImagePanel's viewport, which getPlotImage then uses, whatever thread
+	 * it is called in.  Call only on the event-dispatch thread, e.g. when scheduling a redraw (see PlotPanel).
+	 */
+	public void captureViewportSize()
+	{
+		if(plotImagePanel != null)
 		{
-			plotImage = getPlotImage(beam);
-			
-			if(plotImagePanel == null)
-			{
-				plotImagePanel = new ImagePanel(plotImage, 1.0, 1.0, isAspectRatioFixed(), getShowZoomButtons(), getShowFitButton(), getShowSaveButton(), getShowSettingsButton(), getShowSettingsButton(), getSettingsPanel(), getControlPanelLeft(), getControlPanelRight(), getFileSaveName(), editPanelListener);
-				if(this instanceof ZoomListener)
-				{
-					plotImagePanel.setZoomListener((ZoomListener)this);
-				}
-				plotImagePanel.getScrollPane().addComponentListener(this);
-			}
-			else
+			viewportWidth = plotImagePanel.getViewportWidth();
+			viewportHeight = plotImagePanel.getViewportHeight();
+		}
+	}
+	
+	/**
+	 * @return	the width of the ImagePanel's viewport when it was last captured (see captureViewportSize), or 0
+	 */
+	protected int getViewportWidth()
+	{
+		return viewportWidth;
+	}
+	
+	/**
+	 * @return	the height of the ImagePanel's viewport when it was last captured (see captureViewportSize), or 0
+	 */
+	protected int getViewportHeight()
+	{
+		return viewportHeight;
+	}
+	
+	/**
+	 * Shows an image calculated by getPlotImage (possibly in another thread; see PlotPanel) in the
+	 * ImagePanel, which gets created if necessary.  Call only on the event-dispatch thread.
+	 * 
+	 * @param plotImage	the plot image, or null if there is no beam
+	 * @return	the ImagePanel
+	 */
+	public ImagePanel showPlotImage(BufferedImage plotImage)
+	{
+		this.plotImage = plotImage;
+		
+		if(plotImagePanel == null)
+		{
+			plotImagePanel = new ImagePanel(plotImage, 1.0, 1.0, isAspectRatioFixed(), getShowZoomButtons(), getShowFitButton(), getShowSaveButton(), getShowSettingsButton(), getShowSettingsButton(), getSettingsPanel(), getControlPanelLeft(), getControlPanelRight(), getFileSaveName(), editPanelListener);
+			if(this instanceof ZoomListener)
 			{
-				plotImagePanel.setImage(plotImage);
+				plotImagePanel.setZoomListener((ZoomListener)this);
 			}
+			plotImagePanel.getScrollPane().addComponentListener(this);
 		}
 		else
-		{			
-			if(plotImagePanel == null)
-			{
-				plotImagePanel = new ImagePanel(null, 1.0, 1.0, isAspectRatioFixed(), getShowZoomButtons(), getShowFitButton(), getShowSaveButton(), getShowSettingsButton(), getShowSettingsButton(), getSettingsPanel(), getControlPanelLeft(), getControlPanelRight(), getFileSaveName(), editPanelListener);
-				if(this instanceof ZoomListener)
-				{
-					plotImagePanel.setZoomListener((ZoomListener)this);
-				}
-				plotImagePanel.getScrollPane().addComponentListener(this);
-			}
-			else
-			{
-				plotImagePanel.setImage(null);
-			}
+		{
+			plotImagePanel.setImage(plotImage);
 		}
 		
 		return plotImagePanel;
@@ -5,6 +5,8 @@ import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
 
 import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.ui.LengthField;
@@ -47,6 +49,9 @@ public class AnaglyphPlot extends AbstractPlot implements Serializable, Property
 	// additional propagation distance, Delta z
 	private double deltaZ = 0;
 	private BeamCrossSection beamPropagated = null;	// beam copy, propagated by Delta z
+	
+	// the images seen by the two eyes, kept until the beam or the parameters they depend on change
+	private transient DerivedFieldCache<BeamCrossSection[]> eyesCache;
 
 	/*
 	 * GUI edit controls
@@ -155,8 +160,12 @@ public class AnaglyphPlot extends AbstractPlot implements Serializable, Property
 		deltaZLengthField = new LengthField(this);
 	}
 	
-	@Override
-	public BufferedImage getPlotImage(BeamCrossSection beam)
+	/**
+	 * @param beam
+	 * @return	the images seen by the left (red) and right (blue) eyes, i.e. the Fourier transforms of the beam,
+	 * 			propagated by Delta z, behind each pupil and eye lens
+	 */
+	private BeamCrossSection[] calculateEyes(BeamCrossSection beam)
 	{
 		if(deltaZ == 0.0)
 		{
@@ -168,13 +177,6 @@ public class AnaglyphPlot extends AbstractPlot implements Serializable, Property
 			beamPropagated.propagate(deltaZ);
 		}
 
-		int dataColumns = beamPropagated.getWidth();
-		int dataRows = beamPropagated.getHeight();
-		
-		int offset = (int) (dataColumns * (double) percentageOffset / 100.0);
-			
-		BufferedImage image = new BufferedImage(dataColumns + 2*Math.abs(offset), dataRows, BufferedImage.TYPE_INT_RGB);
-	
 		// Set red and blue 'eyes' as copies of the current beam
 		BeamCrossSection redEye = new BeamCrossSection(beamPropagated);		// Left eye
 		BeamCrossSection blueEye = new BeamCrossSection(beamPropagated);		// Right eye
@@ -195,14 +197,41 @@ public class AnaglyphPlot extends AbstractPlot implements Serializable, Property
 		// blueEye.applyCyclicRotationPhaseFactors(-0.5, -0.5);
 
 		// Fourier transform it
-		redEye.swapQuadrants();
+		redEye.inverseSwapQuadrants();
 		redEye.inverseFourierTransform();
-		blueEye.swapQuadrants();
+		blueEye.inverseSwapQuadrants();
 		blueEye.inverseFourierTransform();
 		
 		// redEye.swapQuadrants();
 		// blueEye.swapQuadrants();
+		
+		return new BeamCrossSection[] {redEye, blueEye};
+	}
+	
+	@Override
+	public BufferedImage getPlotImage(BeamCrossSection beam)
+	{
+		// the eyes' images only need to be calculated if the beam, Delta z, or the pupils or the focussing have changed
+		if(eyesCache == null) eyesCache = new DerivedFieldCache<BeamCrossSection[]>();
+		List<Double> eyesParameters = Arrays.asList(deltaZ, pupilRadius, interpupillaryDistance, pupilsMidpointX, pupilsMidpointY, focussingDistance);
+		BeamCrossSection eyes[] = eyesCache.get(beam, eyesParameters);
+		
+		if(eyes == null)
+		{
+			eyes = calculateEyes(beam);
+			eyesCache.put(beam, eyesParameters, eyes);
+		}
+		
+		BeamCrossSection
+			redEye = eyes[0],	// Left eye
+			blueEye = eyes[1];	// Right eye
 
+		int dataColumns = beam.getWidth();
+		int dataRows = beam.getHeight();
+		
+		int offset = (int) (dataColumns * (double) percentageOffset / 100.0);
+			
+		BufferedImage image = new BufferedImage(dataColumns + 2*Math.abs(offset), dataRows, BufferedImage.TYPE_INT_RGB);
 			
 		double exposureFactor = Math.pow(2, exposureCompensationValue);
 
@@ -0,0 +1,292 @@
+package javawaveoptics.optics.plot;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+import javawaveoptics.optics.plot.AbstractPlot.AreaPlotType;
+import library.field.PixelKernelEngine;
+import library.optics.LightBeamCrossSection2D;
+
+/**
+ * Renders a light-beam cross section as an area plot, i.e. one image pixel per element, for all
+ * the area-plot types.
+ * Instead of calling Color.HSBtoRGB and BufferedImage.setRGB for every pixel, the colours are
+ * looked up in precomputed tables (the HSB phase wheel, and the thresholds of the grey levels
+ * of the log-intensity plot) and written straight into the image's data buffer, one band of
+ * rows per processor.
+ */
+public class AreaPlotRenderer
+{
+	/*
+	 * Lookup tables
+	 */
+	
+	/**
+	 * the number of entries in the phase wheel
+	 */
+	private static final int PHASE_WHEEL_SIZE = 4096;
+	
+	/**
+	 * the colours Color.HSBtoRGB(phase, 1, 1) of the normalised phases (i + 0.5) / PHASE_WHEEL_SIZE
+	 */
+	private static final int phaseWheel[] = new int[PHASE_WHEEL_SIZE];
+	
+	static
+	{
+		for(int i=0; i<PHASE_WHEEL_SIZE; i++)
+		{
+			phaseWheel[i] = Color.HSBtoRGB((float)((i + 0.5) / PHASE_WHEEL_SIZE), 1, 1) & 0xFFFFFF;
+		}
+	}
+	
+	/**
+	 * @param field	the field
+	 * @param plotType	the type of plot
+	 * @param exposureFactor	the factor by which the intensities are multiplied, 2^(exposure compensation value)
+	 * @return	the image of the field, upside down (as row 0 of the field is at the bottom)
+	 */
+	public static BufferedImage render(final LightBeamCrossSection2D field, final AreaPlotType plotType, double exposureFactor)
+	{
+		final int dataColumns = field.getWidth();
+		final int dataRows = field.getHeight();
+			
+		BufferedImage image = new BufferedImage(dataColumns, dataRows, BufferedImage.TYPE_INT_RGB);
+		final int pixels[] = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+		
+		// only the pixels in the field's active region need to be calculated; the others are zero
+		final int region[] = field.getActiveRegion();
+		if((region[0] > 0) || (region[1] < dataColumns) || (region[2] > 0) || (region[3] < dataRows))
+		{
+			int zeroRGB;
+			switch(plotType)
+			{
+			case PHASE_COLOUR:
+				zeroRGB = getPhaseColour(0, 0);	// the phase of zero is taken to be 0
+				break;
+			case PHASE_GRAYSCALE:
+				zeroRGB = getGrey(0.5);
+				break;
+			default:
+				zeroRGB = 0;
+			}
+			
+			if(zeroRGB != 0) Arrays.fill(pixels, zeroRGB);
+		}
+		
+		// the parameters of the colour maps
+		final double scale;
+		final double logIntensityThresholds[];
+		switch(plotType)
+		{
+		case INTENSITY:
+		case PHASE_AND_INTENSITY:
+			scale = exposureFactor / field.getMaxIntensity();
+			logIntensityThresholds = null;
+			break;
+		case LOG_INTENSITY:
+			scale = 0;
+			logIntensityThresholds = getLogIntensityThresholds(field.getMaxIntensity() / exposureFactor, field.getMinIntensity() / exposureFactor);
+			break;
+		case REAL_PART:
+			scale = Math.sqrt(exposureFactor) / field.getMaxAbsRe();
+			logIntensityThresholds = null;
+			break;
+		case IMAGINARY_PART:
+			scale = Math.sqrt(exposureFactor) / field.getMaxAbsIm();
+			logIntensityThresholds = null;
+			break;
+		default:
+			scale = 0;
+			logIntensityThresholds = null;
+		}
+		
+		PixelKernelEngine.processRowBands(region[1] - region[0], region[2], region[3], new PixelKernelEngine.RowBandWorker()
+		{
+			public void processRows(int jMin, int jMax)
+			{
+				for(int y = jMin; y < jMax; y++)
+				{
+					int index = (dataRows - 1 - y) * dataColumns;
+					
+					for(int x = region[0]; x < region[1]; x++)
+					{
+						double re = field.getElementRe(x, y), im = field.getElementIm(x, y);
+						int rgb;
+						
+						switch(plotType)
+						{
+						case INTENSITY:
+							rgb = getGrey((re*re + im*im) * scale);
+							break;
+						case LOG_INTENSITY:
+							rgb = getLogIntensityGrey(re*re + im*im, logIntensityThresholds);
+							break;
+						case PHASE_COLOUR:
+							rgb = getPhaseColour(re, im);
+							break;
+						case PHASE_GRAYSCALE:
+							rgb = getGrey(getNormalisedPhase(re, im));
+							break;
+						case PHASE_AND_INTENSITY:
+							rgb = scaleColour(getPhaseColour(re, im), (re*re + im*im) * scale);
+							break;
+						case IMAGINARY_PART:
+							rgb = getSignedColour(im * scale);
+							break;
+						case REAL_PART:
+						default:
+							rgb = getSignedColour(re * scale);
+						}
+						
+						pixels[index + x] = rgb;
+					}
+				}
+			}
+		});
+
+		return image;
+	}
+	
+	
+	/*
+	 * Colour maps
+	 */
+	
+	/**
+	 * @param brightness
+	 * @return	the grey of the given brightness, which is clipped to the range 0 to 1, like Color.HSBtoRGB(0, 0, brightness)
+	 */
+	private static int getGrey(double brightness)
+	{
+		int level = getLevel(brightness);
+		
+		return (level << 16) | (level << 8) | level;
+	}
+	
+	/**
+	 * @param value
+	 * @return	the 8-bit level corresponding to the value, which is clipped to the range 0 to 1 (NaN gives 0)
+	 */
+	private static int getLevel(double value)
+	{
+		if(!(value > 0)) return 0;
+		if(value >= 1) return 255;
+		return (int)(value*255 + 0.5);
+	}
+	
+	/**
+	 * @param brightness	the brightness, between 0 and 1
+	 * @return	the colour Color.HSBtoRGB(hue, 1, brightness), red for negative brightness and cyan for positive
+	 */
+	private static int getSignedColour(double brightness)
+	{
+		if(brightness > 0)
+		{
+			int level = getLevel(brightness);
+			return (level << 8) | level;
+		}
+		
+		return getLevel(-brightness) << 16;
+	}
+	
+	/**
+	 * @param rgb
+	 * @param brightness
+	 * @return	the colour rgb, with each component multiplied by the brightness, which is clipped to the range 0 to 1
+	 */
+	private static int scaleColour(int rgb, double brightness)
+	{
+		if(!(brightness > 0)) return 0;
+		if(brightness >= 1) return rgb;
+		
+		int
+			r = (int)(((rgb >> 16) & 0xFF) * brightness + 0.5),
+			g = (int)(((rgb >> 8) & 0xFF) * brightness + 0.5),
+			b = (int)((rgb & 0xFF) * brightness + 0.5);
+		
+		return (r << 16) | (g << 8) | b;
+	}
+	
+	/**
+	 * @param re
+	 * @param im
+	 * @return	the colour of the phase of re + i im in the HSB phase wheel
+	 */
+	private static int getPhaseColour(double re, double im)
+	{
+		return phaseWheel[Math.min(PHASE_WHEEL_SIZE - 1, (int)(getNormalisedPhase(re, im) * PHASE_WHEEL_SIZE))];
+	}
+	
+	/**
+	 * @param re
+	 * @param im
+	 * @return	the phase of re + i im, normalised to the range 0 to 1, i.e. atan2(im, re) / (2 pi) + 0.5,
+	 * 			to within about 1e-6 (which is much less than a grey level or an entry in the phase wheel)
+	 */
+	private static double getNormalisedPhase(double re, double im)
+	{
+		double absRe = Math.abs(re), absIm = Math.abs(im);
+		
+		if(absRe == 0 && absIm == 0) return (re < 0)?1:0.5;
+		
+		// atan(t) for 0 <= t <= 1, from a polynomial approximation
+		double t = (absIm <= absRe)?(absIm / absRe):(absRe / absIm);
+		double t2 = t*t;
+		double angle = t*(0.99997726 + t2*(-0.33262347 + t2*(0.19354346 + t2*(-0.11643287 + t2*(0.05265332 - t2*0.01172120)))));
+		
+		// the angle in the right octant
+		if(absIm > absRe) angle = 0.5*Math.PI - angle;
+		if(re < 0) angle = Math.PI - angle;
+		if(im < 0) angle = -angle;
+		
+		return angle / (2 * Math.PI) + 0.5;
+	}
+	
+	/**
+	 * @param maxIntensity
+	 * @param minIntensity
+	 * @return	the intensities at which the grey levels 1 to 255 of the log-intensity plot start, so that
+	 * 			looking up an intensity among them replaces calculating its logarithm
+	 */
+	private static double[] getLogIntensityThresholds(double maxIntensity, double minIntensity)
+	{
+		double
+			logMaxIntensity = Math.log10(maxIntensity),
+			logMinIntensity = Math.log10(minIntensity);
+		if(logMaxIntensity - logMinIntensity > AbstractPlot.maxLogIntensityDecades)
+		{
+			// too much dynamic range
+			logMinIntensity = logMaxIntensity - AbstractPlot.maxLogIntensityDecades;
+		}
+		
+		// grey level k is used for (logIntensity - logMinIntensity)/(logMaxIntensity - logMinIntensity) >= (k - 0.5)/255
+		double thresholds[] = new double[255];
+		for(int k=1; k<=255; k++)
+		{
+			thresholds[k-1] = Math.pow(10, logMinIntensity + (logMaxIntensity - logMinIntensity)*(k - 0.5)/255);
+		}
+		
+		return thresholds;
+	}
+	
+	/**
+	 * @param intensity
+	 * @param thresholds	the thresholds calculated by getLogIntensityThresholds
+	 * @return	the grey of the intensity in the log-intensity plot
+	 */
+	private static int getLogIntensityGrey(double intensity, double thresholds[])
+	{
+		// the number of thresholds that are <= intensity, by bisection
+		int low = 0, high = thresholds.length;
+		while(low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if(thresholds[middle] <= intensity) low = middle + 1;
+			else high = middle;
+		}
+		
+		return (low << 16) | (low << 8) | low;
+	}
+}
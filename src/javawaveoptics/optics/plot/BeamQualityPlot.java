@@ -0,0 +1,353 @@
+package javawaveoptics.optics.plot;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.event.ComponentEvent;
+import java.awt.event.ItemEvent;
+import java.awt.event.ItemListener;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.Serializable;
+
+import javawaveoptics.optics.BeamCrossSection;
+import javawaveoptics.ui.LengthField;
+import javawaveoptics.ui.LengthUnitsComboBox;
+import javawaveoptics.ui.UIBitsAndBobs;
+import javawaveoptics.ui.ZoomListener;
+
+import javax.swing.Box;
+import javax.swing.BoxLayout;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+
+import library.optics.BeamQuality;
+import library.plot.ScaleTicks;
+
+/**
+ * Plots the D4&sigma; widths of the beam in the x and y directions as a function of the propagation
+ * distance z, predicted from the second moments of the beam in this plane (see BeamQuality), and
+ * lists the centroid, width, divergence, waist position and M&sup2; of the beam in both directions.
+ * Unlike the z plane plot, this does not need the beam to be propagated to any other plane.
+ */
+public class BeamQualityPlot extends AbstractPlot implements Serializable, PropertyChangeListener, ItemListener, ZoomListener
+{
+	private static final long serialVersionUID = -2981675536210457843L;
+
+	/*
+	 * Fields
+	 */
+	
+	// the range of propagation distances plotted, unless it is chosen automatically
+	private double deltaZMin = -1e-1, deltaZMax = 1e-1;
+	
+	// if true, the range of propagation distances includes this plane and both waists,
+	// plus two Rayleigh ranges either side
+	private boolean autoRange = true;
+	
+	private boolean showGrid = true;
+	private double zoomX = 1.0, zoomY = 1.0;
+	
+	private transient BeamQuality beamQuality;
+	
+	/*
+	 * GUI edit controls
+	 */
+
+	private transient LengthField deltaZMinLengthField, deltaZMaxLengthField;
+	private transient JCheckBox autoRangeCheckBox, showGridCheckBox;
+
+	public BeamQualityPlot(String name)
+	{
+		super(name);
+	}
+	
+	public BeamQualityPlot()
+	{
+		this("Beam quality");
+	}
+	
+	@Override
+	public boolean isAspectRatioFixed()
+	{
+		return false;
+	}
+	
+	@Override
+	public boolean getShowFitButton()
+	{
+		return false;
+	}
+
+	@Override
+	public BufferedImage getPlotImage(BeamCrossSection beam)
+	{
+		// one pass over the beam and one Fourier transform
+		beamQuality = new BeamQuality(beam);
+		
+		return getPlotImageWithoutCalculatingBeamQuality();
+	}
+	
+	public BufferedImage getPlotImageWithoutCalculatingBeamQuality()
+	{
+		if(beamQuality == null) return null;
+		
+		BeamQuality.Axis x = beamQuality.getX(), y = beamQuality.getY();
+		int h, v, hOld, vOld, i;
+
+		// establish the size of the plot
+		int
+			width = (int)(getViewportWidth() * zoomX),
+			height = (int)(getViewportHeight() * zoomY);
+		// do something half-sensible if, for some reason, these values are zero
+		if(width == 0) width = 640;
+		if(height == 0) height = 400;
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB );
+		Graphics2D g = image.createGraphics();
+
+		// the range of propagation distances
+		double zMin, zMax;
+		if(autoRange)
+		{
+			zMin = Math.min(0, Math.min(x.getWaistPosition() - 2*x.getRayleighRange(), y.getWaistPosition() - 2*y.getRayleighRange()));
+			zMax = Math.max(0, Math.max(x.getWaistPosition() + 2*x.getRayleighRange(), y.getWaistPosition() + 2*y.getRayleighRange()));
+			if(Double.isInfinite(zMin) || Double.isInfinite(zMax))
+			{
+				// the beam does not diverge in at least one direction
+				zMin = deltaZMin;
+				zMax = deltaZMax;
+			}
+		}
+		else
+		{
+			zMin = deltaZMin;
+			zMax = deltaZMax;
+		}
+		if(zMax <= zMin) zMax = zMin + 1e-3;
+		
+		// the range of widths, from 0 to the largest width in the range of propagation distances
+		// (the width is largest at one of the ends)
+		double widthMax = Math.max(
+				Math.max(x.getD4SigmaWidth(zMin), x.getD4SigmaWidth(zMax)),
+				Math.max(y.getD4SigmaWidth(zMin), y.getD4SigmaWidth(zMax))
+			);
+		if(widthMax == 0) widthMax = 1e-3;
+		widthMax *= 1.05;
+
+		///////////////////////////////////
+		// plot a grid in the background //
+		///////////////////////////////////
+
+		if(showGrid)
+		{
+			g.setColor(Color.gray);
+
+			ScaleTicks
+			stx = new ScaleTicks(zMin, zMax, width),
+			sty = new ScaleTicks(0, widthMax, height);
+
+			// the z grid
+			double tick = stx.getFirstTick();
+			for(i=0; i<stx.getNumberOfTicks(); i++)
+			{
+				h = (int)((tick - zMin) * (width-1) / (zMax - zMin));
+				g.drawLine(h, 0, h, height-1);
+				g.drawString(LengthUnitsComboBox.length2NiceString(tick), h+2, height-1-2);
+				tick += stx.getTickSeparation();
+				if(Math.abs(tick) < Math.abs(1e-10*stx.getTickSeparation())) tick = 0.0;
+			}
+
+			// the width grid
+			tick = sty.getFirstTick();
+			for(i=0; i<sty.getNumberOfTicks(); i++)
+			{
+				v = (int)((height-1) * (widthMax-tick)/widthMax);
+				g.drawLine(0, v, width-1, v);
+				g.drawString(LengthUnitsComboBox.length2NiceString(tick), 2, v-2);
+				tick += sty.getTickSeparation();
+				if(Math.abs(tick) < Math.abs(1e-10*sty.getTickSeparation())) tick = 0.0;
+			}
+		}
+		
+		// mark this plane
+		g.setColor(Color.darkGray);
+		h = (int)((0 - zMin) * (width-1) / (zMax - zMin));
+		g.drawLine(h, 0, h, height-1);
+
+		/////////////////////
+		// plot the curves //
+		/////////////////////
+
+		BeamQuality.Axis axes[] = {x, y};
+		Color colours[] = {Color.white, Color.cyan};
+		for(int a=0; a<2; a++)
+		{
+			g.setColor(colours[a]);
+			
+			hOld = 0;
+			vOld = (int)((height-1) * (widthMax - axes[a].getD4SigmaWidth(zMin))/widthMax);
+			for(h=1; h<width; h++)
+			{
+				double z = zMin + (zMax - zMin) * h / (width-1);
+				v = (int)((height-1) * (widthMax - axes[a].getD4SigmaWidth(z))/widthMax);
+				g.drawLine(hOld, vOld, h, v);
+				hOld = h;
+				vOld = v;
+			}
+		}
+		
+		/////////////////////
+		// list the values //
+		/////////////////////
+		
+		String
+			lines[] = {"", "centroid", "D4\u03c3 width", "centroid angle", "divergence (full angle)", "waist position", "waist D4\u03c3 width", "Rayleigh range", "M\u00b2"},
+			xValues[] = getValues("x", x),
+			yValues[] = getValues("y", y);
+		int lineHeight = g.getFontMetrics().getHeight();
+		int columnWidth = g.getFontMetrics().stringWidth("divergence (full angle)") + 10;
+		int column2Width = g.getFontMetrics().stringWidth("-000.000 mrad") + 10;
+		// clear the background of the table, so that it is not obscured by the grid or the curves
+		g.setColor(Color.black);
+		g.fillRect(width - columnWidth - 2*column2Width - 4, 0, columnWidth + 2*column2Width + 4, 6 + lineHeight*lines.length);
+		for(i=0; i<lines.length; i++)
+		{
+			v = 2 + lineHeight*(i+1);
+			g.setColor(Color.lightGray);
+			g.drawString(lines[i], width - columnWidth - 2*column2Width, v);
+			g.setColor(colours[0]);
+			g.drawString(xValues[i], width - 2*column2Width, v);
+			g.setColor(colours[1]);
+			g.drawString(yValues[i], width - column2Width, v);
+		}
+
+		return image;
+	}
+	
+	/**
+	 * @param name	the name of the direction
+	 * @param axis	the beam quality in that direction
+	 * @return	the values listed in the plot, as strings
+	 */
+	private String[] getValues(String name, BeamQuality.Axis axis)
+	{
+		return new String[] {
+				name,
+				LengthUnitsComboBox.length2NiceString(axis.getCentroid()),
+				LengthUnitsComboBox.length2NiceString(axis.getD4SigmaWidth()),
+				String.format("%.3f mrad", 1e3*axis.getCentroidAngle()),
+				String.format("%.3f mrad", 1e3*axis.getDivergence()),
+				LengthUnitsComboBox.length2NiceString(axis.getWaistPosition()),
+				LengthUnitsComboBox.length2NiceString(axis.getWaistD4SigmaWidth()),
+				Double.isInfinite(axis.getRayleighRange())?"\u221e":LengthUnitsComboBox.length2NiceString(axis.getRayleighRange()),
+				String.format("%.3f", axis.getMSquared())
+			};
+	}
+		
+	@Override
+	public JComponent getSettingsPanel()
+	{
+		if(autoRangeCheckBox == null)
+		{
+			initialiseWidgets();
+		}
+		
+		JPanel container = new JPanel();
+		container.setLayout(new BoxLayout(container, BoxLayout.Y_AXIS));
+		
+		container.add(UIBitsAndBobs.makeHTMLLabel("D4&sigma; widths in the <i>x</i> (white) and <i>y</i> (cyan) directions"));
+		container.add(UIBitsAndBobs.makeHTMLLabel("(ordinate) after propagation through a distance &Delta;<i>z</i>"));
+		container.add(UIBitsAndBobs.makeHTMLLabel("(abscissa), predicted from the second moments of the beam."));
+		
+		container.add(autoRangeCheckBox);
+		container.add(UIBitsAndBobs.makeHTMLLabel("Otherwise:"));
+		container.add(UIBitsAndBobs.makeRow("\u0394z<sub>min</sub>", deltaZMinLengthField, true));
+		container.add(UIBitsAndBobs.makeRow("\u0394z<sub>max</sub>", deltaZMaxLengthField, true));
+		container.add(showGridCheckBox);
+		
+		container.add(Box.createVerticalGlue());
+
+		return new JScrollPane(container);
+	}
+
+	protected void initialiseWidgets()
+	{
+		deltaZMinLengthField = new LengthField(this);
+		deltaZMinLengthField.setMaximumSize(deltaZMinLengthField.getPreferredSize());
+		deltaZMinLengthField.setLengthInMetres(deltaZMin);
+
+		deltaZMaxLengthField = new LengthField(this);
+		deltaZMaxLengthField.setMaximumSize(deltaZMaxLengthField.getPreferredSize());
+		deltaZMaxLengthField.setLengthInMetres(deltaZMax);
+
+		autoRangeCheckBox = new JCheckBox("automatic range (waists \u00b1 2 Rayleigh ranges)");
+		autoRangeCheckBox.setAlignmentX(Component.CENTER_ALIGNMENT);
+		autoRangeCheckBox.setSelected(autoRange);
+		autoRangeCheckBox.addItemListener(this);
+
+		showGridCheckBox = new JCheckBox("show grid");
+		showGridCheckBox.setAlignmentX(Component.CENTER_ALIGNMENT);
+		showGridCheckBox.setSelected(showGrid);
+		showGridCheckBox.addItemListener(this);
+	}
+	
+	@Override
+	public void propertyChange(PropertyChangeEvent e)
+	{
+	    Object source = e.getSource();
+	    
+	    if (source == deltaZMinLengthField)
+	    {
+	    	deltaZMin = deltaZMinLengthField.getLengthInMetres();
+	    	
+			// Fire an edit event, i.e. make sure plot is re-drawn
+	    	fireEditEvent();
+	    }
+	    else if (source == deltaZMaxLengthField)
+	    {
+	    	deltaZMax = deltaZMaxLengthField.getLengthInMetres();
+	    	
+	    	fireEditEvent();
+	    }
+	}
+
+	@Override
+	public void itemStateChanged(ItemEvent e)
+	{
+		Object source = e.getSource();
+		
+		if(source.equals(autoRangeCheckBox))
+		{
+			autoRange = (e.getStateChange() == ItemEvent.SELECTED);
+					
+			// Fire an edit event, i.e. make sure plot is re-drawn
+			fireEditEvent();
+		}
+		else if(source.equals(showGridCheckBox))
+		{
+			showGrid = (e.getStateChange() == ItemEvent.SELECTED);
+			
+			fireEditEvent();
+		}
+	}
+
+	@Override
+	public void componentResized(ComponentEvent arg0)
+	{
+		// just re-draw the image
+		fireEditEvent();
+	}
+
+	@Override
+	public void setZoomFactors(double zoomX, double zoomY)
+	{
+		this.zoomX = zoomX;
+		this.zoomY = zoomY;
+		
+		fireEditEvent();
+	}
+}
@@ -0,0 +1,69 @@
+package javawaveoptics.optics.plot;
+
+import java.lang.ref.WeakReference;
+
+import javawaveoptics.optics.BeamCrossSection;
+
+/**
+ * Keeps a field derived from a beam, e.g. its Fourier transform or a copy propagated through some
+ * distance, together with the beam's identity and modification count and the parameters of the
+ * derivation. A plot then has to calculate the derived field again only when the beam or those
+ * parameters have changed, and not when it is merely redrawn, e.g. because the plot type, the
+ * exposure compensation or the size of the window has changed.
+ * (The FFT precision and the type of propagation are set per simulation, see GUI, so plots, which
+ * are calculated outside simulations, always derive their fields with the default settings.)
+ * 
+ * The derived field is shared between redraws, so it must not be modified.
+ */
+public class DerivedFieldCache<T>
+{
+	/*
+	 * Fields
+	 */
+	
+	// the beam the field was derived from (which is not kept alive just for the cache's sake)...
+	private WeakReference<BeamCrossSection> beam;
+	
+	// ... its modification count at the time...
+	private long modificationCount;
+	
+	// ... and the parameters of the derivation, compared with equals
+	private Object parameters;
+	
+	private T derivedField;
+	
+	/**
+	 * @param beam
+	 * @param parameters	the parameters of the derivation, e.g. Arrays.asList(deltaZ)
+	 * @return	the field derived from the beam, in its current state, with the given parameters, or null if it's not in the cache
+	 */
+	public synchronized T get(BeamCrossSection beam, Object parameters)
+	{
+		if(
+				(this.beam != null) && (this.beam.get() == beam) &&
+				(modificationCount == beam.getModificationCount()) &&
+				this.parameters.equals(parameters)
+			)
+		{
+			return derivedField;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Keeps the field derived from the beam, in its current state, with the given parameters, instead of any
+	 * other one.
+	 * 
+	 * @param beam
+	 * @param parameters
+	 * @param derivedField
+	 */
+	public synchronized void put(BeamCrossSection beam, Object parameters, T derivedField)
+	{
+		this.beam = new WeakReference<BeamCrossSection>(beam);
+		this.modificationCount = beam.getModificationCount();
+		this.parameters = parameters;
+		this.derivedField = derivedField;
+	}
+}
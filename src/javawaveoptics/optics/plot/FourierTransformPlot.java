@@ -1,6 +1,5 @@
 package javawaveoptics.optics.plot;
 
-import java.awt.Color;
 import java.awt.Component;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -8,6 +7,8 @@ import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.awt.image.BufferedImage;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
 
 import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.ui.UIBitsAndBobs;
@@ -39,6 +40,9 @@ public class FourierTransformPlot extends AbstractPlot implements Serializable,
 	
 	boolean halfElementShift;	// zero frequency is centred on an element
 	boolean quadrantSwapping;	// quadrant swapping?
+	
+	// the Fourier transform of the beam last plotted
+	private transient DerivedFieldCache<BeamCrossSection> spectrumCache;
 
 	/*
 	 * GUI edit controls
@@ -83,157 +87,36 @@ public class FourierTransformPlot extends AbstractPlot implements Serializable,
 	@Override
 	public BufferedImage getPlotImage(BeamCrossSection beam)
 	{
-		int dataColumns = beam.getWidth();
-		int dataRows = beam.getHeight();
-			
-		BufferedImage image = new BufferedImage(dataColumns, dataRows, BufferedImage.TYPE_INT_RGB);
-
-		// make a copy of the current beam
-		BeamCrossSection beamCopy = new BeamCrossSection(beam);
-		
-		if(halfElementShift)
-		{
-			// first, apply phase factors so that the Fourier transform is shifted by half an element in x and y
-			// (so that the FT is centred in between elements)
-			beamCopy.applyCyclicRotationPhaseFactors(-0.5, -0.5);
-		}
-
-		// Fourier transform it
-		beamCopy.swapQuadrants();
-		beamCopy.inverseFourierTransform();
-		
-		if(quadrantSwapping)
-		{
-			beamCopy.swapQuadrants();
-		}
-
-		double exposureFactor = Math.pow(2, exposureCompensationValue);
+		// the Fourier transform only needs to be calculated if the beam or the way it is transformed has changed
+		if(spectrumCache == null) spectrumCache = new DerivedFieldCache<BeamCrossSection>();
+		List<Boolean> spectrumParameters = Arrays.asList(halfElementShift, quadrantSwapping);
+		BeamCrossSection beamCopy = spectrumCache.get(beam, spectrumParameters);
 		
-		if(plotType == AreaPlotType.INTENSITY)
+		if(beamCopy == null)
 		{
-			double maxIntensity = beamCopy.getMaxIntensity() / exposureFactor;
+			// make a copy of the current beam
+			beamCopy = new BeamCrossSection(beam);
 			
-			for(int x = 0; x < dataColumns; x++)
+			if(halfElementShift)
 			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					double intensity = beamCopy.getIntensity(x, y);
-					
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(1, 0, (float)Math.min(1.0, (intensity/maxIntensity))));
-				}
+				// first, apply phase factors so that the Fourier transform is shifted by half an element in x and y
+				// (so that the FT is centred in between elements)
+				beamCopy.applyCyclicRotationPhaseFactors(-0.5, -0.5);
 			}
-		}
-		else if(plotType == AreaPlotType.LOG_INTENSITY)
-		{
-			double
-				logMaxIntensity = Math.log10(beamCopy.getMaxIntensity() / exposureFactor),
-				logMinIntensity = Math.log10(beamCopy.getMinIntensity() / exposureFactor);
-			if(logMaxIntensity - logMinIntensity > AbstractPlot.maxLogIntensityDecades)
-			{
-				// too much dynamic range
-				logMinIntensity = logMaxIntensity - AbstractPlot.maxLogIntensityDecades;
-			}
-			
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					double logIntensity = Math.log10(beamCopy.getIntensity(x, y));
-					
-					image.setRGB(x, dataRows - 1 - y,
-							Color.HSBtoRGB(1, 0, (float)Math.max(.0, (logIntensity - logMinIntensity)/(logMaxIntensity - logMinIntensity))));
-				}
-			}
-		}
-		else if(plotType == AreaPlotType.PHASE_COLOUR)
-		{
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					// phase, normalised to the range 0 to 1
-					double phase = Math.atan2(beamCopy.getElementIm(x, y), beamCopy.getElementRe(x, y)) / (2 * Math.PI) + 0.5;
-
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB((float)phase, 1, 1));
-				}
-			}
-		}
-		else if(plotType == AreaPlotType.PHASE_GRAYSCALE)
-		{
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					// phase, normalised to the range 0 to 1
-					double phase = Math.atan2(beamCopy.getElementIm(x, y), beamCopy.getElementRe(x, y)) / (2 * Math.PI) + 0.5;
-
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(0, 0, (float)phase));
-				}
-			}
-		}
-		else if(plotType == AreaPlotType.PHASE_AND_INTENSITY)
-		{
-			double maxIntensity = beamCopy.getMaxIntensity() / exposureFactor;
-
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					float hue = (float) (Math.atan2(beamCopy.getElementIm(x, y), beamCopy.getElementRe(x, y)) / (2 * Math.PI) + 0.5);
-					float brightness = (float)Math.min(1.0, (beamCopy.getIntensity(x, y) / maxIntensity));
-					
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(hue, 1, brightness));
-				}
-			}
-		}
-		else if(plotType == AreaPlotType.REAL_PART)
-		{
-			double maxField = beamCopy.getMaxAbsRe() / Math.sqrt(exposureFactor);
+	
+			// Fourier transform it
+			beamCopy.inverseSwapQuadrants();
+			beamCopy.inverseFourierTransform();
 			
-			for(int x = 0; x < dataColumns; x++)
+			if(quadrantSwapping)
 			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					double re = beamCopy.getElementRe(x, y);
-					
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(((re>0)?(float)0.5:0), 1, (float)Math.min(1.0, (Math.abs(re)/maxField))));
-				}
+				beamCopy.swapQuadrants();
 			}
-		}
-		else if(plotType == AreaPlotType.IMAGINARY_PART)
-		{
-			double maxField = beamCopy.getMaxAbsIm() / Math.sqrt(exposureFactor);
 			
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					double im = beamCopy.getElementIm(x, y);
-					
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(((im>0)?(float)0.5:0), 1, (float)Math.min(1.0, (Math.abs(im)/maxField))));
-				}
-			}
+			spectrumCache.put(beam, spectrumParameters, beamCopy);
 		}
 
-//		double maxIntensity = beamCopy.getMaxIntensity();
-//			
-//		for(int x = 0; x < dataColumns; x++)
-//		{
-//			for(int y = 0; y < dataRows; y++)
-//			{
-//				float intensity = (float) (beamCopy.getIntensity(x, y) / maxIntensity);
-//				Color colour = new Color(intensity, intensity, intensity);
-//				
-//				// This creates a quadrant-unswapped image
-//				// image.setRGB(x, dataRows - 1 - y, colour.getRGB());
-//									
-//				// Set the pixel; the addition and modulo ensures quadrant swapping
-//				// image.setRGB((x + dataColumns / 2) % dataColumns, (y + dataRows / 2) % dataRows, colour.getRGB());
-//				image.setRGB(x, dataRows - 1 - y, colour.getRGB());
-//			}
-//		}
-		
-		return image;
+		return AreaPlotRenderer.render(beamCopy, plotType, Math.pow(2, exposureCompensationValue));
 	}
 	
 	@Override
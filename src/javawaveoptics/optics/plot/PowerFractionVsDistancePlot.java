@@ -171,8 +171,8 @@ public class PowerFractionVsDistancePlot extends AbstractPlot implements Seriali
 			int i;
 			
 			// establish the size of the plot
-			int width = (int)(plotImagePanel.getViewportWidth() * zoomX);
-			int height = (int)(plotImagePanel.getViewportHeight() * zoomY);
+			int width = (int)(getViewportWidth() * zoomX);
+			int height = (int)(getViewportHeight() * zoomY);
 			// do something half-sensible if, for some reason, these values are zero
 			if(width == 0) width = 640;
 			if(height == 0) height = 400;
@@ -1,6 +1,5 @@
 package javawaveoptics.optics.plot;
 
-import java.awt.Color;
 import java.awt.Component;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -8,6 +7,8 @@ import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
 
 import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.ui.LengthField;
@@ -32,6 +33,7 @@ public class XYPlanePlot extends AbstractPlot implements Serializable, ActionLis
 	// additional propagation distance, Delta z
 	private double deltaZ = 0;
 	private BeamCrossSection beamPropagated = null;	// beam copy, propagated by Delta z
+	private transient DerivedFieldCache<BeamCrossSection> propagatedBeamCache;	// keeps it until the beam or Delta z change
 	
 	// exposure compensation factor, 2^(exposure compensation value)
 	private double exposureCompensationValue = 0.0;
@@ -69,8 +71,18 @@ public class XYPlanePlot extends AbstractPlot implements Serializable, ActionLis
 		}
 		else
 		{
-			beamPropagated = new BeamCrossSection(beam);
-			beamPropagated.propagate(deltaZ);
+			// the propagated copy only needs to be calculated if the beam or Delta z has changed
+			if(propagatedBeamCache == null) propagatedBeamCache = new DerivedFieldCache<BeamCrossSection>();
+			List<Double> propagationParameters = Arrays.asList(deltaZ);
+			beamPropagated = propagatedBeamCache.get(beam, propagationParameters);
+			
+			if(beamPropagated == null)
+			{
+				beamPropagated = new BeamCrossSection(beam);
+				beamPropagated.propagate(deltaZ);
+				
+				propagatedBeamCache.put(beam, propagationParameters, beamPropagated);
+			}
 		}
 
 		return getAreaPlotImage(beam);
@@ -82,117 +94,7 @@ public class XYPlanePlot extends AbstractPlot implements Serializable, ActionLis
 	 */
 	public BufferedImage getAreaPlotImage(BeamCrossSection beam)
 	{	
-		int dataColumns = beamPropagated.getWidth();
-		int dataRows = beamPropagated.getHeight();
-			
-		BufferedImage image = new BufferedImage(dataColumns, dataRows, BufferedImage.TYPE_INT_RGB );
-
-		double exposureFactor = Math.pow(2, exposureCompensationValue);
-		
-		switch(plotType)
-		{
-		case INTENSITY:
-			double maxIntensity = beamPropagated.getMaxIntensity() / exposureFactor;
-			
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					double intensity = beamPropagated.getIntensity(x, y);
-					
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(1, 0, (float)(Math.min(1.0, intensity/maxIntensity))));
-				}
-			}
-			break;
-		case LOG_INTENSITY:
-			double
-				logMaxIntensity = Math.log10(beamPropagated.getMaxIntensity() / exposureFactor),
-				logMinIntensity = Math.log10(beamPropagated.getMinIntensity() / exposureFactor);
-			if(logMaxIntensity - logMinIntensity > AbstractPlot.maxLogIntensityDecades)
-			{
-				// too much dynamic range
-				logMinIntensity = logMaxIntensity - AbstractPlot.maxLogIntensityDecades;
-			}
-			
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					double logIntensity = Math.log10(beamPropagated.getIntensity(x, y));
-					
-					image.setRGB(x, dataRows - 1 - y, 
-							Color.HSBtoRGB(1, 0, (float)Math.max(.0, (logIntensity - logMinIntensity)/(logMaxIntensity - logMinIntensity))));
-				}
-			}
-			break;
-		case PHASE_COLOUR:
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					// phase, normalised to the range 0 to 1
-					double phase = Math.atan2(beamPropagated.getElementIm(x, y), beamPropagated.getElementRe(x, y)) / (2 * Math.PI) + 0.5;
-
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB((float)phase, 1, 1));
-				}
-			}
-			break;
-		case PHASE_GRAYSCALE:
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					// phase, normalised to the range 0 to 1
-					double phase = Math.atan2(beamPropagated.getElementIm(x, y), beamPropagated.getElementRe(x, y)) / (2 * Math.PI) + 0.5;
-
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(0, 0, (float)phase));
-				}
-			}
-			break;
-		case PHASE_AND_INTENSITY:
-			maxIntensity = beamPropagated.getMaxIntensity() / exposureFactor;
-
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					float hue = (float) (Math.atan2(beamPropagated.getElementIm(x, y), beamPropagated.getElementRe(x, y)) / (2 * Math.PI) + 0.5);
-					float brightness = (float)Math.min(1.0, (beamPropagated.getIntensity(x, y) / maxIntensity));
-					
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(hue, 1, brightness));
-				}
-			}
-			break;
-		case IMAGINARY_PART:
-			double maxField = beamPropagated.getMaxAbsIm() / Math.sqrt(exposureFactor);
-			
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					double im = beamPropagated.getElementIm(x, y);
-					
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(((im>0)?(float)0.5:0), 1, (float)Math.min(1.0, (Math.abs(im)/maxField))));
-				}
-			}
-			break;
-		case REAL_PART:
-		default:
-			maxField = beamPropagated.getMaxAbsRe() / Math.sqrt(exposureFactor);
-			
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					double re = beamPropagated.getElementRe(x, y);
-					
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(((re>0)?(float)0.5:0), 1, (float)Math.min(1.0, (Math.abs(re)/maxField))));
-				}
-			}
-			break;
-		}
-
-		return image;
+		return AreaPlotRenderer.render(beamPropagated, plotType, Math.pow(2, exposureCompensationValue));
 	}
 	
 	@Override
@@ -1,6 +1,5 @@
 package javawaveoptics.optics.plot;
 
-import java.awt.Color;
 import java.awt.Component;
 import java.awt.Cursor;
 import java.awt.event.ActionEvent;
@@ -217,120 +216,7 @@ public class ZPlanePlot extends AbstractPlot implements Serializable, ActionList
 		// if the xz cross section hasn't been calculated (yet), return null
 		if(crossSection == null) return null;
 		
-		int dataColumns = crossSection.getWidth();
-		int dataRows = crossSection.getHeight();
-			
-		BufferedImage image = new BufferedImage(dataColumns, dataRows, BufferedImage.TYPE_INT_RGB );
-
-		double exposureFactor = Math.pow(2, exposureCompensationValue);
-		
-		if(plotType == AreaPlotType.INTENSITY)
-		{
-			double maxIntensity = crossSection.getMaxIntensity() / exposureFactor;
-			
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					double intensity = crossSection.getIntensity(x, y);
-					
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(1, 0, (float)Math.min(1.0, (intensity/maxIntensity))));
-				}
-			}
-		}
-		else if(plotType == AreaPlotType.LOG_INTENSITY)
-		{
-			double
-				logMaxIntensity = Math.log10(crossSection.getMaxIntensity() / exposureFactor),
-				logMinIntensity = Math.log10(crossSection.getMinIntensity() / exposureFactor);
-			if(logMaxIntensity - logMinIntensity > AbstractPlot.maxLogIntensityDecades)
-			{
-				// too much dynamic range
-				logMinIntensity = logMaxIntensity - AbstractPlot.maxLogIntensityDecades;
-			}
-			
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					double logIntensity = Math.log10(crossSection.getIntensity(x, y));
-					
-					image.setRGB(x, dataRows - 1 - y,
-							Color.HSBtoRGB(1, 0, (float)Math.max(.0, (logIntensity - logMinIntensity)/(logMaxIntensity - logMinIntensity))));
-				}
-			}
-		}
-		else if(plotType == AreaPlotType.PHASE_COLOUR)
-		{
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					// phase, normalised to the range 0 to 1
-					double phase = Math.atan2(crossSection.getElementIm(x, y), crossSection.getElementRe(x, y)) / (2 * Math.PI) + 0.5;
-
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB((float)phase, 1, 1));
-				}
-			}
-		}
-		else if(plotType == AreaPlotType.PHASE_GRAYSCALE)
-		{
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					// phase, normalised to the range 0 to 1
-					double phase = Math.atan2(crossSection.getElementIm(x, y), crossSection.getElementRe(x, y)) / (2 * Math.PI) + 0.5;
-
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(0, 0, (float)phase));
-				}
-			}
-		}
-		else if(plotType == AreaPlotType.PHASE_AND_INTENSITY)
-		{
-			double maxIntensity = crossSection.getMaxIntensity() / exposureFactor;
-
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					float hue = (float) (Math.atan2(crossSection.getElementIm(x, y), crossSection.getElementRe(x, y)) / (2 * Math.PI) + 0.5);
-					float brightness = (float)Math.min(1.0, (crossSection.getIntensity(x, y) / maxIntensity));
-					
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(hue, 1, brightness));
-				}
-			}
-		}
-		else if(plotType == AreaPlotType.REAL_PART)
-		{
-			double maxField = crossSection.getMaxAbsRe() / Math.sqrt(exposureFactor);
-			
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					double re = crossSection.getElementRe(x, y);
-					
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(((re>0)?(float)0.5:0), 1, (float)Math.min(1.0, (Math.abs(re)/maxField))));
-				}
-			}
-		}
-		else if(plotType == AreaPlotType.IMAGINARY_PART)
-		{
-			double maxField = crossSection.getMaxAbsIm() / Math.sqrt(exposureFactor);
-			
-			for(int x = 0; x < dataColumns; x++)
-			{
-				for(int y = 0; y < dataRows; y++)
-				{
-					double im = crossSection.getElementIm(x, y);
-					
-					image.setRGB(x, dataRows - 1 - y, Color.HSBtoRGB(((im>0)?(float)0.5:0), 1, (float)Math.min(1.0, (Math.abs(im)/maxField))));
-				}
-			}
-		}
-		
-		return image;
+		return AreaPlotRenderer.render(crossSection, plotType, Math.pow(2, exposureCompensationValue));
 	}
 		
 	@Override
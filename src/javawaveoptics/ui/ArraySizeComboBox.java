@@ -0,0 +1,71 @@
+package javawaveoptics.ui;
+
+import javax.swing.JComboBox;
+
+
+/**
+ * Defines an editable combo box for choosing the number of elements of an amplitude matrix
+ * in one direction.
+ * 
+ * The list offers the powers of 2 and, in between them, 3 and 5 times powers of 2 (e.g. 1280,
+ * 1536 and 2560), which the Fourier transforms handle efficiently; any other size of at least
+ * 2 can be typed in, but sizes with large prime factors are transformed much more slowly.
+ */
+public class ArraySizeComboBox extends JComboBox<Integer>
+{
+	private static final long serialVersionUID = 2905623094177325916L;
+
+	// the largest size offered in the list
+	private static final int MAXIMUM_LISTED_SIZE = 16384;
+	
+	// the size returned if the text that has been typed in isn't a valid size
+	private int lastValidValue = 256;
+	
+	public ArraySizeComboBox()
+	{
+		super();
+		
+		setEditable(true);
+		
+		for(int powerOf2 = 2; powerOf2 <= MAXIMUM_LISTED_SIZE; powerOf2 *= 2)
+		{
+			addItem(powerOf2);
+			
+			// 5/4 and 3/2 times the power of 2, i.e. 5 and 3 times smaller powers of 2
+			if((powerOf2 >= 16) && (powerOf2 < MAXIMUM_LISTED_SIZE))
+			{
+				addItem(powerOf2 / 4 * 5);
+				addItem(powerOf2 / 2 * 3);
+			}
+		}
+		setSelectedItem(lastValidValue);
+	}
+	
+	/**
+	 * @return	the selected (or typed-in) size
+	 */
+	public int getValue()
+	{
+		Object selectedItem = getSelectedItem();
+		
+		try
+		{
+			int value = (selectedItem instanceof Integer)?(Integer)selectedItem:Integer.parseInt(selectedItem.toString().trim());
+			
+			if(value >= 2) lastValidValue = value;
+		}
+		catch(Exception e)
+		{
+			// not a number; fall through to the last valid value
+		}
+		
+		return lastValidValue;
+	}
+	
+	public void setValue(int number)
+	{
+		if(number >= 2) lastValidValue = number;
+		
+		setSelectedItem(lastValidValue);
+	}
+}
@@ -6,23 +6,29 @@ import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 
 import javawaveoptics.optics.ComponentInput;
 import javawaveoptics.optics.ComponentOutput;
 import javawaveoptics.optics.component.AbstractOpticalComponent;
+import javawaveoptics.optics.component.AnalyticBeamTracker;
+import javawaveoptics.optics.component.FirstOrderSection;
+import javawaveoptics.optics.component.RadialSection;
+import javawaveoptics.optics.component.SeparableSection;
 import javawaveoptics.optics.component.ImageOfPlane;
 import javawaveoptics.optics.component.ImageOfPlaneNonInitialising;
 import javawaveoptics.optics.component.Plane;
 import javawaveoptics.optics.environment.AbstractOpticalEnvironment;
 import javawaveoptics.ui.workbench.AbstractWorkbench;
 import javawaveoptics.ui.workbench.WorkbenchFactory;
+import library.maths.FFT2D;
+import library.maths.FFTPrecision;
+import library.optics.LightBeamCrossSection2D;
+import library.util.ChunkFile;
 
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFormattedTextField;
 import javax.swing.JLabel;
@@ -62,6 +68,24 @@ public class GUI extends AbstractUI implements ActionListener, OpticalEnvironmen
 	private transient JButton saveButton = new JButton("Save");
 	private transient JButton clearPlanesDataButton = new JButton("Clear data in all planes");
 	
+	// Precision of the Fourier transforms
+	private transient JComboBox<FFTPrecision> precisionComboBox = new JComboBox<FFTPrecision>(FFTPrecision.values());
+	
+	// Simulate chains of lenses, distances etc. in one go?
+	private transient JCheckBox fuseFirstOrderComponentsCheckBox = new JCheckBox("Fuse lenses & distances");
+	
+	// Calculate Gaussian beams analytically where possible?
+	private transient JCheckBox trackGaussianBeamsAnalyticallyCheckBox = new JCheckBox("Analytic Gaussian beams");
+	
+	// Simulate rotationally symmetric beams in 1D where possible?
+	private transient JCheckBox simulateRadialBeamsCheckBox = new JCheckBox("Radial beams in 1D");
+	
+	// Simulate separable beams in 1D where possible?
+	private transient JCheckBox simulateSeparableBeamsCheckBox = new JCheckBox("Separable beams in 1D");
+	
+	// Propagate mirror-symmetric beams using only one quadrant?
+	private transient JCheckBox propagateSymmetricallyCheckBox = new JCheckBox("Symmetric propagation");
+	
 	/**
 	 * Constructor. Displays the graphical user interface components.
 	 */
@@ -101,6 +125,12 @@ public class GUI extends AbstractUI implements ActionListener, OpticalEnvironmen
 			buttonPanel.add(roundTripsTextField);
 			buttonPanel.add(new JLabel("round trips"));
 			buttonPanel.add(clearPlanesDataButton);
+			buttonPanel.add(precisionComboBox);
+			buttonPanel.add(fuseFirstOrderComponentsCheckBox);
+			buttonPanel.add(trackGaussianBeamsAnalyticallyCheckBox);
+			buttonPanel.add(simulateRadialBeamsCheckBox);
+			buttonPanel.add(simulateSeparableBeamsCheckBox);
+			buttonPanel.add(propagateSymmetricallyCheckBox);
 		}
 		
 		
@@ -116,6 +146,12 @@ public class GUI extends AbstractUI implements ActionListener, OpticalEnvironmen
 		simulateButton.setToolTipText("Simulate propagation of beam through the optical system");
 		loadButton.setToolTipText("Load optical system from .tim file");
 		saveButton.setToolTipText("Save optical system to .tim file");
+		precisionComboBox.setToolTipText("Precision of the Fourier transforms; float-rounded FFTs are faster but less accurate, and use as much memory");
+		fuseFirstOrderComponentsCheckBox.setToolTipText("<html>Simulate chains of lenses, distances, beam expanders etc. in one go;<br>this is faster, but the sampling at the end of a chain can differ</html>");
+		trackGaussianBeamsAnalyticallyCheckBox.setToolTipText("<html>Calculate Gaussian, Hermite-Gaussian and Laguerre-Gaussian beams analytically<br>up to the first component that is not a lens, distance etc.</html>");
+		simulateRadialBeamsCheckBox.setToolTipText("<html>Simulate rotationally symmetric beams in 1D (radially)<br>up to the first component that is not rotationally symmetric</html>");
+		simulateSeparableBeamsCheckBox.setToolTipText("<html>Simulate beams of the form <i>X</i>(<i>x</i>) <i>Y</i>(<i>y</i>) in 1D, with paraxial propagation,<br>up to the first component that does not act on <i>x</i> and <i>y</i> independently</html>");
+		propagateSymmetricallyCheckBox.setToolTipText("<html>Propagate beams that are even or odd about both central axes<br>using real-to-real transforms of one quadrant</html>");
 		clearPlanesDataButton.setToolTipText("Clear the data in all planes and reset round-trip counters in all images of planes");
 		
 		// This will get the operating system specific preferred height and then set
@@ -149,6 +185,30 @@ public class GUI extends AbstractUI implements ActionListener, OpticalEnvironmen
 		clearPlanesDataButton.addActionListener(this);
 		clearPlanesDataButton.setActionCommand("Clear data");
 		
+		precisionComboBox.setSelectedItem(opticalEnvironment.getPrecision());
+		precisionComboBox.addActionListener(this);
+		precisionComboBox.setActionCommand("Precision");
+		
+		fuseFirstOrderComponentsCheckBox.setSelected(opticalEnvironment.isFusingFirstOrderComponents());
+		fuseFirstOrderComponentsCheckBox.addActionListener(this);
+		fuseFirstOrderComponentsCheckBox.setActionCommand("Fuse");
+		
+		trackGaussianBeamsAnalyticallyCheckBox.setSelected(opticalEnvironment.isTrackingGaussianBeamsAnalytically());
+		trackGaussianBeamsAnalyticallyCheckBox.addActionListener(this);
+		trackGaussianBeamsAnalyticallyCheckBox.setActionCommand("Analytic");
+		
+		simulateRadialBeamsCheckBox.setSelected(opticalEnvironment.isSimulatingRadialBeams());
+		simulateRadialBeamsCheckBox.addActionListener(this);
+		simulateRadialBeamsCheckBox.setActionCommand("Radial");
+		
+		simulateSeparableBeamsCheckBox.setSelected(opticalEnvironment.isSimulatingSeparableBeams());
+		simulateSeparableBeamsCheckBox.addActionListener(this);
+		simulateSeparableBeamsCheckBox.setActionCommand("Separable");
+		
+		propagateSymmetricallyCheckBox.setSelected(opticalEnvironment.isPropagatingSymmetrically());
+		propagateSymmetricallyCheckBox.addActionListener(this);
+		propagateSymmetricallyCheckBox.setActionCommand("Symmetric");
+		
 		showGUI();
 	}
 	
@@ -257,15 +317,20 @@ public class GUI extends AbstractUI implements ActionListener, OpticalEnvironmen
 				
 				try
 				{
-					FileInputStream fileInputStream = new FileInputStream(fileChooser.getSelectedFile());
-					ObjectInputStream objectInputStream = new ObjectInputStream(fileInputStream);
-					
-					opticalEnvironment = (AbstractOpticalEnvironment) objectInputStream.readObject();
-					objectInputStream.close();
+					// Beams in chunk files are only read when needed; older files are plain object streams
+					opticalEnvironment = (AbstractOpticalEnvironment) ChunkFile.readObject(fileChooser.getSelectedFile());
 					
 					// Create a new workbench for the loaded environment
 					componentWorkbench = WorkbenchFactory.createWorkbench(opticalEnvironment);
 					
+					// Show the precision the loaded environment was set up with
+					precisionComboBox.setSelectedItem(opticalEnvironment.getPrecision());
+					fuseFirstOrderComponentsCheckBox.setSelected(opticalEnvironment.isFusingFirstOrderComponents());
+					trackGaussianBeamsAnalyticallyCheckBox.setSelected(opticalEnvironment.isTrackingGaussianBeamsAnalytically());
+					simulateRadialBeamsCheckBox.setSelected(opticalEnvironment.isSimulatingRadialBeams());
+					simulateSeparableBeamsCheckBox.setSelected(opticalEnvironment.isSimulatingSeparableBeams());
+					propagateSymmetricallyCheckBox.setSelected(opticalEnvironment.isPropagatingSymmetrically());
+					
 					// Refresh the GUI
 					showGUI();
 				}
@@ -283,6 +348,7 @@ public class GUI extends AbstractUI implements ActionListener, OpticalEnvironmen
 		{
 			// Set up file chooser
 			TIMFileChooser fileChooser = new TIMFileChooser();
+			fileChooser.addCompressionOption();
 			
 			// Set default file target to file called 'environment.tim' in current directory
 			fileChooser.setSelectedFile(new File(System.getProperty("user.dir") + "\\environment.tim"));
@@ -294,11 +360,7 @@ public class GUI extends AbstractUI implements ActionListener, OpticalEnvironmen
 			{
 				try
 				{
-					FileOutputStream fileOutputStream = new FileOutputStream(fileChooser.getSelectedFile());
-					ObjectOutputStream objectOutputSteam = new ObjectOutputStream(fileOutputStream);
-					
-					objectOutputSteam.writeObject(opticalEnvironment);
-					objectOutputSteam.close();
+					ChunkFile.writeObject(fileChooser.getSelectedFile(), opticalEnvironment, fileChooser.isCompressionSelected());
 				}
 				catch(IOException e)
 				{
@@ -310,6 +372,30 @@ public class GUI extends AbstractUI implements ActionListener, OpticalEnvironmen
 		{
 			clearDataInAllPlanesRecursively(componentWorkbench.getStartComponent(), null);
 		}
+		else if(command.equals("Precision"))
+		{
+			opticalEnvironment.setPrecision((FFTPrecision)precisionComboBox.getSelectedItem());
+		}
+		else if(command.equals("Fuse"))
+		{
+			opticalEnvironment.setFusingFirstOrderComponents(fuseFirstOrderComponentsCheckBox.isSelected());
+		}
+		else if(command.equals("Analytic"))
+		{
+			opticalEnvironment.setTrackingGaussianBeamsAnalytically(trackGaussianBeamsAnalyticallyCheckBox.isSelected());
+		}
+		else if(command.equals("Radial"))
+		{
+			opticalEnvironment.setSimulatingRadialBeams(simulateRadialBeamsCheckBox.isSelected());
+		}
+		else if(command.equals("Separable"))
+		{
+			opticalEnvironment.setSimulatingSeparableBeams(simulateSeparableBeamsCheckBox.isSelected());
+		}
+		else if(command.equals("Symmetric"))
+		{
+			opticalEnvironment.setPropagatingSymmetrically(propagateSymmetricallyCheckBox.isSelected());
+		}
 	}
 	
 	private void clearDataInAllPlanesRecursively(AbstractOpticalComponent component, AbstractOpticalComponent parent)
@@ -459,8 +545,36 @@ public class GUI extends AbstractUI implements ActionListener, OpticalEnvironmen
 			// Get the first component in the optical component train (as good a place to start as any)...			
 			AbstractOpticalComponent startComponent = componentWorkbench.getStartComponent();
 			
+			// Use the Fourier-transform precision and the shortcuts selected for this environment (in this
+			// thread only, so that they don't affect anything else, and only until the simulation is over)
+			FFTPrecision previousPrecision = FFT2D.getPrecision();
+			boolean
+				previousFusingFirstOrderComponents = FirstOrderSection.isEnabled(),
+				previousTrackingGaussianBeamsAnalytically = AnalyticBeamTracker.isEnabled(),
+				previousSimulatingRadialBeams = RadialSection.isEnabled(),
+				previousSimulatingSeparableBeams = SeparableSection.isEnabled(),
+				previousPropagatingSymmetrically = LightBeamCrossSection2D.isSymmetricPropagation();
+			FFT2D.setPrecision(opticalEnvironment.getPrecision());
+			FirstOrderSection.setEnabled(opticalEnvironment.isFusingFirstOrderComponents());
+			AnalyticBeamTracker.setEnabled(opticalEnvironment.isTrackingGaussianBeamsAnalytically());
+			RadialSection.setEnabled(opticalEnvironment.isSimulatingRadialBeams());
+			SeparableSection.setEnabled(opticalEnvironment.isSimulatingSeparableBeams());
+			LightBeamCrossSection2D.setSymmetricPropagation(opticalEnvironment.isPropagatingSymmetrically());
+			
 			// ...and calculate all its inputs and outputs, sending the outputs as inputs to their respectively connected components.
-			startComponent.calculateAndDealWithInputsAndOutputs();
+			try
+			{
+				startComponent.calculateAndDealWithInputsAndOutputs();
+			}
+			finally
+			{
+				FFT2D.setPrecision(previousPrecision);
+				FirstOrderSection.setEnabled(previousFusingFirstOrderComponents);
+				AnalyticBeamTracker.setEnabled(previousTrackingGaussianBeamsAnalytically);
+				RadialSection.setEnabled(previousSimulatingRadialBeams);
+				SeparableSection.setEnabled(previousSimulatingSeparableBeams);
+				LightBeamCrossSection2D.setSymmetricPropagation(previousPropagatingSymmetrically);
+			}
 		}
 		
 		/**
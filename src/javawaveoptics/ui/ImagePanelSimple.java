@@ -3,16 +3,26 @@ package javawaveoptics.ui;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
-import java.awt.Image;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.Serializable;
 
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+import javawaveoptics.utility.RenderScheduler;
 
 /**
  * Creates a Swing component displaying an image of specified width and height, scaling the image if
  * necessary.
  * 
+ * The image is never scaled as a whole.  Instead, it is drawn from the level of its mipmap pyramid
+ * that matches the zoom factors, and only the tiles of that level that are visible are drawn.
+ * The coarser levels are calculated in the background when first needed; until then, the image is
+ * drawn from the finest level available and refined once they are ready.
+ * 
  * @author Sean
  */
 public class ImagePanelSimple extends JPanel implements Serializable
@@ -27,8 +37,8 @@ public class ImagePanelSimple extends JPanel implements Serializable
 	// Image object
 	private BufferedImage sourceImage;
 	
-	// Scaled instance of image
-	private Image scaledImage;
+	// Mipmap pyramid of image
+	private ImagePyramid pyramid;
 	
 	// Dimensions
 	private int imageWidth, imageHeight,
@@ -36,8 +46,6 @@ public class ImagePanelSimple extends JPanel implements Serializable
 		imageHeightOld = -1;
 	private double zoomFactorX, zoomFactorY;
 	
-	private boolean needsRedrawing = true;
-	
 	private ImageSizeProblemListener imageSizeProblemListener;
 	
 	/**
@@ -72,20 +80,9 @@ public class ImagePanelSimple extends JPanel implements Serializable
 		{
 			// g.fillRect(0, 0, imageWidth, imageHeight);
 			g.drawString("\u2014 no data \u2014", 10, 10);			
-			needsRedrawing = false;
 		}
 		else
 		{			
-			if((scaledImage == null) || needsRedrawing)
-			{
-				// Image to be displayed hasn't been created yet or needs redrawing - create it!
-				
-				// System.out.println("ImagePanelSimple::paint: (re)drawing...");				
-				
-				// Scale image
-				scaledImage = sourceImage.getScaledInstance(imageWidth, imageHeight, Image.SCALE_SMOOTH);
-			}
-			
 	        int w = getWidth();
 	        int h = getHeight();
 	        int x = (int)((w - imageWidth)/2);
@@ -93,9 +90,8 @@ public class ImagePanelSimple extends JPanel implements Serializable
 
 	        try
 	        {
-	        	g.drawImage(scaledImage, x, y, null);
+	        	drawVisibleTiles(g, x, y);
 	        	if(imageSizeProblemListener != null) imageSizeProblemListener.dealWithImageSizeProblem(true);	    		
-	    		needsRedrawing = false;
 	        }
 	        catch(java.lang.OutOfMemoryError e)
 	        {
@@ -105,6 +101,89 @@ public class ImagePanelSimple extends JPanel implements Serializable
 	        }
 		}
 	}
+	
+	/**
+	 * Draws the tiles of the pyramid level that matches the zoom factors which intersect the clip area.
+	 * @param g
+	 * @param x	the left edge of the image in this panel
+	 * @param y	the top edge of the image in this panel
+	 */
+	private void drawVisibleTiles(Graphics g, int x, int y)
+	{
+		int level = pyramid.getLevelForZoomFactors(zoomFactorX, zoomFactorY);
+		int availableLevel = pyramid.getBestAvailableLevel(level);
+		
+		if(availableLevel < level)
+		{
+			// the level isn't ready yet; draw from a finer one for now, and repaint once it is ready
+			final ImagePyramid pyramid = this.pyramid;
+			RenderScheduler.schedule(pyramid, null, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					// don't bother if the image has been replaced in the meantime
+					if(ImagePanelSimple.this.pyramid != pyramid) return;
+					
+					pyramid.build();
+					
+					SwingUtilities.invokeLater(new Runnable()
+					{
+						@Override
+						public void run()
+						{
+							if(ImagePanelSimple.this.pyramid == pyramid) repaint();
+						}
+					});
+				}
+			});
+		}
+		
+		BufferedImage levelImage = pyramid.getLevel(availableLevel);
+		int levelWidth = levelImage.getWidth();
+		int levelHeight = levelImage.getHeight();
+		
+		Rectangle clip = g.getClipBounds();
+		if(clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+		
+		// the visible part of the level, in level pixels
+		int
+			iMin = Math.max(0, (int)Math.floor((double)(clip.x - x) * levelWidth / imageWidth)),
+			iMax = Math.min(levelWidth, (int)Math.ceil((double)(clip.x + clip.width - x) * levelWidth / imageWidth)),
+			jMin = Math.max(0, (int)Math.floor((double)(clip.y - y) * levelHeight / imageHeight)),
+			jMax = Math.min(levelHeight, (int)Math.ceil((double)(clip.y + clip.height - y) * levelHeight / imageHeight));
+		
+		Graphics2D g2 = (Graphics2D)g.create();
+		
+		// show enlarged pixels as blocks, but interpolate when reducing
+		g2.setRenderingHint(
+				RenderingHints.KEY_INTERPOLATION,
+				((imageWidth >= levelWidth) && (imageHeight >= levelHeight))?RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR:RenderingHints.VALUE_INTERPOLATION_BILINEAR
+			);
+		
+		for(int tileJ = jMin / ImagePyramid.TILE_SIZE; tileJ * ImagePyramid.TILE_SIZE < jMax; tileJ++)
+		{
+			int
+				sy1 = tileJ * ImagePyramid.TILE_SIZE,
+				sy2 = Math.min(sy1 + ImagePyramid.TILE_SIZE, levelHeight),
+				// calculate the tile edges in the same way for neighbouring tiles, so that there are no gaps between them
+				dy1 = y + (int)((long)sy1 * imageHeight / levelHeight),
+				dy2 = y + (int)((long)sy2 * imageHeight / levelHeight);
+			
+			for(int tileI = iMin / ImagePyramid.TILE_SIZE; tileI * ImagePyramid.TILE_SIZE < iMax; tileI++)
+			{
+				int
+					sx1 = tileI * ImagePyramid.TILE_SIZE,
+					sx2 = Math.min(sx1 + ImagePyramid.TILE_SIZE, levelWidth),
+					dx1 = x + (int)((long)sx1 * imageWidth / levelWidth),
+					dx2 = x + (int)((long)sx2 * imageWidth / levelWidth);
+				
+				g2.drawImage(levelImage, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
+			}
+		}
+		
+		g2.dispose();
+	}
 
 	public BufferedImage getImage()
 	{
@@ -183,7 +262,7 @@ public class ImagePanelSimple extends JPanel implements Serializable
 	public void setImageAndRepaint(BufferedImage image)
 	{
 		sourceImage = image;
-		needsRedrawing = true;
+		pyramid = (image == null)?null:new ImagePyramid(image);
 		
 		calculateImageWidthAndHeight();
 		
@@ -209,7 +288,6 @@ public class ImagePanelSimple extends JPanel implements Serializable
 		this.zoomFactorX = zoomFactorX;
 		this.zoomFactorY = zoomFactorY;
 
-		needsRedrawing = true;
 		calculateImageWidthAndHeight();
 	}
 
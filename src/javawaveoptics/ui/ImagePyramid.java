@@ -0,0 +1,174 @@
+package javawaveoptics.ui;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import library.field.PixelKernelEngine;
+
+/**
+ * A mipmap pyramid of an image:  level 0 is the image itself, and each further level is half the
+ * width and height of the previous one, each of its pixels the average of a 2x2 block of pixels in
+ * the previous level.  Levels are calculated (by build()) from the finest to the coarsest, and the
+ * levels that have been calculated so far can be used while the rest are still being calculated.
+ *
+ * Each level is divided into square tiles of side length TILE_SIZE, so that a viewer can draw only
+ * the tiles that are visible.
+ */
+public class ImagePyramid
+{
+	/**
+	 * the side length of a tile, in pixels
+	 */
+	public static final int TILE_SIZE = 256;
+
+	/* Fields */
+
+	// the levels, null if not calculated yet
+	private BufferedImage levels[];
+
+	public ImagePyramid(BufferedImage image)
+	{
+		// add levels until the whole image fits into one tile
+		int numberOfLevels = 1;
+		for(int size = Math.max(image.getWidth(), image.getHeight()); size > TILE_SIZE; size = (size + 1) / 2)
+		{
+			numberOfLevels++;
+		}
+
+		levels = new BufferedImage[numberOfLevels];
+		levels[0] = image;
+	}
+
+	/**
+	 * Calculates all levels that have not been calculated yet; the pyramid can be used from other threads meanwhile.
+	 */
+	public void build()
+	{
+		for(int level = 1; level < levels.length; level++)
+		{
+			if(getLevel(level) == null) setLevel(level, halve(getLevel(level - 1)));
+		}
+	}
+
+	public int getNumberOfLevels()
+	{
+		return levels.length;
+	}
+
+	public synchronized BufferedImage getLevel(int level)
+	{
+		return levels[level];
+	}
+
+	private synchronized void setLevel(int level, BufferedImage image)
+	{
+		levels[level] = image;
+	}
+
+	public int getWidth(int level)
+	{
+		int width = levels[0].getWidth();
+		for(int l = 0; l < level; l++) width = (width + 1) / 2;
+		return width;
+	}
+
+	public int getHeight(int level)
+	{
+		int height = levels[0].getHeight();
+		for(int l = 0; l < level; l++) height = (height + 1) / 2;
+		return height;
+	}
+
+	/**
+	 * @param zoomFactorX
+	 * @param zoomFactorY
+	 * @return	the coarsest level that still has at least one pixel for each screen pixel when shown with the given zoom factors
+	 */
+	public int getLevelForZoomFactors(double zoomFactorX, double zoomFactorY)
+	{
+		double zoomFactor = Math.max(zoomFactorX, zoomFactorY);
+
+		int level = 0;
+		while((level + 1 < levels.length) && (zoomFactor * (1 << (level + 1)) <= 1)) level++;
+
+		return level;
+	}
+
+	/**
+	 * @param level
+	 * @return	the finest level, no finer than the given one, that has been calculated so far
+	 */
+	public synchronized int getBestAvailableLevel(int level)
+	{
+		while(levels[level] == null) level--;
+
+		return level;
+	}
+
+	/**
+	 * @param image
+	 * @return	an image of half the width and height (rounded up), each pixel the average of a 2x2 block of pixels in image
+	 */
+	private static BufferedImage halve(BufferedImage image)
+	{
+		final int
+			width = image.getWidth(),
+			height = image.getHeight(),
+			halfWidth = (width + 1) / 2,
+			halfHeight = (height + 1) / 2;
+
+		final int pixels[];
+		if(((image.getType() == BufferedImage.TYPE_INT_ARGB) || (image.getType() == BufferedImage.TYPE_INT_RGB)) && (image.getRaster().getDataBuffer() instanceof DataBufferInt) && (image.getRaster().getParent() == null))
+		{
+			pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+		}
+		else
+		{
+			pixels = image.getRGB(0, 0, width, height, null, 0, width);
+		}
+		final boolean hasAlpha = (image.getType() != BufferedImage.TYPE_INT_RGB);
+
+		final int halfPixels[] = new int[halfWidth * halfHeight];
+
+		PixelKernelEngine.processRowBands(halfWidth, 0, halfHeight, new PixelKernelEngine.RowBandWorker()
+		{
+			public void processRows(int jMin, int jMax)
+			{
+				for(int j = jMin; j < jMax; j++)
+				{
+					// the two rows this row averages over; at an odd edge the last row is used twice
+					int row0 = 2*j * width;
+					int row1 = Math.min(2*j + 1, height - 1) * width;
+
+					for(int i = 0; i < halfWidth; i++)
+					{
+						int i0 = 2*i;
+						int i1 = Math.min(2*i + 1, width - 1);
+
+						int
+							p00 = pixels[row0 + i0],
+							p01 = pixels[row0 + i1],
+							p10 = pixels[row1 + i0],
+							p11 = pixels[row1 + i1];
+
+						// average each of the four 8-bit channels, rounding to nearest
+						int
+							a = (hasAlpha?((((p00 >>> 24) + (p01 >>> 24) + (p10 >>> 24) + (p11 >>> 24) + 2) >> 2) << 24):0),
+							r = ((((p00 >> 16) & 0xff) + ((p01 >> 16) & 0xff) + ((p10 >> 16) & 0xff) + ((p11 >> 16) & 0xff) + 2) >> 2) << 16,
+							g = ((((p00 >> 8) & 0xff) + ((p01 >> 8) & 0xff) + ((p10 >> 8) & 0xff) + ((p11 >> 8) & 0xff) + 2) >> 2) << 8,
+							b = ((p00 & 0xff) + (p01 & 0xff) + (p10 & 0xff) + (p11 & 0xff) + 2) >> 2;
+
+						halfPixels[j*halfWidth + i] = a | r | g | b;
+					}
+				}
+			}
+		});
+
+		// copy the pixels in rather than writing straight into the image's data buffer, which would stop
+		// Java2D from caching the image for drawing
+		BufferedImage halfImage = new BufferedImage(halfWidth, halfHeight, hasAlpha?BufferedImage.TYPE_INT_ARGB:BufferedImage.TYPE_INT_RGB);
+		halfImage.getRaster().setDataElements(0, 0, halfWidth, halfHeight, halfPixels);
+
+		return halfImage;
+	}
+}
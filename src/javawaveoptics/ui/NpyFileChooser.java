@@ -0,0 +1,25 @@
+package javawaveoptics.ui;
+
+import java.io.Serializable;
+
+import javawaveoptics.utility.NpyFileFilter;
+
+import javax.swing.JFileChooser;
+
+/**
+ * Custom file chooser for NumPy array (.npy) files.
+ */
+public class NpyFileChooser extends JFileChooser implements Serializable
+{
+	private static final long serialVersionUID = -6064419742851264722L;
+
+	public NpyFileChooser(String dialogTitle)
+	{
+		super();
+		
+		setDialogTitle(dialogTitle);
+		
+		// Set .npy filter
+		setFileFilter(new NpyFileFilter());
+	}
+}
@@ -1,12 +1,16 @@
 package javawaveoptics.ui;
 
 import java.awt.BorderLayout;
+import java.awt.image.BufferedImage;
 import java.io.Serializable;
+import java.util.Arrays;
 
 import javawaveoptics.optics.BeamCrossSection;
 import javawaveoptics.optics.plot.AbstractPlot;
+import javawaveoptics.utility.RenderScheduler;
 
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 /**
  * @author Sean mainly
@@ -29,8 +33,11 @@ public class PlotPanel extends JPanel implements Serializable
 		setLayout(new BorderLayout());
 		
 		this.plot = plot;
-		imagePanel = plot.getPlotImagePanel(beam);
+		imagePanel = plot.showPlotImage(null);
 		add(imagePanel, BorderLayout.CENTER);
+		
+		// the beam gets plotted in the render scheduler's thread, like any other update
+		if(beam != null) update(beam);
 	}
 	
 	public PlotPanel(AbstractPlot plot)
@@ -38,10 +45,71 @@ public class PlotPanel extends JPanel implements Serializable
 		this(plot, null);
 	}
 	
+	/**
+	 * Plots the beam, soon (see RenderScheduler), unless this beam, unchanged, is already plotted.
+	 * Can be called from any thread.
+	 * 
+	 * @param beam
+	 */
 	public void update(BeamCrossSection beam)
 	{
-		imagePanel = plot.getPlotImagePanel(beam);
-		add(imagePanel, BorderLayout.CENTER);
+		schedule(beam, Arrays.asList(beam, (beam == null)?0:beam.getModificationCount()));
+	}
+	
+	/**
+	 * Plots the beam again, soon, e.g. because the plot's settings have changed.
+	 * Can be called from any thread.
+	 * 
+	 * @param beam
+	 */
+	public void redraw(BeamCrossSection beam)
+	{
+		schedule(beam, null);
+	}
+	
+	/**
+	 * The plot image gets calculated in the render scheduler's thread, and then shown on the
+	 * event-dispatch thread; the redraw is scheduled on the event-dispatch thread, too, where
+	 * the size of the plot's viewport is captured first (see AbstractPlot.captureViewportSize).
+	 */
+	private void schedule(final BeamCrossSection beam, final Object version)
+	{
+		if(!SwingUtilities.isEventDispatchThread())
+		{
+			SwingUtilities.invokeLater(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					schedule(beam, version);
+				}
+			});
+			return;
+		}
+		
+		plot.captureViewportSize();
+		
+		RenderScheduler.schedule(this, version, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				final BufferedImage plotImage = (beam != null)?plot.getPlotImage(beam):null;
+				
+				SwingUtilities.invokeLater(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						imagePanel = plot.showPlotImage(plotImage);
+						add(imagePanel, BorderLayout.CENTER);
+						
+						revalidate();
+						repaint();
+					}
+				});
+			}
+		});
 	}
 	
 	public String toString()
@@ -4,6 +4,7 @@ import java.io.Serializable;
 
 import javawaveoptics.utility.TIMFileFilter;
 
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
 
 /**
@@ -14,6 +15,9 @@ import javax.swing.JFileChooser;
 public class TIMFileChooser extends JFileChooser implements Serializable
 {
 	private static final long serialVersionUID = 2559411349883420442L;
+	
+	// Lets the user choose whether beam data get compressed when saving; null if not shown
+	private JCheckBox compressCheckBox;
 
 	public TIMFileChooser()
 	{
@@ -22,4 +26,19 @@ public class TIMFileChooser extends JFileChooser implements Serializable
 		// Set bitmap filter
 		setFileFilter(new TIMFileFilter());
 	}
+	
+	/**
+	 * Adds a check box with which the user can choose whether beam data should be compressed
+	 * (for use when saving).
+	 */
+	public void addCompressionOption()
+	{
+		compressCheckBox = new JCheckBox("Compress beam data");
+		setAccessory(compressCheckBox);
+	}
+	
+	public boolean isCompressionSelected()
+	{
+		return (compressCheckBox != null) && compressCheckBox.isSelected();
+	}
 }
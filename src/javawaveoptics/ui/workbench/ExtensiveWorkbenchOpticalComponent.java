@@ -8,6 +8,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.image.BufferedImage;
 import java.io.Serializable;
+import java.util.Arrays;
 
 import javawaveoptics.optics.component.AbstractLightSourceComponent;
 import javawaveoptics.optics.component.AbstractOpticalComponent;
@@ -15,9 +16,11 @@ import javawaveoptics.optics.component.BeamSplitter;
 import javawaveoptics.optics.component.Hologram;
 import javawaveoptics.optics.component.Plane;
 import javawaveoptics.utility.ComponentImageNanny;
+import javawaveoptics.utility.RenderScheduler;
 
 import javax.swing.BorderFactory;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
 import javax.swing.border.Border;
 
 /**
@@ -65,7 +68,7 @@ public class ExtensiveWorkbenchOpticalComponent extends ExtensiveAbstractWorkben
 		// setText(opticalComponent.getFormattedName());
 		setOpticalComponentName(opticalComponent.getName());
 		
-		updateImage();
+		drawImage();
 
 		setDefaultToolTipText();
 	}
@@ -107,9 +110,79 @@ public class ExtensiveWorkbenchOpticalComponent extends ExtensiveAbstractWorkben
 	}
 	
 	/**
-	 * Sets the icon from the optical component's image.
+	 * Sets the icon from the optical component's image, soon (see RenderScheduler).
+	 * While the component is calculating, this gets called a lot, e.g. after each step of a
+	 * beam-propagation calculation; the icon is then redrawn at most once per frame, and only
+	 * when the percentage complete has changed.
 	 */
 	public void updateImage()
+	{
+		Object version = null;
+		if(opticalComponent.isComponentEnabled() && opticalComponent.isCalculating())
+		{
+			version = Arrays.asList(
+					opticalComponent.isComponentImageIndicatingProgress()?(int)(100*opticalComponent.getCalculationFractionComplete()):-1
+				);
+		}
+		
+		RenderScheduler.schedule(this, version, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				// the icon is drawn here, in the render thread, and only shown on the event-dispatch thread
+				final ComponentIcon icon = makeIcon();
+				
+				SwingUtilities.invokeLater(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						showIcon(icon);
+					}
+				});
+			}
+		});
+	}
+	
+	/**
+	 * Sets the icon from the optical component's image straight away.  Call only on the event-dispatch thread.
+	 */
+	private void drawImage()
+	{
+		showIcon(makeIcon());
+	}
+	
+	/**
+	 * An icon, and the warning to show as its tool-tip text (null if none).
+	 */
+	private static class ComponentIcon
+	{
+		BufferedImage image;
+		String warningMessage;
+		
+		ComponentIcon(BufferedImage image, String warningMessage)
+		{
+			this.image = image;
+			this.warningMessage = warningMessage;
+		}
+	}
+	
+	/**
+	 * Shows the icon.  Call only on the event-dispatch thread.
+	 */
+	private void showIcon(ComponentIcon icon)
+	{
+		setImage(icon.image, icon.warningMessage == null);
+		
+		if(icon.warningMessage != null) setToolTipText(icon.warningMessage);
+	}
+	
+	/**
+	 * Draws the icon from the optical component's image and state.  Doesn't touch any Swing components,
+	 * so it can be called from any thread.
+	 */
+	private ComponentIcon makeIcon()
 	{
 		// setIcon(new ImageIcon(opticalComponent.getComponentImage(new File(System.getProperty("user.dir") + File.separator + "Graphics" + File.separator))));
 		// setIcon(opticalComponent.getComponentImageIcon());
@@ -138,19 +211,21 @@ public class ExtensiveWorkbenchOpticalComponent extends ExtensiveAbstractWorkben
 			g.setStroke(new BasicStroke((float) opticalComponent.getScaleFactor() * 6.0f));
 			g.drawLine(0, componentImage.getHeight()/2, componentImage.getWidth(), componentImage.getHeight()/2);
 			
-			setImage(componentImage, true);
+			return new ComponentIcon(componentImage, null);
 		}
 		else if(opticalComponent.isCalculating())
 		{
-			setCalculating();
+			drawCalculating(componentImage);
+			return new ComponentIcon(componentImage, null);
 		}
 		else if(opticalComponent.isWarning())
 		{
-			setWarning(opticalComponent.getWarningMessage());
+			drawWarning(componentImage);
+			return new ComponentIcon(componentImage, opticalComponent.getWarningMessage());
 		}
 		else
 		{
-			setImage(componentImage, true);
+			return new ComponentIcon(componentImage, null);
 		}
 	}
 	
@@ -166,14 +241,12 @@ public class ExtensiveWorkbenchOpticalComponent extends ExtensiveAbstractWorkben
 		}
 	}
 	
-	private void setCalculating()
+	private void drawCalculating(BufferedImage componentImage)
 	{
 		// setImage(colourImage(opticalComponent.getComponentImage(), new Color(255, 0, 0, 0)));
 		
 		// the component is calculating; make it semi-translucent and draw a red frame around it
 		
-		BufferedImage componentImage = opticalComponent.getComponentImage();
-		
 		double fractionComplete;
 		
 		if(opticalComponent.isComponentImageIndicatingProgress())
@@ -211,17 +284,13 @@ public class ExtensiveWorkbenchOpticalComponent extends ExtensiveAbstractWorkben
 		g.drawLine(w-inset, inset, w-inset, h-inset);
 		g.drawLine(w-inset, h-inset, inset, h-inset);
 		g.drawLine(inset, h-inset, inset, inset);
-		
-		setImage(componentImage, true);		
 	}
 
-	private void setWarning(String warningMessage)
+	private void drawWarning(BufferedImage componentImage)
 	{
 		// setImage(colourImage(opticalComponent.getComponentImage(), new Color(255, 0, 0, 0)));
 		
-		// the component is calculating; make it semi-translucent and draw a red frame around it
-		
-		BufferedImage componentImage = opticalComponent.getComponentImage();
+		// the component has a warning; draw a yellow frame around it
 		
 		// Create a graphics object - this allows us to do some drawing
 		Graphics2D g = componentImage.createGraphics();
@@ -244,10 +313,6 @@ public class ExtensiveWorkbenchOpticalComponent extends ExtensiveAbstractWorkben
 		g.drawLine(w-inset, inset, w-inset, h-inset);
 		g.drawLine(w-inset, h-inset, inset, h-inset);
 		g.drawLine(inset, h-inset, inset, inset);
-		
-		setImage(componentImage, false);
-		
-		setToolTipText(warningMessage);
 	}
 	
 	public AbstractOpticalComponent getOpticalComponent()
@@ -0,0 +1,149 @@
+package javawaveoptics.utility;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * A cache, shared by all components, of bitmap files that have already been decoded and converted
+ * into the arrays the components use. Entries are identified by the file's path and modification time,
+ * the type of conversion, and the size of the amplitude matrix the array is intended for, so a file
+ * gets read again when it changes on disk.
+ * 
+ * The arrays are shared, so they must not be modified. Only a few of them are kept, and only as long
+ * as the memory isn't needed for anything else.
+ */
+public class BitmapCache
+{
+	// Types of conversion; see ImageUtilities
+	public static final int
+		BEAM_TYPE_ARRAY = 0,
+		HOLOGRAM_TYPE_ARRAY = 1,
+		BRIGHTNESS_ARRAY = 2;
+	
+	// The maximum number of arrays kept
+	private static final int MAXIMUM_NUMBER_OF_ENTRIES = 8;
+	
+	// The arrays, the least recently used first
+	private static LinkedHashMap<String, SoftReference<double[]>> cache = new LinkedHashMap<String, SoftReference<double[]>>(16, 0.75f, true)
+	{
+		private static final long serialVersionUID = 2960157211435101521L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, SoftReference<double[]>> eldest)
+		{
+			return size() > MAXIMUM_NUMBER_OF_ENTRIES;
+		}
+	};
+	
+	/**
+	 * @see ImageUtilities#image2BeamTypeArray(BufferedImage)
+	 */
+	public static double[] getBeamTypeArray(File file, int width, int height) throws IOException, IllegalArgumentException
+	{
+		return getArray(file, BEAM_TYPE_ARRAY, width, height);
+	}
+	
+	/**
+	 * @see ImageUtilities#image2HologramTypeArray(BufferedImage)
+	 */
+	public static double[] getHologramTypeArray(File file, int width, int height) throws IOException, IllegalArgumentException
+	{
+		return getArray(file, HOLOGRAM_TYPE_ARRAY, width, height);
+	}
+	
+	/**
+	 * @see ImageUtilities#image2BrightnessArray(BufferedImage)
+	 */
+	public static double[] getBrightnessArray(File file, int width, int height) throws IOException, IllegalArgumentException
+	{
+		return getArray(file, BRIGHTNESS_ARRAY, width, height);
+	}
+	
+	/**
+	 * Returns the array that results from converting the bitmap file, reading the file only if the array isn't cached.
+	 * 
+	 * @param file			The bitmap file
+	 * @param conversion	BEAM_TYPE_ARRAY, HOLOGRAM_TYPE_ARRAY or BRIGHTNESS_ARRAY
+	 * @param width			The required width of the image
+	 * @param height		The required height of the image
+	 * @return				The (shared!) array
+	 * @throws IOException					If the file can't be read
+	 * @throws IllegalArgumentException		If no file is specified, the file isn't an image, or the image has the wrong size
+	 */
+	public static double[] getArray(File file, int conversion, int width, int height) throws IOException, IllegalArgumentException
+	{
+		if(file == null)
+		{
+			throw new IllegalArgumentException("No file specified.");
+		}
+		
+		String key = file.getAbsolutePath() + "|" + file.lastModified() + "|" + conversion + "|" + width + "|" + height;
+		
+		synchronized(cache)
+		{
+			SoftReference<double[]> reference = cache.get(key);
+			
+			if((reference != null) && (reference.get() != null))
+			{
+				return reference.get();
+			}
+		}
+		
+		// Not cached; load the image from disk
+		BufferedImage image = ImageIO.read(file);
+		
+		if(image == null)
+		{
+			throw new IllegalArgumentException(file.getName() + " is not an image file that can be read.");
+		}
+		
+		if((image.getWidth() != width) || (image.getHeight() != height))
+		{
+			throw new IllegalArgumentException(
+					"The image's size (" + image.getWidth() + " \u2a09 " + image.getHeight() + ") " +
+					"does not match that of the beam (" + width + " \u2a09 " + height + ")."
+				);
+		}
+		
+		double[] array;
+		
+		switch(conversion)
+		{
+		case BEAM_TYPE_ARRAY:
+			array = ImageUtilities.image2BeamTypeArray(image);
+			break;
+		case HOLOGRAM_TYPE_ARRAY:
+			array = ImageUtilities.image2HologramTypeArray(image);
+			break;
+		case BRIGHTNESS_ARRAY:
+			array = ImageUtilities.image2BrightnessArray(image);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown conversion " + conversion + ".");
+		}
+		
+		synchronized(cache)
+		{
+			cache.put(key, new SoftReference<double[]>(array));
+		}
+		
+		return array;
+	}
+	
+	/**
+	 * Empties the cache.
+	 */
+	public static void clear()
+	{
+		synchronized(cache)
+		{
+			cache.clear();
+		}
+	}
+}
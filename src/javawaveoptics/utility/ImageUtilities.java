@@ -2,6 +2,12 @@ package javawaveoptics.utility;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 
 import javawaveoptics.optics.BeamCrossSection;
 import library.maths.MyMath;
@@ -24,41 +30,7 @@ public class ImageUtilities
 	 */
 	public static double[] image2BeamTypeArray(BufferedImage image) throws IllegalArgumentException
 	{
-		if(image != null)
-		{
-			int width = image.getWidth();
-			int height = image.getHeight();
-			
-			double[] data = new double[2 * width * height];
-			
-			// Set the real parts (intensity)
-			for(int x = 0; x < width; x++)
-			{
-				for(int y = 0; y < height; y++)
-				{
-					// Fetch the RGB components of the pixel
-					Color colour = new Color(image.getRGB(x, y));
-					
-					// Calculate phase angle and amplitude
-					float[] hsb = Color.RGBtoHSB(colour.getRed(), colour.getGreen(), colour.getBlue(), null);
-					double phaseAngle = 2 * Math.PI * (hsb[0] - 0.5);
-					double amplitude = Math.sqrt(hsb[2]);
-					
-					// Set real part
-					data[2 * ((height-1-y) * width + x)] = amplitude * Math.cos(phaseAngle);
-					
-					// Set imaginary part
-					data[2 * ((height-1-y) * width + x) + 1] = amplitude * Math.sin(phaseAngle);
-				}
-			}
-			
-			return data;
-		}
-		else
-		{
-			// The specified image is null OR it is an invalid image format			
-			throw new IllegalArgumentException("The specified BufferedImage is null.");
-		}
+		return image2ComplexArray(image, true);
 	}
 
 	/**
@@ -70,41 +42,139 @@ public class ImageUtilities
 	 */
 	public static double[] image2HologramTypeArray(BufferedImage image) throws IllegalArgumentException
 	{
-		if(image != null)
+		return image2ComplexArray(image, false);
+	}
+	
+	/**
+	 * Returns the brightness (the "B" in HSB) of each image pixel, in the range 0 to 1.
+	 * Unlike in the complex arrays above, rows are in the order of the image, i.e. the brightness
+	 * of pixel (x, y) is element y * width + x.
+	 * @param image
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	public static double[] image2BrightnessArray(BufferedImage image) throws IllegalArgumentException
+	{
+		int[] rgb = getRGBArray(image);
+		double[] brightness = new double[rgb.length];
+		float[] hsb = new float[3];
+		
+		for(int i = 0; i < rgb.length; i++)
+		{
+			Color.RGBtoHSB((rgb[i] >> 16) & 0xff, (rgb[i] >> 8) & 0xff, rgb[i] & 0xff, hsb);
+			brightness[i] = hsb[2];
+		}
+		
+		return brightness;
+	}
+	
+	/**
+	 * Converts the image into a complex array, with rows in reverse order (so that row 0 is at the bottom),
+	 * the brightness of each pixel determining the amplitude and its hue the phase
+	 * @param image
+	 * @param amplitudeIsSqrtOfBrightness	if true, the amplitude is the square root of the brightness, otherwise the brightness
+	 * @return
+	 * @throws IllegalArgumentException
+	 */
+	private static double[] image2ComplexArray(BufferedImage image, boolean amplitudeIsSqrtOfBrightness) throws IllegalArgumentException
+	{
+		int[] rgb = getRGBArray(image);
+		int width = image.getWidth();
+		int height = image.getHeight();
+		
+		double[] data = new double[2 * width * height];
+		float[] hsb = new float[3];
+		
+		for(int y = 0; y < height; y++)
 		{
-			int width = image.getWidth();
-			int height = image.getHeight();
-			
-			double[] data = new double[2 * width * height];
-			
-			// Set the real parts (intensity)
 			for(int x = 0; x < width; x++)
 			{
-				for(int y = 0; y < height; y++)
-				{
-					// Fetch the RGB components of the pixel
-					Color colour = new Color(image.getRGB(x, y));
-					
-					// Calculate phase angle and amplitude
-					float[] hsb = Color.RGBtoHSB(colour.getRed(), colour.getGreen(), colour.getBlue(), null);
-					double phaseAngle = 2 * Math.PI * (hsb[0] - 0.5);
-					double amplitude = hsb[2];
-					
-					// Set real part
-					data[2 * ((height-1-y) * width + x)] = amplitude * Math.cos(phaseAngle);
-					
-					// Set imaginary part
-					data[2 * ((height-1-y) * width + x) + 1] = amplitude * Math.sin(phaseAngle);
-				}
+				int pixel = rgb[y * width + x];
+				
+				// Calculate phase angle and amplitude
+				Color.RGBtoHSB((pixel >> 16) & 0xff, (pixel >> 8) & 0xff, pixel & 0xff, hsb);
+				double phaseAngle = 2 * Math.PI * (hsb[0] - 0.5);
+				double amplitude = amplitudeIsSqrtOfBrightness?Math.sqrt(hsb[2]):hsb[2];
+				
+				// Set real part
+				data[2 * ((height-1-y) * width + x)] = amplitude * Math.cos(phaseAngle);
+				
+				// Set imaginary part
+				data[2 * ((height-1-y) * width + x) + 1] = amplitude * Math.sin(phaseAngle);
 			}
-			
-			return data;
 		}
-		else
+		
+		return data;
+	}
+	
+	/**
+	 * Returns the colours of all pixels, in the default RGB format (see BufferedImage.getRGB), row by row.
+	 * For the common image types the pixels are read straight from the raster's DataBuffer;
+	 * for all other types they are fetched in a single call to getRGB.
+	 * @param image
+	 * @return
+	 * @throws IllegalArgumentException		if the image is null
+	 */
+	public static int[] getRGBArray(BufferedImage image) throws IllegalArgumentException
+	{
+		if(image == null)
 		{
 			// The specified image is null OR it is an invalid image format			
 			throw new IllegalArgumentException("The specified BufferedImage is null.");
 		}
+		
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] rgb = new int[width * height];
+		
+		WritableRaster raster = image.getRaster();
+		DataBuffer dataBuffer = raster.getDataBuffer();
+		
+		if((raster.getSampleModelTranslateX() == 0) && (raster.getSampleModelTranslateY() == 0) && (dataBuffer.getNumBanks() == 1))
+		{
+			switch(image.getType())
+			{
+			case BufferedImage.TYPE_INT_RGB:
+			case BufferedImage.TYPE_INT_ARGB:
+				{
+					int[] pixels = ((DataBufferInt)dataBuffer).getData();
+					int offset = dataBuffer.getOffset();
+					int scanlineStride = ((SinglePixelPackedSampleModel)raster.getSampleModel()).getScanlineStride();
+					
+					for(int y = 0; y < height; y++)
+					{
+						System.arraycopy(pixels, offset + y * scanlineStride, rgb, y * width, width);
+					}
+					return rgb;
+				}
+			case BufferedImage.TYPE_3BYTE_BGR:
+			case BufferedImage.TYPE_4BYTE_ABGR:
+				{
+					byte[] pixels = ((DataBufferByte)dataBuffer).getData();
+					ComponentSampleModel sampleModel = (ComponentSampleModel)raster.getSampleModel();
+					int offset = dataBuffer.getOffset();
+					int scanlineStride = sampleModel.getScanlineStride();
+					int pixelStride = sampleModel.getPixelStride();
+					int[] bandOffsets = sampleModel.getBandOffsets();	// bands are R, G, B (and A)
+					
+					for(int y = 0; y < height; y++)
+					{
+						int index = offset + y * scanlineStride;
+						for(int x = 0; x < width; x++)
+						{
+							rgb[y * width + x] =
+								((pixels[index + bandOffsets[0]] & 0xff) << 16) |
+								((pixels[index + bandOffsets[1]] & 0xff) << 8) |
+								(pixels[index + bandOffsets[2]] & 0xff);
+							index += pixelStride;
+						}
+					}
+					return rgb;
+				}
+			}
+		}
+		
+		return image.getRGB(0, 0, width, height, rgb, 0, width);
 	}
 
 	/**
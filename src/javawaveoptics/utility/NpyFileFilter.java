@@ -0,0 +1,52 @@
+package javawaveoptics.utility;
+
+import java.io.File;
+import java.io.Serializable;
+
+import javax.swing.filechooser.FileFilter;
+
+/**
+ * Custom file filter for NumPy array files.
+ */
+public class NpyFileFilter extends FileFilter implements Serializable
+{
+	private static final long serialVersionUID = 4512283619406316542L;
+
+	@Override
+	public boolean accept(File file)
+	{
+		// Accept directories
+		if(file.isDirectory())
+		{
+			return true;
+		}
+		else
+		{
+	        String extension = "";
+	        String fileName = file.getName();
+	        
+	        int index = fileName.lastIndexOf('.');
+	        
+	        // index will be > -1 if a full stop has been found at some point
+	        if(index > -1)
+	        {
+	        	extension = fileName.substring(index).toLowerCase();
+	        }
+	        
+	        if(extension.equals(".npy"))
+	        {
+	        	return true;
+	        }
+	        else
+	        {
+	        	return false;
+	        }
+		}
+	}
+
+	@Override
+	public String getDescription()
+	{
+		return "NumPy Array Files (*.npy)";
+	}
+}
\ No newline at end of file
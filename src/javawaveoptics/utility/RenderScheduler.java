@@ -0,0 +1,138 @@
+package javawaveoptics.utility;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A scheduler, shared by all plots and component images, that redraws them in a thread of its own,
+ * so that neither the simulation nor the event-dispatch thread has to wait for them.
+ * 
+ * Each redraw is identified by a key, e.g. the plot panel it is for. Requests with the same key that
+ * arrive before the redraw has been done are coalesced into one, namely the latest; and all the
+ * outstanding redraws are done together, at most once every MINIMUM_FRAME_INTERVAL milliseconds.
+ * A request can also state the version of the data it draws (e.g. the beam and its modification
+ * count), in which case it is skipped if the last redraw with the same key drew the same version.
+ * 
+ * The redraws run outside the event-dispatch thread, so they have to pass anything that changes
+ * Swing components to SwingUtilities.invokeLater.
+ */
+public class RenderScheduler
+{
+	// The minimum time between the starts of two rounds of redraws, in milliseconds (i.e. at most 25 frames per second)
+	public static final long MINIMUM_FRAME_INTERVAL = 40;
+	
+	// The outstanding redraws, in the order in which they were first requested
+	private static LinkedHashMap<Object, Request> requests = new LinkedHashMap<Object, Request>();
+	
+	// The version drawn by the last redraw with each key
+	private static WeakHashMap<Object, Object> versionsDrawn = new WeakHashMap<Object, Object>();
+	
+	// The thread that does the redraws; started when the first redraw is requested
+	private static Thread renderThread;
+	
+	private static class Request
+	{
+		Object version;
+		Runnable render;
+		
+		Request(Object version, Runnable render)
+		{
+			this.version = version;
+			this.render = render;
+		}
+	}
+	
+	/**
+	 * Requests a redraw, which replaces any outstanding one with the same key.
+	 * 
+	 * @param key	identifies what is being redrawn
+	 * @param version	the version of the data drawn, compared with equals; null if the redraw should not be skipped
+	 * @param render	does the redraw
+	 */
+	public static synchronized void schedule(Object key, Object version, Runnable render)
+	{
+		requests.put(key, new Request(version, render));
+		
+		if(renderThread == null)
+		{
+			renderThread = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					renderLoop();
+				}
+			}, "Render scheduler");
+			renderThread.setDaemon(true);
+			renderThread.start();
+		}
+		else
+		{
+			RenderScheduler.class.notify();
+		}
+	}
+	
+	/**
+	 * The redraws are done here, in the render thread.
+	 */
+	private static void renderLoop()
+	{
+		long lastFrameStart = 0;
+		
+		while(true)
+		{
+			ArrayList<Map.Entry<Object, Request>> frame;
+			
+			try
+			{
+				// wait for a request...
+				synchronized(RenderScheduler.class)
+				{
+					while(requests.isEmpty()) RenderScheduler.class.wait();
+				}
+				
+				// ... and for the end of the minimum frame interval, during which further requests are coalesced
+				long wait = lastFrameStart + MINIMUM_FRAME_INTERVAL - System.currentTimeMillis();
+				if(wait > 0) Thread.sleep(wait);
+			}
+			catch(InterruptedException e)
+			{
+				return;
+			}
+			
+			synchronized(RenderScheduler.class)
+			{
+				frame = new ArrayList<Map.Entry<Object, Request>>(requests.entrySet());
+				requests = new LinkedHashMap<Object, Request>();
+			}
+			
+			lastFrameStart = System.currentTimeMillis();
+			
+			for(Map.Entry<Object, Request> entry : frame)
+			{
+				Object key = entry.getKey();
+				Request request = entry.getValue();
+				
+				if((request.version != null) && request.version.equals(versionsDrawn.get(key)))
+				{
+					// this has been drawn already
+					continue;
+				}
+				
+				try
+				{
+					request.render.run();
+				}
+				catch(Exception e)
+				{
+					e.printStackTrace();
+				}
+				
+				if(request.version != null) versionsDrawn.put(key, request.version);
+				else versionsDrawn.remove(key);
+			}
+		}
+	}
+}
@@ -12,6 +12,7 @@ import javawaveoptics.utility.MathsUtilities;
 
 import library.list.*;
 import library.maths.*;
+import library.util.*;
 
 
 public class ComplexField2D extends ComplexArray2D
@@ -26,6 +27,9 @@ implements Serializable
 	// physical size represented by the width x height array
 	protected double physicalWidth, physicalHeight;	// in meters
 	
+	// the statistics of the field, kept until the data change (see getStatistics)
+	private transient FieldStatistics statistics = null;
+	
 	
 	//////////////////
 	// constructors //
@@ -73,6 +77,7 @@ implements Serializable
 	}
 
 	public void setPhysicalWidth(double physicalWidth) {
+		dataChanged();	// the field is now a different function of position
 		this.physicalWidth = physicalWidth;
 	}
 
@@ -81,6 +86,7 @@ implements Serializable
 	}
 
 	public void setPhysicalHeight(double physicalHeight) {
+		dataChanged();	// see setPhysicalWidth
 		this.physicalHeight = physicalHeight;
 	}
 
@@ -179,6 +185,69 @@ implements Serializable
 	}
 	
 	
+	//////////////////////////
+	// per-pixel operations //
+	//////////////////////////
+	
+	// replace every element by the result of the kernel, which is passed the element's
+	// physical coordinates (x, y); see PixelKernelEngine
+	public void applyPixelKernel(PixelKernel kernel)
+	{
+		zerosMayHaveChanged();
+		applyPixelKernel(kernel, 0, width, 0, height);
+	}
+	
+	// replace the elements (i, j) with iMin <= i < iMax and jMin <= j < jMax by the result of the kernel;
+	// the caller has to make sure that the kernel would leave the other elements unchanged
+	// (e.g. because they are zero and the kernel multiplies by a factor), as they are not passed to it
+	public void applyPixelKernel(PixelKernel kernel, int iMin, int iMax, int jMin, int jMax)
+	{
+		dataChanged();
+		
+		double x[] = new double[width];
+		for(int i=0; i<width; i++) x[i] = getX(i);
+		
+		double y[] = new double[height];
+		for(int j=0; j<height; j++) y[j] = getY(j);
+		
+		PixelKernelEngine.apply(data, x, y, kernel, iMin, iMax, jMin, jMax);
+	}
+	
+	// multiply element (i, j) by the real number mask[j*width+i]
+	public void multiplyByMask(double mask[])
+	throws SizeMismatchError
+	{
+		if(mask.length != width*height)
+			throw new SizeMismatchError("ComplexField2D::multiplyByMask: size mismatch");
+		
+		dataChanged();
+		PixelKernelEngine.multiplyByMask(data, width, height, mask);
+	}
+
+	// multiply element (i, j) by the complex number (mask[2*(j*width+i)], mask[2*(j*width+i)+1]),
+	// i.e. mask is laid out like the data array
+	public void multiplyByComplexMask(double mask[])
+	throws SizeMismatchError
+	{
+		if(mask.length != 2*width*height)
+			throw new SizeMismatchError("ComplexField2D::multiplyByComplexMask: size mismatch");
+		
+		dataChanged();
+		PixelKernelEngine.multiplyByComplexMask(data, width, height, mask);
+	}
+
+	// multiply element (i, j) by the real number xMask[i]*yMask[j]
+	public void multiplyBySeparableMask(double xMask[], double yMask[])
+	throws SizeMismatchError
+	{
+		if((xMask.length != width) || (yMask.length != height))
+			throw new SizeMismatchError("ComplexField2D::multiplyBySeparableMask: size mismatch");
+		
+		dataChanged();
+		PixelKernelEngine.multiplyBySeparableMask(data, xMask, yMask);
+	}
+	
+	
 	////////////////////
 	// initialisation //
 	////////////////////
@@ -328,6 +397,8 @@ implements Serializable
 	
 	public void phaseConjugate()
 	{
+		dataChanged();
+		
 		for(int j = 0; j < height; j++)
 		{			
 			for(int i = 0; i < width; i++)
@@ -340,6 +411,7 @@ implements Serializable
 	
 	public void phaseConjugateElement(int i, int j)
 	{
+		dataChanged();
 		data[getIndexIm(i,j)] = -data[getIndexIm(i,j)];		
 	}
 
@@ -351,18 +423,46 @@ implements Serializable
 	// arbitrary units
 	public double getPower()
 	{
-		double power = 0.0;
-		
-		for(int i=0; i<width; i++)
-			for(int j=0; j<height; j++)
-				power += getElement(i, j).getAbsSqr();
-		
 		// the abs squared of the field is a density per unit area (in the case of the
 		// electric field the power density, in the case of the wave function the
 		// probability density);
 		// when integrating over the abs squared one should therefore multiply the
 		// abs square of the individual matrix elements by the corresponding area, which
-		// is getDeltaX() * getDeltaY(); here this is done at the end
-		return power * getDeltaX() * getDeltaY();
+		// is getDeltaX() * getDeltaY(); FieldStatistics does this
+		return getStatistics().getPower();
+	}
+	
+	
+	////////////////
+	// statistics //
+	////////////////
+	
+	// the maximum and minimum intensity, power, centroid etc. of the field (see FieldStatistics),
+	// which are calculated in one pass over the data and then kept until the data change
+	public FieldStatistics getStatistics()
+	{
+		FieldStatistics s = statistics;
+		
+		if((s == null) || (s.getModificationCount() != getModificationCount()))
+		{
+			double x[] = new double[width];
+			for(int i=0; i<width; i++) x[i] = getX(i);
+			
+			double y[] = new double[height];
+			for(int j=0; j<height; j++) y[j] = getY(j);
+			
+			int region[] = getActiveRegion();
+			s = new FieldStatistics(data, x, y, region[0], region[1], region[2], region[3], getDeltaX() * getDeltaY(), getModificationCount());
+			statistics = s;
+		}
+		
+		return s;
+	}
+	
+	// a box {iMin, iMax, jMin, jMax} outside which all elements are zero; here the whole array,
+	// but subclasses can know better (see LightBeamCrossSection2D)
+	public int[] getActiveRegion()
+	{
+		return new int[] {0, width, 0, height};
 	}
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+/* */
+
+
+package library.field;
+
+
+import java.util.*;
+
+
+// Statistics of a complex field E, all calculated in one pass over the data (split into a
+// fixed number of bands, which are processed in parallel like the pixel kernels, see
+// PixelKernelEngine, and whose sums are added up in order, so that the statistics don't
+// depend on the number of processors):
+// the maximum and minimum intensity |E|^2, the maximum absolute values of the real and
+// imaginary parts, the power (the intensity integrated over the field), and the centroid and
+// central second moments of the intensity distribution.
+// ComplexField2D.getStatistics keeps them until the field changes.
+
+public class FieldStatistics
+{
+	// the number of bands of rows the sums are split into
+	private static final int NUMBER_OF_BANDS = 32;
+	
+	// the modification count of the field when the statistics were calculated
+	private long modificationCount;
+	
+	private double maxIntensity, minIntensity, maxAbsRe, maxAbsIm;
+	
+	// the sum of the intensities times the area of a pixel
+	private double power;
+	
+	// the intensity-weighted means of x and y...
+	private double xCentroid, yCentroid;
+	
+	// ... and of (x - xCentroid)^2, (y - yCentroid)^2 and (x - xCentroid)(y - yCentroid)
+	private double xxMoment, yyMoment, xyMoment;
+	
+	
+	/////////////////
+	// constructor //
+	/////////////////
+	
+	// the statistics of the field represented by data (laid out like ComplexArray2D.data, with
+	// x.length columns and y.length rows, whose physical coordinates are x[i] and y[j]), calculated
+	// from the elements (i, j) with iMin <= i < iMax and jMin <= j < jMax; all other elements have
+	// to be zero
+	public FieldStatistics(final double data[], final double x[], final double y[], final int iMin, final int iMax, int jMin, int jMax, double pixelArea, long modificationCount)
+	{
+		this.modificationCount = modificationCount;
+		
+		// the sums over each band of rows, in the order of the bands, so that they are always added
+		// up in the same order
+		final TreeMap<Integer, Sums> bandSums = new TreeMap<Integer, Sums>();
+		final int width = x.length;
+		
+		PixelKernelEngine.processFixedRowBands(iMax - iMin, jMin, jMax, NUMBER_OF_BANDS, new PixelKernelEngine.RowBandWorker()
+		{
+			public void processRows(int jMin, int jMax)
+			{
+				Sums s = new Sums();
+				
+				for(int j=jMin; j<jMax; j++)
+				{
+					double yj = y[j];
+					int index = 2*(j*width + iMin);
+					
+					for(int i=iMin; i<iMax; i++, index+=2)
+					{
+						double
+							re = data[index],
+							im = data[index+1],
+							intensity = re*re + im*im,
+							xi = x[i];
+						
+						if(intensity > s.maxIntensity) s.maxIntensity = intensity;
+						if(intensity < s.minIntensity) s.minIntensity = intensity;
+						if(Math.abs(re) > s.maxAbsRe) s.maxAbsRe = Math.abs(re);
+						if(Math.abs(im) > s.maxAbsIm) s.maxAbsIm = Math.abs(im);
+						
+						s.sum += intensity;
+						s.sumX += intensity*xi;
+						s.sumY += intensity*yj;
+						s.sumXX += intensity*xi*xi;
+						s.sumYY += intensity*yj*yj;
+						s.sumXY += intensity*xi*yj;
+					}
+				}
+				
+				synchronized(bandSums)
+				{
+					bandSums.put(jMin, s);
+				}
+			}
+		});
+		
+		Sums total = new Sums();
+		for(Sums s : bandSums.values()) total.add(s);
+		
+		maxIntensity = total.maxIntensity;
+		// the elements outside the region are zero
+		minIntensity = ((long)(iMax - iMin)*(jMax - jMin) < (long)width*y.length)?0:total.minIntensity;
+		if(Double.isInfinite(minIntensity)) minIntensity = 0;	// no elements at all
+		maxAbsRe = total.maxAbsRe;
+		maxAbsIm = total.maxAbsIm;
+		power = total.sum * pixelArea;
+		
+		if(total.sum > 0)
+		{
+			xCentroid = total.sumX / total.sum;
+			yCentroid = total.sumY / total.sum;
+			xxMoment = total.sumXX / total.sum - xCentroid*xCentroid;
+			yyMoment = total.sumYY / total.sum - yCentroid*yCentroid;
+			xyMoment = total.sumXY / total.sum - xCentroid*yCentroid;
+		}
+	}
+	
+	// the maxima, minimum and sums over part of the field
+	private static class Sums
+	{
+		double
+			maxIntensity = 0, minIntensity = Double.POSITIVE_INFINITY, maxAbsRe = 0, maxAbsIm = 0,
+			sum = 0, sumX = 0, sumY = 0, sumXX = 0, sumYY = 0, sumXY = 0;
+		
+		void add(Sums s)
+		{
+			maxIntensity = Math.max(maxIntensity, s.maxIntensity);
+			minIntensity = Math.min(minIntensity, s.minIntensity);
+			maxAbsRe = Math.max(maxAbsRe, s.maxAbsRe);
+			maxAbsIm = Math.max(maxAbsIm, s.maxAbsIm);
+			sum += s.sum;
+			sumX += s.sumX;
+			sumY += s.sumY;
+			sumXX += s.sumXX;
+			sumYY += s.sumYY;
+			sumXY += s.sumXY;
+		}
+	}
+	
+	
+	/////////////
+	// getters //
+	/////////////
+	
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
+	public double getMaxIntensity() {
+		return maxIntensity;
+	}
+
+	public double getMinIntensity() {
+		return minIntensity;
+	}
+
+	public double getMaxAbsRe() {
+		return maxAbsRe;
+	}
+
+	public double getMaxAbsIm() {
+		return maxAbsIm;
+	}
+
+	public double getPower() {
+		return power;
+	}
+
+	public double getXCentroid() {
+		return xCentroid;
+	}
+
+	public double getYCentroid() {
+		return yCentroid;
+	}
+
+	// the intensity-weighted variance of x
+	public double getXXMoment() {
+		return xxMoment;
+	}
+
+	// the intensity-weighted variance of y
+	public double getYYMoment() {
+		return yyMoment;
+	}
+
+	// the intensity-weighted covariance of x and y
+	public double getXYMoment() {
+		return xyMoment;
+	}
+}
@@ -0,0 +1,16 @@
+/* */
+
+
+package library.field;
+
+
+// A function that is applied independently to every pixel of a ComplexField2D.
+// The kernel receives the physical coordinates (x, y) of the pixel and its current
+// complex value (re, im), and writes the new value into out[0] (real part) and
+// out[1] (imaginary part).
+// Kernels are called from several threads at once (see PixelKernelEngine), so
+// they must not change any shared state; each thread has its own out array.
+public interface PixelKernel
+{
+	public void apply(double x, double y, double re, double im, double out[]);
+}
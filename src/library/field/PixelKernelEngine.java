@@ -0,0 +1,252 @@
+/* */
+
+
+package library.field;
+
+
+// Applies per-pixel operations -- PixelKernels and precomputed masks -- to the
+// interleaved (re, im), row-major data array of a ComplexField2D.
+// The rows are split into contiguous bands, one per processor; each band is
+// processed row by row, and nothing is allocated per pixel.
+public class PixelKernelEngine
+{
+	// fields with fewer than this many pixels per thread are not worth splitting further
+	public static final int MINIMUM_PIXELS_PER_THREAD = 16384;
+	
+	
+	///////////////////////
+	// row-band workers //
+	///////////////////////
+	
+	// processes the rows jMin <= j < jMax
+	public static abstract class RowBandWorker
+	{
+		public abstract void processRows(int jMin, int jMax);
+	}
+	
+	private static class RowBand implements Runnable
+	{
+		private RowBandWorker worker;
+		private int jMin, jMax;
+		
+		public RowBand(RowBandWorker worker, int jMin, int jMax)
+		{
+			this.worker = worker;
+			this.jMin = jMin;
+			this.jMax = jMax;
+		}
+		
+		public void run()
+		{
+			worker.processRows(jMin, jMax);
+		}
+	}
+	
+	// the number of threads worth using for a width x height field
+	public static int getNumberOfThreads(int width, int height)
+	{
+		int nthreads = Math.min(
+				Runtime.getRuntime().availableProcessors(),
+				(int)Math.min(height, ((long)width*height) / MINIMUM_PIXELS_PER_THREAD)
+			);
+		
+		return Math.max(1, nthreads);
+	}
+	
+	// give each thread a contiguous band of rows and wait for all of them to finish
+	private static void processRowBands(int width, int height, RowBandWorker worker)
+	{
+		processRowBands(width, 0, height, worker);
+	}
+	
+	// the same, but only for the rows jMin <= j < jMax
+	public static void processRowBands(int width, int jMin, int jMax, RowBandWorker worker)
+	{
+		processInThreads(getNumberOfThreads(width, jMax - jMin), jMin, jMax, worker);
+	}
+	
+	// the same, but with the rows split into the given number of bands (or one per row if there are fewer
+	// rows), however many processors there are, so that anything added up band by band (see
+	// FieldStatistics) is added up in the same way on every machine; each band is handed to the worker
+	// on its own
+	public static void processFixedRowBands(int width, final int jMin, int jMax, int numberOfBands, final RowBandWorker worker)
+	{
+		final int
+			height = jMax - jMin,
+			nbands = Math.min(numberOfBands, height);
+		
+		if(height <= 0) return;
+		
+		// each thread processes a contiguous run of bands, one by one
+		processInThreads(Math.min(nbands, getNumberOfThreads(width, height)), 0, nbands, new RowBandWorker()
+		{
+			public void processRows(int kMin, int kMax)
+			{
+				for(int k=kMin; k<kMax; k++)
+				{
+					worker.processRows(jMin + (int)((long)height*k/nbands), jMin + (int)((long)height*(k+1)/nbands));
+				}
+			}
+		});
+	}
+	
+	// split the rows jMin <= j < jMax into nthreads contiguous bands and process each in its own thread
+	private static void processInThreads(int nthreads, int jMin, int jMax, RowBandWorker worker)
+	{
+		int height = jMax - jMin;
+		
+		if(height <= 0) return;
+		
+		if(nthreads == 1)
+		{
+			// not worth starting any threads
+			worker.processRows(jMin, jMax);
+			return;
+		}
+		
+		Thread[] threads = new Thread[nthreads];
+		for(int t=0; t<nthreads; t++)
+		{
+			threads[t] = new Thread(new RowBand(worker, jMin + (int)((long)height*t/nthreads), jMin + (int)((long)height*(t+1)/nthreads)));
+			threads[t].start();
+		}
+		joinAll(threads);
+	}
+	
+	// wait for all the threads to finish, even if this thread is interrupted, as the other threads are still
+	// writing into the caller's arrays; the interruption is passed on to the caller afterwards
+	public static void joinAll(Thread threads[])
+	{
+		boolean interrupted = false;
+		for(int t=0; t<threads.length; t++)
+		{
+			while(true)
+			{
+				try
+				{
+					threads[t].join();
+					break;
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+				}
+			}
+		}
+		
+		if(interrupted) Thread.currentThread().interrupt();
+	}
+	
+	
+	/////////////
+	// kernels //
+	/////////////
+	
+	// replace every element of data (which represents a complex array of dimensions x.length x y.length)
+	// by the result of the kernel; x[i] and y[j] are the physical coordinates of column i and row j
+	public static void apply(double data[], double x[], double y[], PixelKernel kernel)
+	{
+		apply(data, x, y, kernel, 0, x.length, 0, y.length);
+	}
+	
+	// the same, but only for the elements (i, j) with iMin <= i < iMax and jMin <= j < jMax
+	public static void apply(final double data[], final double x[], final double y[], final PixelKernel kernel, final int iMin, final int iMax, int jMin, int jMax)
+	{
+		final int width = x.length;
+		
+		processRowBands(iMax - iMin, jMin, jMax, new RowBandWorker()
+		{
+			public void processRows(int jMin, int jMax)
+			{
+				double out[] = new double[2];
+				
+				for(int j=jMin; j<jMax; j++)
+				{
+					double yj = y[j];
+					int index = 2*(j*width + iMin);
+					
+					for(int i=iMin; i<iMax; i++, index+=2)
+					{
+						kernel.apply(x[i], yj, data[index], data[index+1], out);
+						data[index] = out[0];
+						data[index+1] = out[1];
+					}
+				}
+			}
+		});
+	}
+	
+	
+	///////////
+	// masks //
+	///////////
+	
+	// multiply element (i, j) of data by the real number mask[j*width+i]
+	public static void multiplyByMask(final double data[], final int width, int height, final double mask[])
+	{
+		processRowBands(width, height, new RowBandWorker()
+		{
+			public void processRows(int jMin, int jMax)
+			{
+				for(int k=jMin*width; k<jMax*width; k++)
+				{
+					data[2*k] *= mask[k];
+					data[2*k+1] *= mask[k];
+				}
+			}
+		});
+	}
+
+	// multiply element (i, j) of data by the complex number (mask[2*(j*width+i)], mask[2*(j*width+i)+1])
+	public static void multiplyByComplexMask(double data[], int width, int height, double mask[])
+	{
+		multiplyByComplexMask(data, width, mask, 0, width, 0, height);
+	}
+	
+	// the same, but only for the elements (i, j) with iMin <= i < iMax and jMin <= j < jMax
+	public static void multiplyByComplexMask(final double data[], final int width, final double mask[], final int iMin, final int iMax, int jMin, int jMax)
+	{
+		processRowBands(iMax - iMin, jMin, jMax, new RowBandWorker()
+		{
+			public void processRows(int jMin, int jMax)
+			{
+				for(int j=jMin; j<jMax; j++)
+				{
+					for(int index=2*(j*width + iMin); index<2*(j*width + iMax); index+=2)
+					{
+						double
+							re = data[index],
+							im = data[index+1];
+						
+						data[index] = re*mask[index] - im*mask[index+1];
+						data[index+1] = re*mask[index+1] + im*mask[index];
+					}
+				}
+			}
+		});
+	}
+	
+	// multiply element (i, j) of data by the real number xMask[i]*yMask[j]
+	public static void multiplyBySeparableMask(final double data[], final double xMask[], final double yMask[])
+	{
+		final int width = xMask.length;
+		
+		processRowBands(width, yMask.length, new RowBandWorker()
+		{
+			public void processRows(int jMin, int jMax)
+			{
+				for(int j=jMin; j<jMax; j++)
+				{
+					int index = 2*j*width;
+					
+					for(int i=0; i<width; i++, index+=2)
+					{
+						double t = xMask[i] * yMask[j];
+						data[index] *= t;
+						data[index+1] *= t;
+					}
+				}
+			}
+		});
+	}
+}
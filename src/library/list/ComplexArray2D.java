@@ -6,8 +6,7 @@ package library.list;
 
 import java.awt.*;
 import java.io.*;
-
-import javawaveoptics.utility.MathsUtilities;
+import java.util.concurrent.atomic.*;
 
 import library.maths.*;
 import library.util.*;
@@ -30,6 +29,11 @@ implements Serializable
 	// as one proceeds along data.  This is equivalent to storing the array by rows.
 	protected double data[];
 	
+	// the number of times the data have been changed; anything calculated from the data
+	// (see e.g. ComplexField2D.getStatistics) remains valid for as long as this stays the same;
+	// atomic, as the data can be changed by one thread while another one (e.g. a plot) checks it
+	private transient AtomicLong modificationCount = new AtomicLong();
+	
 	// this constructor simply reserves space for <width> * <height> complex numbers, which
 	// can be given values using the method setElement(int i, int j, Complex c)
 	public ComplexArray2D(int width, int height)
@@ -94,14 +98,16 @@ implements Serializable
 	}
 
 	public void setWidth(int width) {
-		// Plot width must be a power of 2 due to the FFT algorithm used
-		if(MathsUtilities.isPowerOfTwo(width))
+		// any positive width can be Fourier transformed (see FFT2D), but widths whose only prime
+		// factors are 2, 3 and 5 are fastest
+		if(width > 0)
 		{
 			this.width = width;
+			dataChanged();
 		}
 		else
 		{
-			throw new NumberFormatException("Width must be a power of 2");
+			throw new NumberFormatException("Width must be positive");
 		}
 	}
 
@@ -110,22 +116,32 @@ implements Serializable
 	}
 
 	public void setHeight(int height) {
-		// Plot height must be a power of 2 due to the FFT algorithm used
-		if(MathsUtilities.isPowerOfTwo(height))
+		// see setWidth
+		if(height > 0)
 		{
 			this.height = height;
+			dataChanged();
 		}
 		else
 		{
-			throw new NumberFormatException("Height must be a power of 2");
+			throw new NumberFormatException("Height must be positive");
 		}
 	}
 
+	// the caller can change the data directly, so they have to be considered changed
 	public double[] getData() {
+		zerosMayHaveChanged();
+		return data;
+	}
+
+	// the data, for reading only:  the caller must not change them (see getData), and they
+	// are therefore not considered changed
+	public double[] getDataForReading() {
 		return data;
 	}
 
 	public void setData(double[] data) {
+		zerosMayHaveChanged();
 		this.data = data;
 	}
 
@@ -146,6 +162,24 @@ implements Serializable
 	{
 		return 2 * (j*width + i) + 1;
 	}
+	
+	public long getModificationCount() {
+		return modificationCount.get();
+	}
+	
+	// Called by all methods that change the data.
+	protected void dataChanged()
+	{
+		modificationCount.incrementAndGet();
+	}
+	
+	// Called (instead of dataChanged) by all methods that can make zero elements non-zero, i.e.
+	// all methods that change the data other than by multiplying elements; subclasses that keep
+	// track of which elements are zero (see LightBeamCrossSection2D) override it.
+	protected void zerosMayHaveChanged()
+	{
+		dataChanged();
+	}
 
 
 	////////////////////////////////////////////////////
@@ -179,6 +213,7 @@ implements Serializable
 	
 	public void setElement(int i, int j, Complex c)
 	{
+		zerosMayHaveChanged();
 		data[getIndexRe(i, j)] = c.re;
 		data[getIndexIm(i, j)] = c.im;
 	}
@@ -186,6 +221,7 @@ implements Serializable
 	// zero imaginary part
 	public void setElement(int i, int j, double re)
 	{
+		zerosMayHaveChanged();
 		data[getIndexRe(i, j)] = re;
 		data[getIndexIm(i, j)] = 0.0;
 	}
@@ -193,6 +229,7 @@ implements Serializable
 	// real and imaginary parts given
 	public void setElement(int i, int j, double re, double im)
 	{
+		zerosMayHaveChanged();
 		data[getIndexRe(i, j)] = re;
 		data[getIndexIm(i, j)] = im;
 	}
@@ -249,6 +286,15 @@ implements Serializable
 	{
 		if(getSize().equals(listToAdd.getSize()))
 		{
+			zerosMayHaveChanged();
+			
+			if(listToAdd instanceof ComplexArray2D)
+			{
+				// same data layout; use the fast kernel
+				ComplexKernels.add(data, ((ComplexArray2D)listToAdd).data);
+				return;
+			}
+			
 			for(int i = 0; i < width; i++)
 			{
 				for(int j = 0; j < height; j++)
@@ -275,6 +321,15 @@ implements Serializable
 	{
 		if(getSize().equals(listToSubtract.getSize()))
 		{
+			zerosMayHaveChanged();
+			
+			if(listToSubtract instanceof ComplexArray2D)
+			{
+				// same data layout; use the fast kernel
+				ComplexKernels.subtract(data, ((ComplexArray2D)listToSubtract).data);
+				return;
+			}
+			
 			for(int i = 0; i < width; i++)
 			{
 				for(int j = 0; j < height; j++)
@@ -301,6 +356,15 @@ implements Serializable
 	{
 		if(getSize().equals(listOfFactors.getSize()))
 		{
+			dataChanged();
+			
+			if(listOfFactors instanceof ComplexArray2D)
+			{
+				// same data layout; use the fast kernel
+				ComplexKernels.multiply(data, ((ComplexArray2D)listOfFactors).data);
+				return;
+			}
+			
 			for(int i = 0; i < width; i++)
 			{
 				for(int j = 0; j < height; j++)
@@ -319,6 +383,7 @@ implements Serializable
 	// addition of a complex number
 	public void addToElement(int i, int j, Complex a)
 	{
+		zerosMayHaveChanged();
 		data[getIndexRe(i, j)] += a.re;
 		data[getIndexIm(i, j)] += a.im;
 	}
@@ -334,6 +399,7 @@ implements Serializable
 	 */
 	public void subtractFromElement(int i, int j, Complex a)
 	{
+		zerosMayHaveChanged();
 		data[getIndexRe(i, j)] -= a.re;
 		data[getIndexIm(i, j)] -= a.im;
 	}
@@ -341,6 +407,7 @@ implements Serializable
 	// multiplication with a real number
 	public void multiplyElement(int i, int j, double f)
 	{
+		dataChanged();
 		data[getIndexRe(i, j)] *= f;
 		data[getIndexIm(i, j)] *= f;
 	}
@@ -348,6 +415,7 @@ implements Serializable
 	// multiplication with a complex number
 	public void multiplyElement(int i, int j, Complex f)
 	{
+		dataChanged();
 		double
 			re = data[getIndexRe(i, j)],
 			im = data[getIndexIm(i, j)];
@@ -363,19 +431,31 @@ implements Serializable
 	// multiply every element by f
 	public void multiply(double f)
 	{
-		for(int i=0; i<2*width*height; i++) data[i] *= f;
+		dataChanged();
+		ComplexKernels.scale(data, f);
 	}
 
 	// multiply every element by a complex factor f
 	public void multiply(Complex f)
 	{
-		for(int i = 0; i < width; i++)
-		{
-			for(int j = 0; j < height; j++)
-			{
-				multiplyElement(i, j, f);
-			}
-		}
+		dataChanged();
+		ComplexKernels.multiply(data, f.re, f.im);
+	}
+	
+	/**
+	 * Adds f times the elements of a to this array, element by element, i.e. this += f a.
+	 * 
+	 * @param a
+	 * @param f
+	 * @throws SizeMismatchError
+	 */
+	public void addMultiple(ComplexArray2D a, Complex f) throws SizeMismatchError
+	{
+		if((a.width != width) || (a.height != height))
+			throw new SizeMismatchError("ComplexArray2D::addMultiple: size mismatch");
+		
+		zerosMayHaveChanged();
+		ComplexKernels.multiplyAccumulate(data, a.data, f.re, f.im);
 	}
 
 	
@@ -385,21 +465,34 @@ implements Serializable
 	
 	public void FT(int isign)
 	{
-		// number of matrix elements in the two dimensions; for use by Fourier.Transform
-		int nn[] = {height, width};
-
-		// 1. Fourier transform the amplitude matrix
-		Fourier.transform(isign,	// +1 means do a Fourier transform, -1 an inverse FT
-			2,	// number of dimensions
-			nn,	// number of elements in those dimensions
+		zerosMayHaveChanged();
+		
+		// 1. Fourier transform the amplitude matrix, in the precision currently selected in FFT2D
+		FFT2D.transform(isign,	// +1 means do a Fourier transform, -1 an inverse FT
+			width, height,	// number of elements in the two dimensions
 			data );
 	}
 	
+	/**
+	 * Moves the element with index (0, 0) to the centre, i.e. to (width/2, height/2), rounded down,
+	 * as after a Fourier transform; undone by inverseSwapQuadrants.
+	 */
 	public void swapQuadrants()
 	{
+		zerosMayHaveChanged();
+		
 		int
 			width2 = width / 2,
 			height2 = height / 2;
+		
+		if((width % 2 != 0) || (height % 2 != 0))
+		{
+			// the quadrants are of different sizes, so they can't be swapped in place;
+			// shift the array cyclically by half its dimensions instead (which is the same
+			// thing for even dimensions)
+			shiftCyclically(width2, height2);
+			return;
+		}
 	
 		for(int x = 0; x < width2; x++)
 		{
@@ -418,6 +511,42 @@ implements Serializable
 		}
 	}
 	
+	/**
+	 * Moves the element at the centre, (width/2, height/2), rounded down, to index (0, 0), as before
+	 * a Fourier transform; the inverse of swapQuadrants, which is the same for even dimensions.
+	 */
+	public void inverseSwapQuadrants()
+	{
+		if((width % 2 != 0) || (height % 2 != 0))
+		{
+			zerosMayHaveChanged();
+			shiftCyclically(width - width/2, height - height/2);
+		}
+		else
+		{
+			swapQuadrants();
+		}
+	}
+	
+	// move element (x, y) to (x + shiftX, y + shiftY), cyclically
+	private void shiftCyclically(int shiftX, int shiftY)
+	{
+		double shifted[] = new double[data.length];
+		for(int y = 0; y < height; y++)
+		{
+			int shiftedY = (y + shiftY) % height;
+			for(int x = 0; x < width; x++)
+			{
+				int
+					k = 2*(y*width + x),
+					shiftedK = 2*(shiftedY*width + (x + shiftX) % width);
+				shifted[shiftedK] = data[k];
+				shifted[shiftedK+1] = data[k+1];
+			}
+		}
+		System.arraycopy(shifted, 0, data, 0, data.length);
+	}
+	
 	public void correctFFTPhase()
 	{
 		/*
@@ -543,4 +672,33 @@ implements Serializable
 		return phases;
 	}
 
+
+	///////////////////
+	// serialisation //
+	///////////////////
+	
+	// when written to a chunk file (see library.util.ChunkFile), the data go into
+	// a chunk of their own rather than into the object stream
+	private void writeObject(ObjectOutputStream out)
+	throws IOException
+	{
+		if(out instanceof ChunkObjectOutputStream)
+		{
+			ObjectOutputStream.PutField fields = out.putFields();
+			fields.put("width", width);
+			fields.put("height", height);
+			fields.put("data", null);
+			out.writeFields();
+			((ChunkObjectOutputStream)out).writeDoubleArray(data);
+		}
+		else out.defaultWriteObject();
+	}
+	
+	private void readObject(ObjectInputStream in)
+	throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		if(in instanceof ChunkObjectInputStream) data = ((ChunkObjectInputStream)in).readDoubleArray();
+		modificationCount = new AtomicLong();	// transient fields are not initialised when deserialising
+	}
 }
\ No newline at end of file
@@ -257,13 +257,21 @@ implements ComplexList2D
 	public static ComplexArray2D sum(ComplexList2D a, ComplexList2D b)
 	throws SizeMismatchError
 	{
-		if(a.getSize() != b.getSize())
+		if(!a.getSize().equals(b.getSize()))
 			throw(new SizeMismatchError("ComplexList2D size mismatch"));
 
 		int 
 			width = a.getSize().width,
 			height = a.getSize().height;
 		
+		if((a instanceof ComplexArray2D) && (b instanceof ComplexArray2D))
+		{
+			// same data layout; use the fast kernel
+			double cData[] = new double[2*width*height];
+			ComplexKernels.sum(((ComplexArray2D)a).getDataForReading(), ((ComplexArray2D)b).getDataForReading(), cData);
+			return new ComplexArray2D(width, height, cData);
+		}
+		
 		ComplexArray2D c = new ComplexArray2D(width, height);
 		
 		for(int i=0; i<width; i++)
@@ -277,13 +285,21 @@ implements ComplexList2D
 	public static ComplexArray2D difference(ComplexList2D a, ComplexList2D b)
 	throws SizeMismatchError
 	{
-		if(a.getSize() != b.getSize())
+		if(!a.getSize().equals(b.getSize()))
 			throw(new SizeMismatchError("ComplexList2D size mismatch"));
 
 		int 
 			width = a.getSize().width,
 			height = a.getSize().height;
 		
+		if((a instanceof ComplexArray2D) && (b instanceof ComplexArray2D))
+		{
+			// same data layout; use the fast kernel
+			double cData[] = new double[2*width*height];
+			ComplexKernels.difference(((ComplexArray2D)a).getDataForReading(), ((ComplexArray2D)b).getDataForReading(), cData);
+			return new ComplexArray2D(width, height, cData);
+		}
+		
 		ComplexArray2D c = new ComplexArray2D(width, height);
 		
 		for(int i=0; i<width; i++)
@@ -297,13 +313,21 @@ implements ComplexList2D
 	public static ComplexArray2D product(ComplexList2D a, ComplexList2D b)
 	throws SizeMismatchError
 	{
-		if(a.getSize() != b.getSize())
+		if(!a.getSize().equals(b.getSize()))
 			throw(new SizeMismatchError("ComplexList2D size mismatch"));
 
 		int 
 			width = a.getSize().width,
 			height = a.getSize().height;
 		
+		if((a instanceof ComplexArray2D) && (b instanceof ComplexArray2D))
+		{
+			// same data layout; use the fast kernel
+			double cData[] = new double[2*width*height];
+			ComplexKernels.product(((ComplexArray2D)a).getDataForReading(), ((ComplexArray2D)b).getDataForReading(), cData);
+			return new ComplexArray2D(width, height, cData);
+		}
+		
 		ComplexArray2D c = new ComplexArray2D(width, height);
 		
 		for(int i=0; i<width; i++)
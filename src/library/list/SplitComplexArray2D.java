@@ -0,0 +1,334 @@
+/* */
+
+
+package library.list;
+
+
+import java.awt.*;
+import java.io.*;
+
+import library.maths.*;
+import library.util.*;
+
+
+// A SplitComplexArray2D stores the real and imaginary parts of its elements in two
+// separate arrays ("structure of arrays"), rather than interleaved in one array like
+// a ComplexArray2D.  Each of the arrays stores the data by rows, i.e. element (i, j)
+// is at index j*width+i.
+// The element-by-element arithmetic below then consists of simple loops over
+// consecutive doubles, which the JIT compiler can turn into SIMD instructions.
+// Fourier.transform needs the interleaved layout, so FT(isign) converts to the
+// interleaved layout and back; this only pays off if a sufficient number of
+// element-by-element operations is done between Fourier transforms
+// (see SplitComplexArray2DBenchmark).
+
+public class SplitComplexArray2D extends ComplexList2DClass
+implements Serializable
+{
+	private static final long serialVersionUID = 6410582327364907561L;
+
+	protected int width, height;
+	
+	// real and imaginary parts, stored by rows
+	protected double re[], im[];
+	
+	// this constructor reserves space for <width> * <height> complex numbers, all zero
+	public SplitComplexArray2D(int width, int height)
+	{
+		this.width = width;
+		this.height = height;
+		
+		re = new double[width*height];
+		im = new double[width*height];
+	}
+	
+	public SplitComplexArray2D(Dimension size)
+	{
+		this(size.width, size.height);
+	}
+
+	// this constructor COPIES the SplitComplexArray2D a
+	public SplitComplexArray2D(SplitComplexArray2D a)
+	{
+		this(a.width, a.height);
+		
+		System.arraycopy(a.re, 0, re, 0, re.length);
+		System.arraycopy(a.im, 0, im, 0, im.length);
+	}
+	
+	// this constructor COPIES the ComplexArray2D a, converting it into split storage
+	public SplitComplexArray2D(ComplexArray2D a)
+	{
+		this(a.getWidth(), a.getHeight());
+		
+		fromInterleaved(a.getDataForReading());
+	}
+	
+	// this constructor COPIES the ComplexList2D d
+	public SplitComplexArray2D(ComplexList2D d)
+	{
+		this(d.getSize());
+		
+		for(int j=0; j<height; j++)
+			for(int i=0; i<width; i++)
+			{
+				re[j*width+i] = d.getElementRe(i, j);
+				im[j*width+i] = d.getElementIm(i, j);
+			}
+	}
+	
+	
+	/////////////////////////
+	// setters and getters //
+	/////////////////////////
+	
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public double[] getRealParts() {
+		return re;
+	}
+
+	public double[] getImaginaryParts() {
+		return im;
+	}
+	
+	
+	///////////////////////////////////////////
+	// conversion to and from ComplexArray2D //
+	///////////////////////////////////////////
+	
+	// set the elements from the interleaved array data (laid out like ComplexArray2D.data)
+	public void fromInterleaved(double data[])
+	throws SizeMismatchError
+	{
+		if(data.length != 2*re.length)
+			throw new SizeMismatchError("SplitComplexArray2D::fromInterleaved: size mismatch");
+		
+		for(int k=0; k<re.length; k++)
+		{
+			re[k] = data[2*k];
+			im[k] = data[2*k+1];
+		}
+	}
+
+	// write the elements into the interleaved array data (laid out like ComplexArray2D.data)
+	public void toInterleaved(double data[])
+	throws SizeMismatchError
+	{
+		if(data.length != 2*re.length)
+			throw new SizeMismatchError("SplitComplexArray2D::toInterleaved: size mismatch");
+		
+		for(int k=0; k<re.length; k++)
+		{
+			data[2*k] = re[k];
+			data[2*k+1] = im[k];
+		}
+	}
+	
+	// return a ComplexArray2D (with interleaved storage) that contains a copy of the elements
+	public ComplexArray2D toComplexArray2D()
+	{
+		ComplexArray2D a = new ComplexArray2D(width, height, new double[2*width*height]);
+		
+		toInterleaved(a.getData());
+		
+		return a;
+	}
+	
+	
+	///////////////////////////
+	// ComplexList2D methods //
+	///////////////////////////
+	
+	public Dimension getSize()
+	{
+		return new Dimension(width, height);
+	}
+
+	public Complex getElement(int i, int j)
+	{
+		return new Complex(re[j*width+i], im[j*width+i]);
+	}
+
+	public double getElementRe(int i, int j)
+	{
+		return re[j*width+i];
+	}
+
+	public double getElementIm(int i, int j)
+	{
+		return im[j*width+i];
+	}
+	
+	
+	//////////////////
+	// setting data //
+	//////////////////
+	
+	public void setElement(int i, int j, Complex c)
+	{
+		re[j*width+i] = c.re;
+		im[j*width+i] = c.im;
+	}
+	
+	public void setElement(int i, int j, double re, double im)
+	{
+		this.re[j*width+i] = re;
+		this.im[j*width+i] = im;
+	}
+	
+	
+	///////////////////////////////////
+	// element-by-element arithmetic //
+	///////////////////////////////////
+	
+	private void checkSize(SplitComplexArray2D a, String methodName)
+	throws SizeMismatchError
+	{
+		if((a.width != width) || (a.height != height))
+			throw new SizeMismatchError("SplitComplexArray2D::" + methodName + ": size mismatch");
+	}
+	
+	// add a to this, element by element
+	public void add(SplitComplexArray2D a)
+	throws SizeMismatchError
+	{
+		checkSize(a, "add");
+		
+		double aRe[] = a.re, aIm[] = a.im;
+		for(int k=0; k<re.length; k++)
+		{
+			re[k] += aRe[k];
+			im[k] += aIm[k];
+		}
+	}
+
+	// subtract a from this, element by element
+	public void subtract(SplitComplexArray2D a)
+	throws SizeMismatchError
+	{
+		checkSize(a, "subtract");
+		
+		double aRe[] = a.re, aIm[] = a.im;
+		for(int k=0; k<re.length; k++)
+		{
+			re[k] -= aRe[k];
+			im[k] -= aIm[k];
+		}
+	}
+
+	// multiply this by a, element by element
+	public void multiply(SplitComplexArray2D a)
+	throws SizeMismatchError
+	{
+		checkSize(a, "multiply");
+		
+		double aRe[] = a.re, aIm[] = a.im;
+		for(int k=0; k<re.length; k++)
+		{
+			double
+				r = re[k],
+				m = im[k];
+			
+			re[k] = r*aRe[k] - m*aIm[k];
+			im[k] = r*aIm[k] + m*aRe[k];
+		}
+	}
+	
+	// multiply every element by f
+	public void multiply(double f)
+	{
+		for(int k=0; k<re.length; k++)
+		{
+			re[k] *= f;
+			im[k] *= f;
+		}
+	}
+	
+	// multiply every element by a complex factor f
+	public void multiply(Complex f)
+	{
+		double fRe = f.re, fIm = f.im;
+		for(int k=0; k<re.length; k++)
+		{
+			double
+				r = re[k],
+				m = im[k];
+			
+			re[k] = r*fRe - m*fIm;
+			im[k] = r*fIm + m*fRe;
+		}
+	}
+	
+	// multiply element (i, j) by the real number mask[j*width+i]
+	public void multiplyByMask(double mask[])
+	throws SizeMismatchError
+	{
+		if(mask.length != re.length)
+			throw new SizeMismatchError("SplitComplexArray2D::multiplyByMask: size mismatch");
+
+		for(int k=0; k<re.length; k++)
+		{
+			re[k] *= mask[k];
+			im[k] *= mask[k];
+		}
+	}
+	
+	// multiply element (i, j) by the phase factor (cosPhase[j*width+i] + i sinPhase[j*width+i]);
+	// the cos and sin of the phase mask are precalculated so that they can be re-used
+	public void multiplyByPhaseMask(double cosPhase[], double sinPhase[])
+	throws SizeMismatchError
+	{
+		if((cosPhase.length != re.length) || (sinPhase.length != re.length))
+			throw new SizeMismatchError("SplitComplexArray2D::multiplyByPhaseMask: size mismatch");
+
+		for(int k=0; k<re.length; k++)
+		{
+			double
+				r = re[k],
+				m = im[k];
+			
+			re[k] = r*cosPhase[k] - m*sinPhase[k];
+			im[k] = r*sinPhase[k] + m*cosPhase[k];
+		}
+	}
+	
+	// the sum of the absolute squares of all elements
+	public double getSumOfAbsSqr()
+	{
+		double sum = 0;
+		
+		for(int k=0; k<re.length; k++) sum += re[k]*re[k] + im[k]*im[k];
+		
+		return sum;
+	}
+
+	
+	///////////////////////
+	// Fourier Transform //
+	///////////////////////
+	
+	// Fourier.transform requires interleaved data, so the data are converted into the
+	// interleaved layout, transformed, and converted back
+	public void FT(int isign)
+	{
+		double data[] = new double[2*re.length];
+		toInterleaved(data);
+		
+		// number of matrix elements in the two dimensions; for use by Fourier.Transform
+		int nn[] = {height, width};
+
+		Fourier.transform(isign,	// +1 means do a Fourier transform, -1 an inverse FT
+			2,	// number of dimensions
+			nn,	// number of elements in those dimensions
+			data );
+		
+		fromInterleaved(data);
+	}
+}
@@ -0,0 +1,214 @@
+/* */
+
+
+package library.list;
+
+
+import library.maths.*;
+
+
+////////////////////////////////////////////////////////////////
+// benchmark interleaved (ComplexArray2D) vs split            //
+// (SplitComplexArray2D) storage of complex arrays             //
+////////////////////////////////////////////////////////////////
+
+// For a number of array sizes, this times element-by-element operations on
+// interleaved and on split arrays, and the conversion between the two layouts
+// (which is needed at every Fourier transform, as Fourier.transform requires the
+// interleaved layout).  From this it calculates the break-even point, i.e. the
+// number of element-by-element operations between Fourier transforms above which
+// split storage is faster overall.
+//
+// Run with
+//   java library.list.SplitComplexArray2DBenchmark [minimum size] [maximum size]
+// where the sizes are the side lengths of square arrays (powers of 2).
+
+public class SplitComplexArray2DBenchmark
+{
+	// the time each measurement should take approximately, in nanoseconds
+	private static final long MEASUREMENT_TIME = 200000000l;
+	
+	// each measurement is repeated this many times, and the fastest result is used
+	private static final int REPEATS = 5;
+	
+	
+	//
+	// the operations being timed
+	//
+	
+	private static abstract class Operation
+	{
+		public abstract void run();
+	}
+	
+	// the time one call of op.run() takes, in nanoseconds
+	private static double time(Operation op)
+	{
+		// warm up, and find out roughly how long one run takes
+		long start = System.nanoTime();
+		int runs = 0;
+		do
+		{
+			op.run();
+			runs++;
+		}
+		while(System.nanoTime() - start < MEASUREMENT_TIME / 10);
+		int runsPerMeasurement = Math.max(1, (int)(runs * 10l * MEASUREMENT_TIME / REPEATS / (System.nanoTime() - start) / 10));
+		
+		double best = Double.MAX_VALUE;
+		for(int r=0; r<REPEATS; r++)
+		{
+			start = System.nanoTime();
+			for(int n=0; n<runsPerMeasurement; n++) op.run();
+			best = Math.min(best, (System.nanoTime() - start) / (double)runsPerMeasurement);
+		}
+		
+		return best;
+	}
+	
+	
+	//
+	// interleaved versions of the element-by-element operations, written as
+	// tight loops (i.e. the best case for the interleaved layout)
+	//
+	
+	private static void multiplyInterleaved(double data[], double factors[])
+	{
+		for(int k=0; k<data.length; k+=2)
+		{
+			double
+				re = data[k],
+				im = data[k+1];
+			
+			data[k] = re*factors[k] - im*factors[k+1];
+			data[k+1] = re*factors[k+1] + im*factors[k];
+		}
+	}
+	
+	private static void addInterleaved(double data[], double summands[])
+	{
+		for(int k=0; k<data.length; k++) data[k] += summands[k];
+	}
+	
+	private static void multiplyByPhaseMaskInterleaved(double data[], double cosPhase[], double sinPhase[])
+	{
+		for(int k=0; k<cosPhase.length; k++)
+		{
+			double
+				re = data[2*k],
+				im = data[2*k+1];
+			
+			data[2*k] = re*cosPhase[k] - im*sinPhase[k];
+			data[2*k+1] = re*sinPhase[k] + im*cosPhase[k];
+		}
+	}
+	
+	
+	//
+	// the benchmark
+	//
+	
+	private static double[] randomArray(int length)
+	{
+		double a[] = new double[length];
+		
+		// keep the values of order 1 so that repeated multiplications don't under- or overflow
+		for(int k=0; k<length; k++) a[k] = 0.5*Math.sin(1.7*k) + 0.5*Math.cos(0.3*k*k);
+		
+		return a;
+	}
+	
+	// the break-even number of operations per FFT
+	private static String breakEven(double conversionTime, double interleavedTime, double splitTime)
+	{
+		if(splitTime >= interleavedTime) return "no break-even (split storage is not faster)";
+		
+		return "break-even after " + (int)Math.ceil(conversionTime / (interleavedTime - splitTime)) + " operations per FFT";
+	}
+	
+	public static void benchmark(int size)
+	{
+		final int n = size*size;
+		
+		// unit-modulus factors, so that repeated multiplications keep the values finite
+		final double cosPhase[] = new double[n], sinPhase[] = new double[n];
+		double phase[] = randomArray(n);
+		for(int k=0; k<n; k++)
+		{
+			cosPhase[k] = Math.cos(phase[k]);
+			sinPhase[k] = Math.sin(phase[k]);
+		}
+		
+		final double interleaved[] = randomArray(2*n);
+		final double interleavedFactors[] = new double[2*n];
+		for(int k=0; k<n; k++)
+		{
+			interleavedFactors[2*k] = cosPhase[k];
+			interleavedFactors[2*k+1] = sinPhase[k];
+		}
+		
+		final SplitComplexArray2D split = new SplitComplexArray2D(size, size);
+		split.fromInterleaved(interleaved);
+		final SplitComplexArray2D splitFactors = new SplitComplexArray2D(size, size);
+		splitFactors.fromInterleaved(interleavedFactors);
+		
+		// the summands are the factors; adding alternately with +1 and -1 keeps the values bounded
+		final ComplexArray2D interleavedArray = new ComplexArray2D(size, size, interleaved);
+		
+		double tMultiplyInterleaved = time(new Operation() {
+			public void run() { multiplyInterleaved(interleaved, interleavedFactors); }
+		});
+		double tMultiplySplit = time(new Operation() {
+			public void run() { split.multiply(splitFactors); }
+		});
+		double tAddInterleaved = time(new Operation() {
+			public void run() { addInterleaved(interleaved, interleavedFactors); interleavedArray.multiply(0.5); }
+		});
+		double tAddSplit = time(new Operation() {
+			public void run() { split.add(splitFactors); split.multiply(0.5); }
+		});
+		double tPhaseMaskInterleaved = time(new Operation() {
+			public void run() { multiplyByPhaseMaskInterleaved(interleaved, cosPhase, sinPhase); }
+		});
+		double tPhaseMaskSplit = time(new Operation() {
+			public void run() { split.multiplyByPhaseMask(cosPhase, sinPhase); }
+		});
+		double tConversion = time(new Operation() {
+			public void run() { split.toInterleaved(interleaved); split.fromInterleaved(interleaved); }
+		});
+		double tFFT = time(new Operation() {
+			public void run() { interleavedArray.FT(+1); interleavedArray.multiply(1./size); }
+		});
+		
+		System.out.println(
+				size + "x" + size + ":\n" +
+				"  FFT (interleaved)                                " + format(tFFT) + "\n" +
+				"  conversion interleaved -> split -> interleaved   " + format(tConversion) + "\n" +
+				"  product         interleaved " + format(tMultiplyInterleaved) + ", split " + format(tMultiplySplit) +
+					", " + breakEven(tConversion, tMultiplyInterleaved, tMultiplySplit) + "\n" +
+				"  sum (and scale) interleaved " + format(tAddInterleaved) + ", split " + format(tAddSplit) +
+					", " + breakEven(tConversion, tAddInterleaved, tAddSplit) + "\n" +
+				"  phase mask      interleaved " + format(tPhaseMaskInterleaved) + ", split " + format(tPhaseMaskSplit) +
+					", " + breakEven(tConversion, tPhaseMaskInterleaved, tPhaseMaskSplit)
+			);
+	}
+	
+	private static String format(double nanoseconds)
+	{
+		return String.format("%9.3f ms", nanoseconds * 1e-6);
+	}
+	
+	public static void main(String args[])
+	{
+		int
+			minSize = (args.length > 0)?Integer.parseInt(args[0]):64,
+			maxSize = (args.length > 1)?Integer.parseInt(args[1]):2048;
+		
+		System.out.println("*** SplitComplexArray2DBenchmark ***");
+		
+		for(int size = minSize; size <= maxSize; size *= 2)
+		{
+			benchmark(size);
+		}
+	}
+}
@@ -0,0 +1,291 @@
+/* */
+
+
+package library.maths;
+
+
+import library.util.*;
+
+
+// Element-by-element arithmetic on arrays of complex numbers stored in the interleaved
+// layout used by ComplexArray2D and Fourier.transform, i.e. the real and imaginary parts
+// of element k are a[2*k] and a[2*k+1].
+// All the hot non-FFT loops of the simulation (propagation phase factors, absorbing
+// boundaries, beam-splitter and mirror combinations, sums and products of arrays,
+// powers and intensities) go through these methods, so that they are written -- and
+// can be optimised -- in one place.
+// The loops are kept as simple counted loops over the arrays, without any objects
+// being created, so that the JIT compiler can unroll and (where possible) vectorise them.
+// The JIT compiler doesn't vectorise the complex products, as they mix the real and
+// imaginary parts of each element, so for those there are explicit SIMD versions,
+// written with the Java Vector API (see VectorAPIComplexKernels, in the source folder
+// src-vector).  They are used if they have been compiled and the jdk.incubator.vector
+// module is present at run time, which is checked once, when this class is loaded;
+// otherwise the scalar loops are used.  Both give exactly the same results.
+
+public class ComplexKernels
+{
+	// SIMD versions of some of the kernels; each processes the elements up to the
+	// index it returns (a multiple of its vector length), and leaves the rest to the
+	// scalar loop
+	public interface Vectorised
+	{
+		public int multiply(double a[], double fRe, double fIm);
+		public int multiply(double a[], double b[]);
+		public int multiply(double a[], double b[], double f);
+		public int product(double a[], double b[], double c[]);
+		public int multiplyAccumulate(double c[], double a[], double fRe, double fIm);
+		public int multiplyAccumulate(double c[], double a[], double b[]);
+		public double maxAbsSqr(double a[]);
+	}
+	
+	// the SIMD kernels, or null if they are not available
+	private static final Vectorised vectorised = loadVectorised();
+	
+	private static Vectorised loadVectorised()
+	{
+		try
+		{
+			Vectorised v = (Vectorised)Class.forName("library.maths.VectorAPIComplexKernels").getDeclaredConstructor().newInstance();
+			
+			// check the SIMD product against the scalar formula
+			double a[] = new double[64], b[] = new double[64], c[] = new double[64];
+			for(int k=0; k<a.length; k++)
+			{
+				a[k] = Math.sin(k + 1);
+				b[k] = Math.cos(3*k);
+			}
+			int kMax = v.product(a, b, c);
+			if(kMax == 0) return null;
+			for(int k=0; k<kMax; k+=2)
+			{
+				if((c[k] != a[k]*b[k] - a[k+1]*b[k+1]) || (c[k+1] != a[k]*b[k+1] + a[k+1]*b[k]))
+					return null;
+			}
+			
+			return v;
+		}
+		catch(Throwable t)
+		{
+			// not compiled (ClassNotFoundException), or the jdk.incubator.vector module is missing (NoClassDefFoundError)
+			return null;
+		}
+	}
+	
+	// are the SIMD kernels being used?
+	public static boolean isVectorised()
+	{
+		return (vectorised != null);
+	}
+	
+	private static void checkLengths(double a[], double b[], String methodName)
+	{
+		if(a.length != b.length)
+			throw new SizeMismatchError("ComplexKernels::" + methodName + ": size mismatch");
+	}
+	
+	
+	//////////////////////////
+	// sums and differences //
+	//////////////////////////
+	
+	// a += b
+	public static void add(double a[], double b[])
+	{
+		checkLengths(a, b, "add");
+		
+		for(int k=0; k<a.length; k++) a[k] += b[k];
+	}
+
+	// a -= b
+	public static void subtract(double a[], double b[])
+	{
+		checkLengths(a, b, "subtract");
+		
+		for(int k=0; k<a.length; k++) a[k] -= b[k];
+	}
+	
+	// c = a + b
+	public static void sum(double a[], double b[], double c[])
+	{
+		checkLengths(a, b, "sum");
+		checkLengths(a, c, "sum");
+		
+		for(int k=0; k<a.length; k++) c[k] = a[k] + b[k];
+	}
+
+	// c = a - b
+	public static void difference(double a[], double b[], double c[])
+	{
+		checkLengths(a, b, "difference");
+		checkLengths(a, c, "difference");
+		
+		for(int k=0; k<a.length; k++) c[k] = a[k] - b[k];
+	}
+	
+	
+	//////////////
+	// products //
+	//////////////
+	
+	// a *= f, for real f
+	public static void scale(double a[], double f)
+	{
+		for(int k=0; k<a.length; k++) a[k] *= f;
+	}
+
+	// a *= (fRe + i fIm)
+	public static void multiply(double a[], double fRe, double fIm)
+	{
+		int kMin = (vectorised == null)?0:vectorised.multiply(a, fRe, fIm);
+		
+		for(int k=kMin; k<a.length; k+=2)
+		{
+			double
+				re = a[k],
+				im = a[k+1];
+			
+			a[k] = re*fRe - im*fIm;
+			a[k+1] = re*fIm + im*fRe;
+		}
+	}
+
+	// a *= b, element by element
+	public static void multiply(double a[], double b[])
+	{
+		checkLengths(a, b, "multiply");
+		
+		int kMin = (vectorised == null)?0:vectorised.multiply(a, b);
+		
+		for(int k=kMin; k<a.length; k+=2)
+		{
+			double
+				re = a[k],
+				im = a[k+1];
+			
+			a[k] = re*b[k] - im*b[k+1];
+			a[k+1] = re*b[k+1] + im*b[k];
+		}
+	}
+
+	// a = f * (a * b), element by element, for real f
+	public static void multiply(double a[], double b[], double f)
+	{
+		checkLengths(a, b, "multiply");
+		
+		int kMin = (vectorised == null)?0:vectorised.multiply(a, b, f);
+		
+		for(int k=kMin; k<a.length; k+=2)
+		{
+			double
+				re = a[k],
+				im = a[k+1];
+			
+			a[k] = f * (re*b[k] - im*b[k+1]);
+			a[k+1] = f * (re*b[k+1] + im*b[k]);
+		}
+	}
+	
+	// c = a * b, element by element
+	public static void product(double a[], double b[], double c[])
+	{
+		checkLengths(a, b, "product");
+		checkLengths(a, c, "product");
+		
+		int kMin = (vectorised == null)?0:vectorised.product(a, b, c);
+		
+		for(int k=kMin; k<a.length; k+=2)
+		{
+			double
+				re = a[k],
+				im = a[k+1];
+			
+			c[k] = re*b[k] - im*b[k+1];
+			c[k+1] = re*b[k+1] + im*b[k];
+		}
+	}
+	
+	
+	/////////////////////////////
+	// multiply and accumulate //
+	/////////////////////////////
+	
+	// c += (fRe + i fIm) * a
+	public static void multiplyAccumulate(double c[], double a[], double fRe, double fIm)
+	{
+		checkLengths(a, c, "multiplyAccumulate");
+		
+		int kMin = (vectorised == null)?0:vectorised.multiplyAccumulate(c, a, fRe, fIm);
+		
+		for(int k=kMin; k<a.length; k+=2)
+		{
+			double
+				re = a[k],
+				im = a[k+1];
+			
+			c[k] += re*fRe - im*fIm;
+			c[k+1] += re*fIm + im*fRe;
+		}
+	}
+
+	// c += a * b, element by element
+	public static void multiplyAccumulate(double c[], double a[], double b[])
+	{
+		checkLengths(a, b, "multiplyAccumulate");
+		checkLengths(a, c, "multiplyAccumulate");
+		
+		int kMin = (vectorised == null)?0:vectorised.multiplyAccumulate(c, a, b);
+		
+		for(int k=kMin; k<a.length; k+=2)
+		{
+			double
+				re = a[k],
+				im = a[k+1];
+			
+			c[k] += re*b[k] - im*b[k+1];
+			c[k+1] += re*b[k+1] + im*b[k];
+		}
+	}
+	
+	
+	/////////////////////////////
+	// absolute values squared //
+	/////////////////////////////
+	
+	// absSqr[k] = |a_k|^2; absSqr has half the length of a
+	public static void absSqr(double a[], double absSqr[])
+	{
+		if(a.length != 2*absSqr.length)
+			throw new SizeMismatchError("ComplexKernels::absSqr: size mismatch");
+		
+		for(int k=0; k<absSqr.length; k++)
+			absSqr[k] = a[2*k]*a[2*k] + a[2*k+1]*a[2*k+1];
+	}
+	
+	// the sum of |a_k|^2, summed in the order of the elements
+	public static double sumAbsSqr(double a[])
+	{
+		double sum = 0;
+		
+		for(int k=0; k<a.length; k+=2)
+			sum += a[k]*a[k] + a[k+1]*a[k+1];
+		
+		return sum;
+	}
+
+	// the largest |a_k|^2 (or 0 if that is larger)
+	public static double maxAbsSqr(double a[])
+	{
+		if(vectorised != null) return vectorised.maxAbsSqr(a);
+		
+		double max = 0;
+		
+		for(int k=0; k<a.length; k+=2)
+		{
+			double absSqr = a[k]*a[k] + a[k+1]*a[k+1];
+			if(absSqr > max) max = absSqr;
+		}
+		
+		return max;
+	}
+}
@@ -0,0 +1,324 @@
+/* */
+
+
+package library.maths;
+
+
+import java.util.*;
+
+import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
+import edu.emory.mathcs.jtransforms.fft.FloatFFT_1D;
+
+import library.field.PixelKernelEngine;
+
+
+// Two-dimensional Fourier transforms of complex arrays stored like ComplexArray2D.data,
+// i.e. by rows, with the real and imaginary parts of each element in consecutive
+// locations, in the conventions of Fourier.transform:
+// isign = +1 replaces the data by sum_{k,l} data_{k,l} exp(+2 pi i (j k / height + i l / width)),
+// isign = -1 by the same sum with exp(-...); neither transform is normalised.
+//
+// The array dimensions can be any positive numbers; they are fastest if their only prime
+// factors are 2, 3 and 5.
+//
+// The precision of the calculation is set per thread, so that each simulation (e.g. that of
+// an optical environment, see GUI) can use its own; every thread starts in DOUBLE precision.
+// In either precision, the rows and then the columns are transformed by JTransforms' 1D
+// transformers (DoubleFFT_1D or FloatFFT_1D), in the same number of threads; the columns are
+// copied out of the array in small blocks.
+// SINGLE precision means float-rounded FFTs:  each row (or block of columns) is rounded to
+// floats when it is copied into a small work buffer, transformed by FloatFFT_1D, and converted
+// back afterwards.  The beams themselves, and all the other calculations on them, stay in double
+// precision, so this saves time, not memory, and the data are rounded to floats at every
+// Fourier transform.
+//
+// The pruned transform skips the rows that are known to be zero on input, whose transforms are
+// zero, so its result is exactly the same as that of the full transform.  Beams are usually
+// padded with a wide guard band of zeros, so this can save up to half of the work.
+
+public class FFT2D
+{
+	// the precision used by the current thread
+	private static final ThreadLocal<FFTPrecision> precision = new ThreadLocal<FFTPrecision>()
+	{
+		@Override
+		protected FFTPrecision initialValue()
+		{
+			return FFTPrecision.DOUBLE;
+		}
+	};
+	
+	// 1D transformers, one per length; they keep no work space, so they can be shared between threads
+	private static HashMap<Integer, DoubleFFT_1D> doubleFFT1Ds = new HashMap<Integer, DoubleFFT_1D>();
+	private static HashMap<Integer, FloatFFT_1D> floatFFT1Ds = new HashMap<Integer, FloatFFT_1D>();
+	
+	// the number of columns that are copied out of the array and transformed together
+	private static final int COLUMN_BLOCK_SIZE = 8;
+	
+	// the precision used by the current thread
+	public static FFTPrecision getPrecision()
+	{
+		return precision.get();
+	}
+
+	// set the precision used by the current thread
+	public static void setPrecision(FFTPrecision precision)
+	{
+		FFT2D.precision.set((precision == null)?FFTPrecision.DOUBLE:precision);
+	}
+	
+	// Fourier transform the width x height array data in the current thread's precision
+	public static void transform(int isign, int width, int height, double data[])
+	{
+		transform(isign, width, height, data, getPrecision());
+	}
+
+	// Fourier transform the width x height array data in the given precision
+	public static void transform(int isign, int width, int height, double data[], FFTPrecision precision)
+	{
+		if((width == 1) || (height == 1))
+		{
+			// a single row or column, which is always transformed in double precision
+			DoubleFFT_1D fft = getDoubleFFT1D(width * height);
+			
+			// see transformRows
+			if(isign > 0) fft.complexInverse(data, false);
+			else fft.complexForward(data);
+		}
+		else
+		{
+			transformRows(isign, width, height, data, 0, height, precision);
+			transformColumns(isign, width, height, data, 0, width, precision);
+		}
+	}
+	
+	public static boolean isPowerOf2(int n)
+	{
+		return (n > 0) && ((n & (n - 1)) == 0);
+	}
+	
+	
+	///////////////////////
+	// pruned transforms //
+	///////////////////////
+	
+	// Fourier transform, in the current thread's precision, the width x height array data, which is
+	// zero outside the rows jMin <= j < jMax; as transform starts with the rows, too, and the transforms
+	// of the rows that are zero are zero, the result is exactly the same as that of transform
+	public static void transformPrunedInput(int isign, int width, int height, double data[], int jMin, int jMax)
+	{
+		FFTPrecision precision = getPrecision();
+		
+		if((width == 1) || (height == 1))
+		{
+			transform(isign, width, height, data, precision);
+		}
+		else
+		{
+			transformRows(isign, width, height, data, jMin, jMax, precision);
+			transformColumns(isign, width, height, data, 0, width, precision);
+		}
+	}
+	
+	private static DoubleFFT_1D getDoubleFFT1D(int n)
+	{
+		synchronized(doubleFFT1Ds)
+		{
+			DoubleFFT_1D fft = doubleFFT1Ds.get(n);
+			if(fft == null)
+			{
+				fft = new DoubleFFT_1D(n);
+				doubleFFT1Ds.put(n, fft);
+			}
+			return fft;
+		}
+	}
+	
+	private static FloatFFT_1D getFloatFFT1D(int n)
+	{
+		synchronized(floatFFT1Ds)
+		{
+			FloatFFT_1D fft = floatFFT1Ds.get(n);
+			if(fft == null)
+			{
+				fft = new FloatFFT_1D(n);
+				floatFFT1Ds.put(n, fft);
+			}
+			return fft;
+		}
+	}
+	
+	// 1D transforms of the rows jMin <= j < jMax
+	private static void transformRows(final int isign, final int width, int height, final double data[], int jMin, int jMax, FFTPrecision precision)
+	{
+		if(precision == FFTPrecision.SINGLE)
+		{
+			final FloatFFT_1D fft = getFloatFFT1D(width);
+			
+			processInParallel(width, height, jMin, jMax, new RangeWorker()
+			{
+				public void process(int from, int to)
+				{
+					float row[] = new float[2*width];
+					
+					for(int j=from; j<to; j++)
+					{
+						int rowStart = 2*j*width;
+						for(int k=0; k<2*width; k++) row[k] = (float)data[rowStart + k];
+						
+						if(isign > 0) fft.complexInverse(row, false);
+						else fft.complexForward(row);
+						
+						for(int k=0; k<2*width; k++) data[rowStart + k] = row[k];
+					}
+				}
+			});
+		}
+		else
+		{
+			final DoubleFFT_1D fft = getDoubleFFT1D(width);
+			
+			processInParallel(width, height, jMin, jMax, new RangeWorker()
+			{
+				public void process(int from, int to)
+				{
+					for(int j=from; j<to; j++)
+					{
+						// JTransforms' forward transform uses exp(-...), so Fourier.transform's isign = +1
+						// corresponds to JTransforms' (unscaled) inverse transform
+						if(isign > 0) fft.complexInverse(data, 2*j*width, false);
+						else fft.complexForward(data, 2*j*width);
+					}
+				}
+			});
+		}
+	}
+	
+	// 1D transforms of the columns iMin <= i < iMax, which are copied out of the array in blocks
+	private static void transformColumns(final int isign, final int width, final int height, final double data[], int iMin, int iMax, FFTPrecision precision)
+	{
+		if(precision == FFTPrecision.SINGLE)
+		{
+			final FloatFFT_1D fft = getFloatFFT1D(height);
+			
+			processInParallel(width, height, iMin, iMax, new RangeWorker()
+			{
+				public void process(int from, int to)
+				{
+					float block[][] = new float[COLUMN_BLOCK_SIZE][2*height];
+					
+					for(int i0=from; i0<to; i0+=COLUMN_BLOCK_SIZE)
+					{
+						int n = Math.min(COLUMN_BLOCK_SIZE, to - i0);
+						
+						for(int j=0; j<height; j++)
+						{
+							int index = 2*(j*width + i0);
+							for(int b=0; b<n; b++, index+=2)
+							{
+								block[b][2*j] = (float)data[index];
+								block[b][2*j+1] = (float)data[index+1];
+							}
+						}
+						
+						for(int b=0; b<n; b++)
+						{
+							if(isign > 0) fft.complexInverse(block[b], false);
+							else fft.complexForward(block[b]);
+						}
+						
+						for(int j=0; j<height; j++)
+						{
+							int index = 2*(j*width + i0);
+							for(int b=0; b<n; b++, index+=2)
+							{
+								data[index] = block[b][2*j];
+								data[index+1] = block[b][2*j+1];
+							}
+						}
+					}
+				}
+			});
+		}
+		else
+		{
+			final DoubleFFT_1D fft = getDoubleFFT1D(height);
+			
+			processInParallel(width, height, iMin, iMax, new RangeWorker()
+			{
+				public void process(int from, int to)
+				{
+					double block[][] = new double[COLUMN_BLOCK_SIZE][2*height];
+					
+					for(int i0=from; i0<to; i0+=COLUMN_BLOCK_SIZE)
+					{
+						int n = Math.min(COLUMN_BLOCK_SIZE, to - i0);
+						
+						for(int j=0; j<height; j++)
+						{
+							int index = 2*(j*width + i0);
+							for(int b=0; b<n; b++, index+=2)
+							{
+								block[b][2*j] = data[index];
+								block[b][2*j+1] = data[index+1];
+							}
+						}
+						
+						for(int b=0; b<n; b++)
+						{
+							if(isign > 0) fft.complexInverse(block[b], false);
+							else fft.complexForward(block[b]);
+						}
+						
+						for(int j=0; j<height; j++)
+						{
+							int index = 2*(j*width + i0);
+							for(int b=0; b<n; b++, index+=2)
+							{
+								data[index] = block[b][2*j];
+								data[index+1] = block[b][2*j+1];
+							}
+						}
+					}
+				}
+			});
+		}
+	}
+	
+	// processes the rows or columns from <= k < to
+	private static abstract class RangeWorker
+	{
+		public abstract void process(int from, int to);
+	}
+	
+	// split the range from <= k < to into contiguous parts, one per thread worth using for a
+	// width x height array, and wait for all of them to be processed
+	private static void processInParallel(int width, int height, int from, int to, final RangeWorker worker)
+	{
+		int nthreads = Math.min(PixelKernelEngine.getNumberOfThreads(width, height), Math.max(1, to - from));
+		
+		if(nthreads == 1)
+		{
+			worker.process(from, to);
+			return;
+		}
+		
+		Thread[] threads = new Thread[nthreads];
+		for(int t=0; t<nthreads; t++)
+		{
+			final int
+				partFrom = from + (int)((long)(to - from)*t/nthreads),
+				partTo = from + (int)((long)(to - from)*(t+1)/nthreads);
+			
+			threads[t] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					worker.process(partFrom, partTo);
+				}
+			});
+			threads[t].start();
+		}
+		PixelKernelEngine.joinAll(threads);	// wait for all the parts to be processed
+	}
+}
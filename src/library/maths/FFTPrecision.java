@@ -0,0 +1,21 @@
+/* */
+
+
+package library.maths;
+
+
+// The precision in which FFT2D calculates Fourier transforms.  SINGLE means float-rounded
+// FFTs:  the data are always stored in double precision, and are rounded to floats only
+// for the duration of each transform (see FFT2D).  There are no single-precision beams or
+// kernels, so SINGLE saves time, but not memory.
+
+public enum FFTPrecision
+{
+	DOUBLE("Double-precision FFTs (64-bit)"),
+	SINGLE("Float-rounded FFTs (32-bit)");
+	
+	private String description;
+	private FFTPrecision(String description) {this.description = description;}	
+	@Override
+	public String toString() {return description;}
+}
@@ -0,0 +1,136 @@
+/* */
+
+
+package library.maths;
+
+
+import java.util.*;
+
+import edu.emory.mathcs.jtransforms.dct.DoubleDCT_1D;
+import edu.emory.mathcs.jtransforms.dct.DoubleDCT_2D;
+import edu.emory.mathcs.jtransforms.dst.DoubleDST_1D;
+import edu.emory.mathcs.jtransforms.dst.DoubleDST_2D;
+
+
+// Real-to-real transforms of one quadrant of a field that is even or odd about both axes.
+//
+// A field on a grid of 2M points in each direction, symmetric about the grid centre (which lies
+// between the two middle points, as in ComplexField2D), is determined by its values in one quadrant,
+// g_n = f(x_n), x_n = (n + 1/2) deltaX, n = 0 ... M-1.
+// Its discrete Fourier transform contains only the cosine terms cos(pi k (n + 1/2) / M), k = 0 ... M-1,
+// if it is even, and only the sine terms sin(pi k (n + 1/2) / M), k = 1 ... M, if it is odd, so it can be
+// calculated with a DCT-II or DST-II of length M, respectively, and transformed back with a DCT-III or
+// DST-III.  Element k of the transform of an even field, and element k-1 of that of an odd one, corresponds
+// to wave number 2 pi k / (2M deltaX).
+//
+// All transforms are orthonormal, so the inverse transform undoes the forward transform exactly, and
+// multiplying the transform by a function of the wave numbers between the two corresponds to a periodic
+// convolution of the full field, e.g. propagation.
+// The data are stored by rows (M_y rows of M_x elements), like ComplexArray2D.data, but are real; the real
+// and imaginary parts of a complex field are transformed separately.
+
+public class SymmetricTransform2D
+{
+	// JTransforms transformers, one per type and size; each one keeps work space, so
+	// it can only be used by one thread at a time
+	private static HashMap<String, Object> transformers = new HashMap<String, Object>();
+	
+	// replace data, which represent the quadrant of a field that is even (or odd) in x and even (or odd)
+	// in y, by its (orthonormal) DCT-II or DST-II in each direction
+	public static void forward(boolean evenInX, boolean evenInY, int width, int height, double data[])
+	{
+		transform(true, evenInX, evenInY, width, height, data);
+	}
+	
+	// the inverse of forward, i.e. the DCT-III or DST-III in each direction
+	public static void inverse(boolean evenInX, boolean evenInY, int width, int height, double data[])
+	{
+		transform(false, evenInX, evenInY, width, height, data);
+	}
+	
+	// the wave-number index, in units of 2 pi / (2M deltaX), of element i of the transform of an even (or odd) field
+	public static int getWaveNumberIndex(boolean even, int i)
+	{
+		return even?i:i+1;
+	}
+	
+	private static void transform(boolean forward, boolean evenInX, boolean evenInY, int width, int height, double data[])
+	{
+		if((evenInX == evenInY) && (width > 1) && (height > 1))
+		{
+			// the same transform in both directions, which JTransforms does in one go
+			if(evenInX)
+			{
+				DoubleDCT_2D dct = (DoubleDCT_2D)getTransformer("DCT", width, height);
+				synchronized(dct)
+				{
+					if(forward) dct.forward(data, true);
+					else dct.inverse(data, true);
+				}
+			}
+			else
+			{
+				DoubleDST_2D dst = (DoubleDST_2D)getTransformer("DST", width, height);
+				synchronized(dst)
+				{
+					if(forward) dst.forward(data, true);
+					else dst.inverse(data, true);
+				}
+			}
+			return;
+		}
+		
+		// different transforms in x and y; transform the rows, then the columns
+		for(int j=0; j<height; j++)
+		{
+			transform1D(forward, evenInX, width, data, j*width);
+		}
+		
+		double column[] = new double[height];
+		for(int i=0; i<width; i++)
+		{
+			for(int j=0; j<height; j++) column[j] = data[j*width+i];
+			transform1D(forward, evenInY, height, column, 0);
+			for(int j=0; j<height; j++) data[j*width+i] = column[j];
+		}
+	}
+	
+	// transform the n elements of data starting at offset
+	private static void transform1D(boolean forward, boolean even, int n, double data[], int offset)
+	{
+		if(even)
+		{
+			DoubleDCT_1D dct = (DoubleDCT_1D)getTransformer("DCT", n, 1);
+			synchronized(dct)
+			{
+				if(forward) dct.forward(data, offset, true);
+				else dct.inverse(data, offset, true);
+			}
+		}
+		else
+		{
+			DoubleDST_1D dst = (DoubleDST_1D)getTransformer("DST", n, 1);
+			synchronized(dst)
+			{
+				if(forward) dst.forward(data, offset, true);
+				else dst.inverse(data, offset, true);
+			}
+		}
+	}
+	
+	private static Object getTransformer(String type, int width, int height)
+	{
+		synchronized(transformers)
+		{
+			String key = type + width + "x" + height;
+			Object transformer = transformers.get(key);
+			if(transformer == null)
+			{
+				if(height == 1) transformer = type.equals("DCT")?new DoubleDCT_1D(width):new DoubleDST_1D(width);
+				else transformer = type.equals("DCT")?new DoubleDCT_2D(height, width):new DoubleDST_2D(height, width);	// rows, columns
+				transformers.put(key, transformer);
+			}
+			return transformer;
+		}
+	}
+}
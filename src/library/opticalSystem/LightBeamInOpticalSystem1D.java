@@ -20,6 +20,7 @@ public class LightBeamInOpticalSystem1D implements Serializable
 		currentElementIndex, // index of element immediately in front of b ("current element")
 		roundTripCounter;
 	public boolean forwardDirection; // allows bouncing backwards and forwards
+	public boolean suppressPlots; // if true, PlotPlane1Ds don't plot (e.g. for probe beams)
 
 	
 	//
@@ -94,6 +95,10 @@ public class LightBeamInOpticalSystem1D implements Serializable
 				// pass through corresponding basic optical element
 				((CustomOpticalElement1D)o).toBasicOpticalElement1D(b).act(b);
 			}
+			else if((o instanceof PlotPlane1D) && suppressPlots)
+			{
+				// don't plot
+			}
 			else if(o instanceof SpecialOpticalElement1D)
 			{
 				// do your business
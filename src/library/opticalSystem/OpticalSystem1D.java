@@ -41,6 +41,11 @@ public class OpticalSystem1D implements Serializable
 	
 	// all the positioned optical elements are held in this Vector
 	private Vector s;
+	
+	// incremented whenever elements are added, removed or replaced, so that
+	// anything calculated from the system (such as a round-trip matrix) knows
+	// when it is out of date
+	private transient int modificationCount = 0;
 
 	
 	//
@@ -67,6 +72,11 @@ public class OpticalSystem1D implements Serializable
 		return (OpticalElement1D)s.elementAt(index);
 	}
 	
+	public int getModificationCount()
+	{
+		return modificationCount;
+	}
+	
 	
 	//
 	// methods for adding / deleting elements
@@ -80,16 +90,19 @@ public class OpticalSystem1D implements Serializable
 		for(i=0; (i<s.size()) && (getElementAt(i).z <= n.z); i++);
 		
 		s.insertElementAt(n, i);
+		modificationCount++;
 	}
 	
 	public void remove(OpticalElement1D d)
 	{
 		s.removeElement(d);
+		modificationCount++;
 	}
 	
 	public void removeAt(int index)
 	{
 		s.removeElementAt(index);
+		modificationCount++;
 	}
 	
 	public void replaceAt(int index, OpticalElement1D newElement)
@@ -113,6 +126,7 @@ public class OpticalSystem1D implements Serializable
 			
 			// replace the old element
 			s.setElementAt(newElement, index);
+			modificationCount++;
 		}
 	}
 }
\ No newline at end of file
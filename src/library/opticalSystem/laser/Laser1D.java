@@ -368,6 +368,65 @@ public class Laser1D implements Serializable
 			//	"round trips.");
 	}
 	
+	// the round-trip matrix of the resonator; kept until the resonator, the beam
+	// parameters or the start element change
+	private transient Laser1DRoundTripMatrix roundTripMatrix;
+	
+	public Laser1DRoundTripMatrix getRoundTripMatrix()
+	{
+		// is there a valid round-trip matrix already?
+		if((roundTripMatrix == null) || !roundTripMatrix.isValidFor(beamAndResonator))
+		{
+			// no; calculate a new one
+			roundTripMatrix = null;	// allow the old one to be garbage-collected first
+			roundTripMatrix = new Laser1DRoundTripMatrix(beamAndResonator);
+		}
+		
+		return roundTripMatrix;
+	}
+	
+	// calculate all the eigenmodes of the resonator by diagonalising the round-trip
+	// matrix, and replace the beam with the lowest-loss eigenmode
+	public void calculateAllEigenmodes()
+	{
+		Laser1DRoundTripMatrix m;
+		try
+		{
+			m = getRoundTripMatrix();
+		}
+		catch(IllegalStateException e)
+		{
+			new MessageDialog(controlsWindow, "Warning", e.getMessage());
+			return;
+		}
+		
+		if(m.getNumberOfEigenmodes() == 0)
+		{
+			new MessageDialog(controlsWindow, "Warning", "No eigenmodes found.");
+			return;
+		}
+		
+		// replace the beam with the lowest-loss eigenmode, ...
+		ComplexArray1D mode = m.getEigenmode(0);
+		for(int i=0; i<matrixSize; i++)
+			beamAndResonator.b.setAmplitude(i, mode.getElement(i));
+		updatePlot();
+		updateStatus();
+		
+		// ... and list the eigenvalues of the lowest-loss eigenmodes
+		String message = "mode\t|eigenvalue|\tloss per round trip\tphase per round trip\n";
+		for(int n=0; n<Math.min(m.getNumberOfEigenmodes(), 20); n++)
+		{
+			message +=
+				n + "\t" +
+				(float)m.getEigenvalue(n).getAbs() + "\t" +
+				(float)m.getRoundTripLoss(n) + "\t" +
+				(float)m.getEigenvalue(n).getArg() + "\n";
+		}
+		
+		new MessageDialog(controlsWindow, "Eigenmodes of " + filename, message);
+	}
+	
 	public class RoundTripGraphParameters
 	implements SelfExplainingObject, Serializable
 	{
@@ -524,40 +583,32 @@ public class Laser1D implements Serializable
 						// calculate cumulative z coordinate of the next element
 						double zCNext = zC + Math.abs(beamAndResonator.getZ() - zStored);
 						
-						// calculate cumulative z coordinate of plane corresponding to
-						// the next column
-						double zCOfNextColumn =
-							resonatorLength * (column+1.0) / (roundTripGraphColumns-1.0);
+						// find all the columns whose planes are still on this side of
+						// the next element
+						int firstColumn = column+1;
+						while(
+							(column+1 < roundTripGraphColumns) &&
+							(resonatorLength * (column+1.0) / (roundTripGraphColumns-1.0) <= zCNext)
+						)
+							column++;
 						
-						// while the plane corresponding to the next column is still
-						// on this side of the next element...
-						while( zCOfNextColumn <= zCNext )
+						// between here and the next element, the beam only propagates
+						// through free space, so calculate its angular spectrum once and
+						// calculate those columns and the beam at the next element from it
+						if((firstColumn <= column) || (zC < zCNext))
 						{
-							// propagate to the plane corresponding to the next column...
-							beamAndResonator.b.propagate( zCOfNextColumn - zC );
+							LightBeamCrossSection1D spectrum = beamAndResonator.b.getAngularSpectrum();
 							
-							// ... and reflect this in the "cumulative z" coordinate
-							zC = zCOfNextColumn;
-		
-							// the beam is in the next column now
-							column++;
+							if(firstColumn <= column)
+								calculateRoundTripColumns(
+									spectrum, zC, firstColumn, column,
+									roundTripGraphColumns, roundTripGraphRows
+								);
 							
-							// set the column in the graph
-							roundTripIntensityArray.setColumn(
-								column, 
-								reducedSizeIntensityArray(roundTripGraphRows, beamAndResonator.b)
-							);
+							// propagate to the plane of the next element
+							if(zC < zCNext)
+								beamAndResonator.b.setToPropagatedAngularSpectrum(spectrum, zCNext - zC);
 							
-							// calculate the cumulative z coordinate of the plane corresponding
-							// to the next column
-							zCOfNextColumn =
-								resonatorLength * (column+1.0) / (roundTripGraphColumns-1.0);
-						}
-		
-						// propagate to the plane of the next element
-						if(zC < zCNext)
-						{
-							beamAndResonator.b.propagate(zCNext - zC);
 							zC = zCNext;
 						}
 					}
@@ -582,6 +633,67 @@ public class Laser1D implements Serializable
 		}
 	}
 	
+	// calculate columns firstColumn to lastColumn of the round-trip graph from the
+	// angular spectrum of the beam in the plane with cumulative z coordinate
+	// zCOfSpectrum; the columns are shared between as many threads as there are
+	// processors
+	private void calculateRoundTripColumns(
+		LightBeamCrossSection1D spectrum, double zCOfSpectrum,
+		int firstColumn, int lastColumn, int columns, int rows )
+	{
+		int nthreads = Math.min(Runtime.getRuntime().availableProcessors(), lastColumn - firstColumn + 1);
+		
+		Thread[] threads = new Thread[nthreads];
+		for(int t=0; t<nthreads; t++)
+		{
+			threads[t] = new Thread(new RoundTripColumnWorker(
+				spectrum, zCOfSpectrum, firstColumn+t, lastColumn, nthreads, columns, rows ));
+			threads[t].start();
+		}
+		try
+		{
+			for(int t=0; t<nthreads; t++) threads[t].join();	// wait for all the workers to finish
+		}
+		catch (InterruptedException e)
+		{
+			e.printStackTrace();
+		}
+	}
+	
+	private class RoundTripColumnWorker implements Runnable
+	{
+		private LightBeamCrossSection1D spectrum;
+		private double zCOfSpectrum;
+		private int firstColumn, lastColumn, columnStep, columns, rows;
+		
+		public RoundTripColumnWorker(
+			LightBeamCrossSection1D spectrum, double zCOfSpectrum,
+			int firstColumn, int lastColumn, int columnStep, int columns, int rows )
+		{
+			this.spectrum = spectrum;
+			this.zCOfSpectrum = zCOfSpectrum;
+			this.firstColumn = firstColumn;
+			this.lastColumn = lastColumn;
+			this.columnStep = columnStep;
+			this.columns = columns;
+			this.rows = rows;
+		}
+		
+		public void run()
+		{
+			LightBeamCrossSection1D b = new LightBeamCrossSection1D(spectrum);
+			
+			for(int column=firstColumn; column<=lastColumn; column+=columnStep)
+			{
+				// cumulative z coordinate of the plane corresponding to the column
+				double zCOfColumn = resonatorLength * column / (columns-1.0);
+				
+				b.setToPropagatedAngularSpectrum(spectrum, zCOfColumn - zCOfSpectrum);
+				roundTripIntensityArray.setColumn(column, reducedSizeIntensityArray(rows, b));
+			}
+		}
+	}
+	
 	public void plotRoundTripIntensityArray()
 	{
 		// if there is no window yet to plot the round trip graph in...
@@ -650,21 +762,15 @@ public class Laser1D implements Serializable
 		this.filename = filename;
 		updateStatus();
 		
-		FileOutputStream fos = new FileOutputStream(filename);
-		ObjectOutputStream oos = new ObjectOutputStream(fos);
-		oos.writeObject(this);
-		oos.flush();
-		oos.close();
+		ChunkFile.writeObject(new File(filename), this, false);
 	}
 	
 	public static synchronized Laser1D open(
 		String filename, Laser1DControlsWindow controlsWindow )
 	throws IOException, ClassNotFoundException
 	{
-		FileInputStream fis = new FileInputStream(filename);
-		ObjectInputStream ois = new ObjectInputStream(fis);
-		Laser1D laser = (Laser1D)ois.readObject();
-		ois.close();
+		// files saved before the chunk format was introduced are plain object streams
+		Laser1D laser = (Laser1D)ChunkFile.readObject(new File(filename));
 		
 		// any remaining initialisation necessary?
 		laser.filename = filename;
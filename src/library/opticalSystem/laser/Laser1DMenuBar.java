@@ -27,6 +27,7 @@ implements ActionListener, Runnable, Serializable
 		resonatorSettings,
 		beamCustomise,
 		beamCalculateEigenmode,
+		beamCalculateAllEigenmodes,
 		beamRoundTrip,
 		beamRoundTripDensityPlot,
 		beamNormalise;
@@ -90,6 +91,9 @@ implements ActionListener, Runnable, Serializable
 		beamCalculateEigenmode.setShortcut(new MenuShortcut(KeyEvent.VK_E));
 		// beamCalculateEigenmode.setEnabled(false);
 		beam.add(beamCalculateEigenmode);
+		beamCalculateAllEigenmodes = new MenuItem("Calculate All Eigenmodes From Round-Trip Matrix...");
+		beamCalculateAllEigenmodes.addActionListener(this);
+		beam.add(beamCalculateAllEigenmodes);
 		beam.add(new MenuItem("-"));
 		beamRoundTrip = new MenuItem("Simulate Round Trip Through Resonator");
 		beamRoundTrip.addActionListener(this);
@@ -205,6 +209,11 @@ implements ActionListener, Runnable, Serializable
 			controlsWindow.getLaser().setStatusString("Running... ");
 			controlsWindow.getLaser().calculateEigenmode();
 		}
+		else if(commandSource == beamCalculateAllEigenmodes)
+		{
+			controlsWindow.getLaser().setStatusString("Running... ");
+			controlsWindow.getLaser().calculateAllEigenmodes();
+		}
 		else if(commandSource == beamRoundTrip)
 		{
 			controlsWindow.getLaser().setStatusString("Running... ");
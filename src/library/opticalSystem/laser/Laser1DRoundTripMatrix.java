@@ -0,0 +1,493 @@
+package library.opticalSystem.laser;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.EigenDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import library.field.PixelKernelEngine;
+import library.list.*;
+import library.maths.*;
+import library.opticalSystem.*;
+import library.optics.*;
+import library.util.*;
+
+
+/********************************************************************************
+
+   the round-trip propagation matrix of a 1D resonator
+   
+   column i of the matrix is the amplitude cross-section that results when the
+   unit vector i (amplitude 1 in element i, 0 everywhere else) is taken once
+   through the resonator, starting in front of the current element;
+   the columns are calculated in parallel.
+   
+   The eigenvectors of the matrix are the transverse eigenmodes of the resonator,
+   the corresponding eigenvalues their complex round-trip amplification factors.
+   
+   The matrix remains valid until the optical system is changed, or until the
+   beam parameters, the start element or the start direction change.
+
+********************************************************************************/
+
+public class Laser1DRoundTripMatrix
+{
+	// the optical system, and the state it was in when the matrix was calculated
+	private OpticalSystem1D system;
+	private int systemModificationCount;
+	
+	// the start element and direction of the round trip
+	private int startElementIndex;
+	private boolean startForwardDirection;
+	
+	// the beam parameters
+	private int width;
+	private double physicalWidth, wavelength;
+	
+	// the matrix elements, stored such that re[j][i] and im[j][i] are the real and
+	// imaginary parts of the element in row i and column j
+	private double re[][], im[][];
+	
+	// the eigenmodes, sorted by decreasing modulus of the eigenvalue (i.e. increasing loss);
+	// calculated when first requested
+	private Complex eigenvalues[];
+	private ComplexArray1D eigenmodes[];
+	
+	private static final String OPEN_RESONATOR_MESSAGE =
+		"The resonator is not closed: the beam does not return to the start element.";
+
+
+	/////////////////
+	// constructor //
+	/////////////////
+	
+	// calculate the round-trip matrix of the resonator in bs for a beam with the
+	// parameters of bs.b, starting in front of bs's current element, in bs's current
+	// propagation direction; bs itself is not altered
+	public Laser1DRoundTripMatrix(LightBeamInOpticalSystem1D bs)
+	{
+		system = bs.system;
+		systemModificationCount = system.getModificationCount();
+		startElementIndex = bs.currentElementIndex;
+		startForwardDirection = bs.forwardDirection;
+		width = bs.b.getWidth();
+		physicalWidth = bs.b.getPhysicalWidth();
+		wavelength = bs.b.getWavelength();
+		
+		re = new double[width][];
+		im = new double[width][];
+		
+		// calculate the first column on its own; this makes all custom optical elements
+		// calculate (and cache) their holograms before several threads use them at once
+		calculateColumn(0);
+		
+		// work out how many processors there are...
+		int nthreads = Runtime.getRuntime().availableProcessors();
+		
+		// ... and give each thread every nthreads-th column
+		Thread[] threads = new Thread[nthreads];
+		for(int t=0; t<nthreads; t++)
+		{
+			threads[t] = new Thread(new ColumnWorker(1+t, nthreads));
+			threads[t].start();
+		}
+		PixelKernelEngine.joinAll(threads);	// wait for all the workers to finish
+	}
+	
+	
+	//
+	// validity
+	//
+	
+	// is this matrix still the round-trip matrix of the resonator in bs?
+	public boolean isValidFor(LightBeamInOpticalSystem1D bs)
+	{
+		return
+			(bs.system == system) &&
+			(system.getModificationCount() == systemModificationCount) &&
+			(bs.currentElementIndex == startElementIndex) &&
+			(bs.forwardDirection == startForwardDirection) &&
+			(bs.b.getWidth() == width) &&
+			(bs.b.getPhysicalWidth() == physicalWidth) &&
+			(bs.b.getWavelength() == wavelength);
+	}
+	
+	
+	//
+	// data access
+	//
+	
+	public int getSize()
+	{
+		return width;
+	}
+	
+	// the element in row i and column j
+	public Complex getElement(int i, int j)
+	{
+		return new Complex(re[j][i], im[j][i]);
+	}
+	
+	// apply the matrix to the amplitude cross-section b, i.e. simulate a round trip
+	public void multiply(LightBeamCrossSection1D b)
+	throws SizeMismatchError
+	{
+		if(b.getWidth() != width)
+			throw(new SizeMismatchError("multiply: beam size does not match matrix size."));
+		
+		double
+			bRe[] = new double[width], bIm[] = new double[width],
+			resultRe[] = new double[width], resultIm[] = new double[width];
+		for(int i=0; i<width; i++)
+		{
+			bRe[i] = b.getElementRe(i);
+			bIm[i] = b.getElementIm(i);
+		}
+		
+		multiply(bRe, bIm, resultRe, resultIm);
+		
+		for(int i=0; i<width; i++)
+			b.setAmplitude(i, new Complex(resultRe[i], resultIm[i]));
+	}
+	
+	// the number of eigenmodes found
+	public int getNumberOfEigenmodes()
+	{
+		calculateEigenmodesIfNecessary();
+		
+		return eigenvalues.length;
+	}
+	
+	// the complex round-trip amplification factor of eigenmode n
+	// (eigenmode 0 is the lowest-loss eigenmode)
+	public Complex getEigenvalue(int n)
+	{
+		calculateEigenmodesIfNecessary();
+		
+		return eigenvalues[n];
+	}
+	
+	// the fraction of the power lost by eigenmode n during one round trip
+	public double getRoundTripLoss(int n)
+	{
+		return 1 - getEigenvalue(n).getAbsSqr();
+	}
+	
+	// the amplitude cross-section of eigenmode n, normalised to unit power
+	public ComplexArray1D getEigenmode(int n)
+	{
+		calculateEigenmodesIfNecessary();
+		
+		return eigenmodes[n];
+	}
+	
+	
+	//////////////////////////////////////
+	// the methods that do all the work //
+	//////////////////////////////////////
+	
+	private class ColumnWorker implements Runnable
+	{
+		private int firstColumn, columnStep;
+		
+		public ColumnWorker(int firstColumn, int columnStep)
+		{
+			this.firstColumn = firstColumn;
+			this.columnStep = columnStep;
+		}
+		
+		public void run()
+		{
+			for(int j=firstColumn; j<width; j+=columnStep) calculateColumn(j);
+		}
+	}
+	
+	// take the unit vector j once through the resonator and store the result in column j
+	private void calculateColumn(int j)
+	{
+		LightBeamCrossSection1D b = new LightBeamCrossSection1D(width, physicalWidth, wavelength);
+		b.setAmplitude(j, 1.0);
+		
+		LightBeamInOpticalSystem1D bs = new LightBeamInOpticalSystem1D(b, system, startElementIndex);
+		bs.forwardDirection = startForwardDirection;
+		bs.suppressPlots = true;
+		
+		// the round trip ends in front of the start element, travelling in the start
+		// direction; a ResonatorBeginning1D sets the direction itself, so in front of
+		// one of those the direction doesn't matter (a folded resonator returns there
+		// travelling backwards)
+		boolean directionMatters = !(system.getElementAt(startElementIndex) instanceof ResonatorBeginning1D);
+		
+		// a round trip passes each element at most twice (once in each direction), so if the
+		// beam hasn't returned by then, or if it runs off the end of the system, the resonator
+		// isn't closed
+		int stepsMax = 2*system.getSize();
+		int steps = 0;
+		do
+		{
+			if(steps++ >= stepsMax) throw new IllegalStateException(OPEN_RESONATOR_MESSAGE);
+			try
+			{
+				bs.toNextElement();
+			}
+			catch(IndexOutOfBoundsException e)
+			{
+				throw new IllegalStateException(OPEN_RESONATOR_MESSAGE);
+			}
+		} while (
+			(bs.currentElementIndex != startElementIndex) ||
+			(directionMatters && (bs.forwardDirection != startForwardDirection)) );
+		
+		double columnRe[] = new double[width], columnIm[] = new double[width];
+		for(int i=0; i<width; i++)
+		{
+			columnRe[i] = bs.b.getElementRe(i);
+			columnIm[i] = bs.b.getElementIm(i);
+		}
+		re[j] = columnRe;
+		im[j] = columnIm;
+	}
+	
+	private synchronized void calculateEigenmodesIfNecessary()
+	{
+		if(eigenvalues != null) return;
+		
+		// Apertures make the round-trip matrix M practically low-rank, and the resulting
+		// cluster of eigenvalues around 0 stops the eigenvalue algorithm from converging.
+		// Eigenmodes with eigenvalue 0 are lost completely during one round trip; all the
+		// others lie in the range of M.  If the columns of Q form an orthonormal basis of
+		// the range of M, then M (Q c) = lambda (Q c) if and only if H c = lambda c,
+		// where H = Q^+ M Q is a (small) r x r matrix.
+		double basisRe[][], basisIm[][];
+		{
+			List<double[]> basis = getRangeBasis();
+			int r = basis.size() / 2;
+			basisRe = new double[r][];
+			basisIm = new double[r][];
+			for(int l=0; l<r; l++)
+			{
+				basisRe[l] = basis.get(2*l);
+				basisIm[l] = basis.get(2*l+1);
+			}
+		}
+		int r = basisRe.length;
+		
+		// H = Q^+ M Q
+		double hRe[][] = new double[r][r], hIm[][] = new double[r][r];
+		for(int l=0; l<r; l++)
+		{
+			double mqRe[] = new double[width], mqIm[] = new double[width];
+			multiply(basisRe[l], basisIm[l], mqRe, mqIm);
+			
+			for(int k=0; k<r; k++)
+			{
+				// <q_k, M q_l>
+				for(int i=0; i<width; i++)
+				{
+					hRe[k][l] += basisRe[k][i]*mqRe[i] + basisIm[k][i]*mqIm[i];
+					hIm[k][l] += basisRe[k][i]*mqIm[i] - basisIm[k][i]*mqRe[i];
+				}
+			}
+		}
+		
+		// an upper limit of the moduli of H's eigenvalues (the Frobenius norm), plus one
+		double s = 1;
+		for(int k=0; k<r; k++)
+			for(int l=0; l<r; l++)
+				s += MyMath.sqr(hRe[k][l]) + MyMath.sqr(hIm[k][l]);
+		s = Math.sqrt(s);
+		
+		// commons-math can only diagonalise real matrices, so diagonalise the real
+		// 2r x 2r matrix
+		//   R = ( A  -B )
+		//       ( B   A ),
+		// which represents the complex matrix H + i s 1 = A + i B.
+		// R's eigenvalues are those of H + i s 1 and their complex conjugates; as s is
+		// greater than the modulus of any of H's eigenvalues, the eigenvalues of
+		// H + i s 1 are precisely R's eigenvalues with positive imaginary part.
+		// If (H + i s 1) c = mu c, then R (c, -i c) = mu (c, -i c).
+		double rr[][] = new double[2*r][2*r];
+		for(int k=0; k<r; k++)
+		{
+			for(int l=0; l<r; l++)
+			{
+				double a = hRe[k][l], b = hIm[k][l] + ((k == l)?s:0);
+				rr[k][l] = a;
+				rr[k][l+r] = -b;
+				rr[k+r][l] = b;
+				rr[k+r][l+r] = a;
+			}
+		}
+		
+		EigenDecomposition e = new EigenDecomposition(new Array2DRowRealMatrix(rr, false));
+		RealMatrix v = e.getV();
+		
+		List<Complex> values = new ArrayList<Complex>();
+		List<ComplexArray1D> modes = new ArrayList<ComplexArray1D>();
+		
+		for(int k=0; k<2*r; k++)
+		{
+			if(e.getImagEigenvalue(k) > 0)
+			{
+				// the eigenvector of R is V_k + i V_(k+1), the first half of which is c;
+				// the corresponding eigenvector of M is Q c
+				ComplexArray1D mode = new ComplexArray1D(width);
+				for(int i=0; i<width; i++)
+				{
+					double modeRe = 0, modeIm = 0;
+					for(int l=0; l<r; l++)
+					{
+						double cRe = v.getEntry(l, k), cIm = v.getEntry(l, k+1);
+						modeRe += basisRe[l][i]*cRe - basisIm[l][i]*cIm;
+						modeIm += basisRe[l][i]*cIm + basisIm[l][i]*cRe;
+					}
+					mode.setElement(i, modeRe, modeIm);
+				}
+				
+				// normalise to unit power
+				mode.multiply(new Complex(1.0 / Math.sqrt(getPower(mode)), 0));
+				
+				values.add(new Complex(e.getRealEigenvalue(k), e.getImagEigenvalue(k) - s));
+				modes.add(mode);
+			}
+		}
+		
+		// sort by decreasing modulus of the eigenvalue
+		int n = values.size();
+		Integer order[] = new Integer[n];
+		final double moduli[] = new double[n];
+		for(int i=0; i<n; i++)
+		{
+			order[i] = i;
+			moduli[i] = values.get(i).getAbs();
+		}
+		Arrays.sort(order, new Comparator<Integer>()
+		{
+			public int compare(Integer a, Integer b)
+			{
+				return Double.compare(moduli[b], moduli[a]);
+			}
+		});
+		
+		eigenvalues = new Complex[n];
+		eigenmodes = new ComplexArray1D[n];
+		for(int i=0; i<n; i++)
+		{
+			eigenvalues[i] = values.get(order[i]);
+			eigenmodes[i] = modes.get(order[i]);
+		}
+	}
+	
+	// an orthonormal basis of the range of the matrix, calculated by Gram-Schmidt
+	// orthogonalisation of its columns (largest remaining column first); columns that
+	// are (practically) linear combinations of earlier ones are ignored.
+	// The basis vectors are returned as alternating real and imaginary parts.
+	private List<double[]> getRangeBasis()
+	{
+		// copies of the columns, from which the components parallel to the basis
+		// vectors found so far are removed
+		double residualRe[][] = new double[width][], residualIm[][] = new double[width][];
+		double residualPowers[] = new double[width], maxPower = 0;
+		for(int j=0; j<width; j++)
+		{
+			residualRe[j] = re[j].clone();
+			residualIm[j] = im[j].clone();
+			residualPowers[j] = getPower(residualRe[j], residualIm[j]);
+			maxPower = Math.max(maxPower, residualPowers[j]);
+		}
+		
+		// columns with less power than this are (practically) in the span of the basis
+		double threshold = 1e-20 * maxPower;
+		
+		List<double[]> basis = new ArrayList<double[]>();
+		boolean used[] = new boolean[width];
+		
+		while(true)
+		{
+			// find the column with the greatest remaining power
+			int jMax = -1;
+			for(int j=0; j<width; j++)
+				if(!used[j] && ((jMax == -1) || (residualPowers[j] > residualPowers[jMax]))) jMax = j;
+			
+			if((jMax == -1) || !(residualPowers[jMax] > threshold)) break;
+			
+			// normalise it, which makes it the next basis vector
+			used[jMax] = true;
+			double f = 1.0 / Math.sqrt(residualPowers[jMax]);
+			double qRe[] = residualRe[jMax], qIm[] = residualIm[jMax];
+			for(int i=0; i<width; i++)
+			{
+				qRe[i] *= f;
+				qIm[i] *= f;
+			}
+			basis.add(qRe);
+			basis.add(qIm);
+			
+			// remove its component from all the remaining columns
+			for(int j=0; j<width; j++)
+			{
+				if(!used[j])
+				{
+					double cRe = 0, cIm = 0;
+					for(int i=0; i<width; i++)
+					{
+						// <q, column j>
+						cRe += qRe[i]*residualRe[j][i] + qIm[i]*residualIm[j][i];
+						cIm += qRe[i]*residualIm[j][i] - qIm[i]*residualRe[j][i];
+					}
+					for(int i=0; i<width; i++)
+					{
+						residualRe[j][i] -= cRe*qRe[i] - cIm*qIm[i];
+						residualIm[j][i] -= cRe*qIm[i] + cIm*qRe[i];
+					}
+					residualPowers[j] = getPower(residualRe[j], residualIm[j]);
+				}
+			}
+		}
+		
+		return basis;
+	}
+	
+	// calculate M (aRe + i aIm), and store the result in resultRe and resultIm
+	private void multiply(double aRe[], double aIm[], double resultRe[], double resultIm[])
+	{
+		for(int j=0; j<width; j++)
+		{
+			if((aRe[j] != 0) || (aIm[j] != 0))
+			{
+				double columnRe[] = re[j], columnIm[] = im[j];
+				
+				for(int i=0; i<width; i++)
+				{
+					resultRe[i] += columnRe[i]*aRe[j] - columnIm[i]*aIm[j];
+					resultIm[i] += columnRe[i]*aIm[j] + columnIm[i]*aRe[j];
+				}
+			}
+		}
+	}
+	
+	private static double getPower(double aRe[], double aIm[])
+	{
+		double power = 0;
+		
+		for(int i=0; i<aRe.length; i++)
+			power += MyMath.sqr(aRe[i]) + MyMath.sqr(aIm[i]);
+		
+		return power;
+	}
+	
+	private static double getPower(ComplexArray1D a)
+	{
+		double power = 0;
+		
+		for(int i=0; i<a.getSize(); i++)
+			power += MyMath.sqr(a.getElementRe(i)) + MyMath.sqr(a.getElementIm(i));
+		
+		return power;
+	}
+}
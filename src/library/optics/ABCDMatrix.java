@@ -0,0 +1,190 @@
+/* */
+
+
+package library.optics;
+
+
+import java.io.*;
+
+
+// The ray-transfer matrix of a paraxial (first-order) optical system in one transverse direction:
+// a ray at distance x from the optical axis and at angle theta with it leaves the system at
+//   x' = A x + B theta,
+//   theta' = C x + D theta.
+// The matrix of a sequence of systems is the product of their matrices, the matrix of the last
+// system on the left.  The determinant A D - B C is 1 for all systems in a medium of constant
+// refractive index.
+//
+// The matrix determines the effect of the system on a wave only up to a phase factor (which is a
+// multiple of pi/2, e.g. the Gouy phase of a beam passing through a focus), so each matrix also
+// stores the phase of the system relative to the "principal" wave-optical operator, namely
+// the Collins integral
+//   E'(x') = 1/sqrt(i lambda B) * integral E(x) exp(i k (A x^2 - 2 x x' + D x'^2) / (2 B)) dx,
+// with the principal branch of the square root, and its limit B -> +0,
+//   E'(x') = 1/sqrt(A) * exp(i k C x'^2 / (2 A)) E(x' / A),
+// with sqrt(A) = i sqrt(|A|) for negative A.
+// The phase of a product is found by following a Gaussian beam through both factors.
+
+public class ABCDMatrix
+implements Serializable
+{
+	private static final long serialVersionUID = -5512207328491733840L;
+
+	private double A, B, C, D;
+	
+	// the phase of the system relative to the principal operator (see above)
+	private double phase;
+	
+	
+	//////////////////
+	// constructors //
+	//////////////////
+	
+	public ABCDMatrix(double A, double B, double C, double D, double phase)
+	{
+		this.A = A;
+		this.B = B;
+		this.C = C;
+		this.D = D;
+		this.phase = phase;
+	}
+	
+	public ABCDMatrix(double A, double B, double C, double D)
+	{
+		this(A, B, C, D, 0);
+	}
+	
+	// the identity, i.e. a system that does nothing
+	public static ABCDMatrix identity()
+	{
+		return new ABCDMatrix(1, 0, 0, 1);
+	}
+	
+	// propagation through a distance d
+	public static ABCDMatrix freeSpace(double d)
+	{
+		return new ABCDMatrix(1, d, 0, 1);
+	}
+	
+	// a thin lens of focal length f
+	public static ABCDMatrix thinLens(double f)
+	{
+		return new ABCDMatrix(1, 0, -1/f, 1);
+	}
+	
+	// a magnification by m, without any phase shift, even for negative m (i.e. an inverted image)
+	public static ABCDMatrix magnification(double m)
+	{
+		return new ABCDMatrix(m, 0, 0, 1/m, (m < 0)?0.5*Math.PI:0);
+	}
+	
+	
+	/////////////////////////
+	// setters and getters //
+	/////////////////////////
+
+	public double getA() {
+		return A;
+	}
+
+	public double getB() {
+		return B;
+	}
+
+	public double getC() {
+		return C;
+	}
+
+	public double getD() {
+		return D;
+	}
+
+	public double getPhase() {
+		return phase;
+	}
+	
+	
+	////////////////
+	// operations //
+	////////////////
+	
+	// the matrix of this system followed by the system m, i.e. the product m * this
+	public ABCDMatrix followedBy(ABCDMatrix m)
+	{
+		ABCDMatrix product = new ABCDMatrix(
+				m.A*A + m.B*C, m.A*B + m.B*D,
+				m.C*A + m.D*C, m.C*B + m.D*D
+			);
+		
+		// follow a Gaussian beam with q parameter -i (in the convention in which the field is
+		// exp(i k x^2 / (2 q))) through this system and then through m, and compare the phase of the
+		// resulting amplitude factor with that of the principal operator of the product
+		double
+			qRe = 0, qIm = -1,
+			// q after this system, (A q + B) / (C q + D)
+			nRe = A*qRe + B, nIm = A*qIm,
+			dRe = C*qRe + D, dIm = C*qIm,
+			dAbsSqr = dRe*dRe + dIm*dIm,
+			q1Re = (nRe*dRe + nIm*dIm) / dAbsSqr,
+			q1Im = (nIm*dRe - nRe*dIm) / dAbsSqr;
+		
+		double productPhase =
+			phase + getPrincipalAmplitudeFactorArg(qRe, qIm) +
+			m.phase + m.getPrincipalAmplitudeFactorArg(q1Re, q1Im) -
+			product.getPrincipalAmplitudeFactorArg(qRe, qIm);
+		
+		// the difference is a multiple of pi/2; remove rounding errors and bring it into the range (-pi, pi]
+		int quarterTurns = (int)Math.round(productPhase / (0.5*Math.PI)) % 4;
+		if(quarterTurns <= -2) quarterTurns += 4;
+		if(quarterTurns > 2) quarterTurns -= 4;
+		product.phase = quarterTurns*0.5*Math.PI;
+		
+		return product;
+	}
+	
+	// the argument of the amplitude factor by which the system multiplies the Gaussian exp(i k x^2 / (2 q)),
+	// with Im(q) < 0; the factor is 1/sqrt(A + B/q) for the right branch of the square root
+	public double getGaussianAmplitudeFactorArg(double qRe, double qIm)
+	{
+		return phase + getPrincipalAmplitudeFactorArg(qRe, qIm);
+	}
+	
+	// the argument of the amplitude factor by which the principal operator multiplies the Gaussian
+	// exp(i k x^2 / (2 q)), with Im(q) < 0
+	private double getPrincipalAmplitudeFactorArg(double qRe, double qIm)
+	{
+		if(B == 0)
+		{
+			// 1/sqrt(A), with sqrt(A) = i sqrt(|A|) for A < 0
+			return (A < 0)?-0.5*Math.PI:0;
+		}
+		
+		// 1/sqrt(i lambda B) * integral exp(i k (1/q + A/B) x^2 / 2) dx = sqrt(i / (1/q + A/B)) / sqrt(i B),
+		// where the real part of i / (1/q + A/B) is positive, so the principal branch is the right one
+		double
+			qAbsSqr = qRe*qRe + qIm*qIm,
+			wRe = qRe / qAbsSqr + A / B,
+			wIm = -qIm / qAbsSqr;
+		
+		return 0.5*normalisedArg(0.5*Math.PI - Math.atan2(wIm, wRe)) - 0.5*((B > 0)?0.5*Math.PI:-0.5*Math.PI);
+	}
+	
+	// the angle phi, brought into the range (-pi, pi]
+	private static double normalisedArg(double phi)
+	{
+		while(phi > Math.PI) phi -= 2*Math.PI;
+		while(phi <= -Math.PI) phi += 2*Math.PI;
+		return phi;
+	}
+	
+	public double getDeterminant()
+	{
+		return A*D - B*C;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "((" + A + ", " + B + "), (" + C + ", " + D + ")), phase " + phase;
+	}
+}
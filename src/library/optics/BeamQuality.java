@@ -0,0 +1,285 @@
+/* */
+
+
+package library.optics;
+
+
+import library.list.*;
+import library.maths.*;
+import library.field.*;
+
+
+// The second-moment (ISO 11146) beam quality of a light-beam cross section, calculated from the
+// beam in one plane only, namely from one pass over the field in real space and one Fourier
+// transform.
+// In the paraxial approximation, the centroid and the variance of the intensity distribution in
+// the x direction evolve with the propagation distance z as
+//   xC(z) = xC + thetaC z,
+//   sigma^2(z) = sigma^2 + 2 A z + sigmaTheta^2 z^2,
+// where xC and sigma^2 are the centroid and variance in the plane of the beam, thetaC and
+// sigmaTheta^2 the mean and the variance of the direction kX / k (from the Fourier transform),
+// and A the covariance of x and kX / k (from the phase gradient); likewise in the y direction.
+// The D4sigma width is 4 sigma, so the waist of the beam is at z = -A / sigmaTheta^2, and its
+// beam-propagation ratio is
+//   M^2 = 4 pi / lambda * sqrt(sigma^2 sigmaTheta^2 - A^2),
+// which is 1 for a Gaussian beam.
+// Simply astigmatic beams, whose principal axes are the x and y axes, are described fully.
+
+public class BeamQuality
+{
+	// the second moments in the x and y directions
+	private Axis x, y;
+	
+	
+	/////////////////
+	// constructor //
+	/////////////////
+	
+	public BeamQuality(LightBeamCrossSection2D beam)
+	{
+		int
+			width = beam.getWidth(),
+			height = beam.getHeight(),
+			region[] = beam.getActiveRegion(),
+			iMin = region[0], iMax = region[1], jMin = region[2], jMax = region[3];
+		double
+			deltaX = beam.getDeltaX(),
+			deltaY = beam.getDeltaY(),
+			k = 2*Math.PI/beam.getWavelength();
+		
+		// the centroid of the intensity distribution
+		FieldStatistics statistics = beam.getStatistics();
+		double
+			xCentroid = statistics.getXCentroid(),
+			yCentroid = statistics.getYCentroid(),
+			intensitySum = statistics.getPower() / (deltaX*deltaY);
+		
+		// the data, copied, as they get Fourier-transformed below
+		double data[] = (new ComplexArray2D(beam)).getData();
+		
+		// 1. the real-space pass: the intensity-weighted sums of the squares of x and y and of
+		// the products of x and y with the x and y components of the phase gradient, which are
+		// the local kX and kY, all measured from the centroid, so that nothing cancels for beams
+		// far from the centre (which E[x^2] - E[x]^2 would do);
+		// the x component of |E|^2 times the phase gradient is calculated half-way between the
+		// elements (i, j) and (i+1, j) from their phase difference (see getPhaseDifferenceFlux)
+		double xxSum = 0, xKXSum = 0, yySum = 0, yKYSum = 0;
+		for(int j=jMin; j<jMax; j++)
+		{
+			double yj = beam.getY(j) - yCentroid;
+			for(int i=iMin; i<iMax; i++)
+			{
+				int index = 2*(j*width + i);
+				double re = data[index], im = data[index+1];
+				
+				if((re == 0) && (im == 0)) continue;
+				
+				double xi = beam.getX(i) - xCentroid, intensity = re*re + im*im;
+				xxSum += intensity*xi*xi;
+				yySum += intensity*yj*yj;
+				
+				// the neighbour in the x direction...
+				if(i+1 < iMax)
+				{
+					double
+						re1 = data[index+2], im1 = data[index+3],
+						flux = getPhaseDifferenceFlux(re, im, re1, im1) / deltaX;
+					
+					xKXSum += flux*(xi + 0.5*deltaX);
+				}
+				
+				// ... and in the y direction
+				if(j+1 < jMax)
+				{
+					int index1 = index + 2*width;
+					double
+						re1 = data[index1], im1 = data[index1+1],
+						flux = getPhaseDifferenceFlux(re, im, re1, im1) / deltaY;
+					
+					yKYSum += flux*(yj + 0.5*deltaY);
+				}
+			}
+		}
+		
+		// 2. the Fourier transform: the intensity-weighted sums of kX and kY over the angular spectrum
+		// (the rows outside the active region are zero, so they are skipped)...
+		FFT2D.transformPrunedInput(+1, width, height, data, jMin, jMax);
+		
+		double spectrumSum = 0, kXSpectrumSum = 0, kYSpectrumSum = 0;
+		for(int j=0; j<height; j++)
+		{
+			double kY = beam.getKY(j), rowSum = 0, rowKXSum = 0;
+			for(int i=0; i<width; i++)
+			{
+				int index = 2*(j*width + i);
+				double kX = beam.getKX(i), intensity = data[index]*data[index] + data[index+1]*data[index+1];
+				
+				rowSum += intensity;
+				rowKXSum += intensity*kX;
+			}
+			spectrumSum += rowSum;
+			kXSpectrumSum += rowKXSum;
+			kYSpectrumSum += rowSum*kY;
+		}
+		
+		if((intensitySum == 0) || (spectrumSum == 0))
+		{
+			// no light
+			x = new Axis(0, 0, 0, 0, 0, beam.getWavelength());
+			y = new Axis(0, 0, 0, 0, 0, beam.getWavelength());
+			return;
+		}
+		
+		// the means of kX and kY; the transform with isign = +1 has the opposite sign convention
+		// to that of getKX and getKY
+		double
+			kXMean = -kXSpectrumSum / spectrumSum,
+			kYMean = -kYSpectrumSum / spectrumSum;
+		
+		// ... and, in a second pass, of the squares of kX and kY measured from their means, which
+		// doesn't cancel for tilted beams
+		double kXXSum = 0, kYYSum = 0;
+		for(int j=0; j<height; j++)
+		{
+			double kY = -beam.getKY(j) - kYMean, rowSum = 0, rowKXXSum = 0;
+			for(int i=0; i<width; i++)
+			{
+				int index = 2*(j*width + i);
+				double kX = -beam.getKX(i) - kXMean, intensity = data[index]*data[index] + data[index+1]*data[index+1];
+				
+				rowSum += intensity;
+				rowKXXSum += intensity*kX*kX;
+			}
+			kXXSum += rowKXXSum;
+			kYYSum += rowSum*kY*kY;
+		}
+		
+		x = new Axis(
+				xCentroid,
+				xxSum / intensitySum,
+				kXMean / k,
+				kXXSum / (spectrumSum*k*k),
+				xKXSum / (intensitySum*k),
+				beam.getWavelength()
+			);
+		y = new Axis(
+				yCentroid,
+				yySum / intensitySum,
+				kYMean / k,
+				kYYSum / (spectrumSum*k*k),
+				yKYSum / (intensitySum*k),
+				beam.getWavelength()
+			);
+	}
+	
+	
+	// |E|^2 times the phase difference between the neighbouring elements E0 = re + i im and E1 = re1 + i im1,
+	// in the sense of |E0| |E1| arg(E0* E1); where that phase difference is more than pi/2, which
+	// happens where the field changes sign, it is replaced by the continuous Im(E0* E1)
+	private static double getPhaseDifferenceFlux(double re, double im, double re1, double im1)
+	{
+		double
+			productRe = re*re1 + im*im1,
+			productIm = re*im1 - im*re1;
+		
+		if(productRe <= 0) return productIm;
+		return Math.sqrt(productRe*productRe + productIm*productIm) * Math.atan2(productIm, productRe);
+	}
+	
+	
+	/////////////
+	// getters //
+	/////////////
+	
+	// the beam quality in the x direction
+	public Axis getX() {
+		return x;
+	}
+	
+	// the beam quality in the y direction
+	public Axis getY() {
+		return y;
+	}
+	
+	
+	////////////////////////////////////////////////
+	// the second moments in one direction, say x //
+	////////////////////////////////////////////////
+	
+	public static class Axis
+	{
+		// the centroid and the variance of x, the mean and the variance of the direction kX / k,
+		// and the covariance of x and kX / k, all in the plane of the beam
+		private double centroid, variance, centroidAngle, angularVariance, covariance;
+		
+		private double wavelength;
+		
+		public Axis(double centroid, double variance, double centroidAngle, double angularVariance, double covariance, double wavelength)
+		{
+			this.centroid = centroid;
+			this.variance = variance;
+			this.centroidAngle = centroidAngle;
+			this.angularVariance = Math.max(0, angularVariance);
+			this.covariance = covariance;
+			this.wavelength = wavelength;
+		}
+		
+		public double getCentroid() {
+			return centroid;
+		}
+		
+		// the D4sigma width, i.e. four times the standard deviation of the intensity distribution
+		public double getD4SigmaWidth() {
+			return 4*Math.sqrt(variance);
+		}
+		
+		// the angle of the direction of the centroid with the z axis
+		public double getCentroidAngle() {
+			return centroidAngle;
+		}
+		
+		// the full divergence angle, i.e. four times the standard deviation of the direction
+		public double getDivergence() {
+			return 4*Math.sqrt(angularVariance);
+		}
+		
+		// the z position of the waist, relative to the plane of the beam, i.e. positive if the
+		// waist is downstream; 0 if the beam does not diverge
+		public double getWaistPosition()
+		{
+			if(angularVariance == 0) return 0;
+			return -covariance / angularVariance;
+		}
+		
+		// the D4sigma width of the waist
+		public double getWaistD4SigmaWidth()
+		{
+			return getD4SigmaWidth(getWaistPosition());
+		}
+		
+		// the distance from the waist over which the D4sigma width grows by a factor sqrt(2)
+		public double getRayleighRange()
+		{
+			if(angularVariance == 0) return Double.POSITIVE_INFINITY;
+			return 0.25*getWaistD4SigmaWidth() / Math.sqrt(angularVariance);
+		}
+		
+		// the beam-propagation ratio M^2
+		public double getMSquared()
+		{
+			return 4*Math.PI/wavelength * Math.sqrt(Math.max(0, variance*angularVariance - covariance*covariance));
+		}
+		
+		// the centroid after propagation through a distance z
+		public double getCentroid(double z)
+		{
+			return centroid + centroidAngle*z;
+		}
+		
+		// the D4sigma width after propagation through a distance z
+		public double getD4SigmaWidth(double z)
+		{
+			return 4*Math.sqrt(Math.max(0, variance + 2*covariance*z + angularVariance*z*z));
+		}
+	}
+}
@@ -0,0 +1,293 @@
+/* */
+
+
+package library.optics;
+
+
+import java.io.*;
+
+import javawaveoptics.utility.MathsUtilities;
+
+import library.maths.*;
+
+
+// A beam that is, in the plane in which it is defined, a sum of Hermite-Gaussian modes with a common
+// waist, i.e. with a plane phase front.  Gaussian, Hermite-Gaussian and Laguerre-Gaussian beams are all
+// of this form.
+// After a paraxial first-order system (see ABCDMatrix), each Hermite-Gaussian mode is again a Hermite-Gaussian
+// mode, with a complex beam parameter q given by the ABCD law and an extra Gouy phase, so the field
+// after the system can be calculated directly, without any FFTs.
+//
+// The modes are written in terms of the 1D functions
+//   u_n(x) = (2/pi)^(1/4) / sqrt(2^n n! w) H_n(sqrt(2) x / w) exp(i k x^2 / (2 q)),
+// where the field is exp(i k x^2 / (2 q)) (with Im(q) < 0 for a beam of finite width; see ABCDMatrix).
+// A beam centred at x0 leaves the system centred at A x0 and tilted by C x0.
+
+public class GaussianModeExpansion
+implements Serializable
+{
+	private static final long serialVersionUID = 2310455312938372412L;
+
+	// waist size, and centre of the waist
+	private double w0, xCentre, yCentre;
+	
+	// the terms u_n(x - xCentre) u_m(y - yCentre) of the sum, with their complex coefficients
+	private int nIndices[], mIndices[];
+	private double coefficientsRe[], coefficientsIm[];
+	
+	
+	//////////////////
+	// constructors //
+	//////////////////
+	
+	public GaussianModeExpansion(double w0, double xCentre, double yCentre, int nIndices[], int mIndices[], double coefficientsRe[], double coefficientsIm[])
+	{
+		this.w0 = w0;
+		this.xCentre = xCentre;
+		this.yCentre = yCentre;
+		this.nIndices = nIndices;
+		this.mIndices = mIndices;
+		this.coefficientsRe = coefficientsRe;
+		this.coefficientsIm = coefficientsIm;
+	}
+	
+	// the beam created by ComplexField2D.makeGaussian
+	public static GaussianModeExpansion gaussian(double w0, double xCentre, double yCentre)
+	{
+		return hermiteGaussian(0, 0, w0, xCentre, yCentre);
+	}
+	
+	// the beam created by ComplexField2D.makeHermiteGaussian, H_n(sqrt(2) x / w0) H_m(sqrt(2) y / w0) exp(-r^2 / w0^2)
+	public static GaussianModeExpansion hermiteGaussian(int n, int m, double w0, double xCentre, double yCentre)
+	{
+		return new GaussianModeExpansion(
+				w0, xCentre, yCentre,
+				new int[] {n}, new int[] {m},
+				new double[] {1 / (getNormalisation(n, w0) * getNormalisation(m, w0))}, new double[] {0}
+			);
+	}
+	
+	// the beam created by ComplexField2D.makeLaguerreGaussian;
+	// see M. W. Beijersbergen et al., Opt. Commun. 96, 123-132 (1993), for the expansion into Hermite-Gaussian modes
+	public static GaussianModeExpansion laguerreGaussian(int l, int p, double w0, double xCentre, double yCentre)
+	{
+		// the indices of LG_nm in the above paper, which has azimuthal index n - m and radial index min(n, m)
+		int
+			n = p + Math.max(l, 0),
+			m = p + Math.max(-l, 0),
+			order = n + m;
+		
+		// makeLaguerreGaussian uses a different normalisation from the normalised mode in the paper, and the opposite
+		// sign for odd p
+		double normalisation =
+			(((p % 2) == 0)?1:-1) *
+			MathsUtilities.laguerreNormalisation(l, p, w0) /
+			(Math.sqrt(2 * factorial(p) / (Math.PI * factorial(p + Math.abs(l)))) / w0);
+		
+		int
+			nIndices[] = new int[order+1],
+			mIndices[] = new int[order+1];
+		double
+			coefficientsRe[] = new double[order+1],
+			coefficientsIm[] = new double[order+1];
+		
+		for(int k=0; k<=order; k++)
+		{
+			// (-i)^k b(n, m, k), where b(n, m, k) contains the coefficient of t^k in (1 - t)^n (1 + t)^m
+			// (the paper's azimuthal phase factor is exp(-i (n - m) phi))
+			double c = 0;
+			for(int j=Math.max(0, k-m); j<=Math.min(n, k); j++)
+			{
+				c += (((j % 2) == 0)?1:-1) * binomial(n, j) * binomial(m, k-j);
+			}
+			c *= normalisation * Math.sqrt(factorial(order-k) * factorial(k) / (Math.pow(2, order) * factorial(n) * factorial(m)));
+			
+			nIndices[k] = order-k;
+			mIndices[k] = k;
+			switch(k % 4)
+			{
+			case 0: coefficientsRe[k] = c; break;
+			case 1: coefficientsIm[k] = -c; break;
+			case 2: coefficientsRe[k] = -c; break;
+			default: coefficientsIm[k] = c;
+			}
+		}
+		
+		return new GaussianModeExpansion(w0, xCentre, yCentre, nIndices, mIndices, coefficientsRe, coefficientsIm);
+	}
+	
+	
+	////////////////
+	// operations //
+	////////////////
+	
+	/**
+	 * Replaces the field in the beam by this beam after the first-order system described by the matrices mX and mY,
+	 * sampled on the beam's grid.
+	 * @param beam	the beam, whose wavelength and sampling are used
+	 * @param mX	the ABCD matrix in the x direction
+	 * @param mY	the ABCD matrix in the y direction
+	 * @param opticalPathLength	the optical path length along the optical axis, which determines the overall phase
+	 */
+	public void makeField(LightBeamCrossSection2D beam, ABCDMatrix mX, ABCDMatrix mY, double opticalPathLength)
+	{
+		int
+			width = beam.getWidth(),
+			height = beam.getHeight(),
+			maxN = 0,
+			maxM = 0;
+		for(int t=0; t<nIndices.length; t++)
+		{
+			maxN = Math.max(maxN, nIndices[t]);
+			maxM = Math.max(maxM, mIndices[t]);
+		}
+		
+		double x[] = new double[width], y[] = new double[height];
+		for(int i=0; i<width; i++) x[i] = beam.getX(i);
+		for(int j=0; j<height; j++) y[j] = beam.getY(j);
+		
+		// the 1D modes in x and y, u[order][2*i] + i u[order][2*i+1]
+		double
+			uX[][] = calculateModes(mX, xCentre, maxN, x, beam.getWavelength()),
+			uY[][] = calculateModes(mY, yCentre, maxM, y, beam.getWavelength());
+		
+		double
+			k = 2*Math.PI/beam.getWavelength(),
+			cosKL = Math.cos(k*opticalPathLength),
+			sinKL = Math.sin(k*opticalPathLength),
+			data[] = beam.getData();
+		
+		for(int j=0; j<height; j++)
+		{
+			for(int i=0; i<width; i++)
+			{
+				double re = 0, im = 0;
+				
+				for(int t=0; t<nIndices.length; t++)
+				{
+					double
+						xRe = uX[nIndices[t]][2*i], xIm = uX[nIndices[t]][2*i+1],
+						yRe = uY[mIndices[t]][2*j], yIm = uY[mIndices[t]][2*j+1],
+						xyRe = xRe*yRe - xIm*yIm,
+						xyIm = xRe*yIm + xIm*yRe;
+					
+					re += coefficientsRe[t]*xyRe - coefficientsIm[t]*xyIm;
+					im += coefficientsRe[t]*xyIm + coefficientsIm[t]*xyRe;
+				}
+				
+				// exp(i k opticalPathLength)
+				data[2*(j*width+i)] = re*cosKL - im*sinKL;
+				data[2*(j*width+i)+1] = re*sinKL + im*cosKL;
+			}
+		}
+	}
+	
+	/**
+	 * @return	the beam radius (at which the intensity has fallen to 1/e^2 of that of the fundamental mode) after the system, in x
+	 */
+	public double getBeamRadiusX(ABCDMatrix mX, double wavelength)
+	{
+		return getBeamRadius(mX, wavelength);
+	}
+	
+	/**
+	 * @return	the beam radius after the system, in y
+	 */
+	public double getBeamRadiusY(ABCDMatrix mY, double wavelength)
+	{
+		return getBeamRadius(mY, wavelength);
+	}
+	
+	/**
+	 * @return	the highest order (n + m) of the modes in the sum
+	 */
+	public int getMaxOrder()
+	{
+		int maxOrder = 0;
+		for(int t=0; t<nIndices.length; t++) maxOrder = Math.max(maxOrder, nIndices[t] + mIndices[t]);
+		return maxOrder;
+	}
+	
+	// the centre of the beam after the system
+	public double getXCentre(ABCDMatrix mX)
+	{
+		return mX.getA() * xCentre;
+	}
+	
+	public double getYCentre(ABCDMatrix mY)
+	{
+		return mY.getA() * yCentre;
+	}
+	
+	// the 1D modes u_0 ... u_maxOrder after the system m, for a beam centred at x0, at the positions x[]
+	private double[][] calculateModes(ABCDMatrix m, double x0, int maxOrder, double x[], double wavelength)
+	{
+		double
+			k = 2*Math.PI/wavelength,
+			A = m.getA(), B = m.getB(), C = m.getC(), D = m.getD(),
+			// q at the waist, -i z_R
+			q0Im = -Math.PI * w0*w0 / wavelength,
+			// 1/q after the system, (C q0 + D) / (A q0 + B)
+			nRe = D, nIm = C*q0Im,
+			dRe = B, dIm = A*q0Im,
+			dAbsSqr = dRe*dRe + dIm*dIm,
+			invQRe = (nRe*dRe + nIm*dIm) / dAbsSqr,
+			invQIm = (nIm*dRe - nRe*dIm) / dAbsSqr,
+			w = Math.sqrt(2 / (k * invQIm)),
+			// the Gouy phase, arg(A + B / q0)
+			gouyPhase = Math.atan2(-B/q0Im, A),
+			// the argument of the amplitude factor of the fundamental mode
+			amplitudeArg = m.getGaussianAmplitudeFactorArg(0, q0Im),
+			centre = A * x0;
+		
+		double u[][] = new double[maxOrder+1][2*x.length];
+		
+		for(int i=0; i<x.length; i++)
+		{
+			double
+				v = x[i] - centre,
+				// the Gaussian with its curvature, the tilt of a decentred beam, and the amplitude factor
+				gaussian = Math.exp(-0.5*k*invQIm*v*v),
+				phase = 0.5*k*invQRe*v*v + k*C*x0*(x[i] - 0.5*A*x0) + amplitudeArg,
+				xi = MathsUtilities.SQRT2 * v / w;
+			
+			for(int n=0; n<=maxOrder; n++)
+			{
+				double
+					a = getNormalisation(n, w) * MathsUtilities.hermiteH(n, xi) * gaussian,
+					p = phase - n*gouyPhase;
+				
+				u[n][2*i] = a*Math.cos(p);
+				u[n][2*i+1] = a*Math.sin(p);
+			}
+		}
+		
+		return u;
+	}
+	
+	private double getBeamRadius(ABCDMatrix m, double wavelength)
+	{
+		// w^2 = w0^2 |A + B / q0|^2
+		double zR = Math.PI * w0*w0 / wavelength;
+		
+		return w0 * Math.sqrt(MyMath.sqr(m.getA()) + MyMath.sqr(m.getB() / zR));
+	}
+	
+	// (2/pi)^(1/4) / sqrt(2^n n! w)
+	private static double getNormalisation(int n, double w)
+	{
+		return Math.pow(2/Math.PI, 0.25) / Math.sqrt(Math.pow(2, n) * factorial(n) * w);
+	}
+	
+	private static double factorial(int n)
+	{
+		double f = 1;
+		for(int i=2; i<=n; i++) f *= i;
+		return f;
+	}
+	
+	private static double binomial(int n, int k)
+	{
+		return factorial(n) / (factorial(k) * factorial(n-k));
+	}
+}
@@ -243,6 +243,36 @@ implements ComplexList1D, Serializable
 	}
 	
 	
+	//
+	// serialisation
+	//
+	
+	// when written to a chunk file (see library.util.ChunkFile), the amplitudes go
+	// into a chunk of their own rather than into the object stream
+	private void writeObject(ObjectOutputStream out)
+	throws IOException
+	{
+		if(out instanceof ChunkObjectOutputStream)
+		{
+			ObjectOutputStream.PutField fields = out.putFields();
+			fields.put("amplitudes", null);
+			fields.put("width", width);
+			fields.put("physicalWidth", physicalWidth);
+			fields.put("wavelength", wavelength);
+			out.writeFields();
+			((ChunkObjectOutputStream)out).writeDoubleArray(amplitudes);
+		}
+		else out.defaultWriteObject();
+	}
+	
+	private void readObject(ObjectInputStream in)
+	throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		if(in instanceof ChunkObjectInputStream) amplitudes = ((ChunkObjectInputStream)in).readDoubleArray();
+	}
+	
+	
 	//////////////////////////////////////////////////
 	// method that simulates free-space propagation //
 	//////////////////////////////////////////////////
@@ -254,16 +284,55 @@ implements ComplexList1D, Serializable
 	*/
 	public void propagate(double deltaZ)
 	{
-		double
-			kZ, kzdeltaz, coskzdeltaz, sinkzdeltaz, expikzdeltaz,
-			re, im, powerFactor;
-  
 		// 1. Fourier transform the amplitude matrix
 		FT(+1);	// +1 means do a Fourier transform, not an inverse FT
   
 		// 2. multiply each element with exp(i kz deltaZ)
-		// this is also a good time to divide each element by
-		// width * height, such that power is conserved!
+		multiplyByTransferFunction(deltaZ);
+  
+		// 3. inverse Fourier transform the whole lot
+		FT(-1);	// 1 means do an INVERSE Fourier transform
+	}
+	
+	/* Propagation over several distances from the same plane only requires one
+	   forward Fourier transform:  the angular spectrum is calculated once, and each
+	   propagated beam is then obtained from it by multiplication with the transfer
+	   function and an inverse Fourier transform.
+	*/
+	
+	// return the angular spectrum of the beam, i.e. its Fourier transform
+	public LightBeamCrossSection1D getAngularSpectrum()
+	{
+		LightBeamCrossSection1D spectrum = new LightBeamCrossSection1D(this);
+		spectrum.FT(+1);
+		
+		return spectrum;
+	}
+	
+	// replace the amplitudes with those of the beam whose angular spectrum is
+	// <spectrum> (calculated with getAngularSpectrum), propagated by deltaZ;
+	// spectrum is not altered
+	public void setToPropagatedAngularSpectrum(LightBeamCrossSection1D spectrum, double deltaZ)
+	throws SizeMismatchError
+	{
+		if(spectrum.width != width)
+			throw(new SizeMismatchError("setToPropagatedAngularSpectrum: spectrum size does not match beam size."));
+		
+		System.arraycopy(spectrum.amplitudes, 0, amplitudes, 0, width<<1);
+		multiplyByTransferFunction(deltaZ);
+		FT(-1);
+	}
+	
+	/* multiply the Fourier transform of the amplitude matrix, which has to be stored
+	   in amplitudes, by the free-space transfer function exp(i kz deltaZ);
+	   this is also a good time to divide each element by width, such that
+	   power is conserved after the inverse Fourier transform
+	*/
+	private void multiplyByTransferFunction(double deltaZ)
+	{
+		double
+			kZ, kzdeltaz, coskzdeltaz, sinkzdeltaz, expikzdeltaz,
+			re, im, powerFactor;
   
 		powerFactor = 1.0/(width);
   
@@ -305,9 +374,6 @@ implements ComplexList1D, Serializable
 				amplitudes[getIndexIm(i)] *= expikzdeltaz * powerFactor;
 			}
 		}
-  
-		// 3. inverse Fourier transform the whole lot
-		FT(-1);	// 1 means do an INVERSE Fourier transform
 	}
 	
 
@@ -70,8 +70,9 @@ import javawaveoptics.utility.ImageUtilities;
 import javawaveoptics.utility.MathsUtilities;
 
 import library.field.*;
-import library.list.ComplexList2D;
+import library.list.ComplexArray2D;
 import library.maths.*;
+import library.util.*;
 
 
 public class LightBeamCrossSection2D extends ComplexField2D
@@ -93,6 +94,38 @@ implements Serializable
 	// elements in the amplitude matrix represent evanescent components of the beam
 	private boolean evanescentComponentsPresent = false;
 	
+	// the active region, i.e. a box {iMin, iMax, jMin, jMax} such that all elements (i, j) outside
+	// iMin <= i < iMax, jMin <= j < jMax are known to be zero, or null if nothing is known;
+	// apertures shrink it, propagation (and anything else that can make zero elements non-zero, see
+	// zerosMayHaveChanged) forgets it, and kernels that multiply elements, statistics and plots only
+	// look at the elements inside it
+	private transient int activeRegion[] = null;
+	
+	// the smallest box outside which all elements are zero (see getNonZeroBoundingBox), {0, 0, 0, 0} if all
+	// elements are zero, or null if not known, and the modification count (see ComplexArray2D) at the time
+	private transient int nonZeroBoundingBox[] = null;
+	private transient long nonZeroBoundingBoxModificationCount;
+	
+	// if true, propagate uses real-to-real transforms of one quadrant of the beam if the beam is
+	// even or odd about both central axes (see propagateSymmetrically); this is set per thread, so
+	// that each simulation (see GUI) can have its own setting
+	private static final ThreadLocal<Boolean> symmetricPropagation = new ThreadLocal<Boolean>()
+	{
+		@Override
+		protected Boolean initialValue()
+		{
+			return false;
+		}
+	};
+	
+	// the parities in x and y (see getParityInX and getParityInY), null where not known, and the
+	// modification count (see ComplexArray2D) at the time
+	private transient Parity parities[] = null;
+	private transient long paritiesModificationCount;
+	
+	// the symmetry of a beam under reflection about a central axis
+	public enum Parity {EVEN, ODD, NONE};
+	
 	// private DoubleFFT_2D fourierTransformer;
 
 
@@ -124,6 +157,7 @@ implements Serializable
 		super(crossSection);
 		
 		this.wavelength = crossSection.getWavelength();
+		if(crossSection.activeRegion != null) this.activeRegion = crossSection.activeRegion.clone();
 	}
 	
 	public LightBeamCrossSection2D(ComplexField2D original, double wavelength)
@@ -188,22 +222,7 @@ implements Serializable
 	 */
 	public double getMaxIntensity()
 	{
-		double maxIntensity = 0;
-		
-		for(int x = 0; x < width; x++)
-		{
-			for(int y = 0; y < height; y++)
-			{
-				double intensity = getIntensity(x, y);
-				
-				if(intensity > maxIntensity)
-				{
-					maxIntensity = intensity;
-				}
-			}
-		}
-		
-		return maxIntensity;
+		return getStatistics().getMaxIntensity();
 	}
 
 	/**
@@ -213,22 +232,7 @@ implements Serializable
 	 */
 	public double getMinIntensity()
 	{
-		double minIntensity = getIntensity(0,0);
-		
-		for(int x = 0; x < width; x++)
-		{
-			for(int y = 0; y < height; y++)
-			{
-				double intensity = getIntensity(x, y);
-				
-				if(intensity < minIntensity)
-				{
-					minIntensity = intensity;
-				}
-			}
-		}
-		
-		return minIntensity;
+		return getStatistics().getMinIntensity();
 	}
 
 	
@@ -239,22 +243,7 @@ implements Serializable
 	 */
 	public double getMaxAbsRe()
 	{
-		double maxAbsRe = 0;
-		
-		for(int x = 0; x < width; x++)
-		{
-			for(int y = 0; y < height; y++)
-			{
-				double absRe = Math.abs(getElementRe(x, y));
-				
-				if(absRe > maxAbsRe)
-				{
-					maxAbsRe = absRe;
-				}
-			}
-		}
-		
-		return maxAbsRe;
+		return getStatistics().getMaxAbsRe();
 	}
 
 	/**
@@ -264,22 +253,7 @@ implements Serializable
 	 */
 	public double getMaxAbsIm()
 	{
-		double maxAbsIm = 0;
-		
-		for(int x = 0; x < width; x++)
-		{
-			for(int y = 0; y < height; y++)
-			{
-				double absIm = Math.abs(getElementIm(x, y));
-				
-				if(absIm > maxAbsIm)
-				{
-					maxAbsIm = absIm;
-				}
-			}
-		}
-		
-		return maxAbsIm;
+		return getStatistics().getMaxAbsIm();
 	}
 
 	
@@ -296,18 +270,21 @@ implements Serializable
 	 */
 	public void propagate(double deltaZ)
 	{
+		if(isSymmetricPropagation() && propagateSymmetrically(deltaZ)) return;
+		
 		double
 			kZ, kzdeltaz, coskzdeltaz, sinkzdeltaz, expikzdeltaz,
 			re, im, powerFactor;
   
-		// number of matrix elements in the two dimensions; for use by Fourier.Transform
-		int nn[] = {height, width};
-
-		// 1. Fourier transform the amplitude matrix
-		Fourier.transform(+1,	// +1 means do a Fourier transform, not an inverse FT
-			2,	// number of dimensions
-			nn,	// number of elements in those dimensions
-			data );
+		// 1. Fourier transform the amplitude matrix, skipping the rows in the guard band of
+		// zeros around the beam (which gives exactly the same result as transforming them)
+		int box[] = getNonZeroBoundingBox();
+		if(box == null) return;	// the beam is zero everywhere, and stays so
+		zerosMayHaveChanged();
+		FFT2D.transformPrunedInput(+1,	// +1 means do a Fourier transform, not an inverse FT
+			width, height,	// number of elements in the two dimensions
+			data,
+			box[2], box[3] );	// the rows that can be non-zero
   
 		// 2. multiply each element with exp(i kz deltaZ)
 		// this is also a good time to divide each element by
@@ -358,12 +335,288 @@ implements Serializable
 		}
   
 		// 3. inverse Fourier transform the whole lot
-		Fourier.transform(-1,	// 1 means do an INVERSE Fourier transform
-			2,	// number of dimensions
-			nn,	// number of elements in those dimensions
+		FFT2D.transform(-1,	// 1 means do an INVERSE Fourier transform
+			width, height,	// number of elements in the two dimensions
 			data );
 	}
 	
+	// the smallest box iMin <= i < iMax, jMin <= j < jMax outside which all elements are exactly zero,
+	// as {iMin, iMax, jMin, jMax}, or null if all elements are zero; only the active region is searched,
+	// and only if the data have changed since the last search
+	private int[] getNonZeroBoundingBox()
+	{
+		if((nonZeroBoundingBox == null) || (nonZeroBoundingBoxModificationCount != getModificationCount()))
+		{
+			nonZeroBoundingBox = findNonZeroBoundingBox();
+			if(nonZeroBoundingBox == null) nonZeroBoundingBox = new int[] {0, 0, 0, 0};	// all elements are zero
+			nonZeroBoundingBoxModificationCount = getModificationCount();
+		}
+		
+		if(nonZeroBoundingBox[1] == 0) return null;
+		return nonZeroBoundingBox.clone();
+	}
+	
+	private int[] findNonZeroBoundingBox()
+	{
+		int region[] = getActiveRegion();
+		int
+			iMin = width, iMax = 0,
+			jMin = height, jMax = 0;
+		
+		for(int j = region[2]; j < region[3]; j++)
+		{
+			int rowStart = 2*j*width, rowEnd = 2*(j*width + region[1]);
+			
+			// the first non-zero element in the row...
+			int first = rowStart + 2*region[0];
+			while((first < rowEnd) && (data[first] == 0) && (data[first+1] == 0)) first += 2;
+			if(first == rowEnd) continue;	// the row is zero
+			
+			// ...and the last one
+			int last = rowEnd - 2;
+			while((data[last] == 0) && (data[last+1] == 0)) last -= 2;
+			
+			iMin = Math.min(iMin, (first - rowStart)/2);
+			iMax = Math.max(iMax, (last - rowStart)/2 + 1);
+			if(jMin == height) jMin = j;
+			jMax = j + 1;
+		}
+		
+		if(jMin == height) return null;
+		return new int[] {iMin, iMax, jMin, jMax};
+	}
+	
+	
+	///////////////////
+	// active region //
+	///////////////////
+	
+	// the active region, {iMin, iMax, jMin, jMax}; all elements outside it are zero
+	@Override
+	public int[] getActiveRegion()
+	{
+		if(activeRegion == null) return new int[] {0, width, 0, height};
+		return activeRegion.clone();
+	}
+	
+	public boolean isActiveRegionWholeArray()
+	{
+		return (activeRegion == null) ||
+			((activeRegion[0] == 0) && (activeRegion[1] == width) && (activeRegion[2] == 0) && (activeRegion[3] == height));
+	}
+	
+	// shrink the active region to the smallest box that contains all non-zero elements;
+	// called after passing through apertures
+	public void shrinkActiveRegion()
+	{
+		activeRegion = getNonZeroBoundingBox();
+		if(activeRegion == null) activeRegion = new int[] {0, 0, 0, 0};	// all elements are zero
+	}
+	
+	// forget the active region
+	@Override
+	protected void zerosMayHaveChanged()
+	{
+		activeRegion = null;
+		super.zerosMayHaveChanged();
+	}
+	
+	// apply a kernel that multiplies each element by a factor, and which therefore leaves zero
+	// elements zero, to the active region only
+	private void applyMultiplyingPixelKernel(PixelKernel kernel)
+	{
+		int region[] = getActiveRegion();
+		applyPixelKernel(kernel, region[0], region[1], region[2], region[3]);
+	}
+	
+	// multiply element (i, j) by the complex number (mask[2*(j*width+i)], mask[2*(j*width+i)+1]),
+	// but only in the active region
+	@Override
+	public void multiplyByComplexMask(double mask[])
+	throws SizeMismatchError
+	{
+		if(mask.length != 2*width*height)
+			throw new SizeMismatchError("LightBeamCrossSection2D::multiplyByComplexMask: size mismatch");
+		
+		dataChanged();
+		int region[] = getActiveRegion();
+		PixelKernelEngine.multiplyByComplexMask(data, width, mask, region[0], region[1], region[2], region[3]);
+	}
+	
+	// is symmetric propagation used in the current thread?
+	public static boolean isSymmetricPropagation() {
+		return symmetricPropagation.get();
+	}
+
+	// switch symmetric propagation on or off in the current thread
+	public static void setSymmetricPropagation(boolean symmetricPropagation) {
+		LightBeamCrossSection2D.symmetricPropagation.set(symmetricPropagation);
+	}
+	
+	
+	///////////////////////////////////////////
+	// propagation of mirror-symmetric beams //
+	///////////////////////////////////////////
+	
+	// the parity of the beam under reflection about the central vertical axis, i.e. under x -> -x,
+	// to within rounding errors
+	public Parity getParityInX()
+	{
+		return getCachedParity(0);
+	}
+	
+	// the parity of the beam under reflection about the central horizontal axis, i.e. under y -> -y,
+	// to within rounding errors
+	public Parity getParityInY()
+	{
+		return getCachedParity(1);
+	}
+	
+	// the parity in x (direction 0) or y (direction 1), which is found only once per change of the data
+	private Parity getCachedParity(int direction)
+	{
+		if((parities == null) || (paritiesModificationCount != getModificationCount()))
+		{
+			parities = new Parity[2];
+			paritiesModificationCount = getModificationCount();
+		}
+		if(parities[direction] == null) parities[direction] = getParity(direction == 0);
+		return parities[direction];
+	}
+	
+	// compare each element with its mirror image; a beam that is zero everywhere is even
+	private Parity getParity(boolean inX)
+	{
+		double tolerance = 1e-10 * Math.sqrt(getMaxIntensity());
+		boolean even = true, odd = true;
+		
+		for(int j = 0; j < (inX?height:(height/2)); j++)
+		{
+			for(int i = 0; i < (inX?(width/2):width); i++)
+			{
+				int
+					index = getIndexRe(i, j),
+					mirrorIndex = inX?getIndexRe(width-1-i, j):getIndexRe(i, height-1-j);
+				
+				for(int c = 0; c < 2; c++)	// real and imaginary parts
+				{
+					double a = data[index+c], b = data[mirrorIndex+c];
+					
+					if(even && (Math.abs(a - b) > tolerance)) even = false;
+					if(odd && (Math.abs(a + b) > tolerance)) odd = false;
+				}
+				if(!(even || odd)) return Parity.NONE;
+			}
+		}
+		
+		return even?Parity.EVEN:Parity.ODD;
+	}
+	
+	/**
+	 * Propagates the beam like propagate, but using only one quadrant of the beam, provided the
+	 * beam is even or odd about both central axes.
+	 * The quadrant is then an array of (width/2) x (height/2) elements, whose real and imaginary
+	 * parts are transformed separately with DCTs (for even parity) or DSTs (for odd parity),
+	 * which is considerably faster than the complex FFT of the whole beam.
+	 * Propagation preserves the parity, so the other quadrants are filled in by reflection.
+	 * @param deltaZ	the propagation distance
+	 * @return	false, without changing the beam, if the beam does not have the required symmetry or
+	 * 			an odd number of elements in either direction
+	 */
+	public boolean propagateSymmetrically(double deltaZ)
+	{
+		if((width % 2 != 0) || (height % 2 != 0)) return false;
+		
+		Parity parityInX = getParityInX();
+		if(parityInX == Parity.NONE) return false;
+		Parity parityInY = getParityInY();
+		if(parityInY == Parity.NONE) return false;
+		
+		zerosMayHaveChanged();
+		
+		boolean
+			evenInX = (parityInX == Parity.EVEN),
+			evenInY = (parityInY == Parity.EVEN);
+		int
+			quadrantWidth = width/2,
+			quadrantHeight = height/2;
+		double
+			re[] = new double[quadrantWidth*quadrantHeight],
+			im[] = new double[quadrantWidth*quadrantHeight];
+		
+		// 1. extract the quadrant x > 0, y > 0 and transform its real and imaginary parts
+		for(int m = 0; m < quadrantHeight; m++)
+		{
+			for(int n = 0; n < quadrantWidth; n++)
+			{
+				int index = getIndexRe(quadrantWidth + n, quadrantHeight + m);
+				re[m*quadrantWidth + n] = data[index];
+				im[m*quadrantWidth + n] = data[index+1];
+			}
+		}
+		SymmetricTransform2D.forward(evenInX, evenInY, quadrantWidth, quadrantHeight, re);
+		SymmetricTransform2D.forward(evenInX, evenInY, quadrantWidth, quadrantHeight, im);
+		
+		// 2. multiply each element with exp(i kz deltaZ); the transforms are orthonormal,
+		// so no further normalisation is required
+		for(int m = 0; m < quadrantHeight; m++)
+		{
+			double kY = 2*Math.PI*SymmetricTransform2D.getWaveNumberIndex(evenInY, m)/physicalHeight;
+			
+			for(int n = 0; n < quadrantWidth; n++)
+			{
+				double
+					kX = 2*Math.PI*SymmetricTransform2D.getWaveNumberIndex(evenInX, n)/physicalWidth,
+					kZ = getWaveVectorZ(kX, kY),
+					a = re[m*quadrantWidth + n],
+					b = im[m*quadrantWidth + n];
+				
+				if(kZ >= 0)
+				{
+					double
+						coskzdeltaz = Math.cos(kZ * deltaZ),
+						sinkzdeltaz = Math.sin(kZ * deltaZ);
+					
+					re[m*quadrantWidth + n] = a * coskzdeltaz - b * sinkzdeltaz;
+					im[m*quadrantWidth + n] = a * sinkzdeltaz + b * coskzdeltaz;
+				}
+				else
+				{
+					// evanescent component (see propagate)
+					double expikzdeltaz = Math.exp(-Math.abs(kZ) * deltaZ);
+					
+					re[m*quadrantWidth + n] = a * expikzdeltaz;
+					im[m*quadrantWidth + n] = b * expikzdeltaz;
+				}
+			}
+		}
+		
+		// 3. transform back and fill in all four quadrants
+		SymmetricTransform2D.inverse(evenInX, evenInY, quadrantWidth, quadrantHeight, re);
+		SymmetricTransform2D.inverse(evenInX, evenInY, quadrantWidth, quadrantHeight, im);
+		
+		for(int j = 0; j < height; j++)
+		{
+			int m = (j >= quadrantHeight)?(j - quadrantHeight):(quadrantHeight - 1 - j);
+			double signY = ((j < quadrantHeight) && !evenInY)?-1:1;
+			
+			for(int i = 0; i < width; i++)
+			{
+				int n = (i >= quadrantWidth)?(i - quadrantWidth):(quadrantWidth - 1 - i);
+				double sign = ((i < quadrantWidth) && !evenInX)?-signY:signY;
+				
+				data[getIndexRe(i, j)] = sign * re[m*quadrantWidth + n];
+				data[getIndexIm(i, j)] = sign * im[m*quadrantWidth + n];
+			}
+		}
+		
+		// propagation preserves the parities, so the next propagation doesn't have to find them again
+		parities = new Parity[] {parityInX, parityInY};
+		paritiesModificationCount = getModificationCount();
+		
+		return true;
+	}
+	
 	
 	/////////////////////////////
 	// beam-propagation method //
@@ -382,15 +635,14 @@ implements Serializable
 	 */
 	public void propagateBPM(double deltaZ, double stepSize, int widthOfBoundary, JProgressBar progressBar, AbstractOpticalComponent opticalComponent)
 	{  
+		zerosMayHaveChanged();
+		
 		if(progressBar != null) progressBar.setValue(0);
 
 		// make sure stepSize has the same sign as deltaZ
 		if(deltaZ >= 0) stepSize = Math.abs(stepSize);
 		else stepSize = -Math.abs(stepSize);
 		
-		// number of matrix elements in the two dimensions; for use by Fourier.Transform
-		int nn[] = {height, width};
-		
 		// pre-calculate the transmittivity arrays
 		double[] xTransmittivityArray, yTransmittivityArray;
 		
@@ -432,7 +684,7 @@ implements Serializable
 		System.out.println("LightBeamCrossSection2D::propagateBPM: number of steps: "+noOfSteps+", actual step size: "+actualStepSize);
 		
 		// pre-calculate the numbers exp(i k_z delta z)
-		double[][][] expIKzDeltaZs = getExpIKzDeltaZArray(width, height, actualStepSize);
+		double[] expIKzDeltaZs = getExpIKzDeltaZArray(width, height, actualStepSize);
 		
 		double powerFactor = 1.0/(width * height);
 		
@@ -447,23 +699,16 @@ implements Serializable
 			/*
 			 * First apply the absorbing boundary
 			 */
-			for(int i=0; i<width; i++)
-				for(int j=0; j<height; j++)
-				{
-					double t = xTransmittivityArray[i] * yTransmittivityArray[j];
-					data[getIndexRe(i,j)] *= t;
-					data[getIndexIm(i,j)] *= t;
-				}
+			multiplyBySeparableMask(xTransmittivityArray, yTransmittivityArray);
 
 			/*
 			 * Then, take a step of size actualStepSize
 			 */
 			
 			// 1. Fourier transform the amplitude matrix
-			Fourier.transform(
+			FFT2D.transform(
 					+1,	// +1 means do a Fourier transform, not an inverse FT
-					2,	// number of dimensions
-					nn,	// number of elements in those dimensions
+					width, height,	// number of elements in the two dimensions
 					data
 				);
   
@@ -474,10 +719,9 @@ implements Serializable
 			multiplyByExpIKZDeltaZ(expIKzDeltaZs, powerFactor);
 			
 			// 3. inverse Fourier transform the whole lot
-			Fourier.transform(
+			FFT2D.transform(
 					-1,	// 1 means do an INVERSE Fourier transform
-					2,	// number of dimensions
-					nn,	// number of elements in those dimensions
+					width, height,	// number of elements in the two dimensions
 					data
 				);
 		}
@@ -515,16 +759,16 @@ implements Serializable
 	
 	/**
 	 * Calculates the array of the complex numbers exp(i k_z delta z).
-	 * This is in the form of a 3D array, where f[i][j][p] is the real (p=0) or imaginary (p=1) part
-	 * of the number exp(i k_z delta z) corresponding to element number (i, j).
+	 * This is laid out like the data array, i.e. f[2*(j*width+i)] and f[2*(j*width+i)+1] are the
+	 * real and imaginary part of the number exp(i k_z delta z) corresponding to element number (i, j).
 	 * @param width
 	 * @param height
 	 * @param deltaZ
 	 * @return
 	 */
-	public double[][][] getExpIKzDeltaZArray(int width, int height, double deltaZ)
+	public double[] getExpIKzDeltaZArray(int width, int height, double deltaZ)
 	{
-		double[][][] f = new double[width][height][2];
+		double[] f = new double[2*width*height];
 		
 		for(int j = 0; j < height; j++)
 		{
@@ -537,8 +781,8 @@ implements Serializable
 					// Fourier component (i,j) represents a 'normal' wave
 
 					double kzdeltaz = kZ * deltaZ;
-					f[i][j][0] = Math.cos(kzdeltaz);	// real part of factor
-					f[i][j][1] = Math.sin(kzdeltaz);	// imaginary part of factor
+					f[2*(j*width+i)] = Math.cos(kzdeltaz);	// real part of factor
+					f[2*(j*width+i)+1] = Math.sin(kzdeltaz);	// imaginary part of factor
 				}
 				else
 				{
@@ -547,8 +791,8 @@ implements Serializable
 					// negative number, which is the negative value of
 					// the imaginary part of the wave number in the z
 					// direction
-					f[i][j][0] = Math.exp(-Math.abs(kZ) * deltaZ);
-					f[i][j][1] = 0;
+					f[2*(j*width+i)] = Math.exp(-Math.abs(kZ) * deltaZ);
+					f[2*(j*width+i)+1] = 0;
 				}
 			}
 		}
@@ -556,24 +800,439 @@ implements Serializable
 		return f;
 	}
 	
-	private void multiplyByExpIKZDeltaZ(double[][][] expIKzDeltaZs, double powerFactor)
+	private void multiplyByExpIKZDeltaZ(double[] expIKzDeltaZs, double powerFactor)
+	{
+		// (re + i im) exp(i kz*deltaZ) powerFactor
+		ComplexKernels.multiply(data, expIKzDeltaZs, powerFactor);
+	}
+	
+	/////////////////////////
+	// Fresnel propagation //
+	/////////////////////////
+	
+	/*
+	 * Unlike propagate, which keeps the sampling of the beam, these methods calculate the
+	 * Fresnel diffraction integral
+	 *   E'(x', y') = exp(i k deltaZ) / (i lambda deltaZ) *
+	 *     integral E(x, y) exp(i k ((x'-x)^2 + (y'-y)^2) / (2 deltaZ)) dx dy
+	 * with a single FFT, which maps the beam onto a grid whose physical size grows in
+	 * proportion to |deltaZ|.  This makes them suitable for long distances and for the far
+	 * field, where propagate would need an impractically large grid.
+	 */
+	
+	/**
+	 * @return	the propagation distance at which the single-FFT Fresnel method maps the beam onto a
+	 * 			grid of the same physical size;
+	 * 			for greater distances, the transfer function exp(i k_z deltaZ) used by propagate is
+	 * 			undersampled, i.e. propagate aliases, and the single-FFT Fresnel method is the
+	 * 			appropriate one.  Equivalently, this is the distance at which the Fresnel number of
+	 * 			the half-width of the beam cross-section, (physicalWidth/2)^2 / (lambda deltaZ),
+	 * 			falls to width/4.
+	 */
+	public double getCriticalFresnelDistance()
+	{
+		return Math.min(width * MyMath.sqr(getDeltaX()), height * MyMath.sqr(getDeltaY())) / wavelength;
+	}
+	
+	/**
+	 * Propagates the beam by deltaZ (which can be negative) using the single-FFT Fresnel method.
+	 * The physical width and height of the beam cross-section become lambda |deltaZ| / deltaX
+	 * and lambda |deltaZ| / deltaY, where deltaX and deltaY are the original element sizes.
+	 * @param deltaZ	the propagation distance
+	 */
+	public void propagateFresnel(double deltaZ)
+	{
+		if(deltaZ == 0) return;
+		
+		ABCDMatrix freeSpace = ABCDMatrix.freeSpace(deltaZ);
+		
+		passThroughFirstOrderSystemCollins(freeSpace, freeSpace, deltaZ, 0);
+	}
+	
+	/**
+	 * Propagates the beam by deltaZ (which can be negative) using two single-FFT Fresnel steps, via an
+	 * intermediate plane, which allows the physical width of the result to be chosen.
+	 * Propagation over deltaZ1 and then deltaZ2 = deltaZ - deltaZ1 scales the element size by
+	 * |deltaZ2 / deltaZ1|, so the intermediate plane is placed at deltaZ1 = deltaZ / (1 + magnification).
+	 * The aspect ratio of the beam cross-section stays the same.
+	 * @param deltaZ	the propagation distance
+	 * @param newPhysicalWidth	the physical width of the beam cross-section after propagation
+	 */
+	public void propagateScaledFresnel(double deltaZ, double newPhysicalWidth)
+	{
+		if(deltaZ == 0) return;
+		
+		double
+			magnification = newPhysicalWidth / physicalWidth,
+			deltaZ1 = deltaZ / (1 + magnification);
+
+		propagateFresnel(deltaZ1);
+		propagateFresnel(deltaZ - deltaZ1);
+	}
+	
+	/**
+	 * Propagates the beam by deltaZ with whichever method is cheapest while still being properly sampled:
+	 * with propagate up to the critical distance (see getCriticalFresnelDistance), which keeps the
+	 * sampling, and beyond that with the single-FFT Fresnel method, which needs only one FFT and
+	 * lets the grid grow with the diffracted beam.
+	 * @param deltaZ	the propagation distance
+	 * @return	true if the single-FFT Fresnel method was used, i.e. if the sampling has changed
+	 */
+	public boolean propagateAutomatically(double deltaZ)
+	{
+		if(Math.abs(deltaZ) <= getCriticalFresnelDistance())
+		{
+			propagate(deltaZ);
+			
+			return false;
+		}
+		
+		propagateFresnel(deltaZ);
+		
+		return true;
+	}
+	
+	
+	////////////////////////////////////////
+	// first-order (ABCD) optical systems //
+	////////////////////////////////////////
+	
+	/**
+	 * Passes the beam through a paraxial optical system described by ray-transfer (ABCD) matrices, e.g. a
+	 * sequence of lenses, distances and telescopes, in one go, i.e. at a cost that doesn't depend on the
+	 * number of elements in the system.
+	 * Wherever possible, the system is written as a lens, a magnification by the given scale factor,
+	 * propagation and another lens (with two FFTs), which changes the element size by the scale factor,
+	 * or, if B = 0, as a magnification by A followed by a lens.
+	 * If the first lens would be too strong to be sampled, but the B elements of the matrices are large
+	 * enough for the incident chirp to be sampled, this evaluates the Collins integral (see ABCDMatrix)
+	 * with one FFT, which changes the sampling like propagateFresnel.
+	 * @param mX	the ABCD matrix in the x direction
+	 * @param mY	the ABCD matrix in the y direction
+	 * @param opticalPathLength	the optical path length along the optical axis, which determines the overall phase
+	 * @param scaleFactorX	the preferred factor by which the element size in x changes; negative for an inverted beam
+	 * @param scaleFactorY	the preferred factor by which the element size in y changes; negative for an inverted beam
+	 * @return	false if none of these methods is suitable; in that case, the beam is unchanged
+	 */
+	public boolean passThroughFirstOrderSystem(ABCDMatrix mX, ABCDMatrix mY, double opticalPathLength, double scaleFactorX, double scaleFactorY)
+	{
+		return passThroughFirstOrderSystem(mX, mY, opticalPathLength, scaleFactorX, scaleFactorY, true);
+	}
+	
+	/**
+	 * Passes the beam through a paraxial optical system described by ray-transfer (ABCD) matrices, keeping the
+	 * sampling, i.e. only if the system can be written as a lens, propagation (or an inversion) and another lens,
+	 * the first lens weak enough to be sampled; see passThroughFirstOrderSystem(mX, mY, opticalPathLength, scaleFactorX, scaleFactorY)
+	 * @param mX	the ABCD matrix in the x direction
+	 * @param mY	the ABCD matrix in the y direction
+	 * @param opticalPathLength	the optical path length along the optical axis, which determines the overall phase
+	 * @return	false if the system cannot be simulated in one go without changing the sampling; in that case, the beam is unchanged
+	 */
+	public boolean passThroughFirstOrderSystem(ABCDMatrix mX, ABCDMatrix mY, double opticalPathLength)
+	{
+		return passThroughFirstOrderSystem(mX, mY, opticalPathLength, 1, 1, false);
+	}
+	
+	// if resamplingAllowed is false, only the decomposition with magnification +/-1 is used
+	private boolean passThroughFirstOrderSystem(ABCDMatrix mX, ABCDMatrix mY, double opticalPathLength, double scaleFactorX, double scaleFactorY, boolean resamplingAllowed)
+	{
+		double
+			criticalDistanceX = width * MyMath.sqr(getDeltaX()) / wavelength,
+			criticalDistanceY = height * MyMath.sqr(getDeltaY()) / wavelength;
+		
+		// decompose the system in each direction into
+		// a lens with k/(2 f) = preChirp, magnification by magnification, propagation over distance
+		// and a lens with k/(2 f) = postChirp
+		double
+			preChirp[] = new double[2],
+			magnification[] = new double[2],
+			distance[] = new double[2],
+			postChirp[] = new double[2],
+			phase = 0;
+		ABCDMatrix m[] = {mX, mY};
+		double
+			criticalDistance[] = {criticalDistanceX, criticalDistanceY},
+			scaleFactor[] = {scaleFactorX, scaleFactorY};
+		boolean lensesSampled = true;
+		
+		for(int d=0; d<2; d++)
+		{
+			double
+				A = m[d].getA(),
+				B = m[d].getB(),
+				C = m[d].getC(),
+				D = m[d].getD(),
+				s = scaleFactor[d],
+				p, q;
+			
+			if(Math.abs(B) <= 1e-9 * criticalDistance[d])
+			{
+				// B = 0 (apart from rounding errors):
+				// ((A, B), (C, D)) = ((1, 0), (C/A, 1)) ((A, 0), (0, 1/A))
+				p = 0;
+				s = A;
+				B = 0;
+				q = C / A;
+				
+				// the principal operator for B -> +0 and B -> -0 differ by a factor -1 if A < 0
+				if((A < 0) && (m[d].getB() < 0)) phase += Math.PI;
+			}
+			else
+			{
+				// ((A, B), (C, D)) = ((1, 0), (q, 1)) ((1, s B), (0, 1)) ((s, 0), (0, 1/s)) ((1, 0), (p, 1)),
+				// with p = (A - s) / B and q = (s D - 1) / (s B); for s = 1, this is exactly the Collins integral
+				p = (A - s) / B;
+				q = (s*D - 1) / (s*B);
+			}
+			
+			preChirp[d] = Math.PI / wavelength * p;
+			magnification[d] = s;
+			distance[d] = s*B;
+			postChirp[d] = Math.PI / wavelength * q;
+			
+			// is the first lens weak enough to be sampled, i.e. is its focal length at least the critical distance?
+			// (the second lens is applied after the last FFT, so it is simply evaluated at the new sample points)
+			if(Math.abs(p) > 1/criticalDistance[d]) lensesSampled = false;
+			
+			// the steps below implement the magnification without a phase factor and the other steps with their
+			// principal operators; correct for the resulting phase relative to that of the system
+			ABCDMatrix steps =
+				new ABCDMatrix(1, 0, p, 1).
+				followedBy(ABCDMatrix.magnification(s)).
+				followedBy(ABCDMatrix.freeSpace(s*B)).
+				followedBy(new ABCDMatrix(1, 0, q, 1));
+			phase += m[d].getPhase() - steps.getPhase();
+		}
+		
+		// the element size changes by the magnification
+		if(!resamplingAllowed && (!lensesSampled || (Math.abs(magnification[0]) != 1) || (Math.abs(magnification[1]) != 1))) return false;
+		
+		if(lensesSampled)
+		{
+			passThroughFirstOrderSystemInSteps(preChirp, magnification, distance, postChirp, opticalPathLength, phase);
+			return true;
+		}
+		
+		// the incident chirp exp(i k A x^2 / (2 B)) of the Collins integral is sampled properly if |B| >= |A| times
+		// the critical distance
+		if(
+				(mX.getB() != 0) && (Math.abs(mX.getB()) >= Math.abs(mX.getA()) * criticalDistanceX) &&
+				(mY.getB() != 0) && (Math.abs(mY.getB()) >= Math.abs(mY.getA()) * criticalDistanceY)
+			)
+		{
+			passThroughFirstOrderSystemCollins(mX, mY, opticalPathLength, mX.getPhase() + mY.getPhase());
+			return true;
+		}
+		
+		return false;
+	}
+	
+	// the Collins integral, evaluated with a single FFT, multiplied by exp(i phase);
+	// B must be non-zero in both directions
+	private void passThroughFirstOrderSystemCollins(ABCDMatrix mX, ABCDMatrix mY, double opticalPathLength, double phase)
 	{
+		zerosMayHaveChanged();
+		
+		final double
+			k = 2*Math.PI/wavelength,
+			sX = Math.signum(mX.getB()),
+			sY = Math.signum(mY.getB()),
+			deltaX = getDeltaX(),
+			deltaY = getDeltaY(),
+			// the (possibly half-integer) indices of the centre of the array
+			cX = (width-1)/2.0,
+			cY = (height-1)/2.0,
+			// the coefficients of the incident and outgoing chirps, k A / (2 B) and k D / (2 B)
+			incidentChirpX = k*mX.getA()/(2*mX.getB()),
+			incidentChirpY = k*mY.getA()/(2*mY.getB()),
+			outgoingChirpX = k*mX.getD()/(2*mX.getB()),
+			outgoingChirpY = k*mY.getD()/(2*mY.getB()),
+			// the amplitude of the factor exp(i k L) / (i lambda sqrt(B_x B_y)) dx dy
+			amplitudeFactor = deltaX * deltaY / (wavelength * Math.sqrt(Math.abs(mX.getB() * mY.getB()))),
+			// the phase of that factor, together with the constant part of the phase factors
+			// that centre the FFT (see below)
+			constantPhase = phase + k*opticalPathLength - (sX + sY)*0.25*Math.PI - 2*Math.PI*(sX*cX*cX/width + sY*cY*cY/height);
+		
+		// With x = deltaX (i - cX) and x' = deltaX' (m - cX), where deltaX' = lambda |B| / (width deltaX),
+		// the kernel exp(-i k x x' / B) becomes
+		//   exp(-2 pi i s (i - cX)(m - cX) / width)
+		//   = exp(-2 pi i s i m / width) exp(2 pi i s cX i / width) exp(2 pi i s cX m / width) exp(-2 pi i s cX^2 / width),
+		// where s is the sign of B, i.e. an (uncentred) discrete Fourier transform, preceded and followed by
+		// linear phase factors, and similar in y.
+		
+		// 1. multiply by the incident chirp and the linear phase factors
+		applyPixelKernel(new PixelKernel()
+		{
+			public void apply(double x, double y, double re, double im, double out[])
+			{
+				double
+					i = x / deltaX + cX,
+					j = y / deltaY + cY;
+
+				multiplyByExpI(re, im, incidentChirpX*x*x + incidentChirpY*y*y + 2*Math.PI*(sX*cX*i/width + sY*cY*j/height), out);
+			}
+		});
+		
+		// 2. Fourier transform, with exp(-...) in x for positive B_x...
+		FFT2D.transform((sX > 0)?-1:+1, width, height, data);
+		
+		// ... and, if B_y has the other sign, reverse the order of the rows, which turns the
+		// exp(+...) in y into exp(-...) and vice versa
+		if(sY != sX) reverseRowsCyclically();
+		
+		// 3. change the sampling...
+		final double
+			newDeltaX = wavelength * Math.abs(mX.getB()) / (width * deltaX),
+			newDeltaY = wavelength * Math.abs(mY.getB()) / (height * deltaY);
+		setPhysicalWidth(width * newDeltaX);
+		setPhysicalHeight(height * newDeltaY);
+		
+		// ... and multiply by the outgoing chirp, the linear phase factors and the constant factor
+		applyPixelKernel(new PixelKernel()
+		{
+			public void apply(double x, double y, double re, double im, double out[])
+			{
+				double
+					m = x / newDeltaX + cX,
+					n = y / newDeltaY + cY;
+
+				multiplyByExpI(
+						amplitudeFactor*re, amplitudeFactor*im,
+						constantPhase + outgoingChirpX*x*x + outgoingChirpY*y*y + 2*Math.PI*(sX*cX*m/width + sY*cY*n/height),
+						out
+					);
+			}
+		});
+	}
+	
+	// the system as a lens, magnification, propagation and another lens (see passThroughFirstOrderSystem),
+	// all multiplied by exp(i k opticalPathLength + i phase);
+	// the arrays contain the parameters in the x and y directions
+	private void passThroughFirstOrderSystemInSteps(double preChirp[], double magnification[], double distance[], double postChirp[], double opticalPathLength, double phase)
+	{
+		zerosMayHaveChanged();
+		
+		final double k = 2*Math.PI/wavelength;
+		
+		// the part of the optical path length not accounted for by the propagation
+		double remainingOpticalPathLength = opticalPathLength;
+		
+		// 1. first lens
+		if((preChirp[0] != 0) || (preChirp[1] != 0))
+		{
+			final double
+				chirpX = preChirp[0],
+				chirpY = preChirp[1];
+			
+			applyPixelKernel(new PixelKernel()
+			{
+				public void apply(double x, double y, double re, double im, double out[])
+				{
+					multiplyByExpI(re, im, chirpX*x*x + chirpY*y*y, out);
+				}
+			});
+		}
+		
+		// 2. magnification; the amplitude factor that conserves power is applied with the second lens
+		double
+			aX = magnification[0],
+			aY = magnification[1];
+		setPhysicalWidth(physicalWidth * Math.abs(aX));
+		setPhysicalHeight(physicalHeight * Math.abs(aY));
+		if((aX < 0) || (aY < 0)) flip(aX < 0, aY < 0);
+		
+		// 3. propagation
+		if(distance[0] == distance[1])
+		{
+			if(distance[0] != 0)
+			{
+				// propagate exactly, like a Distance (this includes the phase factor exp(i k distance))
+				propagate(distance[0]);
+				remainingOpticalPathLength -= distance[0];
+			}
+		}
+		else
+		{
+			// different distances in x and y; propagate paraxially
+			FFT2D.transform(+1, width, height, data);
+			
+			double
+				phasesX[] = new double[width],
+				phasesY[] = new double[height],
+				powerFactor = 1.0/(width * height),
+				out[] = new double[2];
+			for(int i = 0; i < width; i++) phasesX[i] = -MyMath.sqr(getKX(i)) * distance[0] / (2*k);
+			for(int j = 0; j < height; j++) phasesY[j] = -MyMath.sqr(getKY(j)) * distance[1] / (2*k);
+			
+			for(int j = 0; j < height; j++)
+			{
+				for(int i = 0; i < width; i++)
+				{
+					int index = 2*(j*width + i);
+					multiplyByExpI(powerFactor*data[index], powerFactor*data[index+1], phasesX[i] + phasesY[j], out);
+					data[index] = out[0];
+					data[index+1] = out[1];
+				}
+			}
+			
+			FFT2D.transform(-1, width, height, data);
+		}
+		
+		// 4. second lens, and the remaining constant factors
+		final double
+			chirpX = postChirp[0],
+			chirpY = postChirp[1],
+			amplitudeFactor = 1/Math.sqrt(Math.abs(aX * aY)),	// conserves power
+			constantPhase = phase + k*remainingOpticalPathLength;
+		
+		if((chirpX != 0) || (chirpY != 0) || (amplitudeFactor != 1) || (constantPhase != 0))
+		{
+			applyPixelKernel(new PixelKernel()
+			{
+				public void apply(double x, double y, double re, double im, double out[])
+				{
+					multiplyByExpI(amplitudeFactor*re, amplitudeFactor*im, constantPhase + chirpX*x*x + chirpY*y*y, out);
+				}
+			});
+		}
+	}
+	
+	// replace row n by row (height - n) % height
+	private void reverseRowsCyclically()
+	{
+		zerosMayHaveChanged();
+		
+		double newData[] = new double[data.length];
+		
+		for(int n = 0; n < height; n++)
+		{
+			System.arraycopy(data, 2*((height - n) % height)*width, newData, 2*n*width, 2*width);
+		}
+		
+		data = newData;
+	}
+	
+	// mirror the beam in x and/or y
+	private void flip(boolean flipX, boolean flipY)
+	{
+		zerosMayHaveChanged();
+		
+		double newData[] = new double[data.length];
+		
 		for(int j = 0; j < height; j++)
 		{
+			int sourceJ = flipY?(height - 1 - j):j;
+			
 			for(int i = 0; i < width; i++)
 			{
-				double re = data[getIndexRe(i,j)];
-				double im = data[getIndexIm(i,j)];
-	      
-				// real part of (re + i im) exp(i kz*deltaZ)
-				data[getIndexRe(i,j)] =
-					powerFactor * (re * expIKzDeltaZs[i][j][0] - im * expIKzDeltaZs[i][j][1]);
-
-				// imaginary part of (re + i im) exp(i kz*deltaZ)
-				data[getIndexIm(i,j)] =
-					powerFactor * (re * expIKzDeltaZs[i][j][1] + im * expIKzDeltaZs[i][j][0]);
+				int sourceI = flipX?(width - 1 - i):i;
+				
+				newData[2*(j*width + i)] = data[2*(sourceJ*width + sourceI)];
+				newData[2*(j*width + i) + 1] = data[2*(sourceJ*width + sourceI) + 1];
 			}
 		}
+		
+		data = newData;
 	}
 
 	
@@ -583,18 +1242,18 @@ implements Serializable
 	
 	public void passThroughApertureStack(AbstractAperture aperture, int noOfApertures, double separation, JProgressBar progressBar, AbstractOpticalComponent opticalComponent)
 	{  
+		zerosMayHaveChanged();
+		
 		if(progressBar != null) progressBar.setValue(0);
 
-		// pre-calculate the transmission-coefficient matrix
-		ComplexList2D transmissionCoefficients = aperture.getTransmissionCoefficients(this);
-		
-		// number of matrix elements in the two dimensions; for use by Fourier.Transform
-		int nn[] = {height, width};
+		// pre-calculate the transmission-coefficient matrix, laid out like the data array so that it can be
+		// applied as a precomputed mask
+		double transmissionCoefficients[] = (new ComplexArray2D(aperture.getTransmissionCoefficients(this))).getDataForReading();
 		
 		if(progressBar != null) progressBar.setMaximum(noOfApertures);
 		
 		// pre-calculate the numbers exp(i k_z delta z)
-		double[][][] expIKzDeltaZs = getExpIKzDeltaZArray(width, height, separation);
+		double[] expIKzDeltaZs = getExpIKzDeltaZArray(width, height, separation);
 		
 		double powerFactor = 1.0/(width * height);
 		
@@ -602,7 +1261,7 @@ implements Serializable
 		 * First apply the first aperture
 		 */
 		
-		multiply(transmissionCoefficients);
+		multiplyByComplexMask(transmissionCoefficients);
 //		if (noOfApertures > 0) // is there a first aperture
 //			for (int i = 0; i < 2 * width * height; i++)
 //				data[i] *= transmissionCoefficients[i];
@@ -620,10 +1279,9 @@ implements Serializable
 			 */
 			
 			// 1. Fourier transform the amplitude matrix
-			Fourier.transform(
+			FFT2D.transform(
 					+1,	// +1 means do a Fourier transform, not an inverse FT
-					2,	// number of dimensions
-					nn,	// number of elements in those dimensions
+					width, height,	// number of elements in the two dimensions
 					data
 				);
   
@@ -634,20 +1292,21 @@ implements Serializable
 			multiplyByExpIKZDeltaZ(expIKzDeltaZs, powerFactor);
 			
 			// 3. inverse Fourier transform the whole lot
-			Fourier.transform(
+			FFT2D.transform(
 					-1,	// 1 means do an INVERSE Fourier transform
-					2,	// number of dimensions
-					nn,	// number of elements in those dimensions
+					width, height,	// number of elements in the two dimensions
 					data
 				);
 			
 			/*
 			 * apply the (n+1)st aperture
 			 */
-			multiply(transmissionCoefficients);
+			multiplyByComplexMask(transmissionCoefficients);
 //			for(int i=0; i<2*width*height; i++)
 //				data[i] *= transmissionCoefficients[i];
 		}
+		
+		shrinkActiveRegion();
 	}
 
 
@@ -656,35 +1315,20 @@ implements Serializable
 	////////////////////////////////////////////////////
 	
 	// lens of focal length f, centred at (xCentre, yCentre)
-	public void passThroughLens(double f, double xCentre, double yCentre)
+	public void passThroughLens(final double f, final double xCentre, final double yCentre)
 	{
-		double phaseShift, cosPhaseShift, sinPhaseShift, re, im;
-  
-		for(int j = 0; j < height; j++)
+		applyMultiplyingPixelKernel(new PixelKernel()
 		{
-			double
-				y = getY(j) - yCentre, 
-				y2 = y*y;
-			
-			for(int i = 0; i < width; i++)
+			public void apply(double x, double y, double re, double im, double out[])
 			{
 				double
-					x = getX(i) - xCentre,
-					x2 = x*x;
+					dx = x - xCentre,
+					dy = y - yCentre;
 				
 				// locally shift the phase of the amplitude cross-section
-				phaseShift = getLensPhase(f, x2 + y2);
-				cosPhaseShift = Math.cos(phaseShift);
-				sinPhaseShift = Math.sin(phaseShift);
-				re = data[getIndexRe(i,j)];
-				im = data[getIndexIm(i,j)];
-	  
-				// real part of (re + i im) exp(i phaseShift)
-				data[getIndexRe(i,j)] = re * cosPhaseShift - im * sinPhaseShift;
-				// imaginary part of (re + i im) exp(i phaseShift)
-				data[getIndexIm(i,j)] = re * sinPhaseShift + im * cosPhaseShift;
+				multiplyByExpI(re, im, getLensPhase(f, dx*dx + dy*dy), out);
 			}
-		}
+		});
 	}
 	
 	// lens of focal length f, centred at (0, 0)
@@ -693,35 +1337,21 @@ implements Serializable
 		passThroughLens(f, 0, 0);
 	}
 
-	public void passThroughCylindricalLens(double f, double axisAngleWithXAxis)
+	public void passThroughCylindricalLens(final double f, double axisAngleWithXAxis)
 	{
-		double phaseShift, cosPhaseShift, sinPhaseShift, re, im;
-		double sinAxisAngleWithXAxis = Math.sin(axisAngleWithXAxis);
-		double cosAxisAngleWithXAxis = Math.cos(axisAngleWithXAxis);
+		final double sinAxisAngleWithXAxis = Math.sin(axisAngleWithXAxis);
+		final double cosAxisAngleWithXAxis = Math.cos(axisAngleWithXAxis);
   
-		for(int j = 0; j < height; j++)
+		applyMultiplyingPixelKernel(new PixelKernel()
 		{
-			double ySin = getY(j) * sinAxisAngleWithXAxis;
-			
-			for(int i = 0; i < width; i++)
+			public void apply(double x, double y, double re, double im, double out[])
 			{
-				double xCos = getX(i) * cosAxisAngleWithXAxis;
-				
-				double r = xCos - ySin;	// distance from axis
+				double r = x * cosAxisAngleWithXAxis - y * sinAxisAngleWithXAxis;	// distance from axis
 				
 				// locally shift the phase of the amplitude cross-section
-				phaseShift = getLensPhase(f, r*r);
-				cosPhaseShift = Math.cos(phaseShift);
-				sinPhaseShift = Math.sin(phaseShift);
-				re = data[getIndexRe(i,j)];
-				im = data[getIndexIm(i,j)];
-	  
-				// real part of (re + i im) exp(i phaseShift)
-				data[getIndexRe(i,j)] = re * cosPhaseShift - im * sinPhaseShift;
-				// imaginary part of (re + i im) exp(i phaseShift)
-				data[getIndexIm(i,j)] = re * sinPhaseShift + im * cosPhaseShift;
+				multiplyByExpI(re, im, getLensPhase(f, r*r), out);
 			}
-		}
+		});
 	}
 	
 	/**
@@ -735,44 +1365,47 @@ implements Serializable
 	 * 
 	 * @author Johannes
 	 */
-	public void passThroughLensletArray(double arrayPeriod, double focalLength, double rotationAngle, double xCentre, double yCentre)
+	public void passThroughLensletArray(final double arrayPeriod, final double focalLength, double rotationAngle, final double xCentre, final double yCentre)
 	{
-		double phaseShift, cosPhaseShift, sinPhaseShift, re, im;
-		double sinAxisAngleWithXAxis = Math.sin(rotationAngle);
-		double cosAxisAngleWithXAxis = Math.cos(rotationAngle);
+		final double sinAxisAngleWithXAxis = Math.sin(rotationAngle);
+		final double cosAxisAngleWithXAxis = Math.cos(rotationAngle);
 
-		for(int j = 0; j < height; j++)
+		applyMultiplyingPixelKernel(new PixelKernel()
 		{
-			double yCos = (getY(j) - yCentre) * cosAxisAngleWithXAxis;
-			double ySin = (getY(j) - yCentre) * sinAxisAngleWithXAxis;
-			
-			for(int i = 0; i < width; i++)
+			public void apply(double x, double y, double re, double im, double out[])
 			{
-				double xCos = (getX(i) - xCentre) * cosAxisAngleWithXAxis;
-				double xSin = (getX(i) - xCentre) * sinAxisAngleWithXAxis;
+				double yCos = (y - yCentre) * cosAxisAngleWithXAxis;
+				double ySin = (y - yCentre) * sinAxisAngleWithXAxis;
+				double xCos = (x - xCentre) * cosAxisAngleWithXAxis;
+				double xSin = (x - xCentre) * sinAxisAngleWithXAxis;
 				
-				double x = (xCos + ySin) - findLensletCentreCoordinate(xCos + ySin, arrayPeriod, 0);
-				double y = (yCos - xSin) - findLensletCentreCoordinate(yCos - xSin, arrayPeriod, 0);
+				double u = (xCos + ySin) - findLensletCentreCoordinate(xCos + ySin, arrayPeriod, 0);
+				double v = (yCos - xSin) - findLensletCentreCoordinate(yCos - xSin, arrayPeriod, 0);
 
 				// locally shift the phase of the amplitude cross-section
-				phaseShift = getLensPhase(focalLength, x*x + y*y);
-				cosPhaseShift = Math.cos(phaseShift);
-				sinPhaseShift = Math.sin(phaseShift);
-				re = data[getIndexRe(i,j)];
-				im = data[getIndexIm(i,j)];
-	  
-				// real part of (re + i im) exp(i phaseShift)
-				data[getIndexRe(i,j)] = re * cosPhaseShift - im * sinPhaseShift;
-				// imaginary part of (re + i im) exp(i phaseShift)
-				data[getIndexIm(i,j)] = re * sinPhaseShift + im * cosPhaseShift;
+				multiplyByExpI(re, im, getLensPhase(focalLength, u*u + v*v), out);
 			}
-		}
+		});
 	}
 
 	private double findLensletCentreCoordinate(double u, double uPeriod, double uOffset)
 	{
 		return uPeriod*Math.floor((u-uOffset)/uPeriod+0.5)+uOffset;
 	}
+	
+	// needed by the phase-changing pixel kernels:
+	// puts (re + i im) exp(i phaseShift) into out
+	public static void multiplyByExpI(double re, double im, double phaseShift, double out[])
+	{
+		double
+			cosPhaseShift = Math.cos(phaseShift),
+			sinPhaseShift = Math.sin(phaseShift);
+		
+		// real part of (re + i im) exp(i phaseShift)
+		out[0] = re * cosPhaseShift - im * sinPhaseShift;
+		// imaginary part of (re + i im) exp(i phaseShift)
+		out[1] = re * sinPhaseShift + im * cosPhaseShift;
+	}
 
 
 	// needed by passThroughLens:
@@ -807,12 +1440,10 @@ implements Serializable
 	
 	private void doFourierTransform(int isign)
 	{
-		int numberOfElements[] =
-			{height, width};
-			// {width, height};
+		zerosMayHaveChanged();
 		
 		// FFT
-		Fourier.transform(isign, 2, numberOfElements, data);
+		FFT2D.transform(isign, width, height, data);
 		
 		// make sure power is conserved
 		multiply(Math.sqrt(1.0 / width / height));
@@ -834,31 +1465,33 @@ implements Serializable
 	/**
 	 * Pass through annular aperture of outer radius R, inner radius r, offset by [xCentre, yCentre] from the centre.
 	 */
-	public void passThroughAnnularAperture(double R, double r, double xCentre, double yCentre)
+	public void passThroughAnnularAperture(double R, double r, final double xCentre, final double yCentre)
 	{
-		double
+		final double
 			RApertureSquared = MyMath.sqr(R),
 			rApertureSquared = MyMath.sqr(r);
 		// System.out.println("r^2 = "+ rApertureSquared + ", centre = (" + xCentre + "," + yCentre + ")");
 		
-		for(int j = 0; j < height; j++)
+		applyMultiplyingPixelKernel(new PixelKernel()
 		{
-			double yDistanceFromCentreSquared = MyMath.sqr(getY(j) - yCentre);
-			
-			for(int i = 0; i < width; i++)
+			public void apply(double x, double y, double re, double im, double out[])
 			{
-				double rSquared = MyMath.sqr(getX(i) - xCentre) + yDistanceFromCentreSquared;
+				double rSquared = MyMath.sqr(x - xCentre) + MyMath.sqr(y - yCentre);
 				
 				if((rSquared > RApertureSquared) || (rSquared < rApertureSquared))
 				{
-					// System.out.println("("+i+","+j+"), (" + getX(i) + "," + getY(j) + "): " + rSquared + ">" + rApertureSquared);
-					data[getIndexRe(i,j)] = 0.0;
-					data[getIndexIm(i,j)] = 0.0;
+					out[0] = 0.0;
+					out[1] = 0.0;
+				}
+				else
+				{
+					out[0] = re;
+					out[1] = im;
 				}
-				// else System.out.println("("+i+","+j+"), (" + getX(i) + "," + getY(j) + "): " + rSquared + "<=" + rApertureSquared + " --- not setting to zero!");
-
 			}
-		}
+		});
+		
+		shrinkActiveRegion();
 	}
 	
 	/**
@@ -871,24 +1504,23 @@ implements Serializable
 		passThroughCircularAperture(r, 0, 0);
 	}
 	
-	public void passThroughGaussianAperture(double sigma, double xCentre, double yCentre)
+	public void passThroughGaussianAperture(double sigma, final double xCentre, final double yCentre)
 	{
-		double sigma2 = sigma*sigma;
+		final double sigma2 = sigma*sigma;
 		
-		for(int i=0; i<width; i++)
+		applyMultiplyingPixelKernel(new PixelKernel()
 		{
-			double xx = MyMath.sqr(getX(i) - xCentre);
-			
-			for(int j=0; j<height; j++)
+			public void apply(double x, double y, double re, double im, double out[])
 			{
 				double
-					yy = MyMath.sqr(getY(j) - yCentre),
+					xx = MyMath.sqr(x - xCentre),
+					yy = MyMath.sqr(y - yCentre),
 					factor = Math.exp(-(xx + yy) / sigma2);
 
-				data[getIndexRe(i,j)] *= factor;
-				data[getIndexIm(i,j)] *= factor;
+				out[0] = re * factor;
+				out[1] = im * factor;
 			}
-		}
+		});
 	}
 
 
@@ -898,28 +1530,31 @@ implements Serializable
 	 * @param xCentre	x coordinate of slit centre
 	 * @param yCentre	y coordinate of slit centre
 	 */
-	public void passPastKnifeEdge(double distanceFromCentre, double angleWithX, double xCentre, double yCentre)
+	public void passPastKnifeEdge(final double distanceFromCentre, double angleWithX, final double xCentre, final double yCentre)
 	{
-		double
+		final double
 			cos = Math.cos(angleWithX),
 			sin = Math.sin(angleWithX);
 		
-		for(int i = 0; i < width; i++)
+		applyMultiplyingPixelKernel(new PixelKernel()
 		{
-			double xCos = (getX(i) - xCentre)*cos;
-				
-			for(int j = 0; j < height; j++)
+			public void apply(double x, double y, double re, double im, double out[])
 			{
-				double ySin = (getY(j) - yCentre)*sin;
-
-				if(xCos + ySin > distanceFromCentre)
+				if((x - xCentre)*cos + (y - yCentre)*sin > distanceFromCentre)
 				{
 					// outside the slit, set the amplitude to zero
-					data[getIndexRe(i,j)] = 0.0;
-					data[getIndexIm(i,j)] = 0.0;
+					out[0] = 0.0;
+					out[1] = 0.0;
+				}
+				else
+				{
+					out[0] = re;
+					out[1] = im;
 				}
 			}
-		}
+		});
+		
+		shrinkActiveRegion();
 	}
 
 	////////////////////////////////////////////////////////////
@@ -932,29 +1567,32 @@ implements Serializable
 	 * @param xCentre	x coordinate of slit centre
 	 * @param yCentre	y coordinate of slit centre
 	 */
-	public void passThroughSlitAperture(double slitWidth, double angleWithX, double xCentre, double yCentre)
+	public void passThroughSlitAperture(double slitWidth, double angleWithX, final double xCentre, final double yCentre)
 	{
-		double
+		final double
 			cos = Math.cos(angleWithX),
 			sin = Math.sin(angleWithX),
 			halfWidth = 0.5*Math.abs(slitWidth);
 		
-		for(int i = 0; i < width; i++)
+		applyMultiplyingPixelKernel(new PixelKernel()
 		{
-			double xCos = (getX(i) - xCentre)*cos;
-				
-			for(int j = 0; j < height; j++)
+			public void apply(double x, double y, double re, double im, double out[])
 			{
-				double ySin = (getY(j) - yCentre)*sin;
-
-				if(Math.abs(xCos + ySin) > halfWidth)
+				if(Math.abs((x - xCentre)*cos + (y - yCentre)*sin) > halfWidth)
 				{
 					// outside the slit, set the amplitude to zero
-					data[getIndexRe(i,j)] = 0.0;
-					data[getIndexIm(i,j)] = 0.0;
+					out[0] = 0.0;
+					out[1] = 0.0;
+				}
+				else
+				{
+					out[0] = re;
+					out[1] = im;
 				}
 			}
-		}
+		});
+		
+		shrinkActiveRegion();
 	}
 
 	/**
@@ -974,37 +1612,40 @@ implements Serializable
 	 * @param xCentre	x coordinate of centre of double slit
 	 * @param yCentre	y coordinate of centre of double slit
 	 */
-	public void passThroughDoubleSlitAperture(double slitSeparation, double slitWidth, double angleWithX, double xCentre, double yCentre)
+	public void passThroughDoubleSlitAperture(double slitSeparation, double slitWidth, double angleWithX, final double xCentre, final double yCentre)
 	{
 		// System.out.println("passing through double slit of width "+width+" and separation "+separation + angleWithY + xCentre + yCentre);
 		
-		double
+		final double
 			cos = Math.cos(angleWithX),
 			sin = Math.sin(angleWithX),
 			halfWidth = 0.5*Math.abs(slitWidth),
 			halfSeparation = 0.5*Math.abs(slitSeparation);
 		
-		for(int i = 0; i < width; i++)
+		applyMultiplyingPixelKernel(new PixelKernel()
 		{
-			double xCos = (getX(i) - xCentre)*cos;
-				
-			for(int j = 0; j < height; j++)
+			public void apply(double x, double y, double re, double im, double out[])
 			{
-				double ySin = (getY(j) - yCentre)*sin;
-
-				if(Math.abs(Math.abs(xCos + ySin) - halfSeparation) > halfWidth)
+				if(Math.abs(Math.abs((x - xCentre)*cos + (y - yCentre)*sin) - halfSeparation) > halfWidth)
 				{
 					// outside the slit, set the amplitude to zero
-					data[getIndexRe(i,j)] = 0.0;
-					data[getIndexIm(i,j)] = 0.0;
+					out[0] = 0.0;
+					out[1] = 0.0;
+				}
+				else
+				{
+					out[0] = re;
+					out[1] = im;
 				}
 			}
-		}
+		});
+		
+		shrinkActiveRegion();
 	}
 
-	public void passThroughGrating(double slitSeparation, double slitWidth, double angleWithX, double xCentre, double yCentre, boolean softEdges, double edgeWidth)
+	public void passThroughGrating(double slitSeparation, double slitWidth, double angleWithX, final double xCentre, final double yCentre, final boolean softEdges, final double edgeWidth)
 	{
-		double
+		final double
 			cos = Math.cos(angleWithX),
 			sin = Math.sin(angleWithX),
 			halfWidth = 0.5*Math.abs(slitWidth),
@@ -1013,15 +1654,14 @@ implements Serializable
 			edgeStart = halfWidth - 0.5*edgeWidth,
 			edgeEnd = halfWidth + 0.5*edgeWidth;
 
-		for(int i = 0; i < width; i++)
+		applyMultiplyingPixelKernel(new PixelKernel()
 		{
-			double xCos = (getX(i) - xCentre)*cos;
-
-			for(int j = 0; j < height; j++)
+			public void apply(double x, double y, double re, double im, double out[])
 			{
-				double ySin = (getY(j) - yCentre)*sin;
-
-				double r = Math.abs(xCos + ySin) % separation;
+				double r = Math.abs((x - xCentre)*cos + (y - yCentre)*sin) % separation;
+				
+				// transmission coefficient
+				double t = 1;
 
 				if (softEdges) {
 					if(r > halfSeparation) r = separation - r;
@@ -1030,27 +1670,36 @@ implements Serializable
 						if(r < edgeEnd)
 						{
 							// on the edge
-							double f = 0.5+0.5*Math.cos(Math.PI*(r-edgeStart)/edgeWidth);
-							data[getIndexRe(i, j)] *= f;
-							data[getIndexIm(i, j)] *= f;
+							t = 0.5+0.5*Math.cos(Math.PI*(r-edgeStart)/edgeWidth);
 						}
 						else
 						{
 							// on the "wall"
-							data[getIndexRe(i, j)] = 0.0;
-							data[getIndexIm(i, j)] = 0.0;
+							t = 0.0;
 						}
 					}
 				} else {
 					// hard edges
 					if ((halfWidth < r) && (r <= separation - halfWidth)) {
 						// outside the slits, set the amplitude to zero
-						data[getIndexRe(i, j)] = 0.0;
-						data[getIndexIm(i, j)] = 0.0;
+						t = 0.0;
 					}
 				}
+				
+				if(t == 0.0)
+				{
+					out[0] = 0.0;
+					out[1] = 0.0;
+				}
+				else
+				{
+					out[0] = re * t;
+					out[1] = im * t;
+				}
 			}
-		}
+		});
+		
+		shrinkActiveRegion();
 	}
 	
 	public void passThroughAbsorbingBoundary(int widthOfBoundary)
@@ -1084,12 +1733,7 @@ implements Serializable
 			}
 		}
 		
-		for (int i = 0; i < width; i++)
-			for (int j = 0; j < height; j++) {
-				double t = xTransmittivityArray[i] * yTransmittivityArray[j];
-				data[getIndexRe(i, j)] *= t;
-				data[getIndexIm(i, j)] *= t;
-			}
+		multiplyBySeparableMask(xTransmittivityArray, yTransmittivityArray);
 	}
 
 	/**
@@ -1102,6 +1746,8 @@ implements Serializable
 	 */
 	public void passThroughDovePrismArray(int prismWidth)
 	{
+		zerosMayHaveChanged();
+		
 		if(!MathsUtilities.isPowerOfTwo(prismWidth))
 		{
 			System.err.println("Error: the Dove-prism width specified (" + prismWidth + ") is not a power of 2.");
@@ -1184,6 +1830,8 @@ implements Serializable
 	 */
 	public void passThroughDovePrism()
 	{
+		zerosMayHaveChanged();
+		
 		for(int i = 0; i < width/2; i++)
 		{
 			// swap column i with column (width-1 - i)
@@ -1212,6 +1860,8 @@ implements Serializable
 	 */
 	public void flipLeftRightAndUpDown()
 	{
+		zerosMayHaveChanged();
+		
 		for(int i = 0; i < width/2; i++)
 		{
 			// swap column i with column (width-1 - i)
@@ -1243,6 +1893,8 @@ implements Serializable
 	 */
 	public void changeDimensions(int newWidth, int newHeight)
 	{
+		zerosMayHaveChanged();
+		
 		// Check if we need to do any changes
 		if(newWidth != width || newHeight != height)
 		{
@@ -1270,8 +1922,8 @@ implements Serializable
 						try
 						{							
 							// Set real and imaginary parts
-							newData[2 * ((j + (widthDifference / 2)) * newWidth + (i + (widthDifference / 2)))] = data[getIndexRe(i, j)];
-							newData[2 * ((j + (widthDifference / 2)) * newWidth + (i + (widthDifference / 2))) + 1] = data[getIndexIm(i, j)];
+							newData[2 * ((j + (heightDifference / 2)) * newWidth + (i + (widthDifference / 2)))] = data[getIndexRe(i, j)];
+							newData[2 * ((j + (heightDifference / 2)) * newWidth + (i + (widthDifference / 2))) + 1] = data[getIndexIm(i, j)];
 						}
 						catch(Exception e)
 						{
@@ -1296,19 +1948,7 @@ implements Serializable
 	// relative units
 	public double getPowerInBeam()
 	{
-		double powerDensity = 0;
-  
-		for(int j = 0; j < height; j++)
-		{
-			for(int i = 0; i < width; i++)
-			{
-				powerDensity += 
-					MyMath.sqr(data[getIndexRe(i,j)]) +
-					MyMath.sqr(data[getIndexIm(i,j)]);
-			}
-		}
-  
-		return powerDensity * getDeltaX() * getDeltaY();
+		return getStatistics().getPower();
 	}
 
 	
@@ -1319,11 +1959,18 @@ implements Serializable
 	// z component of the wave vector corresponding to element (i,j) in the
 	// Fourier transform of the amplitude matrix
 	private double getWaveVectorZ(int i, int j)
+	{
+		return getWaveVectorZ(getKX(i), getKY(j));
+	}
+	
+	// z component of the wave vector with transverse components kX and kY;
+	// like getWaveVectorZ(i, j), it returns minus the imaginary part for evanescent waves
+	private double getWaveVectorZ(double kX, double kY)
 	{
 		double sqrkXY, sqrk;
 
 		sqrk   = MyMath.sqr(2*Math.PI/wavelength);
-		sqrkXY = MyMath.sqr(getKX(i)) + MyMath.sqr(getKY(j));
+		sqrkXY = MyMath.sqr(kX) + MyMath.sqr(kY);
   
   		if(sqrkXY <= sqrk)
     	{
@@ -1368,6 +2015,8 @@ implements Serializable
 	 */
 	public void rotateAndZoom(double angle, double zoomFactor, boolean clipping)
 	{
+		zerosMayHaveChanged();
+		
 		// System.out.println("rotation angle ="+angle+", zoomFactor="+zoomFactor);
 		int newWidth;
 		int newHeight;
@@ -1389,7 +2038,7 @@ implements Serializable
 			// Resize to fit beam
 			// currently "oversizing" in many cases, but at least beam always fits
 			// TODO: implement properly, e.g. by rotating the corners by the specified angle and checking what size grid is required to accommodate them
-			// Multiplication by 2 guarantees a power of 2
+			// Multiplication by 2 keeps the size even (and a power of 2 if it was one)
 			newWidth = newHeight = 2 * ((width>=height)?width:height);
 			// newWidth = 2 * width;
 			// newHeight = 2 * height;
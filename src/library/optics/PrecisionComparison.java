@@ -0,0 +1,182 @@
+/* */
+
+
+package library.optics;
+
+
+import library.maths.*;
+
+
+/////////////////////////////////////////////////////////////////
+// compare simulations with double-precision and float FFTs    //
+/////////////////////////////////////////////////////////////////
+
+// Runs a preset optical system twice, once with all Fourier transforms in double
+// precision and once with float-rounded FFTs (see FFT2D), and reports the difference
+// between the resulting fields, relative to the double-precision result, and the time
+// each run took.  Both runs use the same FFT library (JTransforms' 1D transformers) and
+// the same number of threads, so the times differ only because of the precision.
+//
+// Run with
+//   java library.optics.PrecisionComparison [preset] [size]
+// where preset is one of the names listed below (default: all presets) and size is the
+// side length of the square beam cross-section (default 256; the transforms are fastest
+// if its only prime factors are 2, 3 and 5).
+
+public class PrecisionComparison
+{
+	// each preset is simulated this many times, and the fastest time is reported
+	private static final int REPEATS = 5;
+	
+	
+	/////////////
+	// presets //
+	/////////////
+
+	public enum Preset
+	{
+		// a Gaussian beam focussed by a lens, propagated to the focus and beyond
+		LENS_AND_PROPAGATION("Gaussian beam, lens, propagation to focus and beyond")
+		{
+			public void simulate(LightBeamCrossSection2D beam)
+			{
+				beam.passThroughLens(0.5);
+				beam.propagate(0.5);
+				beam.propagate(0.5);
+			}
+		},
+		
+		// many round trips: repeated diffraction from an aperture, as in a resonator
+		APERTURE_ROUND_TRIPS("20 round trips between a lens and an aperture")
+		{
+			public void simulate(LightBeamCrossSection2D beam)
+			{
+				for(int n=0; n<20; n++)
+				{
+					beam.passThroughCircularAperture(0.3 * beam.getPhysicalWidth());
+					beam.passThroughLens(1.0);
+					beam.propagate(1.0);
+				}
+			}
+		},
+		
+		// beam-propagation method with an absorbing boundary, i.e. many small steps
+		BPM("beam propagation method, 50 steps")
+		{
+			public void simulate(LightBeamCrossSection2D beam)
+			{
+				beam.passThroughLens(0.5);
+				beam.propagateBPM(0.5, 0.01, beam.getWidth() / 16);
+			}
+		};
+		
+		private String description;
+		
+		private Preset(String description)
+		{
+			this.description = description;
+		}
+		
+		public abstract void simulate(LightBeamCrossSection2D beam);
+		
+		@Override
+		public String toString()
+		{
+			return description;
+		}
+	}
+	
+	
+	////////////////
+	// comparison //
+	////////////////
+	
+	// the starting beam of all presets: a Gaussian beam of wavelength 632.8 nm,
+	// in a 2 mm x 2 mm cross-section
+	public static LightBeamCrossSection2D createBeam(int size)
+	{
+		LightBeamCrossSection2D beam = new LightBeamCrossSection2D(size, size, 2e-3, 2e-3, 632.8e-9);
+		beam.makeGaussian(0.2e-3, 0, 0);
+		
+		return beam;
+	}
+	
+	// simulates the preset in the given precision; returns the time the fastest
+	// of REPEATS simulations took, in nanoseconds, and leaves the result in result
+	private static double simulate(Preset preset, int size, FFTPrecision precision, LightBeamCrossSection2D result[])
+	{
+		FFTPrecision previousPrecision = FFT2D.getPrecision();
+		FFT2D.setPrecision(precision);
+		
+		double best = Double.MAX_VALUE;
+		try
+		{
+			for(int r=0; r<REPEATS; r++)
+			{
+				LightBeamCrossSection2D beam = createBeam(size);
+				long start = System.nanoTime();
+				preset.simulate(beam);
+				best = Math.min(best, System.nanoTime() - start);
+				result[0] = beam;
+			}
+		}
+		finally
+		{
+			FFT2D.setPrecision(previousPrecision);
+		}
+		
+		return best;
+	}
+	
+	// runs the preset in both precisions and prints the differences and timings
+	public static void compare(Preset preset, int size)
+	{
+		LightBeamCrossSection2D
+			doubleResult[] = new LightBeamCrossSection2D[1],
+			singleResult[] = new LightBeamCrossSection2D[1];
+		
+		double
+			tDouble = simulate(preset, size, FFTPrecision.DOUBLE, doubleResult),
+			tSingle = simulate(preset, size, FFTPrecision.SINGLE, singleResult);
+		
+		double
+			d[] = doubleResult[0].getDataForReading(),
+			s[] = singleResult[0].getDataForReading();
+		
+		// sums of |difference|^2 and |double-precision field|^2, and the maxima of both
+		double sumDiffSqr = 0, sumSqr = 0, maxDiffSqr = 0, maxSqr = 0;
+		for(int k=0; k<d.length; k+=2)
+		{
+			double
+				dRe = s[k] - d[k],
+				dIm = s[k+1] - d[k+1],
+				diffSqr = dRe*dRe + dIm*dIm,
+				sqr = d[k]*d[k] + d[k+1]*d[k+1];
+			
+			sumDiffSqr += diffSqr;
+			sumSqr += sqr;
+			if(diffSqr > maxDiffSqr) maxDiffSqr = diffSqr;
+			if(sqr > maxSqr) maxSqr = sqr;
+		}
+		
+		System.out.println(
+				preset.name() + " (" + preset + "), " + size + "x" + size + ":\n" +
+				"  relative L2 difference                 " + String.format("%.3e", Math.sqrt(sumDiffSqr / sumSqr)) + "\n" +
+				"  max. |difference| / max. |amplitude|   " + String.format("%.3e", Math.sqrt(maxDiffSqr / maxSqr)) + "\n" +
+				"  time: double precision " + String.format("%9.3f ms", tDouble * 1e-6) +
+					", float-rounded FFTs " + String.format("%9.3f ms", tSingle * 1e-6) +
+					" (speed-up " + String.format("%.2f", tDouble / tSingle) + ")"
+			);
+	}
+	
+	public static void main(String args[])
+	{
+		Preset presets[] = Preset.values();
+		int size = 256;
+		
+		if(args.length > 0) presets = new Preset[] { Preset.valueOf(args[0].toUpperCase()) };
+		if(args.length > 1) size = Integer.parseInt(args[1]);
+		
+		for(Preset preset : presets) compare(preset, size);
+	}
+}
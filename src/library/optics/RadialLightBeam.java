@@ -0,0 +1,493 @@
+/* */
+
+
+package library.optics;
+
+
+import java.io.*;
+import java.lang.ref.SoftReference;
+import java.util.*;
+
+import javawaveoptics.utility.MathsUtilities;
+
+import library.field.*;
+import library.maths.*;
+
+import org.apache.commons.math3.analysis.solvers.BrentSolver;
+import org.apache.commons.math3.special.BesselJ;
+
+
+// A light beam of the form f(r) exp(i l phi), where r and phi are polar coordinates centred on the
+// optical axis and l is an integer, the azimuthal order.  Such a beam stays of this form when it passes
+// through rotationally symmetric components (spherical lenses, centred circular or annular apertures,
+// free space), so it can be simulated in terms of the radial profile f(r) alone, i.e. in 1D rather than 2D.
+//
+// The profile is sampled at the N positions
+//   r_n = j_n R / j_(N+1),  n = 1 ... N,
+// where j_n is the n-th zero of the Bessel function J_|l| and R is the radius beyond which the beam is
+// zero, and propagated with the quasi-discrete Hankel transform of order |l|; see
+// M. Guizar-Sicairos and J. C. Gutierrez-Vega, J. Opt. Soc. Am. A 21, 53-58 (2004).
+// The transform is a multiplication by an N x N matrix, so propagation takes O(N^2) operations.
+//
+// Note that the beam is zero beyond R, which acts like a hard wall, whereas a LightBeamCrossSection2D is
+// periodic; both give the same results as long as the beam stays well inside the grid.
+
+public class RadialLightBeam
+implements Serializable
+{
+	private static final long serialVersionUID = -1704262453917386075L;
+
+	// the azimuthal order l, and the number of sample points
+	private int azimuthalOrder, numberOfNodes;
+	
+	// the radius R beyond which the beam is zero, and the wavelength
+	private double radius, wavelength;
+	
+	// f(r_n) = data[2*(n-1)] + i data[2*(n-1)+1]
+	private double data[];
+	
+	// the Bessel zeros and the transform matrix, which are shared by all beams of the same order and size
+	private transient HankelTransform transform;
+	
+	
+	//////////////////
+	// constructors //
+	//////////////////
+	
+	public RadialLightBeam(int azimuthalOrder, int numberOfNodes, double radius, double wavelength)
+	{
+		this.azimuthalOrder = azimuthalOrder;
+		this.numberOfNodes = numberOfNodes;
+		this.radius = radius;
+		this.wavelength = wavelength;
+		
+		data = new double[2*numberOfNodes];
+	}
+	
+	// a beam that covers the whole grid of the given beam, i.e. a circle through its corners, with
+	// sample points no further apart than its pixels
+	public RadialLightBeam(int azimuthalOrder, LightBeamCrossSection2D beam)
+	{
+		this(
+				azimuthalOrder,
+				(int)Math.ceil(
+						0.5*Math.hypot(beam.getPhysicalWidth(), beam.getPhysicalHeight()) /
+						Math.min(beam.getPhysicalWidth() / beam.getWidth(), beam.getPhysicalHeight() / beam.getHeight())
+					),
+				0.5*Math.hypot(beam.getPhysicalWidth(), beam.getPhysicalHeight()),
+				beam.getWavelength()
+			);
+	}
+	
+	
+	/////////////////////////
+	// setters and getters //
+	/////////////////////////
+	
+	public int getAzimuthalOrder() {
+		return azimuthalOrder;
+	}
+
+	public int getNumberOfNodes() {
+		return numberOfNodes;
+	}
+
+	public double getRadius() {
+		return radius;
+	}
+
+	public double getWavelength() {
+		return wavelength;
+	}
+
+	public double[] getData() {
+		return data;
+	}
+	
+	// the radius r_n of the n-th sample point, n = 1 ... N
+	public double getR(int n)
+	{
+		HankelTransform t = getTransform();
+		
+		return t.zeros[n-1] * radius / t.zeros[numberOfNodes];
+	}
+	
+	
+	////////////////////
+	// initialisation //
+	////////////////////
+	
+	// the profile of ComplexField2D.makeGaussian
+	public void makeGaussian(double w)
+	{
+		double ww = w*w;
+		
+		for(int n=1; n<=numberOfNodes; n++)
+		{
+			double r = getR(n);
+			
+			data[2*(n-1)] = Math.exp(-r*r / ww);
+			data[2*(n-1)+1] = 0;
+		}
+	}
+	
+	// the profile of ComplexField2D.makeLaguerreGaussian; the azimuthal index is the azimuthal order of this beam
+	public void makeLaguerreGaussian(int p, double waist)
+	{
+		int l = azimuthalOrder;
+		double
+			waistSquared = waist * waist,
+			laguerreNormalisation = MathsUtilities.laguerreNormalisation(l, p, waist);
+		
+		for(int n=1; n<=numberOfNodes; n++)
+		{
+			double
+				r = getR(n),
+				positionParameter = r*r / waistSquared;
+			
+			data[2*(n-1)] =
+				laguerreNormalisation *
+				Math.pow(2 * positionParameter, Math.abs(l) / 2.0) *
+				MathsUtilities.laguerreL(p, Math.abs(l), 2 * positionParameter) *
+				Math.exp(-positionParameter);
+			data[2*(n-1)+1] = 0;
+		}
+	}
+	
+	// the profile of ComplexField2D.makeBessel; the topological charge is the azimuthal order of this beam
+	public void makeBessel(double radialWaveNumber)
+	{
+		BesselJ besselJ = new BesselJ(azimuthalOrder);
+		
+		for(int n=1; n<=numberOfNodes; n++)
+		{
+			data[2*(n-1)] = besselJ.value(radialWaveNumber*getR(n));
+			data[2*(n-1)+1] = 0;
+		}
+	}
+	
+	
+	////////////////
+	// operations //
+	////////////////
+	
+	// the radial equivalent of LightBeamCrossSection2D.propagate:
+	// Hankel transform, multiplication by exp(i k_z deltaZ), inverse Hankel transform
+	public void propagate(double deltaZ)
+	{
+		HankelTransform t = getTransform();
+		
+		double
+			sqrk = MyMath.sqr(2*Math.PI/wavelength),
+			g[] = new double[2*numberOfNodes];
+		
+		// 1. scale the profile such that the transform is a multiplication by the (symmetric, orthogonal) matrix
+		for(int n=0; n<numberOfNodes; n++)
+		{
+			g[2*n] = data[2*n] / t.besselFactors[n];
+			g[2*n+1] = data[2*n+1] / t.besselFactors[n];
+		}
+		
+		// 2. Hankel transform
+		double G[] = t.transform(g);
+		
+		// 3. multiply each component with exp(i kz deltaZ); component m has transverse wave number j_m / R
+		for(int m=0; m<numberOfNodes; m++)
+		{
+			double sqrkR = MyMath.sqr(t.zeros[m] / radius);
+			
+			if(sqrkR <= sqrk)
+			{
+				double
+					kzdeltaz = Math.sqrt(sqrk - sqrkR) * deltaZ,
+					coskzdeltaz = Math.cos(kzdeltaz),
+					sinkzdeltaz = Math.sin(kzdeltaz),
+					re = G[2*m],
+					im = G[2*m+1];
+				
+				G[2*m] = re*coskzdeltaz - im*sinkzdeltaz;
+				G[2*m+1] = re*sinkzdeltaz + im*coskzdeltaz;
+			}
+			else
+			{
+				// evanescent wave
+				double expikzdeltaz = Math.exp(-Math.sqrt(sqrkR - sqrk) * deltaZ);
+				
+				G[2*m] *= expikzdeltaz;
+				G[2*m+1] *= expikzdeltaz;
+			}
+		}
+		
+		// 4. inverse Hankel transform (the matrix is its own inverse), and undo the scaling
+		g = t.transform(G);
+		for(int n=0; n<numberOfNodes; n++)
+		{
+			data[2*n] = g[2*n] * t.besselFactors[n];
+			data[2*n+1] = g[2*n+1] * t.besselFactors[n];
+		}
+	}
+	
+	// the radial equivalent of LightBeamCrossSection2D.passThroughLens(f)
+	public void passThroughLens(double f)
+	{
+		for(int n=1; n<=numberOfNodes; n++)
+		{
+			double
+				r = getR(n),
+				phase = LightBeamCrossSection2D.getLensPhase(f, r*r, wavelength),
+				cos = Math.cos(phase),
+				sin = Math.sin(phase),
+				re = data[2*(n-1)],
+				im = data[2*(n-1)+1];
+			
+			data[2*(n-1)] = re*cos - im*sin;
+			data[2*(n-1)+1] = re*sin + im*cos;
+		}
+	}
+	
+	// the radial equivalent of LightBeamCrossSection2D.passThroughAnnularAperture(R, r, 0, 0)
+	public void passThroughAnnularAperture(double outerRadius, double innerRadius)
+	{
+		for(int n=1; n<=numberOfNodes; n++)
+		{
+			double r = getR(n);
+			
+			if((r > outerRadius) || (r < innerRadius))
+			{
+				data[2*(n-1)] = 0;
+				data[2*(n-1)+1] = 0;
+			}
+		}
+	}
+	
+	/**
+	 * Replaces the field in the beam by this beam, f(r) exp(i l phi), with f interpolated between the sample points.
+	 * @param beam	the beam, whose sampling is used
+	 */
+	public void makeField(LightBeamCrossSection2D beam)
+	{
+		// the sample points, extended by their mirror images at -r_1 and -r_2 (where f(-r) = (-1)^l f(r), which
+		// gives the right behaviour near the axis) and by the point r = R, where the beam is zero
+		final double
+			rExt[] = new double[numberOfNodes+3],
+			reExt[] = new double[numberOfNodes+3],
+			imExt[] = new double[numberOfNodes+3];
+		for(int n=1; n<=numberOfNodes; n++)
+		{
+			rExt[n+1] = getR(n);
+			reExt[n+1] = data[2*(n-1)];
+			imExt[n+1] = data[2*(n-1)+1];
+		}
+		double sign = ((azimuthalOrder % 2) == 0)?1:-1;
+		for(int n=0; n<2; n++)
+		{
+			rExt[n] = -rExt[3-n];
+			reExt[n] = sign*reExt[3-n];
+			imExt[n] = sign*imExt[3-n];
+		}
+		rExt[numberOfNodes+2] = radius;
+		
+		final int l = azimuthalOrder;
+		final double R = radius;
+		
+		beam.applyPixelKernel(new PixelKernel()
+		{
+			public void apply(double x, double y, double re, double im, double out[])
+			{
+				double r = Math.sqrt(x*x + y*y);
+				
+				if(r >= R)
+				{
+					out[0] = 0;
+					out[1] = 0;
+					return;
+				}
+				
+				// cubic Lagrange interpolation between the four sample points around r
+				int k = Arrays.binarySearch(rExt, r);
+				if(k < 0) k = -k - 2;	// the last sample point <= r
+				int start = Math.max(0, Math.min(k-1, rExt.length-4));
+				
+				double fRe = 0, fIm = 0;
+				for(int a=start; a<start+4; a++)
+				{
+					double weight = 1;
+					for(int b=start; b<start+4; b++)
+					{
+						if(b != a) weight *= (r - rExt[b]) / (rExt[a] - rExt[b]);
+					}
+					fRe += weight*reExt[a];
+					fIm += weight*imExt[a];
+				}
+				
+				// exp(i l phi)
+				double
+					phase = l * Math.atan2(y, x),
+					cos = Math.cos(phase),
+					sin = Math.sin(phase);
+				out[0] = fRe*cos - fIm*sin;
+				out[1] = fRe*sin + fIm*cos;
+			}
+		});
+	}
+	
+	
+	/////////////////////////////////////////
+	// the quasi-discrete Hankel transform //
+	/////////////////////////////////////////
+	
+	private HankelTransform getTransform()
+	{
+		if(transform == null) transform = getHankelTransform(Math.abs(azimuthalOrder), numberOfNodes);
+		
+		return transform;
+	}
+	
+	// the transforms calculated so far, keyed by order and size (the matrix doesn't depend on the radius);
+	// each one holds an N x N matrix, so they are only softly referenced, and the garbage collector
+	// can drop the ones no beam is using when memory gets short
+	private static HashMap<String, SoftReference<HankelTransform>> transforms = new HashMap<String, SoftReference<HankelTransform>>();
+	
+	private static synchronized HankelTransform getHankelTransform(int order, int numberOfNodes)
+	{
+		String key = order + "," + numberOfNodes;
+		SoftReference<HankelTransform> reference = transforms.get(key);
+		HankelTransform transform = (reference == null)?null:reference.get();
+		
+		if(transform == null)
+		{
+			// forget the transforms that have been dropped
+			Iterator<SoftReference<HankelTransform>> i = transforms.values().iterator();
+			while(i.hasNext()) if(i.next().get() == null) i.remove();
+			
+			transform = new HankelTransform(order, numberOfNodes);
+			transforms.put(key, new SoftReference<HankelTransform>(transform));
+		}
+		
+		return transform;
+	}
+	
+	private static class HankelTransform
+	{
+		// the first N+1 zeros j_1 ... j_(N+1) of J_order
+		private double zeros[];
+		
+		// |J_(order+1)(j_n)|, n = 1 ... N
+		private double besselFactors[];
+		
+		// the N x N matrix T_mn = 2 J_order(j_m j_n / j_(N+1)) / (j_(N+1) |J_(order+1)(j_m)| |J_(order+1)(j_n)|);
+		// calculated only when it is first needed, as this takes O(N^2) evaluations of Bessel functions
+		private double matrix[];
+		
+		private int order, numberOfNodes;
+		
+		public HankelTransform(int order, int numberOfNodes)
+		{
+			this.order = order;
+			this.numberOfNodes = numberOfNodes;
+			
+			zeros = calculateBesselZeros(order, numberOfNodes+1);
+			
+			besselFactors = new double[numberOfNodes];
+			for(int n=0; n<numberOfNodes; n++) besselFactors[n] = Math.abs(BesselJ.value(order+1, zeros[n]));
+		}
+		
+		private synchronized double[] getMatrix()
+		{
+			if(matrix == null) calculateMatrix();
+			
+			return matrix;
+		}
+		
+		private void calculateMatrix()
+		{
+			// the matrix is symmetric, so calculate only its upper triangle; row m is calculated by thread m % nthreads
+			final double matrix[] = new double[numberOfNodes*numberOfNodes];
+			final double S = zeros[numberOfNodes];
+			final int nthreads = PixelKernelEngine.getNumberOfThreads(numberOfNodes, numberOfNodes);
+			
+			Thread[] threads = new Thread[nthreads];
+			for(int t=0; t<nthreads; t++)
+			{
+				final int firstRow = t;
+				threads[t] = new Thread(new Runnable()
+				{
+					public void run()
+					{
+						BesselJ besselJ = new BesselJ(order);
+						
+						for(int m=firstRow; m<numberOfNodes; m+=nthreads)
+						{
+							for(int n=m; n<numberOfNodes; n++)
+							{
+								double element =
+									2 * besselJ.value(zeros[m]*zeros[n]/S) / (S * besselFactors[m] * besselFactors[n]);
+								matrix[m*numberOfNodes+n] = element;
+								matrix[n*numberOfNodes+m] = element;
+							}
+						}
+					}
+				});
+				threads[t].start();
+			}
+			// wait for all the rows to be calculated, even if this thread is interrupted, so that the matrix
+			// is complete when it is kept
+			PixelKernelEngine.joinAll(threads);
+			
+			this.matrix = matrix;
+		}
+		
+		// the product of the matrix and the complex vector v, v[2*n] + i v[2*n+1]
+		public double[] transform(double v[])
+		{
+			double
+				matrix[] = getMatrix(),
+				product[] = new double[2*numberOfNodes];
+			
+			for(int m=0; m<numberOfNodes; m++)
+			{
+				double re = 0, im = 0;
+				int index = m*numberOfNodes;
+				
+				for(int n=0; n<numberOfNodes; n++, index++)
+				{
+					re += matrix[index] * v[2*n];
+					im += matrix[index] * v[2*n+1];
+				}
+				
+				product[2*m] = re;
+				product[2*m+1] = im;
+			}
+			
+			return product;
+		}
+	}
+	
+	// the first number zeros of the Bessel function J_order, for order >= 0
+	private static double[] calculateBesselZeros(int order, int number)
+	{
+		BesselJ besselJ = new BesselJ(order);
+		BrentSolver solver = new BrentSolver(1e-13);
+		double zeros[] = new double[number];
+		
+		// J_order is positive between 0 and its first zero, which is greater than order, and its zeros
+		// are more than 2 apart, so step through it in steps of 1 and look for changes of sign
+		double
+			x = Math.max(order, 0.5),
+			value = besselJ.value(x);
+		for(int n=0; n<number; )
+		{
+			double nextValue = besselJ.value(x+1);
+			
+			if((value > 0) != (nextValue > 0))
+			{
+				zeros[n++] = solver.solve(100, besselJ, x, x+1);
+			}
+			
+			x += 1;
+			value = nextValue;
+		}
+		
+		return zeros;
+	}
+}
@@ -0,0 +1,343 @@
+/* */
+
+
+package library.optics;
+
+
+import java.io.*;
+
+import javawaveoptics.utility.MathsUtilities;
+
+import library.maths.*;
+import library.util.*;
+
+
+// A light beam of the form X(x) Y(y), i.e. the outer product of a field in the x direction and a field in
+// the y direction.  Such a beam stays of this form when it passes through components that act on x and y
+// independently (spherical lenses, cylindrical lenses and slits aligned with the x or y direction, paraxial
+// propagation), so it can be simulated in terms of the two factors alone, i.e. in 1D rather than 2D.
+//
+// The factors are sampled at the same positions as the rows and columns of a LightBeamCrossSection2D of the
+// same dimensions (see ComplexField2D.getX and getY), so the beam can be turned into one by multiplying them.
+//
+// Note that propagation is paraxial, i.e. with the transfer function exp(i k deltaZ - i (k_x^2 + k_y^2) deltaZ / (2 k)),
+// as the exact transfer function, exp(i sqrt(k^2 - k_x^2 - k_y^2) deltaZ), doesn't factorise.
+
+public class SeparableLightBeam
+implements Serializable
+{
+	private static final long serialVersionUID = 4385011786902260716L;
+
+	// the number of sample points in x and y...
+	private int width, height;
+	
+	// ... the physical size they represent, and the wavelength
+	private double physicalWidth, physicalHeight, wavelength;
+	
+	// X(x_i) = xFactor[2*i] + i xFactor[2*i+1], Y(y_j) = yFactor[2*j] + i yFactor[2*j+1]
+	private double xFactor[], yFactor[];
+	
+	
+	//////////////////
+	// constructors //
+	//////////////////
+	
+	public SeparableLightBeam(int width, int height, double physicalWidth, double physicalHeight, double wavelength)
+	{
+		this.width = width;
+		this.height = height;
+		this.physicalWidth = physicalWidth;
+		this.physicalHeight = physicalHeight;
+		this.wavelength = wavelength;
+		
+		xFactor = new double[2*width];
+		yFactor = new double[2*height];
+	}
+	
+	// a beam with the sampling of the given beam
+	public SeparableLightBeam(LightBeamCrossSection2D beam)
+	{
+		this(beam.getWidth(), beam.getHeight(), beam.getPhysicalWidth(), beam.getPhysicalHeight(), beam.getWavelength());
+	}
+	
+	
+	/////////////////////////
+	// setters and getters //
+	/////////////////////////
+	
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public double getPhysicalWidth() {
+		return physicalWidth;
+	}
+
+	public double getPhysicalHeight() {
+		return physicalHeight;
+	}
+
+	public double getWavelength() {
+		return wavelength;
+	}
+
+	public double[] getXFactor() {
+		return xFactor;
+	}
+
+	public double[] getYFactor() {
+		return yFactor;
+	}
+	
+	// the positions of the sample points, as in ComplexField2D
+	public double getX(int i)
+	{
+		return (physicalWidth / width * (i - (width-1)/2.0));
+	}
+	
+	public double getY(int j)
+	{
+		return (physicalHeight / height * (j - (height-1)/2.0));
+	}
+	
+	
+	////////////////////
+	// initialisation //
+	////////////////////
+	
+	// the beam created by ComplexField2D.makeGaussian
+	public void makeGaussian(double w, double xCentre, double yCentre)
+	{
+		makeHermiteGaussian(0, 0, w, xCentre, yCentre);
+	}
+	
+	// the beam created by ComplexField2D.makeHermiteGaussian, H_n(sqrt(2) x / w0) H_m(sqrt(2) y / w0) exp(-r^2 / w0^2)
+	public void makeHermiteGaussian(int n, int m, double w0, double xCentre, double yCentre)
+	{
+		for(int i=0; i<width; i++)
+		{
+			double xOverW0 = (getX(i) - xCentre) / w0;
+			
+			xFactor[2*i] = MathsUtilities.hermiteH(n, MathsUtilities.SQRT2 * xOverW0) * Math.exp(-xOverW0*xOverW0);
+			xFactor[2*i+1] = 0;
+		}
+		
+		for(int j=0; j<height; j++)
+		{
+			double yOverW0 = (getY(j) - yCentre) / w0;
+			
+			yFactor[2*j] = MathsUtilities.hermiteH(m, MathsUtilities.SQRT2 * yOverW0) * Math.exp(-yOverW0*yOverW0);
+			yFactor[2*j+1] = 0;
+		}
+	}
+	
+	// the beam created by ComplexField2D.makeUniformPlaneWave
+	public void makeUniformPlaneWave(double xWaveNumber, double yWaveNumber)
+	{
+		for(int i=0; i<width; i++)
+		{
+			xFactor[2*i] = Math.cos(xWaveNumber*getX(i));
+			xFactor[2*i+1] = Math.sin(xWaveNumber*getX(i));
+		}
+		
+		for(int j=0; j<height; j++)
+		{
+			yFactor[2*j] = Math.cos(yWaveNumber*getY(j));
+			yFactor[2*j+1] = Math.sin(yWaveNumber*getY(j));
+		}
+	}
+	
+	
+	////////////////
+	// operations //
+	////////////////
+	
+	// paraxial propagation through a distance deltaZ, including the phase factor exp(i k deltaZ)
+	public void propagate(double deltaZ)
+	{
+		propagateParaxially(deltaZ, deltaZ);
+		multiplyFactorByExpI(xFactor, 2*Math.PI/wavelength * deltaZ);
+	}
+	
+	// paraxial propagation through different distances in x and y, i.e. multiplication of the
+	// angular spectrum by exp(-i (k_x^2 deltaZX + k_y^2 deltaZY) / (2 k)), without the phase factor exp(i k deltaZ)
+	public void propagateParaxially(double deltaZX, double deltaZY)
+	{
+		double k = 2*Math.PI/wavelength;
+		
+		if(deltaZX != 0) propagateParaxially(xFactor, width, physicalWidth, deltaZX / (2*k));
+		if(deltaZY != 0) propagateParaxially(yFactor, height, physicalHeight, deltaZY / (2*k));
+	}
+	
+	// multiply the angular spectrum of the n-element factor by exp(-i k_t^2 deltaZOver2K)
+	private static void propagateParaxially(double factor[], int n, double physicalSize, double deltaZOver2K)
+	{
+		// 1. Fourier transform the factor
+		FFT2D.transform(+1, n, 1, factor);
+		
+		// 2. multiply each element with the transfer function, and divide it by n, such that power is conserved
+		double out[] = new double[2];
+		for(int i=0; i<n; i++)
+		{
+			// the wave number represented by element i, as in ComplexField2D.getKX
+			double kT = (2*Math.PI*(((i+(n-1)/2.0) % n) - (n-1)/2.0)) / physicalSize;
+			
+			LightBeamCrossSection2D.multiplyByExpI(factor[2*i] / n, factor[2*i+1] / n, -kT*kT*deltaZOver2K, out);
+			factor[2*i] = out[0];
+			factor[2*i+1] = out[1];
+		}
+		
+		// 3. inverse Fourier transform
+		FFT2D.transform(-1, n, 1, factor);
+	}
+	
+	// the separable equivalent of LightBeamCrossSection2D.passThroughLens(f, xCentre, yCentre)
+	public void passThroughLens(double f, double xCentre, double yCentre)
+	{
+		passThroughCylindricalLens(f, true, xCentre);
+		passThroughCylindricalLens(f, false, yCentre);
+	}
+	
+	// a cylindrical lens of focal length f that focusses in x (i.e. whose axis is parallel to the y axis)
+	// or in y, with its axis through x = centre or y = centre, respectively
+	public void passThroughCylindricalLens(double f, boolean focussingInX, double centre)
+	{
+		double out[] = new double[2];
+		
+		if(focussingInX)
+		{
+			for(int i=0; i<width; i++)
+			{
+				LightBeamCrossSection2D.multiplyByExpI(xFactor[2*i], xFactor[2*i+1], LightBeamCrossSection2D.getLensPhase(f, MyMath.sqr(getX(i) - centre), wavelength), out);
+				xFactor[2*i] = out[0];
+				xFactor[2*i+1] = out[1];
+			}
+		}
+		else
+		{
+			for(int j=0; j<height; j++)
+			{
+				LightBeamCrossSection2D.multiplyByExpI(yFactor[2*j], yFactor[2*j+1], LightBeamCrossSection2D.getLensPhase(f, MyMath.sqr(getY(j) - centre), wavelength), out);
+				yFactor[2*j] = out[0];
+				yFactor[2*j+1] = out[1];
+			}
+		}
+	}
+	
+	// a slit of the given width, parallel to the y axis (i.e. limiting the beam in x) or to the x axis,
+	// centred on x = centre or y = centre, respectively
+	public void passThroughSlitAperture(double slitWidth, boolean limitingX, double centre)
+	{
+		double halfWidth = 0.5*Math.abs(slitWidth);
+		
+		if(limitingX)
+		{
+			for(int i=0; i<width; i++)
+			{
+				if(Math.abs(getX(i) - centre) > halfWidth) xFactor[2*i] = xFactor[2*i+1] = 0;
+			}
+		}
+		else
+		{
+			for(int j=0; j<height; j++)
+			{
+				if(Math.abs(getY(j) - centre) > halfWidth) yFactor[2*j] = yFactor[2*j+1] = 0;
+			}
+		}
+	}
+	
+	// the separable equivalent of LightBeamCrossSection2D.passThroughGaussianAperture
+	public void passThroughGaussianAperture(double sigma, double xCentre, double yCentre)
+	{
+		double sigma2 = sigma*sigma;
+		
+		for(int i=0; i<width; i++)
+		{
+			double factor = Math.exp(-MyMath.sqr(getX(i) - xCentre) / sigma2);
+			xFactor[2*i] *= factor;
+			xFactor[2*i+1] *= factor;
+		}
+		
+		for(int j=0; j<height; j++)
+		{
+			double factor = Math.exp(-MyMath.sqr(getY(j) - yCentre) / sigma2);
+			yFactor[2*j] *= factor;
+			yFactor[2*j+1] *= factor;
+		}
+	}
+	
+	// the equivalent of a beam expander (see BeamExpander), which scales the physical size by |magnification|,
+	// conserves power, and flips the beam for negative magnifications
+	public void magnify(double magnification)
+	{
+		physicalWidth *= Math.abs(magnification);
+		physicalHeight *= Math.abs(magnification);
+		
+		double amplitudeFactor = 1/Math.abs(magnification);
+		for(int i=0; i<2*width; i++) xFactor[i] *= amplitudeFactor;
+		
+		if(magnification < 0)
+		{
+			reverse(xFactor, width);
+			reverse(yFactor, height);
+		}
+	}
+	
+	// reverse the order of the n complex elements of factor
+	private static void reverse(double factor[], int n)
+	{
+		for(int i=0; i<n/2; i++)
+		{
+			int i2 = n-1-i;
+			double re = factor[2*i], im = factor[2*i+1];
+			factor[2*i] = factor[2*i2];
+			factor[2*i+1] = factor[2*i2+1];
+			factor[2*i2] = re;
+			factor[2*i2+1] = im;
+		}
+	}
+	
+	// multiply all elements of factor by exp(i phase)
+	private static void multiplyFactorByExpI(double factor[], double phase)
+	{
+		double out[] = new double[2];
+		for(int i=0; i<factor.length/2; i++)
+		{
+			LightBeamCrossSection2D.multiplyByExpI(factor[2*i], factor[2*i+1], phase, out);
+			factor[2*i] = out[0];
+			factor[2*i+1] = out[1];
+		}
+	}
+	
+	/**
+	 * Replaces the field in the beam by this beam, X(x) Y(y), and sets its physical size to that of this beam.
+	 * @param beam	the beam, which has to have the same dimensions as this beam
+	 */
+	public void makeField(LightBeamCrossSection2D beam)
+	{
+		if((beam.getWidth() != width) || (beam.getHeight() != height))
+			throw new SizeMismatchError("SeparableLightBeam::makeField: size mismatch");
+		
+		beam.setPhysicalWidth(physicalWidth);
+		beam.setPhysicalHeight(physicalHeight);
+		
+		double data[] = beam.getData();
+		for(int j=0; j<height; j++)
+		{
+			double
+				yRe = yFactor[2*j],
+				yIm = yFactor[2*j+1];
+			int index = 2*j*width;
+			
+			for(int i=0; i<width; i++, index+=2)
+			{
+				data[index] = xFactor[2*i]*yRe - xFactor[2*i+1]*yIm;
+				data[index+1] = xFactor[2*i]*yIm + xFactor[2*i+1]*yRe;
+			}
+		}
+	}
+}
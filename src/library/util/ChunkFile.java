@@ -0,0 +1,139 @@
+package library.util;
+
+
+import java.io.*;
+import java.nio.ByteOrder;
+
+
+/********************************************************************************
+
+   a compact, versioned binary container for large object graphs, such as
+   optical environments and lasers, whose bulk consists of arrays of doubles
+   (the amplitudes of light-beam cross-sections)
+   
+   The object graph itself is stored using Java serialisation, but objects can
+   divert large arrays, or whole sub-objects, into separately addressable chunks;
+   to do this, their writeObject method checks whether the stream is a
+   ChunkObjectOutputStream (and their readObject method correspondingly whether
+   the stream is a ChunkObjectInputStream).
+   Chunks are memory mapped when the file is read, so the data in them are read
+   from disk only when they are needed; sub-objects stored in their own chunk can
+   therefore be loaded lazily.
+   Chunks can optionally be compressed (deflate).
+   
+   File layout (all numbers are little-endian):
+   
+     magic number (8 bytes, "TIMCHUNK")
+     format version (int)
+     index of the chunk that holds the root object (int)
+     offset of the chunk table (long)
+     chunk data ...
+     chunk table: number of chunks (int), then, for each chunk,
+       offset (long), stored length in bytes (long),
+       uncompressed length in bytes (long), compression type (int)
+   
+   Files that don't start with the magic number are read as plain serialised
+   objects, so files written before the chunk format was introduced can still
+   be opened.
+
+********************************************************************************/
+
+public class ChunkFile
+{
+	public static final byte MAGIC_NUMBER[] = {'T', 'I', 'M', 'C', 'H', 'U', 'N', 'K'};
+	
+	// increase whenever the layout changes; files with a higher version number can't be read
+	public static final int FORMAT_VERSION = 1;
+	
+	public static final int HEADER_LENGTH = 8 + 4 + 4 + 8;
+	public static final int CHUNK_TABLE_ENTRY_LENGTH = 8 + 8 + 8 + 4;
+	
+	// compression types
+	public static final int COMPRESSION_NONE = 0;
+	public static final int COMPRESSION_DEFLATE = 1;
+	
+	public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+	
+	// arrays of doubles shorter than this are not worth a chunk of their own
+	public static final int MINIMUM_CHUNK_LENGTH = 1024;
+
+
+	/**
+	 * writes the object o, and everything it references, to the file
+	 * @param file
+	 * @param o
+	 * @param compress	if true, chunks get compressed
+	 * @throws IOException
+	 */
+	public static void writeObject(File file, Object o, boolean compress)
+	throws IOException
+	{
+		ChunkFileWriter writer = new ChunkFileWriter(file, compress);
+		try
+		{
+			writer.setRootChunk(writer.writeObjectChunk(o));
+			writer.close();
+		}
+		catch(IOException e)
+		{
+			writer.abort();
+			throw e;
+		}
+	}
+	
+	/**
+	 * reads the object stored in the file;
+	 * files that are not chunk files are read as plain serialised objects
+	 * @param file
+	 * @return	the object
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	public static Object readObject(File file)
+	throws IOException, ClassNotFoundException
+	{
+		if(isChunkFile(file))
+		{
+			return new ChunkFileReader(file).readRootObject();
+		}
+		
+		// legacy format
+		ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			return ois.readObject();
+		}
+		finally
+		{
+			ois.close();
+		}
+	}
+	
+	/**
+	 * @param file
+	 * @return	true if the file starts with the chunk-file magic number
+	 * @throws IOException
+	 */
+	public static boolean isChunkFile(File file)
+	throws IOException
+	{
+		DataInputStream dis = new DataInputStream(new FileInputStream(file));
+		try
+		{
+			byte magicNumber[] = new byte[MAGIC_NUMBER.length];
+			dis.readFully(magicNumber);
+			for(int i=0; i<MAGIC_NUMBER.length; i++)
+				if(magicNumber[i] != MAGIC_NUMBER[i]) return false;
+			return true;
+		}
+		catch(EOFException e)
+		{
+			// too short to be a chunk file
+			return false;
+		}
+		finally
+		{
+			dis.close();
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package library.util;
+
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.WeakHashMap;
+import java.util.zip.InflaterInputStream;
+
+
+/********************************************************************************
+
+   reads a chunk file (see ChunkFile)
+   
+   All chunks are memory mapped when the reader is constructed, and the file is
+   closed again; the data in a chunk are read from disk only when the chunk is read.
+   The reader (and with it the mapping) therefore needs to be kept by anything
+   that wants to read chunks later, e.g. to load data lazily.
+   
+   As long as a file is mapped, some systems (e.g. Windows) don't allow it to be
+   deleted or replaced, so before a file is overwritten, releaseFile(file) copies
+   the chunks of all readers of that file into memory.
+
+********************************************************************************/
+
+public class ChunkFileReader
+{
+	// number of doubles that get converted from bytes in one go
+	private static final int BLOCK_LENGTH = 64*1024;
+	
+	private File file;
+	private int formatVersion, rootChunk;
+	
+	// the memory-mapped chunks, and their uncompressed lengths and compression types
+	private ByteBuffer chunks[];
+	private long uncompressedLengths[];
+	private int compressionTypes[];
+	
+	// all the readers that haven't been garbage-collected yet
+	private static WeakHashMap<ChunkFileReader, Object> readers = new WeakHashMap<ChunkFileReader, Object>();
+
+
+	public ChunkFileReader(File file)
+	throws IOException
+	{
+		this.file = file;
+		
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try
+		{
+			FileChannel channel = randomAccessFile.getChannel();
+			
+			// header
+			ByteBuffer header = readFully(channel, 0, ChunkFile.HEADER_LENGTH);
+			for(int i=0; i<ChunkFile.MAGIC_NUMBER.length; i++)
+				if(header.get() != ChunkFile.MAGIC_NUMBER[i])
+					throw new IOException(file + " is not a chunk file.");
+			formatVersion = header.getInt();
+			if(formatVersion > ChunkFile.FORMAT_VERSION)
+				throw new IOException(file + " has format version " + formatVersion + 
+						", but only versions up to " + ChunkFile.FORMAT_VERSION + " can be read.");
+			rootChunk = header.getInt();
+			long chunkTableOffset = header.getLong();
+			
+			// chunk table
+			int numberOfChunks = readFully(channel, chunkTableOffset, 4).getInt();
+			ByteBuffer table = readFully(channel, chunkTableOffset + 4, numberOfChunks*ChunkFile.CHUNK_TABLE_ENTRY_LENGTH);
+			chunks = new ByteBuffer[numberOfChunks];
+			uncompressedLengths = new long[numberOfChunks];
+			compressionTypes = new int[numberOfChunks];
+			for(int i=0; i<numberOfChunks; i++)
+			{
+				long offset = table.getLong();
+				long storedLength = table.getLong();
+				uncompressedLengths[i] = table.getLong();
+				compressionTypes[i] = table.getInt();
+				if((compressionTypes[i] != ChunkFile.COMPRESSION_NONE) && (compressionTypes[i] != ChunkFile.COMPRESSION_DEFLATE))
+					throw new IOException("Chunk " + i + " of " + file + " has unknown compression type " + compressionTypes[i] + ".");
+				
+				// the mapping remains valid after the file has been closed
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, storedLength);
+			}
+		}
+		finally
+		{
+			randomAccessFile.close();
+		}
+		
+		synchronized(ChunkFileReader.class)
+		{
+			readers.put(this, null);
+		}
+	}
+	
+	/**
+	 * copies the chunks of all readers of the given file from the mapped file into memory,
+	 * so that the file isn't needed any more and can be replaced; the mappings themselves
+	 * are only released once they have been garbage-collected
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void releaseFile(File file)
+	throws IOException
+	{
+		ArrayList<ChunkFileReader> readersOfFile = new ArrayList<ChunkFileReader>();
+		synchronized(ChunkFileReader.class)
+		{
+			for(ChunkFileReader reader : readers.keySet())
+				if(reader.file.getCanonicalFile().equals(file.getCanonicalFile())) readersOfFile.add(reader);
+		}
+		
+		for(ChunkFileReader reader : readersOfFile) reader.copyChunksIntoMemory();
+	}
+	
+	private synchronized void copyChunksIntoMemory()
+	{
+		for(int i=0; i<chunks.length; i++)
+		{
+			if(chunks[i].isDirect())
+			{
+				ByteBuffer copy = ByteBuffer.allocate(chunks[i].capacity());
+				copy.put(chunks[i].duplicate());
+				copy.flip();
+				chunks[i] = copy;
+			}
+		}
+	}
+	
+	public File getFile()
+	{
+		return file;
+	}
+	
+	public int getFormatVersion()
+	{
+		return formatVersion;
+	}
+	
+	public int getNumberOfChunks()
+	{
+		return chunks.length;
+	}
+	
+	/**
+	 * @param index
+	 * @return	the array of doubles stored in the chunk with the given index
+	 * @throws IOException
+	 */
+	public double[] readDoubleChunk(int index)
+	throws IOException
+	{
+		checkIndex(index);
+		double a[] = new double[(int)(uncompressedLengths[index] / 8)];
+		
+		if(compressionTypes[index] == ChunkFile.COMPRESSION_NONE)
+		{
+			// straight from the mapped file
+			DoubleBuffer doubles = getChunk(index).order(ChunkFile.BYTE_ORDER).asDoubleBuffer();
+			doubles.get(a);
+		}
+		else
+		{
+			DataInputStream in = new DataInputStream(getChunkInputStream(index));
+			byte bytes[] = new byte[8*Math.min(BLOCK_LENGTH, a.length)];
+			ByteBuffer block = ByteBuffer.wrap(bytes).order(ChunkFile.BYTE_ORDER);
+			for(int i=0; i<a.length; i+=BLOCK_LENGTH)
+			{
+				int n = Math.min(BLOCK_LENGTH, a.length - i);
+				in.readFully(bytes, 0, 8*n);
+				block.clear();
+				block.asDoubleBuffer().get(a, i, n);
+			}
+			in.close();
+		}
+		
+		return a;
+	}
+	
+	/**
+	 * @param index
+	 * @return	the object stored in the chunk with the given index
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	public Object readObjectChunk(int index)
+	throws IOException, ClassNotFoundException
+	{
+		checkIndex(index);
+		ChunkObjectInputStream ois = new ChunkObjectInputStream(this, new BufferedInputStream(getChunkInputStream(index)));
+		try
+		{
+			return ois.readObject();
+		}
+		finally
+		{
+			ois.close();
+		}
+	}
+	
+	public Object readRootObject()
+	throws IOException, ClassNotFoundException
+	{
+		return readObjectChunk(rootChunk);
+	}
+	
+	
+	//////// internal methods ////////
+
+	private void checkIndex(int index)
+	throws IOException
+	{
+		if((index < 0) || (index >= chunks.length))
+			throw new IOException("No chunk " + index + " in " + file + ".");
+	}
+	
+	// a buffer of its own, so that it can be read by several threads at once
+	private synchronized ByteBuffer getChunk(int index)
+	{
+		return chunks[index].duplicate();
+	}
+	
+	private InputStream getChunkInputStream(int index)
+	{
+		InputStream in = new ByteBufferInputStream(getChunk(index));
+		if(compressionTypes[index] == ChunkFile.COMPRESSION_DEFLATE) in = new InflaterInputStream(in);
+		return in;
+	}
+	
+	private static ByteBuffer readFully(FileChannel channel, long position, int length)
+	throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ChunkFile.BYTE_ORDER);
+		while(buffer.hasRemaining())
+		{
+			if(channel.read(buffer, position + buffer.position()) < 0)
+				throw new EOFException("Unexpected end of chunk file.");
+		}
+		buffer.flip();
+		return buffer;
+	}
+	
+	/**
+	 * an InputStream that reads from a (memory-mapped) ByteBuffer
+	 */
+	private static class ByteBufferInputStream extends InputStream
+	{
+		private ByteBuffer buffer;
+		
+		public ByteBufferInputStream(ByteBuffer buffer)
+		{
+			this.buffer = buffer;
+		}
+		
+		@Override
+		public int read()
+		{
+			return buffer.hasRemaining()?(buffer.get() & 0xff):-1;
+		}
+		
+		@Override
+		public int read(byte b[], int offset, int length)
+		{
+			if(length == 0) return 0;
+			if(!buffer.hasRemaining()) return -1;
+			int n = Math.min(length, buffer.remaining());
+			buffer.get(b, offset, n);
+			return n;
+		}
+		
+		@Override
+		public int available()
+		{
+			return buffer.remaining();
+		}
+	}
+}
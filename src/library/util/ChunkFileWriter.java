@@ -0,0 +1,261 @@
+package library.util;
+
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Vector;
+import java.util.zip.Deflater;
+
+
+/********************************************************************************
+
+   writes a chunk file (see ChunkFile)
+   
+   The file is first written under a temporary name and only moved in place of
+   any existing file of the same name when it is complete, so that the existing
+   file, which might still be memory mapped by a ChunkFileReader, isn't
+   overwritten while it is being read.  If the move fails, the temporary file is
+   kept, so that the data aren't lost.
+
+********************************************************************************/
+
+public class ChunkFileWriter
+{
+	// number of doubles that get converted to bytes in one go
+	private static final int BLOCK_LENGTH = 64*1024;
+	
+	private File file, temporaryFile;
+	private RandomAccessFile randomAccessFile;
+	private FileChannel channel;
+	private boolean compress;
+	
+	// chunk table; each entry is a long[] {offset, stored length, uncompressed length, compression type}
+	private Vector<long[]> chunkTable = new Vector<long[]>();
+	private int rootChunk = -1;
+	
+	// state of the chunk currently being written
+	private long chunkOffset, chunkUncompressedLength;
+	private Deflater deflater;
+	private byte deflaterOutput[];
+
+
+	public ChunkFileWriter(File file, boolean compress)
+	throws IOException
+	{
+		this.file = file;
+		this.compress = compress;
+		
+		temporaryFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+		randomAccessFile = new RandomAccessFile(temporaryFile, "rw");
+		randomAccessFile.setLength(0);
+		channel = randomAccessFile.getChannel();
+		
+		// leave space for the header, which is written when the file is closed
+		channel.position(ChunkFile.HEADER_LENGTH);
+		
+		if(compress)
+		{
+			deflater = new Deflater(Deflater.BEST_SPEED);
+			deflaterOutput = new byte[8*BLOCK_LENGTH];
+		}
+	}
+	
+	/**
+	 * writes the array a into a new chunk
+	 * @param a
+	 * @return	the index of the chunk
+	 * @throws IOException
+	 */
+	public synchronized int writeDoubleChunk(double a[])
+	throws IOException
+	{
+		startChunk();
+		ByteBuffer block = ByteBuffer.allocate(8*Math.min(BLOCK_LENGTH, a.length)).order(ChunkFile.BYTE_ORDER);
+		for(int i=0; i<a.length; i+=BLOCK_LENGTH)
+		{
+			int n = Math.min(BLOCK_LENGTH, a.length - i);
+			block.clear();
+			block.asDoubleBuffer().put(a, i, n);
+			block.limit(8*n);
+			writeToChunk(block);
+		}
+		return endChunk();
+	}
+	
+	/**
+	 * serialises the object o into a new chunk;
+	 * while it is being serialised, o and the objects it references can write further chunks
+	 * @param o
+	 * @return	the index of the chunk
+	 * @throws IOException
+	 */
+	public synchronized int writeObjectChunk(Object o)
+	throws IOException
+	{
+		// serialise the object first; this might write other chunks
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ChunkObjectOutputStream oos = new ChunkObjectOutputStream(this, baos);
+		oos.writeObject(o);
+		oos.close();
+		
+		startChunk();
+		writeToChunk(ByteBuffer.wrap(baos.toByteArray()));
+		return endChunk();
+	}
+	
+	public void setRootChunk(int rootChunk)
+	{
+		this.rootChunk = rootChunk;
+	}
+	
+	/**
+	 * writes the chunk table and the header, and replaces any existing file of
+	 * the same name with the file written
+	 * @throws IOException
+	 */
+	public synchronized void close()
+	throws IOException
+	{
+		if((rootChunk < 0) || (rootChunk >= chunkTable.size()))
+			throw new IOException("No root object has been written.");
+		
+		// chunk table
+		long chunkTableOffset = channel.position();
+		ByteBuffer table = ByteBuffer.allocate(4 + chunkTable.size()*ChunkFile.CHUNK_TABLE_ENTRY_LENGTH).order(ChunkFile.BYTE_ORDER);
+		table.putInt(chunkTable.size());
+		for(long entry[] : chunkTable)
+		{
+			table.putLong(entry[0]);
+			table.putLong(entry[1]);
+			table.putLong(entry[2]);
+			table.putInt((int)entry[3]);
+		}
+		table.flip();
+		writeFully(table);
+		
+		// header
+		ByteBuffer header = ByteBuffer.allocate(ChunkFile.HEADER_LENGTH).order(ChunkFile.BYTE_ORDER);
+		header.put(ChunkFile.MAGIC_NUMBER);
+		header.putInt(ChunkFile.FORMAT_VERSION);
+		header.putInt(rootChunk);
+		header.putLong(chunkTableOffset);
+		header.flip();
+		channel.position(0);
+		writeFully(header);
+		
+		randomAccessFile.close();
+		if(deflater != null) deflater.end();
+		
+		// replace the file, first making sure no reader still needs it
+		ChunkFileReader.releaseFile(file);
+		try
+		{
+			try
+			{
+				moveTemporaryFile();
+			}
+			catch(IOException e)
+			{
+				// the mappings of the old file might not have been garbage-collected yet, which
+				// stops the file from being replaced on some systems; try once more afterwards
+				System.gc();
+				moveTemporaryFile();
+			}
+		}
+		catch(IOException e)
+		{
+			throw new IOException("Unable to replace " + file + "; the data have been saved in " + temporaryFile + " instead.", e);
+		}
+	}
+	
+	private void moveTemporaryFile()
+	throws IOException
+	{
+		try
+		{
+			Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(AtomicMoveNotSupportedException e)
+		{
+			Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	/**
+	 * closes and deletes the partially written file, leaving any existing file unchanged
+	 */
+	public synchronized void abort()
+	{
+		try
+		{
+			randomAccessFile.close();
+		}
+		catch(IOException e)
+		{
+			e.printStackTrace();
+		}
+		if(deflater != null) deflater.end();
+		temporaryFile.delete();
+	}
+	
+	
+	//////// writing chunks ////////
+
+	private void startChunk()
+	throws IOException
+	{
+		chunkOffset = channel.position();
+		chunkUncompressedLength = 0;
+		if(compress) deflater.reset();
+	}
+	
+	private void writeToChunk(ByteBuffer block)
+	throws IOException
+	{
+		chunkUncompressedLength += block.remaining();
+		if(compress)
+		{
+			deflater.setInput(block.array(), block.arrayOffset() + block.position(), block.remaining());
+			while(!deflater.needsInput()) writeDeflaterOutput();
+		}
+		else
+		{
+			writeFully(block);
+		}
+	}
+	
+	private int endChunk()
+	throws IOException
+	{
+		if(compress)
+		{
+			deflater.finish();
+			while(!deflater.finished()) writeDeflaterOutput();
+		}
+		
+		chunkTable.add(new long[] {
+				chunkOffset,
+				channel.position() - chunkOffset,
+				chunkUncompressedLength,
+				compress?ChunkFile.COMPRESSION_DEFLATE:ChunkFile.COMPRESSION_NONE
+			});
+		return chunkTable.size() - 1;
+	}
+	
+	private void writeDeflaterOutput()
+	throws IOException
+	{
+		int n = deflater.deflate(deflaterOutput);
+		if(n > 0) writeFully(ByteBuffer.wrap(deflaterOutput, 0, n));
+	}
+	
+	private void writeFully(ByteBuffer buffer)
+	throws IOException
+	{
+		while(buffer.hasRemaining()) channel.write(buffer);
+	}
+}
@@ -0,0 +1,43 @@
+package library.util;
+
+
+import java.io.*;
+
+
+/********************************************************************************
+
+   the object stream from which objects are deserialised when they are read
+   from a chunk file (see ChunkFile)
+
+********************************************************************************/
+
+public class ChunkObjectInputStream extends ObjectInputStream
+{
+	private ChunkFileReader reader;
+
+	public ChunkObjectInputStream(ChunkFileReader reader, InputStream in)
+	throws IOException
+	{
+		super(in);
+		this.reader = reader;
+	}
+	
+	public ChunkFileReader getChunkFileReader()
+	{
+		return reader;
+	}
+	
+	/**
+	 * reads an array written with ChunkObjectOutputStream.writeDoubleArray(double[])
+	 * @return	the array, or null
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	public double[] readDoubleArray()
+	throws IOException, ClassNotFoundException
+	{
+		int chunk = readInt();
+		if(chunk >= 0) return reader.readDoubleChunk(chunk);
+		else return (double[])readObject();
+	}
+}
@@ -0,0 +1,51 @@
+package library.util;
+
+
+import java.io.*;
+
+
+/********************************************************************************
+
+   the object stream into which objects are serialised when they are written
+   to a chunk file (see ChunkFile); objects can use it to store large arrays,
+   or sub-objects, in separate chunks
+
+********************************************************************************/
+
+public class ChunkObjectOutputStream extends ObjectOutputStream
+{
+	private ChunkFileWriter writer;
+
+	public ChunkObjectOutputStream(ChunkFileWriter writer, OutputStream out)
+	throws IOException
+	{
+		super(out);
+		this.writer = writer;
+	}
+	
+	public ChunkFileWriter getChunkFileWriter()
+	{
+		return writer;
+	}
+	
+	/**
+	 * Writes the array a, which can be null, such that it can be read with
+	 * ChunkObjectInputStream.readDoubleArray().
+	 * Long arrays go into a chunk of their own, short ones into this stream.
+	 * @param a
+	 * @throws IOException
+	 */
+	public void writeDoubleArray(double a[])
+	throws IOException
+	{
+		if((a != null) && (a.length >= ChunkFile.MINIMUM_CHUNK_LENGTH))
+		{
+			writeInt(writer.writeDoubleChunk(a));
+		}
+		else
+		{
+			writeInt(-1);
+			writeObject(a);
+		}
+	}
+}
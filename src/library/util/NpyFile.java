@@ -0,0 +1,321 @@
+package library.util;
+
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/********************************************************************************
+
+   reading and writing of complex (and real) 2D arrays in NumPy's .npy format
+   (see the numpy.lib.format documentation), so that fields can be exchanged
+   with NumPy and other tools that understand the format
+   
+   A width x height complex array is stored with shape (height, width), i.e.
+   row by row, with data type complex128 ('<c16'); this is exactly the order of
+   the data in a ComplexArray2D, so the data are copied as a block into the
+   memory-mapped file, and vice versa.
+   Arrays of type complex64, float64 and float32 (of either byte order, in
+   C or Fortran order) can be read, too; real arrays are read as complex
+   arrays with zero imaginary part.
+
+********************************************************************************/
+
+public class NpyFile
+{
+	private static final byte MAGIC_STRING[] = {(byte)0x93, 'N', 'U', 'M', 'P', 'Y'};
+	
+	// the length of the header, including the magic string, is a multiple of this
+	private static final int HEADER_ALIGNMENT = 64;
+	
+	// the largest region that gets memory-mapped in one go
+	private static final int MAXIMUM_MAPPING_LENGTH = 1 << 30;
+	
+	private static final Pattern DESCR_PATTERN = Pattern.compile("['\"]descr['\"]\\s*:\\s*['\"]([^'\"]*)['\"]");
+	private static final Pattern FORTRAN_ORDER_PATTERN = Pattern.compile("['\"]fortran_order['\"]\\s*:\\s*(True|False)");
+	private static final Pattern SHAPE_PATTERN = Pattern.compile("['\"]shape['\"]\\s*:\\s*\\(([^)]*)\\)");
+	
+	private File file;
+	
+	// offset of the data in the file
+	private long dataOffset;
+	
+	// data type
+	private String descr;
+	private ByteOrder byteOrder;
+	private boolean complex;
+	private int scalarSize;	// size of the real (and imaginary) part of each element, in bytes (4 or 8)
+	
+	// array shape
+	private boolean fortranOrder;
+	private int width, height;
+	
+
+	/**
+	 * reads the header of a .npy file
+	 * @param file
+	 * @throws IOException	if the file is not a .npy file, or if it contains an array of an unsupported type or shape
+	 */
+	public NpyFile(File file)
+	throws IOException
+	{
+		this.file = file;
+		
+		DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			byte magicString[] = new byte[MAGIC_STRING.length];
+			dis.readFully(magicString);
+			for(int i=0; i<MAGIC_STRING.length; i++)
+				if(magicString[i] != MAGIC_STRING[i])
+					throw new IOException(file + " is not a .npy file.");
+			
+			int majorVersion = dis.readUnsignedByte();
+			dis.readUnsignedByte();	// minor version
+			
+			// header length, little-endian; two bytes in version 1, four bytes in later versions
+			int headerLength;
+			if(majorVersion == 1)
+			{
+				headerLength = dis.readUnsignedByte() | (dis.readUnsignedByte() << 8);
+				dataOffset = MAGIC_STRING.length + 2 + 2 + headerLength;
+			}
+			else
+			{
+				headerLength = dis.readUnsignedByte() | (dis.readUnsignedByte() << 8) | (dis.readUnsignedByte() << 16) | (dis.readUnsignedByte() << 24);
+				dataOffset = MAGIC_STRING.length + 2 + 4 + headerLength;
+			}
+			
+			byte headerBytes[] = new byte[headerLength];
+			dis.readFully(headerBytes);
+			parseHeader(new String(headerBytes, (majorVersion >= 3)?"UTF-8":"ISO-8859-1"));
+		}
+		catch(EOFException e)
+		{
+			throw new IOException(file + " is not a .npy file.");
+		}
+		finally
+		{
+			dis.close();
+		}
+		
+		if(file.length() < dataOffset + (long)width*height*(complex?2:1)*scalarSize)
+			throw new IOException(file + " is too short for an array of shape (" + height + ", " + width + ").");
+	}
+	
+	public File getFile()
+	{
+		return file;
+	}
+	
+	// the number of columns
+	public int getWidth()
+	{
+		return width;
+	}
+	
+	// the number of rows
+	public int getHeight()
+	{
+		return height;
+	}
+	
+	// NumPy data-type string, e.g. "<c16"
+	public String getDataType()
+	{
+		return descr;
+	}
+	
+	public boolean isComplex()
+	{
+		return complex;
+	}
+	
+	/**
+	 * reads the array
+	 * @return	the array elements, in the form used by ComplexArray2D, i.e. row by row, with
+	 * the real and imaginary parts of each element in consecutive locations
+	 * @throws IOException
+	 */
+	public double[] readComplexData()
+	throws IOException
+	{
+		int numberOfScalars = width*height*(complex?2:1);
+		double scalars[] = new double[numberOfScalars];
+		
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try
+		{
+			FileChannel channel = randomAccessFile.getChannel();
+			
+			int scalarsPerMapping = MAXIMUM_MAPPING_LENGTH / scalarSize;
+			float floats[] = (scalarSize == 4)?new float[Math.min(scalarsPerMapping, numberOfScalars)]:null;
+			for(int i=0; i<numberOfScalars; i+=scalarsPerMapping)
+			{
+				int n = Math.min(scalarsPerMapping, numberOfScalars - i);
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + (long)i*scalarSize, (long)n*scalarSize);
+				buffer.order(byteOrder);
+				if(scalarSize == 8)
+				{
+					buffer.asDoubleBuffer().get(scalars, i, n);
+				}
+				else
+				{
+					buffer.asFloatBuffer().get(floats, 0, n);
+					for(int k=0; k<n; k++) scalars[i+k] = floats[k];
+				}
+			}
+		}
+		finally
+		{
+			randomAccessFile.close();
+		}
+		
+		// already in the right form?
+		if(complex && (!fortranOrder || (width == 1) || (height == 1))) return scalars;
+		
+		double data[] = new double[2*width*height];
+		for(int y=0; y<height; y++)
+			for(int x=0; x<width; x++)
+			{
+				int e = fortranOrder?(x*height + y):(y*width + x);
+				int index = 2*(y*width + x);
+				if(complex)
+				{
+					data[index] = scalars[2*e];
+					data[index+1] = scalars[2*e+1];
+				}
+				else
+				{
+					data[index] = scalars[e];
+				}
+			}
+		return data;
+	}
+	
+	/**
+	 * writes a complex array as a .npy file of shape (height, width) and data type complex128
+	 * @param file
+	 * @param data	the array elements, in the form used by ComplexArray2D
+	 * @param width
+	 * @param height
+	 * @throws IOException
+	 */
+	public static void writeComplexData(File file, double data[], int width, int height)
+	throws IOException
+	{
+		if(data.length != 2*width*height)
+			throw new SizeMismatchError("NpyFile::writeComplexData: data array has length " + data.length + ", not 2*" + width + "*" + height);
+		
+		byte header[] = createHeader("<c16", height, width);
+		
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try
+		{
+			randomAccessFile.setLength(header.length + 8L*data.length);
+			FileChannel channel = randomAccessFile.getChannel();
+			
+			ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+			while(headerBuffer.hasRemaining()) channel.write(headerBuffer, headerBuffer.position());
+			
+			int doublesPerMapping = MAXIMUM_MAPPING_LENGTH / 8;
+			for(int i=0; i<data.length; i+=doublesPerMapping)
+			{
+				int n = Math.min(doublesPerMapping, data.length - i);
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, header.length + 8L*i, 8L*n);
+				buffer.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().put(data, i, n);
+				buffer.force();
+			}
+		}
+		finally
+		{
+			randomAccessFile.close();
+		}
+	}
+	
+	
+	//////// header ////////
+
+	private static byte[] createHeader(String descr, int rows, int columns)
+	{
+		StringBuffer dictionary = new StringBuffer(
+				"{'descr': '" + descr + "', 'fortran_order': False, 'shape': (" + rows + ", " + columns + "), }"
+			);
+		
+		// pad with spaces, and terminate with a newline, such that the data are aligned
+		int preambleLength = MAGIC_STRING.length + 2 + 2;
+		while((preambleLength + dictionary.length() + 1) % HEADER_ALIGNMENT != 0) dictionary.append(' ');
+		dictionary.append('\n');
+		
+		byte header[] = new byte[preambleLength + dictionary.length()];
+		System.arraycopy(MAGIC_STRING, 0, header, 0, MAGIC_STRING.length);
+		header[MAGIC_STRING.length] = 1;	// version 1.0
+		header[MAGIC_STRING.length+1] = 0;
+		header[MAGIC_STRING.length+2] = (byte)(dictionary.length() & 0xff);
+		header[MAGIC_STRING.length+3] = (byte)(dictionary.length() >> 8);
+		for(int i=0; i<dictionary.length(); i++)
+			header[preambleLength+i] = (byte)dictionary.charAt(i);
+		
+		return header;
+	}
+	
+	private void parseHeader(String header)
+	throws IOException
+	{
+		Matcher descrMatcher = DESCR_PATTERN.matcher(header);
+		Matcher fortranOrderMatcher = FORTRAN_ORDER_PATTERN.matcher(header);
+		Matcher shapeMatcher = SHAPE_PATTERN.matcher(header);
+		if(!descrMatcher.find() || !fortranOrderMatcher.find() || !shapeMatcher.find())
+			throw new IOException("Unable to understand the header of " + file + ": " + header);
+		
+		// data type
+		descr = descrMatcher.group(1);
+		switch(descr.length() > 0?descr.charAt(0):' ')
+		{
+		case '<':
+			byteOrder = ByteOrder.LITTLE_ENDIAN;
+			break;
+		case '>':
+			byteOrder = ByteOrder.BIG_ENDIAN;
+			break;
+		case '=':
+			byteOrder = ByteOrder.nativeOrder();
+			break;
+		default:
+			throw new IOException("Unsupported data type " + descr + " in " + file + ".");
+		}
+		String type = descr.substring(1);
+		if(type.equals("c16")) { complex = true; scalarSize = 8; }
+		else if(type.equals("c8")) { complex = true; scalarSize = 4; }
+		else if(type.equals("f8")) { complex = false; scalarSize = 8; }
+		else if(type.equals("f4")) { complex = false; scalarSize = 4; }
+		else throw new IOException("Unsupported data type " + descr + " in " + file + "; only complex128, complex64, float64 and float32 arrays can be read.");
+		
+		fortranOrder = fortranOrderMatcher.group(1).equals("True");
+		
+		// shape; a 1D array is read as a single row
+		String dimensions[] = shapeMatcher.group(1).split(",");
+		int shape[] = new int[dimensions.length];
+		int numberOfDimensions = 0;
+		for(int i=0; i<dimensions.length; i++)
+		{
+			if(dimensions[i].trim().length() > 0) shape[numberOfDimensions++] = Integer.parseInt(dimensions[i].trim());
+		}
+		if(numberOfDimensions == 1)
+		{
+			height = 1;
+			width = shape[0];
+		}
+		else if(numberOfDimensions == 2)
+		{
+			height = shape[0];
+			width = shape[1];
+		}
+		else throw new IOException(file + " contains a " + numberOfDimensions + "-dimensional array; only 1D and 2D arrays can be read.");
+	}
+}